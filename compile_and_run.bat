@@ -23,7 +23,7 @@ echo MySQL JDBC driver found: %MYSQL_CONNECTOR%
 
 echo.
 echo Step 3: Compiling Java files...
-javac -cp %MYSQL_CONNECTOR% -d build src/main/java/com/hospital/*.java src/main/java/com/hospital/dao/*.java src/main/java/com/hospital/model/*.java src/main/java/com/hospital/ui/*.java src/main/java/com/hospital/util/*.java
+javac -cp %MYSQL_CONNECTOR% -d build src/main/java/com/hospital/*.java src/main/java/com/hospital/analytics/*.java src/main/java/com/hospital/api/*.java src/main/java/com/hospital/dao/*.java src/main/java/com/hospital/model/*.java src/main/java/com/hospital/scheduling/*.java src/main/java/com/hospital/service/*.java src/main/java/com/hospital/ui/*.java src/main/java/com/hospital/util/*.java src/main/java/com/hospital/tools/*.java
 
 if %errorlevel% neq 0 (
     echo.
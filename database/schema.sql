@@ -17,7 +17,10 @@ CREATE TABLE patients (
     emergency_contact VARCHAR(15),
     admission_date DATE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0,
+    INDEX idx_patients_name (name),
+    INDEX idx_patients_updated_at (updated_at)
 );
 
 -- Create doctors table
@@ -33,7 +36,11 @@ CREATE TABLE doctors (
     available_days VARCHAR(50),
     available_time VARCHAR(50),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0,
+    INDEX idx_doctors_name (name),
+    INDEX idx_doctors_specialization (specialization, name),
+    INDEX idx_doctors_updated_at (updated_at)
 );
 
 -- Create appointments table
@@ -43,14 +50,46 @@ CREATE TABLE appointments (
     doctor_id INT NOT NULL,
     appointment_date DATE NOT NULL,
     appointment_time TIME NOT NULL,
+    duration_minutes SMALLINT NOT NULL DEFAULT 30,
     status ENUM('Scheduled', 'Completed', 'Cancelled', 'No Show') DEFAULT 'Scheduled',
     notes TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0,
+    INDEX idx_appointments_date_time (appointment_date, appointment_time),
+    INDEX idx_appointments_doctor_slot (doctor_id, appointment_date, appointment_time, status, duration_minutes),
+    INDEX idx_appointments_status_date (status, appointment_date),
+    INDEX idx_appointments_updated_at (updated_at),
     FOREIGN KEY (patient_id) REFERENCES patients(patient_id) ON DELETE CASCADE,
     FOREIGN KEY (doctor_id) REFERENCES doctors(doctor_id) ON DELETE CASCADE
 );
 
+-- Create appointments_archive table (finished appointments moved out of
+-- appointments by the end-of-day job; no foreign keys, patient and doctor
+-- deletes clean it up explicitly). Partitioned by month; the end-of-day job
+-- splits upcoming months off p_future. appointments itself cannot be
+-- partitioned because MySQL does not allow foreign keys on partitioned tables.
+CREATE TABLE appointments_archive (
+    appointment_id INT NOT NULL,
+    patient_id INT NOT NULL,
+    doctor_id INT NOT NULL,
+    appointment_date DATE NOT NULL,
+    appointment_time TIME NOT NULL,
+    duration_minutes SMALLINT NOT NULL DEFAULT 30,
+    status ENUM('Scheduled', 'Completed', 'Cancelled', 'No Show') NOT NULL,
+    notes TEXT,
+    created_at TIMESTAMP NULL,
+    updated_at TIMESTAMP NULL,
+    version INT NOT NULL DEFAULT 0,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (appointment_id, appointment_date),
+    INDEX idx_archive_patient_date (patient_id, appointment_date),
+    INDEX idx_archive_doctor_date (doctor_id, appointment_date)
+) ROW_FORMAT=COMPRESSED
+PARTITION BY RANGE COLUMNS (appointment_date) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
 -- Create bills table
 CREATE TABLE bills (
     bill_id INT AUTO_INCREMENT PRIMARY KEY,
@@ -68,6 +107,60 @@ CREATE TABLE bills (
     FOREIGN KEY (appointment_id) REFERENCES appointments(appointment_id) ON DELETE SET NULL
 );
 
+-- Create waitlist table (patients waiting for a slot with a given doctor,
+-- or with any doctor of a specialization when doctor_id is NULL; served by
+-- urgency, then by time waited, when an appointment is cancelled)
+CREATE TABLE waitlist (
+    waitlist_id INT AUTO_INCREMENT PRIMARY KEY,
+    patient_id INT NOT NULL,
+    doctor_id INT,
+    specialization VARCHAR(100) NOT NULL,
+    urgency TINYINT NOT NULL DEFAULT 3,
+    duration_minutes SMALLINT NOT NULL DEFAULT 30,
+    earliest_date DATE,
+    latest_date DATE,
+    notes TEXT,
+    status ENUM('Waiting', 'Booked', 'Removed') NOT NULL DEFAULT 'Waiting',
+    appointment_id INT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version INT NOT NULL DEFAULT 0,
+    INDEX idx_waitlist_doctor_queue (status, doctor_id, urgency, created_at),
+    INDEX idx_waitlist_specialization_queue (status, specialization, urgency, created_at),
+    FOREIGN KEY (patient_id) REFERENCES patients(patient_id) ON DELETE CASCADE,
+    FOREIGN KEY (doctor_id) REFERENCES doctors(doctor_id) ON DELETE SET NULL,
+    FOREIGN KEY (appointment_id) REFERENCES appointments(appointment_id) ON DELETE SET NULL
+);
+
+-- Create OPD token journal: walk-in tokens per doctor per day, append-only
+CREATE TABLE opd_token_events (
+    event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    token_date DATE NOT NULL,
+    doctor_id INT NOT NULL,
+    token_number INT NOT NULL,
+    event_type ENUM('Issued', 'Called', 'Done') NOT NULL,
+    patient_name VARCHAR(100),
+    event_time DATETIME NOT NULL,
+    INDEX idx_opd_token_events_day (token_date, event_id),
+    FOREIGN KEY (doctor_id) REFERENCES doctors(doctor_id) ON DELETE CASCADE
+);
+
+-- Create reminder outbox: reminders that have come due, waiting to be sent
+CREATE TABLE reminder_outbox (
+    outbox_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    appointment_id INT NOT NULL,
+    remind_at DATETIME NOT NULL,
+    recipient VARCHAR(15),
+    message TEXT NOT NULL,
+    status ENUM('Pending', 'Sent', 'Failed') NOT NULL DEFAULT 'Pending',
+    attempts TINYINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP NULL,
+    UNIQUE KEY uk_reminder_outbox_appointment (appointment_id, remind_at),
+    INDEX idx_reminder_outbox_pending (status, outbox_id),
+    FOREIGN KEY (appointment_id) REFERENCES appointments(appointment_id) ON DELETE CASCADE
+);
+
 -- Create users table for login system
 CREATE TABLE users (
     user_id INT AUTO_INCREMENT PRIMARY KEY,
@@ -81,9 +174,23 @@ CREATE TABLE users (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
+-- Create change_log table (change feed tailed by every client, also used
+-- to find deleted rows during incremental table refresh)
+CREATE TABLE change_log (
+    change_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(30) NOT NULL,
+    record_id INT NOT NULL,
+    operation CHAR(1) NOT NULL,
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_change_log_table_time (table_name, changed_at),
+    INDEX idx_change_log_time (changed_at)
+);
+
 -- Insert default admin user (password: admin123)
+-- password holds a salted PBKDF2 hash (see PasswordHasher); this one is 'admin123'.
+-- Plaintext passwords left from older versions are replaced by a hash on the next login.
 INSERT INTO users (username, password, role, full_name, email) 
-VALUES ('admin', 'admin123', 'Admin', 'System Administrator', 'admin@hospital.com');
+VALUES ('admin', 'pbkdf2-sha512$210000$gZckMI+r/kq+zymZxm4ugw$unVD1qbRZb2DXqsqiWujY+ycPGeYfKVgoZx5HHpWpSO0Q18X8G2rBTwGmhpc3JLAvu3IFoVKZf/0kY6GXIggjA', 'Admin', 'System Administrator', 'admin@hospital.com');
 
 -- Insert sample doctors
 INSERT INTO doctors (name, specialization, phone, email, experience_years, qualification, consultation_fee, available_days, available_time) VALUES
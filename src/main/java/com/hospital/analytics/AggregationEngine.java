@@ -0,0 +1,208 @@
+package com.hospital.analytics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Filter + group-by + count over AppointmentFacts.
+ * The row range is split across the fork-join pool; each leaf runs a tight
+ * loop over the primitive columns into its own counter array, and the arrays
+ * are summed on the way back up.
+ */
+public class AggregationEngine {
+    
+    private static final int MIN_LEAF_SIZE = 16_384;
+    private static final int MAX_GROUPS = 1 << 24;
+    private static final int ANY = Integer.MIN_VALUE;
+    
+    private final ForkJoinPool pool;
+    
+    public AggregationEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    public AggregationEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Count the rows matching the filter
+     */
+    public int count(AppointmentFacts facts, FactFilter filter) {
+        return countBy(facts, filter).total();
+    }
+    
+    /**
+     * Count the rows matching the filter, grouped by the given dimensions
+     */
+    public GroupCounts countBy(AppointmentFacts facts, FactFilter filter, Dimension... dimensions) {
+        facts.readLock().lock();
+        try {
+            Scan scan = new Scan(facts, filter, dimensions);
+            int rows = facts.rowCount();
+            int leafSize = Math.max(MIN_LEAF_SIZE, rows / (pool.getParallelism() * 4));
+            int[] counts = pool.invoke(new ScanTask(scan, 0, rows, leafSize));
+            return new GroupCounts(dimensions.clone(), scan.offsets, scan.cardinalities, counts);
+        } finally {
+            facts.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Column snapshot and compiled filter shared by all leaves of one scan
+     */
+    private static final class Scan {
+        final int[] doctorIds;
+        final int[] epochDays;
+        final int[] epochMonths;
+        final byte[] statusCodes;
+        final int[] specializationByDoctor;
+        
+        final int fromDay;
+        final int toDay;
+        final int statusCode;
+        final int doctorId;
+        final int specializationCode;
+        
+        final Dimension[] dimensions;
+        final int[] offsets;
+        final int[] cardinalities;
+        final int groupCount;
+        
+        Scan(AppointmentFacts facts, FactFilter filter, Dimension[] dimensions) {
+            doctorIds = facts.doctorIds();
+            epochDays = facts.epochDays();
+            epochMonths = facts.epochMonths();
+            statusCodes = facts.statusCodes();
+            specializationByDoctor = facts.specializationByDoctor();
+            
+            fromDay = filter.fromDay;
+            toDay = filter.toDay;
+            statusCode = filter.statusCode >= 0 ? filter.statusCode : ANY;
+            doctorId = filter.doctorId >= 0 ? filter.doctorId : ANY;
+            if (filter.specialization == null) {
+                specializationCode = ANY;
+            } else {
+                int code = facts.lookupSpecialization(filter.specialization);
+                // An unknown specialization matches nothing (-1 means "no specialization")
+                specializationCode = code >= 0 ? code : -2;
+            }
+            
+            this.dimensions = dimensions;
+            offsets = new int[dimensions.length];
+            cardinalities = new int[dimensions.length];
+            long groups = 1;
+            for (int d = 0; d < dimensions.length; d++) {
+                switch (dimensions[d]) {
+                    case DOCTOR:
+                        cardinalities[d] = specializationByDoctor.length;
+                        break;
+                    case SPECIALIZATION:
+                        cardinalities[d] = Math.max(1, facts.specializationCount());
+                        break;
+                    case STATUS:
+                        cardinalities[d] = 4;
+                        break;
+                    case MONTH:
+                        int minMonth = facts.minEpochMonth();
+                        int maxMonth = facts.maxEpochMonth();
+                        if (fromDay != Integer.MIN_VALUE) {
+                            minMonth = Math.max(minMonth, AppointmentFacts.epochMonth(fromDay));
+                        }
+                        if (toDay != Integer.MAX_VALUE) {
+                            maxMonth = Math.min(maxMonth, AppointmentFacts.epochMonth(toDay));
+                        }
+                        offsets[d] = minMonth;
+                        cardinalities[d] = Math.max(1, maxMonth - minMonth + 1);
+                        break;
+                    case DAY_OF_WEEK:
+                        offsets[d] = 1;
+                        cardinalities[d] = 7;
+                        break;
+                }
+                groups *= cardinalities[d];
+            }
+            if (groups > MAX_GROUPS) {
+                throw new IllegalArgumentException("Too many groups: " + groups);
+            }
+            groupCount = (int) groups;
+        }
+        
+        int[] scan(int from, int to) {
+            int[] counts = new int[groupCount];
+            
+            rows:
+            for (int row = from; row < to; row++) {
+                int status = statusCodes[row];
+                if (status < 0) {
+                    continue;
+                }
+                int day = epochDays[row];
+                if (day < fromDay || day > toDay) {
+                    continue;
+                }
+                if (statusCode != ANY && status != statusCode) {
+                    continue;
+                }
+                int doctor = doctorIds[row];
+                if (doctorId != ANY && doctor != doctorId) {
+                    continue;
+                }
+                int specialization = specializationByDoctor[doctor];
+                if (specializationCode != ANY && specialization != specializationCode) {
+                    continue;
+                }
+                
+                int index = 0;
+                for (int d = 0; d < dimensions.length; d++) {
+                    int key;
+                    switch (dimensions[d]) {
+                        case DOCTOR: key = doctor; break;
+                        case SPECIALIZATION: key = specialization; break;
+                        case STATUS: key = status; break;
+                        case MONTH: key = epochMonths[row]; break;
+                        default: key = Math.floorMod(day + 3, 7) + 1; break; // 1970-01-01 was a Thursday
+                    }
+                    int slot = key - offsets[d];
+                    if (slot < 0 || slot >= cardinalities[d]) {
+                        continue rows;
+                    }
+                    index = index * cardinalities[d] + slot;
+                }
+                counts[index]++;
+            }
+            
+            return counts;
+        }
+    }
+    
+    private static final class ScanTask extends RecursiveTask<int[]> {
+        private final Scan scan;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        
+        ScanTask(Scan scan, int from, int to, int leafSize) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+        
+        @Override
+        protected int[] compute() {
+            if (to - from <= leafSize) {
+                return scan.scan(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(scan, from, middle, leafSize);
+            left.fork();
+            int[] counts = new ScanTask(scan, middle, to, leafSize).compute();
+            int[] leftCounts = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+    }
+}
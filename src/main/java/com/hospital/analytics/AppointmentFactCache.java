@@ -0,0 +1,258 @@
+package com.hospital.analytics;
+
+import com.hospital.dao.ChangeFeed;
+import com.hospital.model.ChangeEvent;
+import com.hospital.model.CompactAppointmentStore;
+import com.hospital.util.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process column cache of the whole appointment history for reports.
+ * start() streams every appointment, archived ones included, into
+ * AppointmentFacts on a background thread; afterwards the cache follows
+ * ChangeFeed, so it stays current as
+ * long as the feed is running (the dashboard starts it). Reports never
+ * touch MySQL.
+ */
+public class AppointmentFactCache {
+    
+    private static final AppointmentFactCache INSTANCE = new AppointmentFactCache();
+    
+    // TO_DAYS('1970-01-01') = 719528
+    private static final String FACT_COLUMNS =
+            "appointment_id, patient_id, doctor_id, TO_DAYS(appointment_date) - 719528, status";
+    
+    private final AppointmentFacts facts = new AppointmentFacts();
+    private final AggregationEngine engine = new AggregationEngine();
+    private final ChangeFeed.Listener appointmentListener = this::onAppointmentChanges;
+    private final ChangeFeed.Listener doctorListener = this::onDoctorChanges;
+    
+    private ExecutorService loader;
+    private volatile boolean loaded;
+    
+    private AppointmentFactCache() {}
+    
+    public static AppointmentFactCache getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Load the history in the background and start following the change feed
+     */
+    public synchronized void start() {
+        if (loader != null) {
+            return;
+        }
+        loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "appointment-facts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.addListener("appointments", appointmentListener);
+        feed.addListener("doctors", doctorListener);
+        loader.execute(this::loadAll);
+    }
+    
+    public synchronized void stop() {
+        if (loader == null) {
+            return;
+        }
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.removeListener("appointments", appointmentListener);
+        feed.removeListener("doctors", doctorListener);
+        loader.shutdown();
+        loader = null;
+    }
+    
+    /**
+     * True once the initial load has finished
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    public AppointmentFacts getFacts() {
+        return facts;
+    }
+    
+    /**
+     * Count appointments matching the filter, grouped by the given dimensions
+     */
+    public GroupCounts countBy(FactFilter filter, Dimension... dimensions) {
+        return engine.countBy(facts, filter, dimensions);
+    }
+    
+    /**
+     * Appointments per specialization per month in a date range
+     */
+    public Map<String, Map<YearMonth, Integer>> appointmentsPerSpecializationPerMonth(LocalDate from, LocalDate to) {
+        GroupCounts counts = countBy(new FactFilter().between(from, to),
+                                     Dimension.SPECIALIZATION, Dimension.MONTH);
+        
+        Map<String, Map<YearMonth, Integer>> report = new TreeMap<>();
+        counts.forEach((keys, count) ->
+            report.computeIfAbsent(facts.getSpecializationName(keys[0]), s -> new TreeMap<>())
+                  .put(AppointmentFacts.toYearMonth(keys[1]), count));
+        return report;
+    }
+    
+    /**
+     * Share of appointments marked "No Show" per doctor id in a date range.
+     * Look up names with getFacts().getDoctorName(id).
+     */
+    public Map<Integer, Double> noShowRateByDoctor(LocalDate from, LocalDate to) {
+        GroupCounts counts = countBy(new FactFilter().between(from, to), Dimension.DOCTOR, Dimension.STATUS);
+        byte noShow = CompactAppointmentStore.statusCode("No Show");
+        
+        Map<Integer, int[]> totals = new TreeMap<>();
+        counts.forEach((keys, count) -> {
+            int[] doctorTotals = totals.computeIfAbsent(keys[0], id -> new int[2]);
+            doctorTotals[0] += count;
+            if (keys[1] == noShow) {
+                doctorTotals[1] += count;
+            }
+        });
+        
+        Map<Integer, Double> report = new TreeMap<>();
+        for (Map.Entry<Integer, int[]> entry : totals.entrySet()) {
+            report.put(entry.getKey(), (double) entry.getValue()[1] / entry.getValue()[0]);
+        }
+        return report;
+    }
+    
+    private void loadAll() {
+        try (Connection conn = DatabaseConnection.openConnection()) {
+            
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT doctor_id, name, specialization FROM doctors")) {
+                while (rs.next()) {
+                    facts.putDoctor(rs.getInt(1), rs.getString(2), rs.getString(3));
+                }
+            }
+            
+            try (Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // Connector/J streams rows instead of buffering the whole table
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                
+                try (ResultSet rs = stmt.executeQuery("SELECT " + FACT_COLUMNS + " FROM appointments " +
+                                                      "UNION ALL SELECT " + FACT_COLUMNS + " FROM appointments_archive")) {
+                    while (rs.next()) {
+                        upsert(rs);
+                    }
+                }
+            }
+            
+            loaded = true;
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    private void onAppointmentChanges(List<ChangeEvent> events) {
+        Set<Integer> changed = new HashSet<>();
+        for (ChangeEvent event : events) {
+            if (event.isDelete()) {
+                facts.remove(event.getRecordId());
+                changed.remove(event.getRecordId());
+            } else if (event.isArchive()) {
+                // Unchanged, just moved out of the hot table
+                changed.remove(event.getRecordId());
+            } else {
+                changed.add(event.getRecordId());
+            }
+        }
+        if (!changed.isEmpty()) {
+            submit(() -> reloadAppointments(changed));
+        }
+    }
+    
+    private void onDoctorChanges(List<ChangeEvent> events) {
+        Set<Integer> changed = new HashSet<>();
+        for (ChangeEvent event : events) {
+            if (!event.isDelete()) {
+                changed.add(event.getRecordId());
+            }
+        }
+        if (!changed.isEmpty()) {
+            submit(() -> reloadDoctors(changed));
+        }
+    }
+    
+    private synchronized void submit(Runnable task) {
+        if (loader != null) {
+            loader.execute(task);
+        }
+    }
+    
+    private void reloadAppointments(Set<Integer> ids) {
+        String sql = "SELECT " + FACT_COLUMNS + " FROM appointments WHERE appointment_id IN (" + placeholders(ids.size()) + ")";
+        
+        try (Connection conn = DatabaseConnection.openConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            bindIds(pstmt, ids);
+            Set<Integer> missing = new HashSet<>(ids);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    missing.remove(rs.getInt(1));
+                    upsert(rs);
+                }
+            }
+            // Deleted again before we got to read them
+            for (int id : missing) {
+                facts.remove(id);
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    private void reloadDoctors(Set<Integer> ids) {
+        String sql = "SELECT doctor_id, name, specialization FROM doctors WHERE doctor_id IN (" + placeholders(ids.size()) + ")";
+        
+        try (Connection conn = DatabaseConnection.openConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            bindIds(pstmt, ids);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    facts.putDoctor(rs.getInt(1), rs.getString(2), rs.getString(3));
+                }
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    private void upsert(ResultSet rs) throws SQLException {
+        facts.upsert(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4),
+                     CompactAppointmentStore.statusCode(rs.getString(5)));
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private static void bindIds(PreparedStatement pstmt, Set<Integer> ids) throws SQLException {
+        int index = 1;
+        for (int id : ids) {
+            pstmt.setInt(index++, id);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.hospital.analytics;
+
+import com.hospital.model.CompactAppointmentStore;
+import com.hospital.util.StringDictionary;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column store of appointment facts for analytics.
+ * One primitive array per column, indexed by row. Rows are updated in place
+ * and deleted rows are marked with status DELETED rather than removed, so row
+ * numbers stay stable. Doctor specialization is held per doctor, not per row,
+ * so a doctor edit updates every one of their appointments at once.
+ *
+ * Scans take the read lock; writes take the write lock.
+ */
+public class AppointmentFacts {
+    
+    /**
+     * Status code of a deleted row; scans skip it
+     */
+    public static final byte DELETED = -1;
+    
+    private static final YearMonth EPOCH_MONTH = YearMonth.of(1970, 1);
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StringDictionary specializations = new StringDictionary();
+    private final Map<Integer, String> doctorNames = new HashMap<>();
+    
+    private int size;
+    private int liveCount;
+    private int[] appointmentIds = new int[INITIAL_CAPACITY];
+    private int[] patientIds = new int[INITIAL_CAPACITY];
+    private int[] doctorIds = new int[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] epochMonths = new int[INITIAL_CAPACITY];
+    private byte[] statusCodes = new byte[INITIAL_CAPACITY];
+    
+    // Appointment ids are AUTO_INCREMENT and dense, so the row index is a plain array
+    private int[] rowByAppointmentId = emptyCodes(INITIAL_CAPACITY);
+    private int[] specializationByDoctor = emptyCodes(16);
+    private int minEpochMonth = Integer.MAX_VALUE;
+    private int maxEpochMonth = Integer.MIN_VALUE;
+    
+    /**
+     * Insert or replace an appointment
+     */
+    public void upsert(int appointmentId, int patientId, int doctorId, int epochDay, byte statusCode) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(appointmentId);
+            if (row < 0) {
+                if (size == appointmentIds.length) {
+                    grow();
+                }
+                row = size++;
+                if (appointmentId >= rowByAppointmentId.length) {
+                    rowByAppointmentId = growCodes(rowByAppointmentId, appointmentId);
+                }
+                rowByAppointmentId[appointmentId] = row;
+                appointmentIds[row] = appointmentId;
+                liveCount++;
+            } else if (statusCodes[row] == DELETED) {
+                liveCount++;
+            }
+            
+            int epochMonth = epochMonth(epochDay);
+            patientIds[row] = patientId;
+            doctorIds[row] = doctorId;
+            epochDays[row] = epochDay;
+            epochMonths[row] = epochMonth;
+            statusCodes[row] = statusCode;
+            
+            minEpochMonth = Math.min(minEpochMonth, epochMonth);
+            maxEpochMonth = Math.max(maxEpochMonth, epochMonth);
+            ensureDoctorCapacity(doctorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Mark an appointment deleted
+     */
+    public void remove(int appointmentId) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(appointmentId);
+            if (row >= 0 && statusCodes[row] != DELETED) {
+                statusCodes[row] = DELETED;
+                liveCount--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Set or replace a doctor's name and specialization
+     */
+    public void putDoctor(int doctorId, String name, String specialization) {
+        lock.writeLock().lock();
+        try {
+            ensureDoctorCapacity(doctorId);
+            specializationByDoctor[doctorId] = specializations.encode(specialization);
+            doctorNames.put(doctorId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Number of appointments, not counting deleted rows
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public String getDoctorName(int doctorId) {
+        lock.readLock().lock();
+        try {
+            return doctorNames.get(doctorId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public String getSpecializationName(int code) {
+        lock.readLock().lock();
+        try {
+            return specializations.decode(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public static String getStatusName(int code) {
+        return CompactAppointmentStore.statusName((byte) code);
+    }
+    
+    public static int epochMonth(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return (date.getYear() - 1970) * 12 + date.getMonthValue() - 1;
+    }
+    
+    public static YearMonth toYearMonth(int epochMonth) {
+        return EPOCH_MONTH.plusMonths(epochMonth);
+    }
+    
+    // Package-private access for AggregationEngine; call only while holding the read lock
+    
+    Lock readLock() { return lock.readLock(); }
+    
+    int rowCount() { return size; }
+    
+    int[] doctorIds() { return doctorIds; }
+    
+    int[] patientIds() { return patientIds; }
+    
+    int[] epochDays() { return epochDays; }
+    
+    int[] epochMonths() { return epochMonths; }
+    
+    byte[] statusCodes() { return statusCodes; }
+    
+    int[] specializationByDoctor() { return specializationByDoctor; }
+    
+    int specializationCount() { return specializations.size(); }
+    
+    int lookupSpecialization(String specialization) { return specializations.lookup(specialization); }
+    
+    int minEpochMonth() { return minEpochMonth; }
+    
+    int maxEpochMonth() { return maxEpochMonth; }
+    
+    private void grow() {
+        int capacity = appointmentIds.length + (appointmentIds.length >> 1);
+        appointmentIds = Arrays.copyOf(appointmentIds, capacity);
+        patientIds = Arrays.copyOf(patientIds, capacity);
+        doctorIds = Arrays.copyOf(doctorIds, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        epochMonths = Arrays.copyOf(epochMonths, capacity);
+        statusCodes = Arrays.copyOf(statusCodes, capacity);
+    }
+    
+    private int rowOf(int appointmentId) {
+        return appointmentId < rowByAppointmentId.length ? rowByAppointmentId[appointmentId] : -1;
+    }
+    
+    private void ensureDoctorCapacity(int doctorId) {
+        if (doctorId >= specializationByDoctor.length) {
+            specializationByDoctor = growCodes(specializationByDoctor, doctorId);
+        }
+    }
+    
+    /**
+     * Copy into a larger -1 filled array that has room for the index
+     */
+    private static int[] growCodes(int[] codes, int index) {
+        int[] grown = emptyCodes(Math.max(index + 1, codes.length * 2));
+        System.arraycopy(codes, 0, grown, 0, codes.length);
+        return grown;
+    }
+    
+    private static int[] emptyCodes(int length) {
+        int[] codes = new int[length];
+        Arrays.fill(codes, -1);
+        return codes;
+    }
+}
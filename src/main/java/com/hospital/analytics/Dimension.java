@@ -0,0 +1,14 @@
+package com.hospital.analytics;
+
+/**
+ * Columns that appointment facts can be grouped by.
+ * Group keys are the raw codes: doctor id, specialization code, status code,
+ * epoch month (see AppointmentFacts.toYearMonth) and day of week (1 = Monday).
+ */
+public enum Dimension {
+    DOCTOR,
+    SPECIALIZATION,
+    STATUS,
+    MONTH,
+    DAY_OF_WEEK
+}
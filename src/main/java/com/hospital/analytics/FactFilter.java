@@ -0,0 +1,42 @@
+package com.hospital.analytics;
+
+import com.hospital.model.CompactAppointmentStore;
+
+import java.time.LocalDate;
+
+/**
+ * Row filter for AggregationEngine scans. Conditions are ANDed; unset
+ * conditions match everything. Kept as plain values, not lambdas, so the
+ * scan loop is a handful of integer comparisons per row.
+ */
+public class FactFilter {
+    int fromDay = Integer.MIN_VALUE;
+    int toDay = Integer.MAX_VALUE;
+    int statusCode = -1;
+    int doctorId = -1;
+    String specialization;
+    
+    /**
+     * Appointment date between from and to (inclusive)
+     */
+    public FactFilter between(LocalDate from, LocalDate to) {
+        this.fromDay = (int) from.toEpochDay();
+        this.toDay = (int) to.toEpochDay();
+        return this;
+    }
+    
+    public FactFilter status(String status) {
+        this.statusCode = CompactAppointmentStore.statusCode(status);
+        return this;
+    }
+    
+    public FactFilter doctor(int doctorId) {
+        this.doctorId = doctorId;
+        return this;
+    }
+    
+    public FactFilter specialization(String specialization) {
+        this.specialization = specialization;
+        return this;
+    }
+}
@@ -0,0 +1,75 @@
+package com.hospital.analytics;
+
+/**
+ * Result of a group-by count: one counter per combination of dimension keys,
+ * stored in a flat array in row-major order.
+ */
+public class GroupCounts {
+    
+    /**
+     * Receives each non-empty group
+     */
+    public interface Visitor {
+        void visit(int[] keys, int count);
+    }
+    
+    private final Dimension[] dimensions;
+    private final int[] offsets;
+    private final int[] cardinalities;
+    private final int[] counts;
+    
+    GroupCounts(Dimension[] dimensions, int[] offsets, int[] cardinalities, int[] counts) {
+        this.dimensions = dimensions;
+        this.offsets = offsets;
+        this.cardinalities = cardinalities;
+        this.counts = counts;
+    }
+    
+    public Dimension[] getDimensions() {
+        return dimensions.clone();
+    }
+    
+    /**
+     * Count for one group, given a key per dimension
+     */
+    public int get(int... keys) {
+        int index = 0;
+        for (int d = 0; d < dimensions.length; d++) {
+            int slot = keys[d] - offsets[d];
+            if (slot < 0 || slot >= cardinalities[d]) {
+                return 0;
+            }
+            index = index * cardinalities[d] + slot;
+        }
+        return counts[index];
+    }
+    
+    /**
+     * Sum over all groups
+     */
+    public int total() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+    
+    /**
+     * Visit every group with a non-zero count
+     */
+    public void forEach(Visitor visitor) {
+        int[] keys = new int[dimensions.length];
+        for (int index = 0; index < counts.length; index++) {
+            if (counts[index] == 0) {
+                continue;
+            }
+            int rest = index;
+            for (int d = dimensions.length - 1; d >= 0; d--) {
+                keys[d] = rest % cardinalities[d] + offsets[d];
+                rest /= cardinalities[d];
+            }
+            visitor.visit(keys, counts[index]);
+        }
+    }
+}
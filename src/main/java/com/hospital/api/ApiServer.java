@@ -0,0 +1,356 @@
+package com.hospital.api;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.Criteria;
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.DoctorSummary;
+import com.hospital.scheduling.WaitlistBackfill;
+import com.hospital.service.AppointmentService;
+import com.hospital.service.AuthService;
+import com.hospital.service.DirectoryService;
+import com.hospital.service.ServiceException;
+import com.hospital.service.Session;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP/JSON API over the service layer, for kiosks and for load
+ * testing without the Swing desks. Each request runs on its own virtual
+ * thread; database work is bounded by the connection pool, so a burst of
+ * requests queues for a connection instead of opening more. Listens on
+ * localhost only. Log in first and send the token as
+ * "Authorization: Bearer <token>" with every other request.
+ *
+ * Usage: java com.hospital.api.ApiServer [port]
+ *
+ * POST /api/login                 {"username", "password"}
+ * POST /api/logout
+ * GET  /api/doctors[?specialization=]
+ * GET  /api/appointments?from=&to=[&doctorId=&status=&limit=]
+ * GET  /api/appointments/{id}
+ * POST /api/appointments          {"patientId", "doctorId", "date", "time", "durationMinutes", "notes"}
+ * POST /api/appointments/{id}/cancel
+ * GET  /api/availability?doctorId=&date=&time=[&duration=]
+ */
+public class ApiServer {
+    public static final int DEFAULT_PORT = 8085;
+    
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 5000;
+    // Largest request body accepted
+    private static final int MAX_BODY = 16 * 1024;
+    
+    private final AppointmentService appointmentService = new AppointmentService();
+    private final DirectoryService directoryService = new DirectoryService();
+    private final int port;
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    public ApiServer(int port) {
+        this.port = port;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0])
+                : Integer.getInteger("hospital.api.port", DEFAULT_PORT);
+        WaitlistBackfill.getInstance().start();
+        new ApiServer(port).start();
+        System.out.println("Hospital API listening on http://localhost:" + port + "/api/");
+    }
+    
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+    }
+    
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (ServiceException e) {
+            sendError(exchange, statusOf(e.getReason()), e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void route(HttpExchange exchange) throws IOException, ServiceException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        
+        if (path.length == 1 && path[0].equals("login") && method.equals("POST")) {
+            login(exchange);
+            return;
+        }
+        String token = bearerToken(exchange);
+        if (AuthService.getInstance().getSession(token) == null) {
+            sendError(exchange, 401, "Log in at /api/login and send the token as a Bearer Authorization header");
+            return;
+        }
+        
+        if (path.length == 1 && path[0].equals("logout") && method.equals("POST")) {
+            AuthService.getInstance().logout(token);
+            exchange.sendResponseHeaders(204, -1);
+        } else if (path.length == 1 && path[0].equals("doctors") && method.equals("GET")) {
+            listDoctors(exchange, query);
+        } else if (path.length == 1 && path[0].equals("availability") && method.equals("GET")) {
+            checkAvailability(exchange, query);
+        } else if (path.length == 1 && path[0].equals("appointments") && method.equals("GET")) {
+            listAppointments(exchange, query);
+        } else if (path.length == 1 && path[0].equals("appointments") && method.equals("POST")) {
+            bookAppointment(exchange);
+        } else if (path.length == 2 && path[0].equals("appointments") && method.equals("GET")) {
+            Appointment appointment = appointmentService.getAppointment(parseId(path[1]));
+            try (JsonWriter json = begin(exchange, 200)) {
+                writeAppointment(json, AppointmentSummary.of(appointment));
+            }
+        } else if (path.length == 3 && path[0].equals("appointments") && path[2].equals("cancel")
+                && method.equals("POST")) {
+            int appointmentId = parseId(path[1]);
+            appointmentService.cancel(appointmentId);
+            try (JsonWriter json = begin(exchange, 200)) {
+                json.beginObject().name("appointmentId").value(appointmentId)
+                    .name("status").value("Cancelled").endObject();
+            }
+        } else {
+            sendError(exchange, 404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+        }
+    }
+    
+    private void login(HttpExchange exchange) throws IOException, ServiceException {
+        Map<String, String> body = JsonReader.parseObject(readBody(exchange));
+        Session session;
+        try {
+            session = AuthService.getInstance().login(required(body, "username"), required(body, "password")).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ServiceException) {
+                throw (ServiceException) e.getCause();
+            }
+            throw e;
+        }
+        if (session == null) {
+            sendError(exchange, 401, "Invalid username or password");
+            return;
+        }
+        try (JsonWriter json = begin(exchange, 200)) {
+            json.beginObject()
+                .name("token").value(session.getToken())
+                .name("username").value(session.getUser().getUsername())
+                .name("fullName").value(session.getUser().getFullName())
+                .name("role").value(session.getUser().getRole())
+                .name("idleTimeoutMinutes").value(AuthService.IDLE_TIMEOUT.toMinutes())
+                .endObject();
+        }
+    }
+    
+    private void listDoctors(HttpExchange exchange, Map<String, String> query) throws IOException, ServiceException {
+        List<DoctorSummary> doctors = directoryService.listDoctors(query.get("specialization"));
+        try (JsonWriter json = begin(exchange, 200)) {
+            json.beginArray();
+            for (DoctorSummary doctor : doctors) {
+                json.beginObject()
+                    .name("doctorId").value(doctor.getDoctorId())
+                    .name("name").value(doctor.getName())
+                    .name("specialization").value(doctor.getSpecialization())
+                    .name("availableDays").value(doctor.getAvailableDays())
+                    .name("availableTime").value(doctor.getAvailableTime())
+                    .endObject();
+            }
+            json.endArray();
+        }
+    }
+    
+    private void listAppointments(HttpExchange exchange, Map<String, String> query) throws IOException, ServiceException {
+        LocalDate from = LocalDate.parse(required(query, "from"));
+        LocalDate to = LocalDate.parse(required(query, "to"));
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_LIMIT;
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        
+        Criteria<AppointmentDAO.Field> criteria = new Criteria<AppointmentDAO.Field>()
+                .between(AppointmentDAO.Field.DATE, from, to)
+                .sortBy(AppointmentDAO.Field.DATE, Criteria.Direction.ASC)
+                .sortBy(AppointmentDAO.Field.TIME, Criteria.Direction.ASC)
+                .limit(limit);
+        if (query.containsKey("doctorId")) {
+            criteria.equalTo(AppointmentDAO.Field.DOCTOR_ID, parseId(query.get("doctorId")));
+        }
+        if (query.containsKey("status")) {
+            criteria.equalTo(AppointmentDAO.Field.STATUS, query.get("status"));
+        }
+        
+        List<AppointmentSummary> appointments = appointmentService.findAppointments(criteria);
+        try (JsonWriter json = begin(exchange, 200)) {
+            json.beginArray();
+            for (AppointmentSummary appointment : appointments) {
+                writeAppointment(json, appointment);
+            }
+            json.endArray();
+        }
+    }
+    
+    private void bookAppointment(HttpExchange exchange) throws IOException, ServiceException {
+        Map<String, String> body = JsonReader.parseObject(readBody(exchange));
+        Appointment appointment = new Appointment(parseId(required(body, "patientId")), parseId(required(body, "doctorId")),
+                LocalDate.parse(required(body, "date")), LocalTime.parse(required(body, "time")));
+        if (body.containsKey("durationMinutes")) {
+            appointment.setDurationMinutes(Integer.parseInt(body.get("durationMinutes")));
+        }
+        appointment.setNotes(body.get("notes"));
+        
+        Appointment saved = appointmentService.book(appointment);
+        try (JsonWriter json = begin(exchange, 201)) {
+            writeAppointment(json, AppointmentSummary.of(saved));
+        }
+    }
+    
+    private void checkAvailability(HttpExchange exchange, Map<String, String> query) throws IOException, ServiceException {
+        int doctorId = parseId(required(query, "doctorId"));
+        LocalDate date = LocalDate.parse(required(query, "date"));
+        LocalTime time = LocalTime.parse(required(query, "time"));
+        int duration = query.containsKey("duration") ? Integer.parseInt(query.get("duration"))
+                : Appointment.DEFAULT_DURATION_MINUTES;
+        
+        boolean available = appointmentService.isDoctorAvailable(doctorId, date, time, duration, 0);
+        try (JsonWriter json = begin(exchange, 200)) {
+            json.beginObject()
+                .name("doctorId").value(doctorId)
+                .name("date").value(date)
+                .name("time").value(time)
+                .name("durationMinutes").value(duration)
+                .name("available").value(available)
+                .endObject();
+        }
+    }
+    
+    private static void writeAppointment(JsonWriter json, AppointmentSummary appointment) throws IOException {
+        json.beginObject()
+            .name("appointmentId").value(appointment.getAppointmentId())
+            .name("patientId").value(appointment.getPatientId())
+            .name("patientName").value(appointment.getPatientName())
+            .name("doctorId").value(appointment.getDoctorId())
+            .name("doctorName").value(appointment.getDoctorName())
+            .name("date").value(appointment.getAppointmentDate())
+            .name("time").value(appointment.getAppointmentTime())
+            .name("durationMinutes").value(appointment.getDurationMinutes())
+            .name("status").value(appointment.getStatus())
+            .endObject();
+    }
+    
+    /**
+     * Send the headers with chunked encoding and return a writer on the body
+     */
+    private static JsonWriter begin(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        return new JsonWriter(exchange.getResponseBody());
+    }
+    
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            // Headers are already out; nothing sensible can be added
+            return;
+        }
+        try (JsonWriter json = begin(exchange, status)) {
+            json.beginObject().name("error").value(message).endObject();
+        }
+    }
+    
+    private static int statusOf(ServiceException.Reason reason) {
+        switch (reason) {
+            case INVALID: return 400;
+            case NOT_FOUND: return 404;
+            case UNAVAILABLE:
+            case CONFLICT: return 409;
+            default: return 500;
+        }
+    }
+    
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+    
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+    
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            if (!value.isEmpty()) {
+                query.put(name, value);
+            }
+        }
+        return query;
+    }
+    
+    private static String required(Map<String, String> values, String name) {
+        String value = values.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+    
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a valid id: " + text);
+        }
+    }
+}
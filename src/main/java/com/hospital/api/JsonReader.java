@@ -0,0 +1,143 @@
+package com.hospital.api;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses the flat JSON objects the API accepts as request bodies, e.g.
+ * {"patientId": 3, "time": "10:30"}. Every value comes back as a string,
+ * JSON null as a missing key; nested objects and arrays are rejected.
+ */
+class JsonReader {
+    private final String text;
+    private int pos;
+    
+    private JsonReader(String text) {
+        this.text = text;
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    static Map<String, String> parseObject(String text) {
+        JsonReader reader = new JsonReader(text);
+        Map<String, String> values = reader.readObject();
+        reader.skipWhitespace();
+        if (reader.pos != text.length()) {
+            throw reader.error("Unexpected text after the object");
+        }
+        return values;
+    }
+    
+    private Map<String, String> readObject() {
+        Map<String, String> values = new HashMap<>();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return values;
+        }
+        while (true) {
+            skipWhitespace();
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            String value = readValue();
+            if (value != null) {
+                values.put(name, value);
+            }
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return values;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+    
+    private String readValue() {
+        char c = peek();
+        if (c == '"') {
+            return readString();
+        }
+        if (c == '{' || c == '[') {
+            throw error("Nested values are not supported");
+        }
+        int start = pos;
+        while (pos < text.length() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) {
+            pos++;
+        }
+        String literal = text.substring(start, pos);
+        if (literal.isEmpty()) {
+            throw error("Expected a value");
+        }
+        return "null".equals(literal) ? null : literal;
+    }
+    
+    private String readString() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > text.length()) {
+                        throw error("Bad unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default: value.append(escaped);
+            }
+        }
+    }
+    
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+    
+    private char peek() {
+        if (pos >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        return text.charAt(pos);
+    }
+    
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+    
+    private void expect(char c) {
+        if (next() != c) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+    
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos);
+    }
+}
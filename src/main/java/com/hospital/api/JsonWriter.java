@@ -0,0 +1,125 @@
+package com.hospital.api;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes JSON straight to a response stream as values are produced, so a
+ * long list is never built up as one string in memory. Commas between
+ * members and elements are added automatically.
+ */
+class JsonWriter implements Closeable {
+    private final Writer out;
+    // Whether the next value in the current object or array needs a comma before it
+    private boolean needsComma;
+    
+    JsonWriter(OutputStream stream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 8192);
+    }
+    
+    JsonWriter beginObject() throws IOException {
+        separate();
+        out.write('{');
+        needsComma = false;
+        return this;
+    }
+    
+    JsonWriter endObject() throws IOException {
+        out.write('}');
+        needsComma = true;
+        return this;
+    }
+    
+    JsonWriter beginArray() throws IOException {
+        separate();
+        out.write('[');
+        needsComma = false;
+        return this;
+    }
+    
+    JsonWriter endArray() throws IOException {
+        out.write(']');
+        needsComma = true;
+        return this;
+    }
+    
+    /**
+     * Start a member of the current object; follow with a value or beginObject/beginArray
+     */
+    JsonWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        out.write(':');
+        needsComma = false;
+        return this;
+    }
+    
+    JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            writeString(value);
+        }
+        needsComma = true;
+        return this;
+    }
+    
+    JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        needsComma = true;
+        return this;
+    }
+    
+    JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        needsComma = true;
+        return this;
+    }
+    
+    /**
+     * Write a value by its toString(), e.g. a date or time, or null
+     */
+    JsonWriter value(Object value) throws IOException {
+        return value(value != null ? value.toString() : null);
+    }
+    
+    private void separate() throws IOException {
+        if (needsComma) {
+            out.write(',');
+        }
+    }
+    
+    private void writeString(String text) throws IOException {
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -1,74 +1,256 @@
 package com.hospital.dao;
 
 import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.ChangeEvent;
+import com.hospital.model.CompactAppointmentStore;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.UnitOfWork;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Data Access Object for Appointment operations
  */
 public class AppointmentDAO {
     
+    /**
+     * Columns that can be filtered and sorted on
+     */
+    public enum Field implements QueryField {
+        ID("a.appointment_id"),
+        PATIENT_ID("a.patient_id"),
+        DOCTOR_ID("a.doctor_id"),
+        PATIENT_NAME("p.name"),
+        DOCTOR_NAME("d.name"),
+        SPECIALIZATION("d.specialization"),
+        DATE("a.appointment_date"),
+        TIME("a.appointment_time"),
+        STATUS("a.status");
+        
+        private final String column;
+        
+        Field(String column) { this.column = column; }
+        
+        @Override
+        public String getColumn() { return column; }
+    }
+    
+    private static final String FROM_WITH_NAMES =
+            "FROM appointments a " +
+            "JOIN patients p ON a.patient_id = p.patient_id " +
+            "JOIN doctors d ON a.doctor_id = d.doctor_id";
+    
+    private static final String SELECT_WITH_NAMES =
+            "SELECT a.*, p.name as patient_name, d.name as doctor_name, d.specialization " + FROM_WITH_NAMES;
+    
+    /**
+     * Columns behind an AppointmentSummary; only a preview of the notes is sent
+     */
+    private static final String SUMMARY_COLUMNS =
+            "a.appointment_id, a.patient_id, a.doctor_id, a.appointment_date, a.appointment_time, " +
+            "a.duration_minutes, a.status, LEFT(a.notes, " + AppointmentSummary.NOTES_PREVIEW_LENGTH + ") as notes_preview, " +
+            "p.name as patient_name, d.name as doctor_name, d.specialization";
+    
+    /**
+     * Columns shared by appointments and appointments_archive
+     */
+    private static final String ARCHIVE_COLUMNS =
+            "appointment_id, patient_id, doctor_id, appointment_date, appointment_time, duration_minutes, " +
+            "status, notes, created_at, updated_at, version";
+    
+    private static final String HISTORY_COLUMNS =
+            "a.appointment_id, a.patient_id, a.doctor_id, a.appointment_date, a.appointment_time, " +
+            "a.duration_minutes, a.status, a.notes, a.version, p.name as patient_name, d.name as doctor_name, d.specialization";
+    
     /**
      * Book a new appointment
+     * @return the saved appointment with its generated id, or null if the insert failed
      */
-    public boolean bookAppointment(Appointment appointment) {
+    public Appointment bookAppointment(Appointment appointment) {
         String sql = "INSERT INTO appointments (patient_id, doctor_id, appointment_date, " +
-                    "appointment_time, status, notes) VALUES (?, ?, ?, ?, ?, ?)";
+                    "appointment_time, duration_minutes, status, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            
+            if (appointment.getStatus() == null) {
+                appointment.setStatus("Scheduled");
+            }
             
             pstmt.setInt(1, appointment.getPatientId());
             pstmt.setInt(2, appointment.getDoctorId());
             pstmt.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
             pstmt.setTime(4, Time.valueOf(appointment.getAppointmentTime()));
-            pstmt.setString(5, appointment.getStatus() != null ? appointment.getStatus() : "Scheduled");
-            pstmt.setString(6, appointment.getNotes());
+            pstmt.setInt(5, appointment.getDurationMinutes());
+            pstmt.setString(6, appointment.getStatus());
+            pstmt.setString(7, appointment.getNotes());
             
-            int result = pstmt.executeUpdate();
-            return result > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    appointment.setAppointmentId(keys.getInt(1));
+                }
+            }
+            ChangeTracking.recordInsert(conn, "appointments", appointment.getAppointmentId());
+            unitOfWork.afterCommit(() -> {
+                appointment.setVersion(0);
+                appointment.clearChanges();
+            });
+            unitOfWork.commit();
+            return appointment;
             
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
+            return null;
+        }
+    }
+    
+    /**
+     * Book a copy of the template on each of the dates in one transaction.
+     * The doctor's row is locked first, as AppointmentService does for a
+     * single booking, so the two cannot check the same slot at once. The
+     * doctor's overlapping appointments on all the dates are then found with
+     * one query; those dates are left out and added to conflicts. The rest
+     * go in as a single JDBC batch. A template running past midnight books
+     * nothing and every date counts as a conflict.
+     * @return the booked appointments, or null if the transaction failed
+     */
+    public List<Appointment> bookSeries(Appointment template, List<LocalDate> dates, Set<LocalDate> conflicts) {
+        if (dates.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (!template.endsSameDay()) {
+            conflicts.addAll(dates);
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(dates.size(), "?"));
+        String conflictSql = "SELECT appointment_date FROM appointments WHERE doctor_id = ? " +
+                            "AND appointment_date IN (" + placeholders + ") AND status != 'Cancelled' " +
+                            "AND TIME_TO_SEC(appointment_time) < ? " +
+                            "AND TIME_TO_SEC(appointment_time) + duration_minutes * 60 > ? FOR UPDATE";
+        String insertSql = "INSERT INTO appointments (patient_id, doctor_id, appointment_date, " +
+                          "appointment_time, duration_minutes, status, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement check = conn.prepareStatement(conflictSql)) {
+            
+            if (!new DoctorDAO().lockDoctor(template.getDoctorId())) {
+                return null;
+            }
+            
+            int start = template.getAppointmentTime().toSecondOfDay();
+            int index = 1;
+            check.setInt(index++, template.getDoctorId());
+            for (LocalDate date : dates) {
+                check.setDate(index++, Date.valueOf(date));
+            }
+            check.setInt(index++, start + template.getDurationMinutes() * 60);
+            check.setInt(index, start);
+            try (ResultSet rs = check.executeQuery()) {
+                while (rs.next()) {
+                    conflicts.add(rs.getDate(1).toLocalDate());
+                }
+            }
+            
+            List<Appointment> booked = new ArrayList<>();
+            for (LocalDate date : dates) {
+                if (!conflicts.contains(date)) {
+                    booked.add(copyTo(template, date));
+                }
+            }
+            if (booked.isEmpty()) {
+                return booked;
+            }
+            
+            try (PreparedStatement insert = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Appointment appointment : booked) {
+                    insert.setInt(1, appointment.getPatientId());
+                    insert.setInt(2, appointment.getDoctorId());
+                    insert.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
+                    insert.setTime(4, Time.valueOf(appointment.getAppointmentTime()));
+                    insert.setInt(5, appointment.getDurationMinutes());
+                    insert.setString(6, appointment.getStatus());
+                    insert.setString(7, appointment.getNotes());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    for (int i = 0; i < booked.size() && keys.next(); i++) {
+                        booked.get(i).setAppointmentId(keys.getInt(1));
+                    }
+                }
+            }
+            
+            UnitOfWork.Batch log = unitOfWork.batch("INSERT INTO change_log (table_name, record_id, operation) VALUES (?, ?, ?)");
+            for (Appointment appointment : booked) {
+                log.add("appointments", appointment.getAppointmentId(), ChangeEvent.INSERT);
+            }
+            
+            unitOfWork.afterCommit(() -> {
+                for (Appointment appointment : booked) {
+                    appointment.setVersion(0);
+                    appointment.clearChanges();
+                }
+            });
+            unitOfWork.commit();
+            return booked;
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
         }
     }
     
+    private static Appointment copyTo(Appointment template, LocalDate date) {
+        Appointment appointment = new Appointment(template.getPatientId(), template.getDoctorId(), date,
+                                                  template.getAppointmentTime());
+        appointment.setDurationMinutes(template.getDurationMinutes());
+        appointment.setNotes(template.getNotes());
+        appointment.setPatientName(template.getPatientName());
+        appointment.setDoctorName(template.getDoctorName());
+        appointment.setDoctorSpecialization(template.getDoctorSpecialization());
+        return appointment;
+    }
+    
     /**
      * Get all appointments with patient and doctor details
      */
     public List<Appointment> getAllAppointments() {
+        return findAppointments(new Criteria<Field>()
+                .sortBy(Field.DATE, Criteria.Direction.DESC)
+                .sortBy(Field.TIME, Criteria.Direction.DESC));
+    }
+    
+    /**
+     * Get appointments matching the criteria, filtered and sorted by the database
+     */
+    public List<Appointment> findAppointments(Criteria<Field> criteria) {
         List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name, d.specialization " +
-                    "FROM appointments a " +
-                    "JOIN patients p ON a.patient_id = p.patient_id " +
-                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                    "ORDER BY a.appointment_date DESC, a.appointment_time DESC";
+        String sql = criteria.toSql(SELECT_WITH_NAMES);
         
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                Appointment appointment = new Appointment();
-                appointment.setAppointmentId(rs.getInt("appointment_id"));
-                appointment.setPatientId(rs.getInt("patient_id"));
-                appointment.setDoctorId(rs.getInt("doctor_id"));
-                appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
-                appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
-                appointment.setStatus(rs.getString("status"));
-                appointment.setNotes(rs.getString("notes"));
-                appointment.setPatientName(rs.getString("patient_name"));
-                appointment.setDoctorName(rs.getString("doctor_name"));
-                appointment.setDoctorSpecialization(rs.getString("specialization"));
-                
-                appointments.add(appointment);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapAppointment(rs));
+                }
             }
             
         } catch (SQLException e) {
@@ -78,15 +260,116 @@ public class AppointmentDAO {
         return appointments;
     }
     
+    /**
+     * Get list-view projections of the appointments matching the criteria
+     */
+    public List<AppointmentSummary> findAppointmentSummaries(Criteria<Field> criteria) {
+        return querySummaries(criteria.toSql("SELECT " + SUMMARY_COLUMNS + " " + FROM_WITH_NAMES), criteria);
+    }
+    
+    /**
+     * Like findAppointmentSummaries, but also locks the matching appointment
+     * rows (and the index gaps around them, so no overlapping row can be
+     * inserted) until the surrounding UnitOfWork ends
+     */
+    public List<AppointmentSummary> lockAppointmentSummaries(Criteria<Field> criteria) {
+        return querySummaries(criteria.toSql("SELECT " + SUMMARY_COLUMNS + " " + FROM_WITH_NAMES) + " FOR UPDATE OF a",
+                              criteria);
+    }
+    
+    private List<AppointmentSummary> querySummaries(String sql, Criteria<Field> criteria) {
+        try {
+            return fetchSummaries(sql, criteria);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+    
+    private List<AppointmentSummary> fetchSummaries(String sql, Criteria<Field> criteria) throws SQLException {
+        List<AppointmentSummary> appointments = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapAppointmentSummary(rs));
+                }
+            }
+        }
+        
+        return appointments;
+    }
+    
+    /**
+     * Load the appointments matching the criteria into a compact store.
+     * Rows are streamed from MySQL one at a time and dates/times arrive as
+     * plain integers, so no per-row objects are kept beyond the store's arrays.
+     */
+    public CompactAppointmentStore loadCompactAppointments(Criteria<Field> criteria) {
+        CompactAppointmentStore store = new CompactAppointmentStore();
+        // TO_DAYS('1970-01-01') = 719528
+        String sql = criteria.toSql("SELECT a.appointment_id, a.patient_id, a.doctor_id, " +
+                    "TO_DAYS(a.appointment_date) - 719528 as epoch_day, " +
+                    "TIME_TO_SEC(a.appointment_time) as second_of_day, a.duration_minutes, a.status, " +
+                    "p.name as patient_name, d.name as doctor_name, d.specialization " + FROM_WITH_NAMES);
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                                                             ResultSet.CONCUR_READ_ONLY)) {
+            
+            // Connector/J streams rows instead of buffering the whole result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    store.add(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6),
+                              CompactAppointmentStore.statusCode(rs.getString(7)),
+                              rs.getString(8), rs.getString(9), rs.getString(10));
+                }
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        store.trimToSize();
+        return store;
+    }
+    
+    /**
+     * Count appointments on a date without loading them
+     */
+    public int countAppointmentsByDate(LocalDate date) {
+        String sql = "SELECT COUNT(*) FROM appointments WHERE appointment_date = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setDate(1, Date.valueOf(date));
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return 0;
+    }
+    
     /**
      * Get appointment by ID
      */
     public Appointment getAppointmentById(int appointmentId) {
-        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name, d.specialization " +
-                    "FROM appointments a " +
-                    "JOIN patients p ON a.patient_id = p.patient_id " +
-                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                    "WHERE a.appointment_id = ?";
+        String sql = SELECT_WITH_NAMES + " WHERE a.appointment_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -95,19 +378,7 @@ public class AppointmentDAO {
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                Appointment appointment = new Appointment();
-                appointment.setAppointmentId(rs.getInt("appointment_id"));
-                appointment.setPatientId(rs.getInt("patient_id"));
-                appointment.setDoctorId(rs.getInt("doctor_id"));
-                appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
-                appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
-                appointment.setStatus(rs.getString("status"));
-                appointment.setNotes(rs.getString("notes"));
-                appointment.setPatientName(rs.getString("patient_name"));
-                appointment.setDoctorName(rs.getString("doctor_name"));
-                appointment.setDoctorSpecialization(rs.getString("specialization"));
-                
-                return appointment;
+                return mapAppointment(rs);
             }
             
         } catch (SQLException e) {
@@ -118,43 +389,130 @@ public class AppointmentDAO {
     }
     
     /**
-     * Update appointment
+     * Update the columns changed since the appointment was loaded; does nothing and
+     * returns UNCHANGED if none were. Only applies if the row still has the
+     * appointment's version; on success the version is advanced and the changes cleared.
      */
-    public boolean updateAppointment(Appointment appointment) {
-        String sql = "UPDATE appointments SET patient_id = ?, doctor_id = ?, appointment_date = ?, " +
-                    "appointment_time = ?, status = ?, notes = ? WHERE appointment_id = ?";
+    public UpdateResult updateAppointment(Appointment appointment) {
+        if (!appointment.hasChanges()) {
+            return UpdateResult.UNCHANGED;
+        }
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        List<String> columns = new ArrayList<>(appointment.getChangedColumns());
+        String sql = UpdateResult.versionedUpdateSql("appointments", columns, "appointment_id");
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, appointment.getPatientId());
-            pstmt.setInt(2, appointment.getDoctorId());
-            pstmt.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
-            pstmt.setTime(4, Time.valueOf(appointment.getAppointmentTime()));
-            pstmt.setString(5, appointment.getStatus());
-            pstmt.setString(6, appointment.getNotes());
-            pstmt.setInt(7, appointment.getAppointmentId());
+            int index = 1;
+            for (String column : columns) {
+                bindColumn(pstmt, index++, appointment, column);
+            }
+            pstmt.setInt(index++, appointment.getAppointmentId());
+            pstmt.setInt(index, appointment.getVersion());
             
-            int result = pstmt.executeUpdate();
-            return result > 0;
+            if (pstmt.executeUpdate() == 0) {
+                UpdateResult result = UpdateResult.afterMiss(conn, "appointments", "appointment_id", appointment.getAppointmentId());
+                unitOfWork.commit();
+                return result;
+            }
+            ChangeTracking.recordUpdate(conn, "appointments", appointment.getAppointmentId());
+            unitOfWork.afterCommit(() -> {
+                appointment.setVersion(appointment.getVersion() + 1);
+                appointment.clearChanges();
+            });
+            unitOfWork.commit();
+            return UpdateResult.UPDATED;
             
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
+            return UpdateResult.FAILED;
         }
     }
     
     /**
-     * Cancel appointment
+     * Save new doctor, date and time for many appointments in one
+     * transaction, as one batched versioned UPDATE. The rows are locked and
+     * their versions checked first; if any appointment was changed or
+     * removed by someone else since it was read, nothing is written.
+     * @return UPDATED, CONFLICT or FAILED
+     */
+    public UpdateResult rescheduleAppointments(List<Appointment> appointments) {
+        if (appointments.isEmpty()) {
+            return UpdateResult.UNCHANGED;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(appointments.size(), "?"));
+        String lockSql = "SELECT appointment_id, version FROM appointments " +
+                        "WHERE appointment_id IN (" + placeholders + ") FOR UPDATE";
+        String sql = UpdateResult.versionedUpdateSql("appointments",
+                Arrays.asList("doctor_id", "appointment_date", "appointment_time"), "appointment_id");
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement lock = conn.prepareStatement(lockSql)) {
+            
+            // Batched update counts can come back as SUCCESS_NO_INFO, so they
+            // cannot show a missed version; check the versions under the row locks
+            for (int i = 0; i < appointments.size(); i++) {
+                lock.setInt(i + 1, appointments.get(i).getAppointmentId());
+            }
+            Map<Integer, Integer> versions = new HashMap<>();
+            try (ResultSet rs = lock.executeQuery()) {
+                while (rs.next()) {
+                    versions.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+            for (Appointment appointment : appointments) {
+                Integer version = versions.get(appointment.getAppointmentId());
+                if (version == null || version != appointment.getVersion()) {
+                    return UpdateResult.CONFLICT;
+                }
+            }
+            
+            UnitOfWork.Batch update = unitOfWork.batch(sql);
+            for (Appointment appointment : appointments) {
+                update.add(appointment.getDoctorId(), appointment.getAppointmentDate(), appointment.getAppointmentTime(),
+                           appointment.getAppointmentId(), appointment.getVersion());
+            }
+            
+            UnitOfWork.Batch log = unitOfWork.batch("INSERT INTO change_log (table_name, record_id, operation) VALUES (?, ?, ?)");
+            for (Appointment appointment : appointments) {
+                log.add("appointments", appointment.getAppointmentId(), ChangeEvent.UPDATE);
+            }
+            
+            unitOfWork.afterCommit(() -> {
+                for (Appointment appointment : appointments) {
+                    appointment.setVersion(appointment.getVersion() + 1);
+                    appointment.clearChanges();
+                }
+            });
+            unitOfWork.commit();
+            return UpdateResult.UPDATED;
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return UpdateResult.FAILED;
+        }
+    }
+    
+    /**
+     * Cancel appointment. Bumps the version so an editor holding the old
+     * row gets a conflict instead of silently un-cancelling it.
      */
     public boolean cancelAppointment(int appointmentId) {
-        String sql = "UPDATE appointments SET status = 'Cancelled' WHERE appointment_id = ?";
+        String sql = "UPDATE appointments SET status = 'Cancelled', version = version + 1 WHERE appointment_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, appointmentId);
             int result = pstmt.executeUpdate();
+            if (result > 0) {
+                ChangeTracking.recordUpdate(conn, "appointments", appointmentId);
+            }
+            unitOfWork.commit();
             return result > 0;
             
         } catch (SQLException e) {
@@ -163,17 +521,149 @@ public class AppointmentDAO {
         }
     }
     
+    /**
+     * Move up to chunkSize appointments dated before the given day from one
+     * status to another in a single short transaction. The rows are found
+     * and locked through the (status, appointment_date) index, so only the
+     * chunk is locked rather than the whole range.
+     * @return the number of appointments moved, or -1 if the chunk failed
+     */
+    public int transitionStatusChunk(String fromStatus, String toStatus, LocalDate before, int chunkSize) {
+        String selectSql = "SELECT appointment_id FROM appointments WHERE status = ? AND appointment_date < ? " +
+                          "ORDER BY appointment_date, appointment_id LIMIT ? FOR UPDATE";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(selectSql)) {
+        
+            pstmt.setString(1, fromStatus);
+            pstmt.setDate(2, Date.valueOf(before));
+            pstmt.setInt(3, chunkSize);
+        
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+        
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            String updateSql = "UPDATE appointments SET status = ?, version = version + 1 WHERE appointment_id IN (" + placeholders + ")";
+            try (PreparedStatement update = conn.prepareStatement(updateSql)) {
+                update.setString(1, toStatus);
+                for (int i = 0; i < ids.size(); i++) {
+                    update.setInt(i + 2, ids.get(i));
+                }
+                update.executeUpdate();
+            }
+        
+            UnitOfWork.Batch log = unitOfWork.batch("INSERT INTO change_log (table_name, record_id, operation) VALUES (?, ?, ?)");
+            for (int id : ids) {
+                log.add("appointments", id, ChangeEvent.UPDATE);
+            }
+        
+            unitOfWork.commit();
+            return ids.size();
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    /**
+     * Move up to chunkSize finished appointments dated before the given day
+     * into appointments_archive in one short transaction. Scheduled and
+     * billed appointments stay in the hot table. The move is logged as an
+     * archive operation so open lists drop the rows but reports keep them.
+     * @return the number of appointments archived, or -1 if the chunk failed
+     */
+    public int archiveChunk(LocalDate before, int chunkSize) {
+        String selectSql = "SELECT appointment_id FROM appointments a WHERE appointment_date < ? AND status <> 'Scheduled' " +
+                          "AND NOT EXISTS (SELECT 1 FROM bills b WHERE b.appointment_id = a.appointment_id) " +
+                          "ORDER BY appointment_date, appointment_id LIMIT ? FOR UPDATE";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(selectSql)) {
+            
+            pstmt.setDate(1, Date.valueOf(before));
+            pstmt.setInt(2, chunkSize);
+            
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            String copySql = "INSERT INTO appointments_archive (" + ARCHIVE_COLUMNS + ") " +
+                            "SELECT " + ARCHIVE_COLUMNS + " FROM appointments WHERE appointment_id IN (" + placeholders + ")";
+            String deleteSql = "DELETE FROM appointments WHERE appointment_id IN (" + placeholders + ")";
+            for (String sql : new String[] {copySql, deleteSql}) {
+                try (PreparedStatement move = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        move.setInt(i + 1, ids.get(i));
+                    }
+                    move.executeUpdate();
+                }
+            }
+            
+            UnitOfWork.Batch log = unitOfWork.batch("INSERT INTO change_log (table_name, record_id, operation) VALUES (?, ?, ?)");
+            for (int id : ids) {
+                log.add("appointments", id, ChangeEvent.ARCHIVE);
+            }
+            
+            unitOfWork.commit();
+            return ids.size();
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    /**
+     * Add monthly appointments_archive partitions through the given date.
+     * Runs DDL, so it uses its own connection rather than joining a unit.
+     * @return the number of partitions added, or -1 on failure
+     */
+    public int ensureArchivePartitions(LocalDate through) {
+        try (Connection conn = DatabaseConnection.openConnection()) {
+            
+            LocalDate oldest = PartitionManager.oldestAppointmentDate(conn, "appointments");
+            return PartitionManager.ensureMonthlyPartitions(conn, "appointments_archive",
+                                                            oldest != null ? oldest : LocalDate.now(), through);
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
     /**
      * Delete appointment
      */
     public boolean deleteAppointment(int appointmentId) {
         String sql = "DELETE FROM appointments WHERE appointment_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, appointmentId);
             int result = pstmt.executeUpdate();
+            if (result > 0) {
+                ChangeTracking.recordDeletion(conn, "appointments", appointmentId);
+            }
+            unitOfWork.commit();
             return result > 0;
             
         } catch (SQLException e) {
@@ -183,116 +673,117 @@ public class AppointmentDAO {
     }
     
     /**
-     * Get appointments by patient ID
+     * Get appointments added, changed or deleted since the given high-water mark.
+     * A null mark loads every appointment matching the criteria. Appointments whose
+     * patient or doctor changed are included too, so renamed names show up in the
+     * table. In a delta, changed appointments that no longer match the criteria
+     * are reported as deleted so they drop out of a filtered view.
      */
-    public List<Appointment> getAppointmentsByPatient(int patientId) {
-        List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name, d.specialization " +
-                    "FROM appointments a " +
-                    "JOIN patients p ON a.patient_id = p.patient_id " +
-                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                    "WHERE a.patient_id = ? ORDER BY a.appointment_date DESC";
+    public ChangeSet<AppointmentSummary> getAppointmentChangesSince(Timestamp since, Criteria<Field> criteria) {
+        if (since == null) {
+            return loadAllChanges(criteria);
+        }
+        
+        List<AppointmentSummary> appointments = new ArrayList<>();
+        List<Integer> removedIds = new ArrayList<>();
+        String select = "SELECT " + SUMMARY_COLUMNS + ", " +
+                    criteria.matchExpression() + " AS matches_criteria " + FROM_WITH_NAMES + " ";
+        // One branch per table so each can use its own updated_at index
+        String sql = select + "WHERE a.updated_at >= ? UNION " +
+                    select + "WHERE p.updated_at >= ? UNION " +
+                    select + "WHERE d.updated_at >= ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, patientId);
-            ResultSet rs = pstmt.executeQuery();
+            Timestamp highWaterMark = ChangeTracking.currentTimestamp(conn);
+            int index = 1;
+            for (int branch = 0; branch < 3; branch++) {
+                index = criteria.bind(pstmt, index);
+                pstmt.setTimestamp(index++, since);
+            }
             
-            while (rs.next()) {
-                Appointment appointment = new Appointment();
-                appointment.setAppointmentId(rs.getInt("appointment_id"));
-                appointment.setPatientId(rs.getInt("patient_id"));
-                appointment.setDoctorId(rs.getInt("doctor_id"));
-                appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
-                appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
-                appointment.setStatus(rs.getString("status"));
-                appointment.setNotes(rs.getString("notes"));
-                appointment.setPatientName(rs.getString("patient_name"));
-                appointment.setDoctorName(rs.getString("doctor_name"));
-                appointment.setDoctorSpecialization(rs.getString("specialization"));
-                
-                appointments.add(appointment);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getBoolean("matches_criteria")) {
+                        appointments.add(mapAppointmentSummary(rs));
+                    } else {
+                        removedIds.add(rs.getInt("appointment_id"));
+                    }
+                }
             }
             
+            removedIds.addAll(ChangeTracking.getDeletedIds(conn, "appointments", since));
+            return new ChangeSet<>(appointments, removedIds, highWaterMark, false);
+            
         } catch (SQLException e) {
             e.printStackTrace();
+            return ChangeSet.unchanged(since);
         }
-        
-        return appointments;
     }
     
-    /**
-     * Get appointments by doctor ID
-     */
-    public List<Appointment> getAppointmentsByDoctor(int doctorId) {
-        List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name, d.specialization " +
-                    "FROM appointments a " +
-                    "JOIN patients p ON a.patient_id = p.patient_id " +
-                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                    "WHERE a.doctor_id = ? ORDER BY a.appointment_date DESC";
+    private ChangeSet<AppointmentSummary> loadAllChanges(Criteria<Field> criteria) {
+        List<AppointmentSummary> appointments = new ArrayList<>();
+        String sql = criteria.toSql("SELECT " + SUMMARY_COLUMNS + " " + FROM_WITH_NAMES);
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, doctorId);
-            ResultSet rs = pstmt.executeQuery();
+            Timestamp highWaterMark = ChangeTracking.currentTimestamp(conn);
+            criteria.bind(pstmt, 1);
             
-            while (rs.next()) {
-                Appointment appointment = new Appointment();
-                appointment.setAppointmentId(rs.getInt("appointment_id"));
-                appointment.setPatientId(rs.getInt("patient_id"));
-                appointment.setDoctorId(rs.getInt("doctor_id"));
-                appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
-                appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
-                appointment.setStatus(rs.getString("status"));
-                appointment.setNotes(rs.getString("notes"));
-                appointment.setPatientName(rs.getString("patient_name"));
-                appointment.setDoctorName(rs.getString("doctor_name"));
-                appointment.setDoctorSpecialization(rs.getString("specialization"));
-                
-                appointments.add(appointment);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapAppointmentSummary(rs));
+                }
             }
             
+            return new ChangeSet<>(appointments, new ArrayList<>(), highWaterMark, true);
+            
         } catch (SQLException e) {
             e.printStackTrace();
+            return ChangeSet.unchanged(null);
         }
-        
-        return appointments;
     }
     
     /**
-     * Get appointments by date
+     * Get appointments by patient ID
      */
-    public List<Appointment> getAppointmentsByDate(LocalDate date) {
+    public List<Appointment> getAppointmentsByPatient(int patientId) {
+        return findAppointments(new Criteria<Field>()
+                .equalTo(Field.PATIENT_ID, patientId)
+                .sortBy(Field.DATE, Criteria.Direction.DESC));
+    }
+    
+    /**
+     * Get appointments by patient ID, optionally including appointments
+     * moved to appointments_archive. Archived ones are read-only.
+     */
+    public List<Appointment> getAppointmentsByPatient(int patientId, boolean includeArchived) {
+        if (!includeArchived) {
+            return getAppointmentsByPatient(patientId);
+        }
+        
         List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name, d.specialization " +
-                    "FROM appointments a " +
+        String sql = "SELECT " + HISTORY_COLUMNS + ", 0 as archived " + FROM_WITH_NAMES + " WHERE a.patient_id = ? " +
+                    "UNION ALL " +
+                    "SELECT " + HISTORY_COLUMNS + ", 1 as archived FROM appointments_archive a " +
                     "JOIN patients p ON a.patient_id = p.patient_id " +
-                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                    "WHERE a.appointment_date = ? ORDER BY a.appointment_time";
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id WHERE a.patient_id = ? " +
+                    "ORDER BY appointment_date DESC, appointment_time DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setDate(1, Date.valueOf(date));
-            ResultSet rs = pstmt.executeQuery();
+            pstmt.setInt(1, patientId);
+            pstmt.setInt(2, patientId);
             
-            while (rs.next()) {
-                Appointment appointment = new Appointment();
-                appointment.setAppointmentId(rs.getInt("appointment_id"));
-                appointment.setPatientId(rs.getInt("patient_id"));
-                appointment.setDoctorId(rs.getInt("doctor_id"));
-                appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
-                appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
-                appointment.setStatus(rs.getString("status"));
-                appointment.setNotes(rs.getString("notes"));
-                appointment.setPatientName(rs.getString("patient_name"));
-                appointment.setDoctorName(rs.getString("doctor_name"));
-                appointment.setDoctorSpecialization(rs.getString("specialization"));
-                
-                appointments.add(appointment);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Appointment appointment = mapAppointment(rs);
+                    appointment.setArchived(rs.getBoolean("archived"));
+                    appointments.add(appointment);
+                }
             }
             
         } catch (SQLException e) {
@@ -303,18 +794,75 @@ public class AppointmentDAO {
     }
     
     /**
-     * Check if doctor is available at given date and time
+     * Get appointments by doctor ID
+     */
+    public List<Appointment> getAppointmentsByDoctor(int doctorId) {
+        return findAppointments(new Criteria<Field>()
+                .equalTo(Field.DOCTOR_ID, doctorId)
+                .sortBy(Field.DATE, Criteria.Direction.DESC));
+    }
+    
+    /**
+     * Get one doctor's appointments for a date range (inclusive) in day and
+     * time order. A single range scan of idx_appointments_doctor_slot.
+     * @throws SQLException if the read fails, so an error is never taken for free days
+     */
+    public List<AppointmentSummary> getDoctorAgenda(int doctorId, LocalDate from, LocalDate to) throws SQLException {
+        Criteria<Field> criteria = new Criteria<Field>()
+                .equalTo(Field.DOCTOR_ID, doctorId)
+                .between(Field.DATE, from, to)
+                .sortBy(Field.DATE, Criteria.Direction.ASC)
+                .sortBy(Field.TIME, Criteria.Direction.ASC);
+        return fetchSummaries(criteria.toSql("SELECT " + SUMMARY_COLUMNS + " " + FROM_WITH_NAMES), criteria);
+    }
+    
+    /**
+     * Get appointments by date
+     */
+    public List<Appointment> getAppointmentsByDate(LocalDate date) {
+        return findAppointments(new Criteria<Field>()
+                .equalTo(Field.DATE, date)
+                .sortBy(Field.TIME, Criteria.Direction.ASC));
+    }
+    
+    /**
+     * Check if doctor is free for a default-length appointment at given date and time
      */
     public boolean isDoctorAvailable(int doctorId, LocalDate date, LocalTime time) {
+        return isDoctorAvailable(doctorId, date, time, Appointment.DEFAULT_DURATION_MINUTES, 0);
+    }
+    
+    /**
+     * Check if no other active appointment of the doctor overlaps
+     * [time, time + durationMinutes). Appointments must end by midnight, so
+     * only the given date is searched and a slot that would run into the
+     * next day is never available. Answered from
+     * idx_appointments_doctor_slot alone. Inside a UnitOfWork this is a
+     * locking read: it sees bookings committed since the unit began and
+     * keeps new ones out of the checked range until commit, whether or not
+     * the caller holds the doctor's lock.
+     * @param excludeAppointmentId appointment being edited, or 0
+     */
+    public boolean isDoctorAvailable(int doctorId, LocalDate date, LocalTime time, int durationMinutes,
+                                     int excludeAppointmentId) {
+        if (!Appointment.fitsInDay(time, durationMinutes)) {
+            return false;
+        }
         String sql = "SELECT COUNT(*) FROM appointments WHERE doctor_id = ? AND appointment_date = ? " +
-                    "AND appointment_time = ? AND status != 'Cancelled'";
+                    "AND status != 'Cancelled' AND appointment_id != ? " +
+                    "AND TIME_TO_SEC(appointment_time) < ? " +
+                    "AND TIME_TO_SEC(appointment_time) + duration_minutes * 60 > ?" +
+                    (UnitOfWork.current() != null ? " FOR UPDATE" : "");
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            int start = time.toSecondOfDay();
             pstmt.setInt(1, doctorId);
             pstmt.setDate(2, Date.valueOf(date));
-            pstmt.setTime(3, Time.valueOf(time));
+            pstmt.setInt(3, excludeAppointmentId);
+            pstmt.setInt(4, start + durationMinutes * 60);
+            pstmt.setInt(5, start);
             
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -327,4 +875,71 @@ public class AppointmentDAO {
         
         return false;
     }
+    
+    /**
+     * Bind the value of one updatable column
+     */
+    private void bindColumn(PreparedStatement pstmt, int index, Appointment appointment, String column) throws SQLException {
+        switch (column) {
+            case "patient_id":
+                pstmt.setInt(index, appointment.getPatientId());
+                break;
+            case "doctor_id":
+                pstmt.setInt(index, appointment.getDoctorId());
+                break;
+            case "appointment_date":
+                pstmt.setDate(index, Date.valueOf(appointment.getAppointmentDate()));
+                break;
+            case "appointment_time":
+                pstmt.setTime(index, Time.valueOf(appointment.getAppointmentTime()));
+                break;
+            case "duration_minutes":
+                pstmt.setInt(index, appointment.getDurationMinutes());
+                break;
+            case "status":
+                pstmt.setString(index, appointment.getStatus());
+                break;
+            case "notes":
+                pstmt.setString(index, appointment.getNotes());
+                break;
+            default:
+                throw new IllegalArgumentException("Not an updatable column: " + column);
+        }
+    }
+    
+    private Appointment mapAppointment(ResultSet rs) throws SQLException {
+        Appointment appointment = new Appointment();
+        appointment.setAppointmentId(rs.getInt("appointment_id"));
+        appointment.setPatientId(rs.getInt("patient_id"));
+        appointment.setDoctorId(rs.getInt("doctor_id"));
+        appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
+        appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
+        appointment.setDurationMinutes(rs.getInt("duration_minutes"));
+        appointment.setStatus(rs.getString("status"));
+        appointment.setNotes(rs.getString("notes"));
+        appointment.setPatientName(rs.getString("patient_name"));
+        appointment.setDoctorName(rs.getString("doctor_name"));
+        appointment.setDoctorSpecialization(rs.getString("specialization"));
+        appointment.setVersion(rs.getInt("version"));
+        appointment.clearChanges();
+        
+        return appointment;
+    }
+    
+    private AppointmentSummary mapAppointmentSummary(ResultSet rs) throws SQLException {
+        AppointmentSummary appointment = new AppointmentSummary();
+        appointment.setAppointmentId(rs.getInt("appointment_id"));
+        appointment.setPatientId(rs.getInt("patient_id"));
+        appointment.setDoctorId(rs.getInt("doctor_id"));
+        appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
+        appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
+        appointment.setDurationMinutes(rs.getInt("duration_minutes"));
+        appointment.setStatus(rs.getString("status"));
+        appointment.setNotesPreview(rs.getString("notes_preview"));
+        appointment.setPatientName(rs.getString("patient_name"));
+        appointment.setDoctorName(rs.getString("doctor_name"));
+        appointment.setDoctorSpecialization(rs.getString("specialization"));
+        
+        return appointment;
+    }
 }
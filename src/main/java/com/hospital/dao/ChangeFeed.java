@@ -0,0 +1,251 @@
+package com.hospital.dao;
+
+import com.hospital.model.ChangeEvent;
+import com.hospital.util.DatabaseConnection;
+
+import javax.swing.SwingUtilities;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the change_log table so every desk sees writes made by the others.
+ * A single background thread polls by primary key (change_id > last seen)
+ * on its own connection and hands new events to listeners on the Swing EDT.
+ * Ids are assigned at insert but become visible at commit, so a lower id
+ * can appear after a higher one was read; ids skipped over are polled
+ * again until they show up or COMMIT_LAG_SECONDS pass (a rolled-back
+ * insert leaves a hole for good).
+ */
+public class ChangeFeed {
+
+    /**
+     * Receives batches of change events for one table, always on the EDT
+     */
+    public interface Listener {
+        void onChanges(List<ChangeEvent> events);
+    }
+
+    private static final ChangeFeed INSTANCE = new ChangeFeed();
+
+    private static final long POLL_INTERVAL_MS = 2000;
+    private static final int BATCH_SIZE = 500;
+    private static final int RETENTION_DAYS = 7;
+    private static final long GAP_TIMEOUT_MS = ChangeTracking.COMMIT_LAG_SECONDS * 1000L;
+    private static final int MAX_GAPS = 10000;
+
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    // Only touched from the polling thread
+    private Connection connection;
+    private long lastChangeId = -1;
+    // Skipped change ids -> when they were first missed; the oldest are dropped past MAX_GAPS
+    private final Map<Long, Long> gaps = new LinkedHashMap<Long, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            return size() > MAX_GAPS;
+        }
+    };
+
+    private ChangeFeed() {}
+
+    public static ChangeFeed getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start polling. Events written before the feed starts are not replayed.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop polling and release the feed connection
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.execute(() -> {
+            closeConnection();
+            lastChangeId = -1;
+            gaps.clear();
+        });
+        scheduler.shutdown();
+        scheduler = null;
+    }
+
+    public void addListener(String tableName, Listener listener) {
+        listeners.computeIfAbsent(tableName, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void removeListener(String tableName, Listener listener) {
+        List<Listener> tableListeners = listeners.get(tableName);
+        if (tableListeners != null) {
+            tableListeners.remove(listener);
+        }
+    }
+
+    private void poll() {
+        try {
+            if (connection == null || connection.isClosed()) {
+                connection = DatabaseConnection.openConnection();
+            }
+            if (lastChangeId < 0) {
+                purgeOldEntries();
+                lastChangeId = readLatestChangeId();
+                return;
+            }
+
+            pollGaps();
+
+            List<ChangeEvent> events;
+            do {
+                events = readChangesAfter(lastChangeId);
+                if (!events.isEmpty()) {
+                    recordGaps(events);
+                    lastChangeId = events.get(events.size() - 1).getChangeId();
+                    dispatch(events);
+                }
+            } while (events.size() == BATCH_SIZE);
+
+        } catch (SQLException e) {
+            // Retry on the next tick with a fresh connection
+            e.printStackTrace();
+            closeConnection();
+        }
+    }
+
+    private List<ChangeEvent> readChangesAfter(long changeId) throws SQLException {
+        String sql = "SELECT change_id, table_name, record_id, operation FROM change_log " +
+                    "WHERE change_id > ? ORDER BY change_id LIMIT " + BATCH_SIZE;
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, changeId);
+            return readEvents(pstmt);
+        }
+    }
+
+    /**
+     * Remember the ids between the last one read and each new event
+     */
+    private void recordGaps(List<ChangeEvent> events) {
+        long now = System.currentTimeMillis();
+        long expected = lastChangeId + 1;
+        for (ChangeEvent event : events) {
+            // Only the nearest MAX_GAPS of a very wide jump are worth tracking
+            for (long id = Math.max(expected, event.getChangeId() - MAX_GAPS); id < event.getChangeId(); id++) {
+                gaps.put(id, now);
+            }
+            expected = event.getChangeId() + 1;
+        }
+    }
+
+    /**
+     * Deliver skipped ids that have committed since, and give up on those
+     * missing for longer than GAP_TIMEOUT_MS
+     */
+    private void pollGaps() throws SQLException {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(firstMissed -> now - firstMissed > GAP_TIMEOUT_MS);
+        if (gaps.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(gaps.keySet());
+        List<ChangeEvent> late = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            String sql = "SELECT change_id, table_name, record_id, operation FROM change_log " +
+                        "WHERE change_id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setLong(i + 1, chunk.get(i));
+                }
+                late.addAll(readEvents(pstmt));
+            }
+        }
+
+        if (!late.isEmpty()) {
+            for (ChangeEvent event : late) {
+                gaps.remove(event.getChangeId());
+            }
+            dispatch(late);
+        }
+    }
+
+    private List<ChangeEvent> readEvents(PreparedStatement pstmt) throws SQLException {
+        List<ChangeEvent> events = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                events.add(new ChangeEvent(rs.getLong("change_id"), rs.getString("table_name"),
+                                           rs.getInt("record_id"), rs.getString("operation")));
+            }
+        }
+        return events;
+    }
+
+    private long readLatestChangeId() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(change_id), 0) FROM change_log")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void purgeOldEntries() throws SQLException {
+        String sql = "DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL " + RETENTION_DAYS + " DAY";
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    private void dispatch(List<ChangeEvent> events) {
+        Map<String, List<ChangeEvent>> byTable = new HashMap<>();
+        for (ChangeEvent event : events) {
+            byTable.computeIfAbsent(event.getTableName(), t -> new ArrayList<>()).add(event);
+        }
+
+        for (Map.Entry<String, List<ChangeEvent>> entry : byTable.entrySet()) {
+            List<Listener> tableListeners = listeners.get(entry.getKey());
+            if (tableListeners == null) {
+                continue;
+            }
+            for (Listener listener : tableListeners) {
+                SwingUtilities.invokeLater(() -> listener.onChanges(entry.getValue()));
+            }
+        }
+    }
+
+    private void closeConnection() {
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        connection = null;
+    }
+}
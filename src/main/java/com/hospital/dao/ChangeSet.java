@@ -0,0 +1,45 @@
+package com.hospital.dao;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rows added, changed or deleted since a high-water mark.
+ * Pass the returned high-water mark to the next incremental query.
+ */
+public class ChangeSet<T> {
+    private final List<T> changedRows;
+    private final List<Integer> deletedIds;
+    private final Timestamp highWaterMark;
+    private final boolean fullLoad;
+
+    public ChangeSet(List<T> changedRows, List<Integer> deletedIds, Timestamp highWaterMark, boolean fullLoad) {
+        this.changedRows = changedRows;
+        this.deletedIds = deletedIds;
+        this.highWaterMark = highWaterMark;
+        this.fullLoad = fullLoad;
+    }
+
+    /**
+     * Result used when the query failed: nothing changed and the mark stays where it was
+     */
+    static <T> ChangeSet<T> unchanged(Timestamp since) {
+        return new ChangeSet<>(Collections.emptyList(), Collections.emptyList(), since, since == null);
+    }
+
+    public List<T> getChangedRows() { return changedRows; }
+
+    public List<Integer> getDeletedIds() { return deletedIds; }
+
+    public Timestamp getHighWaterMark() { return highWaterMark; }
+
+    /**
+     * True when changedRows holds the whole table rather than a delta
+     */
+    public boolean isFullLoad() { return fullLoad; }
+
+    public boolean isEmpty() {
+        return changedRows.isEmpty() && deletedIds.isEmpty();
+    }
+}
@@ -0,0 +1,120 @@
+package com.hospital.dao;
+
+import com.hospital.model.ChangeEvent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared helpers for change tracking.
+ * Every DAO write appends a row to change_log; clients tail it through
+ * ChangeFeed and use the updated_at columns plus the logged deletes for
+ * incremental (delta) table refresh. The record* helpers must run in the
+ * same UnitOfWork as the write they log, so a row is never saved without
+ * its entry or reported as failed after it was saved.
+ */
+final class ChangeTracking {
+
+    /**
+     * How long a write may take to commit after its updated_at, changed_at
+     * or change_id was assigned. Readers look back this far so a slow
+     * transaction's rows are not skipped.
+     */
+    static final int COMMIT_LAG_SECONDS = 60;
+
+    private ChangeTracking() {}
+
+    /**
+     * Read the database clock, less COMMIT_LAG_SECONDS. Taken before the
+     * change query, so rows written while it runs, or stamped earlier but
+     * committed late, are picked up by the next refresh. Rows in the
+     * overlap are simply delivered twice.
+     */
+    static Timestamp currentTimestamp(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP - INTERVAL " + COMMIT_LAG_SECONDS + " SECOND")) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    /**
+     * Get ids of rows deleted (or archived) from a table since the given time
+     */
+    static List<Integer> getDeletedIds(Connection conn, String tableName, Timestamp since) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        String sql = "SELECT record_id FROM change_log WHERE table_name = ? AND changed_at >= ? AND operation IN (?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, tableName);
+            pstmt.setTimestamp(2, since);
+            pstmt.setString(3, ChangeEvent.DELETE);
+            pstmt.setString(4, ChangeEvent.ARCHIVE);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Log an inserted row
+     */
+    static void recordInsert(Connection conn, String tableName, int recordId) throws SQLException {
+        recordChange(conn, tableName, recordId, ChangeEvent.INSERT);
+    }
+
+    /**
+     * Log an updated row
+     */
+    static void recordUpdate(Connection conn, String tableName, int recordId) throws SQLException {
+        recordChange(conn, tableName, recordId, ChangeEvent.UPDATE);
+    }
+
+    /**
+     * Log a deleted row
+     */
+    static void recordDeletion(Connection conn, String tableName, int recordId) throws SQLException {
+        recordChange(conn, tableName, recordId, ChangeEvent.DELETE);
+    }
+
+    /**
+     * Log appointments about to be removed by an ON DELETE CASCADE from
+     * patients or doctors, then delete their archived appointments, which
+     * have no foreign keys. Must run before the parent row is deleted.
+     */
+    static void recordCascadedAppointmentDeletions(Connection conn, String parentColumn, int parentId) throws SQLException {
+        for (String table : new String[] {"appointments", "appointments_archive"}) {
+            String sql = "INSERT INTO change_log (table_name, record_id, operation) " +
+                        "SELECT 'appointments', appointment_id, ? FROM " + table + " WHERE " + parentColumn + " = ?";
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, ChangeEvent.DELETE);
+                pstmt.setInt(2, parentId);
+                pstmt.executeUpdate();
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "DELETE FROM appointments_archive WHERE " + parentColumn + " = ?")) {
+            pstmt.setInt(1, parentId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static void recordChange(Connection conn, String tableName, int recordId, String operation) throws SQLException {
+        String sql = "INSERT INTO change_log (table_name, record_id, operation) VALUES (?, ?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, tableName);
+            pstmt.setInt(2, recordId);
+            pstmt.setString(3, operation);
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.hospital.dao;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Typed filter/sort/limit builder shared by the DAOs.
+ * Conditions are ANDed together and every value is bound as a parameter.
+ *
+ * Example:
+ *   new Criteria&lt;AppointmentDAO.Field&gt;()
+ *       .equalTo(AppointmentDAO.Field.STATUS, "Scheduled")
+ *       .sortBy(AppointmentDAO.Field.DATE, Criteria.Direction.DESC)
+ *       .limit(100);
+ */
+public class Criteria<F extends Enum<F> & QueryField> {
+
+    public enum Direction { ASC, DESC }
+
+    private final List<String> conditions = new ArrayList<>();
+    private final List<Object> parameters = new ArrayList<>();
+    private final List<String> sortKeys = new ArrayList<>();
+    private int limit = -1;
+    private int offset = 0;
+
+    /**
+     * field = value
+     */
+    public Criteria<F> equalTo(F field, Object value) {
+        conditions.add(field.getColumn() + " = ?");
+        parameters.add(value);
+        return this;
+    }
+
+    /**
+     * field IN (values); matches nothing when values is empty
+     */
+    public Criteria<F> in(F field, Collection<?> values) {
+        if (values.isEmpty()) {
+            conditions.add("1 = 0");
+            return this;
+        }
+        conditions.add(field.getColumn() + " IN (" + String.join(", ", Collections.nCopies(values.size(), "?")) + ")");
+        parameters.addAll(values);
+        return this;
+    }
+
+    /**
+     * field BETWEEN from AND to (inclusive)
+     */
+    public Criteria<F> between(F field, Object from, Object to) {
+        conditions.add(field.getColumn() + " BETWEEN ? AND ?");
+        parameters.add(from);
+        parameters.add(to);
+        return this;
+    }
+
+    /**
+     * field LIKE 'text%' - can use an index on the column
+     */
+    public Criteria<F> startsWith(F field, String text) {
+        conditions.add(field.getColumn() + " LIKE ?");
+        parameters.add(escapeLike(text) + "%");
+        return this;
+    }
+
+    /**
+     * field LIKE '%text%' - matches anywhere, scans the column
+     */
+    public Criteria<F> contains(F field, String text) {
+        conditions.add(field.getColumn() + " LIKE ?");
+        parameters.add("%" + escapeLike(text) + "%");
+        return this;
+    }
+
+    /**
+     * Any of the fields contains the text (ORed group)
+     */
+    @SafeVarargs
+    public final Criteria<F> anyContains(String text, F... fields) {
+        List<String> alternatives = new ArrayList<>();
+        for (F field : fields) {
+            alternatives.add(field.getColumn() + " LIKE ?");
+            parameters.add("%" + escapeLike(text) + "%");
+        }
+        conditions.add("(" + String.join(" OR ", alternatives) + ")");
+        return this;
+    }
+
+    /**
+     * Add a sort key; keys apply in the order they are added
+     */
+    public Criteria<F> sortBy(F field, Direction direction) {
+        sortKeys.add(field.getColumn() + " " + direction.name());
+        return this;
+    }
+
+    public Criteria<F> limit(int limit) {
+        return limit(limit, 0);
+    }
+
+    public Criteria<F> limit(int limit, int offset) {
+        this.limit = limit;
+        this.offset = offset;
+        return this;
+    }
+
+    public boolean hasConditions() {
+        return !conditions.isEmpty();
+    }
+
+    public boolean hasSort() {
+        return !sortKeys.isEmpty();
+    }
+
+    /**
+     * Append WHERE, ORDER BY and LIMIT clauses to a SELECT ... FROM ... statement
+     */
+    String toSql(String select) {
+        StringBuilder sql = new StringBuilder(select);
+        if (hasConditions()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (hasSort()) {
+            sql.append(" ORDER BY ").append(String.join(", ", sortKeys));
+        }
+        if (limit >= 0) {
+            sql.append(" LIMIT ").append(limit).append(" OFFSET ").append(offset);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * The conditions as one boolean SQL expression, for use in a select list
+     * (evaluates to 1 when there are no conditions)
+     */
+    String matchExpression() {
+        return hasConditions() ? "(" + String.join(" AND ", conditions) + ")" : "1";
+    }
+
+    /**
+     * Bind the condition parameters starting at the given index
+     * @return the next free parameter index
+     */
+    int bind(PreparedStatement pstmt, int index) throws SQLException {
+        for (Object value : parameters) {
+            if (value instanceof LocalDate) {
+                pstmt.setDate(index++, Date.valueOf((LocalDate) value));
+            } else if (value instanceof LocalTime) {
+                pstmt.setTime(index++, Time.valueOf((LocalTime) value));
+            } else {
+                pstmt.setObject(index++, value);
+            }
+        }
+        return index;
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
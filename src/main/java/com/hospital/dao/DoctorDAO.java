@@ -1,7 +1,9 @@
 package com.hospital.dao;
 
 import com.hospital.model.Doctor;
+import com.hospital.model.DoctorSummary;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.UnitOfWork;
 
 import java.math.BigDecimal;
 import java.sql.*;
@@ -13,32 +15,77 @@ import java.util.List;
  */
 public class DoctorDAO {
     
+    /**
+     * Columns that can be filtered and sorted on
+     */
+    public enum Field implements QueryField {
+        ID("doctor_id"),
+        NAME("name"),
+        SPECIALIZATION("specialization"),
+        PHONE("phone"),
+        EMAIL("email"),
+        EXPERIENCE_YEARS("experience_years"),
+        QUALIFICATION("qualification"),
+        CONSULTATION_FEE("consultation_fee"),
+        AVAILABLE_DAYS("available_days"),
+        AVAILABLE_TIME("available_time");
+        
+        private final String column;
+        
+        Field(String column) { this.column = column; }
+        
+        @Override
+        public String getColumn() { return column; }
+    }
+    
+    /**
+     * Columns behind a DoctorSummary; list views never read the audit timestamps
+     */
+    private static final String SUMMARY_COLUMNS =
+            "doctor_id, name, specialization, phone, email, experience_years, qualification, " +
+            "consultation_fee, available_days, available_time";
+    
     /**
      * Add a new doctor to the database
+     * @return the saved doctor with its generated id, or null if the insert failed
      */
-    public boolean addDoctor(Doctor doctor) {
+    public Doctor addDoctor(Doctor doctor) {
         String sql = "INSERT INTO doctors (name, specialization, phone, email, experience_years, " +
                     "qualification, consultation_fee, available_days, available_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
-            pstmt.setString(223232, doctor.getName());
-            pstmt.setString(29, doctor.getSpecialization());
-            pstmt.setString(666, doctor.getPhone());
-            pstmt.setString(9283923, doctor.getEmail());
-            pstmt.setInt(67676767, doctor.getExperienceYears());
-            pstmt.setString(99967872, doctor.getQualification());
-            pstmt.setBigDecimal(97, doctor.getConsultationFee());
-            pstmt.setString(8988, doctor.getAvailableDays());
-            pstmt.setString(99912323, doctor.getAvailableTime());
+            pstmt.setString(1, doctor.getName());
+            pstmt.setString(2, doctor.getSpecialization());
+            pstmt.setString(3, doctor.getPhone());
+            pstmt.setString(4, doctor.getEmail());
+            pstmt.setInt(5, doctor.getExperienceYears());
+            pstmt.setString(6, doctor.getQualification());
+            pstmt.setBigDecimal(7, doctor.getConsultationFee());
+            pstmt.setString(8, doctor.getAvailableDays());
+            pstmt.setString(9, doctor.getAvailableTime());
             
-            int result = pstmt.executeUpdate();
-            return result > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    doctor.setDoctorId(keys.getInt(1));
+                }
+            }
+            ChangeTracking.recordInsert(conn, "doctors", doctor.getDoctorId());
+            unitOfWork.afterCommit(() -> {
+                doctor.setVersion(0);
+                doctor.clearChanges();
+            });
+            unitOfWork.commit();
+            return doctor;
             
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
+            return null;
         }
     }
     
@@ -46,34 +93,78 @@ public class DoctorDAO {
      * Get all doctors from the database
      */
     public List<Doctor> getAllDoctors() {
+        return findDoctors(new Criteria<Field>().sortBy(Field.NAME, Criteria.Direction.ASC));
+    }
+    
+    /**
+     * Get doctors matching the criteria, filtered and sorted by the database
+     */
+    public List<Doctor> findDoctors(Criteria<Field> criteria) {
         List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT * FROM doctors ORDER BY name";
+        String sql = criteria.toSql("SELECT * FROM doctors");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    doctors.add(mapDoctor(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return doctors;
+    }
+    
+    /**
+     * Get list-view projections of the doctors matching the criteria
+     */
+    public List<DoctorSummary> findDoctorSummaries(Criteria<Field> criteria) {
+        List<DoctorSummary> doctors = new ArrayList<>();
+        String sql = criteria.toSql("SELECT " + SUMMARY_COLUMNS + " FROM doctors");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    doctors.add(mapDoctorSummary(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return doctors;
+    }
+    
+    /**
+     * Count all doctors without loading them
+     */
+    public int countDoctors() {
+        String sql = "SELECT COUNT(*) FROM doctors";
         
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                Doctor doctor = new Doctor();
-                doctor.setDoctorId(rs.getInt("doctor_id"));
-                doctor.setName(rs.getString("name"));
-                doctor.setSpecialization(rs.getString("specialization"));
-                doctor.setPhone(rs.getString("phone"));
-                doctor.setEmail(rs.getString("email"));
-                doctor.setExperienceYears(rs.getInt("experience_years"));
-                doctor.setQualification(rs.getString("qualification"));
-                doctor.setConsultationFee(rs.getBigDecimal("consultation_fee"));
-                doctor.setAvailableDays(rs.getString("available_days"));
-                doctor.setAvailableTime(rs.getString("available_time"));
-                
-                doctors.add(doctor);
+            if (rs.next()) {
+                return rs.getInt(1);
             }
             
         } catch (SQLException e) {
             e.printStackTrace();
         }
         
-        return doctors;
+        return 0;
     }
     
     /**
@@ -89,19 +180,7 @@ public class DoctorDAO {
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                Doctor doctor = new Doctor();
-                doctor.setDoctorId(rs.getInt("doctor_id"));
-                doctor.setName(rs.getString("name"));
-                doctor.setSpecialization(rs.getString("specialization"));
-                doctor.setPhone(rs.getString("phone"));
-                doctor.setEmail(rs.getString("email"));
-                doctor.setExperienceYears(rs.getInt("experience_years"));
-                doctor.setQualification(rs.getString("qualification"));
-                doctor.setConsultationFee(rs.getBigDecimal("consultation_fee"));
-                doctor.setAvailableDays(rs.getString("available_days"));
-                doctor.setAvailableTime(rs.getString("available_time"));
-                
-                return doctor;
+                return mapDoctor(rs);
             }
             
         } catch (SQLException e) {
@@ -112,29 +191,20 @@ public class DoctorDAO {
     }
     
     /**
-     * Update doctor information
+     * Lock the doctor's row until the current UnitOfWork ends, so bookings
+     * for the same doctor check and insert one at a time
+     * @return false if there is no such doctor
      */
-    public boolean updateDoctor(Doctor doctor) {
-        String sql = "UPDATE doctors SET name = ?, specialization = ?, phone = ?, email = ?, " +
-                    "experience_years = ?, qualification = ?, consultation_fee = ?, " +
-                    "available_days = ?, available_time = ? WHERE doctor_id = ?";
+    public boolean lockDoctor(int doctorId) {
+        String sql = "SELECT doctor_id FROM doctors WHERE doctor_id = ? FOR UPDATE";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, doctor.getName());
-            pstmt.setString(2, doctor.getSpecialization());
-            pstmt.setString(3, doctor.getPhone());
-            pstmt.setString(4, doctor.getEmail());
-            pstmt.setInt(5, doctor.getExperienceYears());
-            pstmt.setString(6, doctor.getQualification());
-            pstmt.setBigDecimal(7, doctor.getConsultationFee());
-            pstmt.setString(8, doctor.getAvailableDays());
-            pstmt.setString(9, doctor.getAvailableTime());
-            pstmt.setInt(10, doctor.getDoctorId());
-            
-            int result = pstmt.executeUpdate();
-            return result > 0;
+            pstmt.setInt(1, doctorId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
             
         } catch (SQLException e) {
             e.printStackTrace();
@@ -142,17 +212,68 @@ public class DoctorDAO {
         }
     }
     
+    /**
+     * Update the columns changed since the doctor was loaded; does nothing and
+     * returns UNCHANGED if none were. Only applies if the row still has the
+     * doctor's version; on success the version is advanced and the changes cleared.
+     */
+    public UpdateResult updateDoctor(Doctor doctor) {
+        if (!doctor.hasChanges()) {
+            return UpdateResult.UNCHANGED;
+        }
+        
+        List<String> columns = new ArrayList<>(doctor.getChangedColumns());
+        String sql = UpdateResult.versionedUpdateSql("doctors", columns, "doctor_id");
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            for (String column : columns) {
+                bindColumn(pstmt, index++, doctor, column);
+            }
+            pstmt.setInt(index++, doctor.getDoctorId());
+            pstmt.setInt(index, doctor.getVersion());
+            
+            if (pstmt.executeUpdate() == 0) {
+                UpdateResult result = UpdateResult.afterMiss(conn, "doctors", "doctor_id", doctor.getDoctorId());
+                unitOfWork.commit();
+                return result;
+            }
+            ChangeTracking.recordUpdate(conn, "doctors", doctor.getDoctorId());
+            unitOfWork.afterCommit(() -> {
+                doctor.setVersion(doctor.getVersion() + 1);
+                doctor.clearChanges();
+            });
+            unitOfWork.commit();
+            return UpdateResult.UPDATED;
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return UpdateResult.FAILED;
+        }
+    }
+    
     /**
      * Delete doctor by ID
      */
     public boolean deleteDoctor(int doctorId) {
         String sql = "DELETE FROM doctors WHERE doctor_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        // The cascaded appointment log entries, the delete and its own log entry commit together
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            ChangeTracking.recordCascadedAppointmentDeletions(conn, "doctor_id", doctorId);
+            
             pstmt.setInt(1, doctorId);
             int result = pstmt.executeUpdate();
+            if (result > 0) {
+                ChangeTracking.recordDeletion(conn, "doctors", doctorId);
+            }
+            unitOfWork.commit();
             return result > 0;
             
         } catch (SQLException e) {
@@ -162,77 +283,157 @@ public class DoctorDAO {
     }
     
     /**
-     * Search doctors by name or specialization
+     * Get doctors added, changed or deleted since the given high-water mark.
+     * A null mark loads every doctor matching the criteria. In a delta, changed
+     * doctors that no longer match the criteria are reported as deleted so they
+     * drop out of a filtered view.
      */
-    public List<Doctor> searchDoctors(String searchTerm) {
-        List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT * FROM doctors WHERE name LIKE ? OR specialization LIKE ? ORDER BY name";
+    public ChangeSet<DoctorSummary> getDoctorChangesSince(Timestamp since, Criteria<Field> criteria) {
+        if (since == null) {
+            return loadAllChanges(criteria);
+        }
+        
+        List<DoctorSummary> doctors = new ArrayList<>();
+        List<Integer> removedIds = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + ", " + criteria.matchExpression() + " AS matches_criteria " +
+                    "FROM doctors WHERE updated_at >= ? ORDER BY name";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            
-            ResultSet rs = pstmt.executeQuery();
+            Timestamp highWaterMark = ChangeTracking.currentTimestamp(conn);
+            int index = criteria.bind(pstmt, 1);
+            pstmt.setTimestamp(index, since);
             
-            while (rs.next()) {
-                Doctor doctor = new Doctor();
-                doctor.setDoctorId(rs.getInt("doctor_id"));
-                doctor.setName(rs.getString("name"));
-                doctor.setSpecialization(rs.getString("specialization"));
-                doctor.setPhone(rs.getString("phone"));
-                doctor.setEmail(rs.getString("email"));
-                doctor.setExperienceYears(rs.getInt("experience_years"));
-                doctor.setQualification(rs.getString("qualification"));
-                doctor.setConsultationFee(rs.getBigDecimal("consultation_fee"));
-                doctor.setAvailableDays(rs.getString("available_days"));
-                doctor.setAvailableTime(rs.getString("available_time"));
-                
-                doctors.add(doctor);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getBoolean("matches_criteria")) {
+                        doctors.add(mapDoctorSummary(rs));
+                    } else {
+                        removedIds.add(rs.getInt("doctor_id"));
+                    }
+                }
             }
             
+            removedIds.addAll(ChangeTracking.getDeletedIds(conn, "doctors", since));
+            return new ChangeSet<>(doctors, removedIds, highWaterMark, false);
+            
         } catch (SQLException e) {
             e.printStackTrace();
+            return ChangeSet.unchanged(since);
         }
-        
-        return doctors;
     }
     
-    /**
-     * Get doctors by specialization
-     */
-    public List<Doctor> getDoctorsBySpecialization(String specialization) {
-        List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT * FROM doctors WHERE specialization = ? ORDER BY name";
+    private ChangeSet<DoctorSummary> loadAllChanges(Criteria<Field> criteria) {
+        List<DoctorSummary> doctors = new ArrayList<>();
+        String sql = criteria.toSql("SELECT " + SUMMARY_COLUMNS + " FROM doctors");
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, specialization);
-            ResultSet rs = pstmt.executeQuery();
+            Timestamp highWaterMark = ChangeTracking.currentTimestamp(conn);
+            criteria.bind(pstmt, 1);
             
-            while (rs.next()) {
-                Doctor doctor = new Doctor();
-                doctor.setDoctorId(rs.getInt("doctor_id"));
-                doctor.setName(rs.getString("name"));
-                doctor.setSpecialization(rs.getString("specialization"));
-                doctor.setPhone(rs.getString("phone"));
-                doctor.setEmail(rs.getString("email"));
-                doctor.setExperienceYears(rs.getInt("experience_years"));
-                doctor.setQualification(rs.getString("qualification"));
-                doctor.setConsultationFee(rs.getBigDecimal("consultation_fee"));
-                doctor.setAvailableDays(rs.getString("available_days"));
-                doctor.setAvailableTime(rs.getString("available_time"));
-                
-                doctors.add(doctor);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    doctors.add(mapDoctorSummary(rs));
+                }
             }
             
+            return new ChangeSet<>(doctors, new ArrayList<>(), highWaterMark, true);
+            
         } catch (SQLException e) {
             e.printStackTrace();
+            return ChangeSet.unchanged(null);
+        }
+    }
+    
+    /**
+     * Search doctors by name or specialization
+     */
+    public List<Doctor> searchDoctors(String searchTerm) {
+        return findDoctors(new Criteria<Field>()
+                .anyContains(searchTerm, Field.NAME, Field.SPECIALIZATION)
+                .sortBy(Field.NAME, Criteria.Direction.ASC));
+    }
+    
+    /**
+     * Get doctors by specialization
+     */
+    public List<Doctor> getDoctorsBySpecialization(String specialization) {
+        return findDoctors(new Criteria<Field>()
+                .equalTo(Field.SPECIALIZATION, specialization)
+                .sortBy(Field.NAME, Criteria.Direction.ASC));
+    }
+    
+    /**
+     * Bind the value of one updatable column
+     */
+    private void bindColumn(PreparedStatement pstmt, int index, Doctor doctor, String column) throws SQLException {
+        switch (column) {
+            case "name":
+                pstmt.setString(index, doctor.getName());
+                break;
+            case "specialization":
+                pstmt.setString(index, doctor.getSpecialization());
+                break;
+            case "phone":
+                pstmt.setString(index, doctor.getPhone());
+                break;
+            case "email":
+                pstmt.setString(index, doctor.getEmail());
+                break;
+            case "experience_years":
+                pstmt.setInt(index, doctor.getExperienceYears());
+                break;
+            case "qualification":
+                pstmt.setString(index, doctor.getQualification());
+                break;
+            case "consultation_fee":
+                pstmt.setBigDecimal(index, doctor.getConsultationFee());
+                break;
+            case "available_days":
+                pstmt.setString(index, doctor.getAvailableDays());
+                break;
+            case "available_time":
+                pstmt.setString(index, doctor.getAvailableTime());
+                break;
+            default:
+                throw new IllegalArgumentException("Not an updatable column: " + column);
         }
+    }
+    
+    private Doctor mapDoctor(ResultSet rs) throws SQLException {
+        Doctor doctor = new Doctor();
+        doctor.setDoctorId(rs.getInt("doctor_id"));
+        doctor.setName(rs.getString("name"));
+        doctor.setSpecialization(rs.getString("specialization"));
+        doctor.setPhone(rs.getString("phone"));
+        doctor.setEmail(rs.getString("email"));
+        doctor.setExperienceYears(rs.getInt("experience_years"));
+        doctor.setQualification(rs.getString("qualification"));
+        doctor.setConsultationFee(rs.getBigDecimal("consultation_fee"));
+        doctor.setAvailableDays(rs.getString("available_days"));
+        doctor.setAvailableTime(rs.getString("available_time"));
+        doctor.setVersion(rs.getInt("version"));
+        doctor.clearChanges();
         
-        return doctors;
+        return doctor;
+    }
+    
+    private DoctorSummary mapDoctorSummary(ResultSet rs) throws SQLException {
+        DoctorSummary doctor = new DoctorSummary();
+        doctor.setDoctorId(rs.getInt("doctor_id"));
+        doctor.setName(rs.getString("name"));
+        doctor.setSpecialization(rs.getString("specialization"));
+        doctor.setPhone(rs.getString("phone"));
+        doctor.setEmail(rs.getString("email"));
+        doctor.setExperienceYears(rs.getInt("experience_years"));
+        doctor.setQualification(rs.getString("qualification"));
+        doctor.setConsultationFee(rs.getBigDecimal("consultation_fee"));
+        doctor.setAvailableDays(rs.getString("available_days"));
+        doctor.setAvailableTime(rs.getString("available_time"));
+        
+        return doctor;
     }
 }
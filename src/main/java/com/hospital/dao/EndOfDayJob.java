@@ -0,0 +1,319 @@
+package com.hospital.dao;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * End-of-day processing: status rules first (e.g. marking appointments that
+ * were still Scheduled when their day ended as No Show), then archival of
+ * finished appointments older than the retention window into
+ * appointments_archive, whose monthly partitions are created a few months
+ * ahead at the same time. Both work in chunks of CHUNK_SIZE rows, one short
+ * transaction per chunk, with a pause between chunks so front-desk writes
+ * are never queued behind a long lock.
+ * Runs once when started, then every night at RUN_AT, on its own thread.
+ */
+public class EndOfDayJob {
+
+    /**
+     * Move appointments in fromStatus to toStatus once their date is more
+     * than graceDays in the past (0 = any day before today)
+     */
+    public static class Rule {
+        private final String fromStatus;
+        private final String toStatus;
+        private final int graceDays;
+
+        public Rule(String fromStatus, String toStatus, int graceDays) {
+            this.fromStatus = fromStatus;
+            this.toStatus = toStatus;
+            this.graceDays = graceDays;
+        }
+
+        public String getFromStatus() { return fromStatus; }
+        public String getToStatus() { return toStatus; }
+        public int getGraceDays() { return graceDays; }
+
+        @Override
+        public String toString() {
+            return fromStatus + " -> " + toStatus;
+        }
+    }
+
+    /**
+     * Receives the report of every finished run, on the job thread
+     */
+    public interface Listener {
+        void onRunFinished(Report report);
+    }
+
+    private static final EndOfDayJob INSTANCE = new EndOfDayJob();
+
+    private static final int CHUNK_SIZE = 500;
+    private static final long PAUSE_BETWEEN_CHUNKS_MS = 50;
+    private static final LocalTime RUN_AT = LocalTime.of(0, 5);
+    private static final Period DEFAULT_RETENTION = Period.ofYears(2);
+    private static final int PARTITION_MONTHS_AHEAD = 3;
+
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final List<Rule> rules = new CopyOnWriteArrayList<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Period retention = DEFAULT_RETENTION;
+    private ScheduledExecutorService scheduler;
+
+    private EndOfDayJob() {
+        rules.add(new Rule("Scheduled", "No Show", 0));
+    }
+
+    public static EndOfDayJob getInstance() {
+        return INSTANCE;
+    }
+
+    public List<Rule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    public void addRule(Rule rule) {
+        rules.add(rule);
+    }
+
+    /**
+     * How long finished appointments stay in the hot table; null disables archival
+     */
+    public void setRetention(Period retention) {
+        this.retention = retention;
+    }
+
+    public Period getRetention() {
+        return retention;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Run now to catch up on missed nights, then nightly at RUN_AT
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "status-transitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::runAndReschedule);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    /**
+     * Run the rules once in the background. Runs never overlap: if the job
+     * is started this queues behind the scheduled run, otherwise it uses a
+     * throwaway thread.
+     */
+    public synchronized CompletableFuture<Report> runNow() {
+        if (scheduler != null) {
+            return CompletableFuture.supplyAsync(this::runOnce, scheduler);
+        }
+        return CompletableFuture.supplyAsync(this::runOnce, r -> {
+            Thread thread = new Thread(r, "status-transitions");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    private void runAndReschedule() {
+        runOnce();
+
+        synchronized (this) {
+            if (scheduler == null || scheduler.isShutdown()) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime next = now.toLocalDate().atTime(RUN_AT);
+            if (!next.isAfter(now)) {
+                next = next.plusDays(1);
+            }
+            scheduler.schedule(this::runAndReschedule, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Apply every rule, then archive, until nothing is left to move
+     */
+    Report runOnce() {
+        long started = System.currentTimeMillis();
+        Report report = new Report();
+        LocalDate today = LocalDate.now();
+
+        for (Rule rule : rules) {
+            LocalDate before = today.minusDays(rule.getGraceDays());
+            report.counts.put(rule, 0);
+            boolean drained = drain(report,
+                () -> appointmentDAO.transitionStatusChunk(rule.getFromStatus(), rule.getToStatus(), before, CHUNK_SIZE),
+                moved -> report.counts.merge(rule, moved, Integer::sum));
+            if (!drained) {
+                report.failedRules.add(rule);
+            }
+        }
+
+        Period keep = retention;
+        if (keep != null) {
+            // Split the archive's next months off p_future while they are still empty
+            report.partitionsAdded = appointmentDAO.ensureArchivePartitions(today.plusMonths(PARTITION_MONTHS_AHEAD));
+
+            LocalDate archiveBefore = today.minus(keep);
+            report.archiveFailed = !drain(report,
+                () -> appointmentDAO.archiveChunk(archiveBefore, CHUNK_SIZE),
+                moved -> report.archived += moved);
+        }
+
+        report.elapsedMillis = System.currentTimeMillis() - started;
+        for (Listener listener : listeners) {
+            listener.onRunFinished(report);
+        }
+        return report;
+    }
+
+    /**
+     * Run chunks until one comes back short, which means the backlog is drained
+     * @param counter receives the rows moved by each chunk
+     * @return false if a chunk failed
+     */
+    private boolean drain(Report report, IntSupplier chunkTask, IntConsumer counter) {
+        int chunk;
+        do {
+            chunk = chunkTask.getAsInt();
+            if (chunk < 0) {
+                return false;
+            }
+            counter.accept(chunk);
+            report.chunks++;
+        } while (chunk == CHUNK_SIZE && pause());
+        return true;
+    }
+
+    /**
+     * Give waiting front-desk transactions a turn
+     * @return false if the job is being stopped
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(PAUSE_BETWEEN_CHUNKS_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * What one run did
+     */
+    public static class Report {
+        private final Map<Rule, Integer> counts = new LinkedHashMap<>();
+        private final List<Rule> failedRules = new ArrayList<>();
+        private int archived;
+        private boolean archiveFailed;
+        private int partitionsAdded;
+        private int chunks;
+        private long elapsedMillis;
+
+        /**
+         * Appointments moved by each rule, in rule order
+         */
+        public Map<Rule, Integer> getCounts() {
+            return Collections.unmodifiableMap(counts);
+        }
+
+        /**
+         * Appointments moved to appointments_archive
+         */
+        public int getArchived() { return archived; }
+
+        /**
+         * True if archival stopped early because a chunk failed
+         */
+        public boolean isArchiveFailed() { return archiveFailed; }
+
+        /**
+         * Monthly archive partitions created, or -1 if the archive is not partitioned
+         */
+        public int getPartitionsAdded() { return partitionsAdded; }
+
+        /**
+         * Appointments whose status changed
+         */
+        public int getTotal() {
+            int total = 0;
+            for (int count : counts.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * Rules that stopped early because a chunk failed; rerun to finish them
+         */
+        public List<Rule> getFailedRules() {
+            return Collections.unmodifiableList(failedRules);
+        }
+
+        public int getChunks() { return chunks; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (Map.Entry<Rule, Integer> entry : counts.entrySet()) {
+                if (text.length() > 0) {
+                    text.append(", ");
+                }
+                text.append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append("archived: ").append(archived);
+            if (partitionsAdded > 0) {
+                text.append(", partitions added: ").append(partitionsAdded);
+            }
+            text.append(" (").append(chunks).append(" chunks, ").append(elapsedMillis).append(" ms");
+            if (!failedRules.isEmpty()) {
+                text.append(", failed: ").append(failedRules);
+            }
+            if (archiveFailed) {
+                text.append(", archival failed");
+            }
+            return text.append(")").toString();
+        }
+    }
+}
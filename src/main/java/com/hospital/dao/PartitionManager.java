@@ -0,0 +1,89 @@
+package com.hospital.dao;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps monthly RANGE COLUMNS(appointment_date) partitions on a table.
+ * Every partitioned table ends with a catch-all p_future partition; new
+ * months are split off the front of it before any rows arrive for them,
+ * so the split never has to move data.
+ */
+final class PartitionManager {
+
+    static final String FUTURE_PARTITION = "p_future";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private PartitionManager() {}
+
+    /**
+     * Make sure the table has a partition for every month up to and including
+     * the month of through. If the table has no monthly partitions yet, the
+     * first one starts at the month of from and also holds everything older.
+     * @return the number of partitions added, or -1 if the table is not partitioned
+     */
+    static int ensureMonthlyPartitions(Connection conn, String tableName, LocalDate from, LocalDate through) throws SQLException {
+        List<String> bounds = new ArrayList<>();
+        boolean hasFuture = false;
+        String sql = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM INFORMATION_SCHEMA.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? ORDER BY PARTITION_ORDINAL_POSITION";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, tableName);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString(1);
+                    if (FUTURE_PARTITION.equals(name)) {
+                        hasFuture = true;
+                    } else if (name != null) {
+                        // RANGE COLUMNS bounds come back quoted, e.g. '2026-11-01'
+                        bounds.add(rs.getString(2).replace("'", ""));
+                    }
+                }
+            }
+        }
+        if (!hasFuture) {
+            return -1;
+        }
+
+        // Each partition holds the month before its upper bound
+        YearMonth next = bounds.isEmpty()
+                ? YearMonth.from(from)
+                : YearMonth.from(LocalDate.parse(bounds.get(bounds.size() - 1)));
+        YearMonth last = YearMonth.from(through);
+
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = next; !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.add("PARTITION " + month.atDay(1).format(PARTITION_NAME) +
+                            " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        if (definitions.isEmpty()) {
+            return 0;
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + tableName + " REORGANIZE PARTITION " + FUTURE_PARTITION +
+                               " INTO (" + String.join(", ", definitions) + ")");
+        }
+        return definitions.size() - 1;
+    }
+
+    /**
+     * Oldest appointment date in the given table, or null if it is empty
+     */
+    static LocalDate oldestAppointmentDate(Connection conn, String tableName) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(appointment_date) FROM " + tableName)) {
+            rs.next();
+            Date oldest = rs.getDate(1);
+            return oldest != null ? oldest.toLocalDate() : null;
+        }
+    }
+}
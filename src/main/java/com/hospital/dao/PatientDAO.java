@@ -1,7 +1,9 @@
 package com.hospital.dao;
 
 import com.hospital.model.Patient;
+import com.hospital.model.PatientSummary;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.UnitOfWork;
 
 import java.sql.*;
 import java.time.LocalDate;
@@ -13,15 +15,50 @@ import java.util.List;
  */
 public class PatientDAO {
     
+    /**
+     * Columns that can be filtered and sorted on
+     */
+    public enum Field implements QueryField {
+        ID("patient_id"),
+        NAME("name"),
+        AGE("age"),
+        GENDER("gender"),
+        PHONE("phone"),
+        EMAIL("email"),
+        DISEASE("disease"),
+        BLOOD_GROUP("blood_group"),
+        ADMISSION_DATE("admission_date");
+        
+        private final String column;
+        
+        Field(String column) { this.column = column; }
+        
+        @Override
+        public String getColumn() { return column; }
+    }
+    
+    /**
+     * Columns behind a PatientSummary; list views never read address,
+     * emergency contact or the audit timestamps
+     */
+    private static final String SUMMARY_COLUMNS =
+            "patient_id, name, age, gender, phone, email, disease, blood_group, admission_date";
+    
     /**
      * Add a new patient to the database
+     * @return the saved patient with its generated id, or null if the insert failed
      */
-    public boolean addPatient(Patient patient) {
+    public Patient addPatient(Patient patient) {
         String sql = "INSERT INTO patients (name, age, gender, phone, email, address, disease, " +
                     "blood_group, emergency_contact, admission_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            
+            if (patient.getAdmissionDate() == null) {
+                patient.setAdmissionDate(LocalDate.now());
+            }
             
             pstmt.setString(1, patient.getName());
             pstmt.setInt(2, patient.getAge());
@@ -32,15 +69,27 @@ public class PatientDAO {
             pstmt.setString(7, patient.getDisease());
             pstmt.setString(8, patient.getBloodGroup());
             pstmt.setString(9, patient.getEmergencyContact());
-            pstmt.setDate(10, patient.getAdmissionDate() != null ? 
-                         Date.valueOf(patient.getAdmissionDate()) : Date.valueOf(LocalDate.now()));
+            pstmt.setDate(10, Date.valueOf(patient.getAdmissionDate()));
             
-            int result = pstmt.executeUpdate();
-            return result > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    patient.setPatientId(keys.getInt(1));
+                }
+            }
+            ChangeTracking.recordInsert(conn, "patients", patient.getPatientId());
+            unitOfWork.afterCommit(() -> {
+                patient.setVersion(0);
+                patient.clearChanges();
+            });
+            unitOfWork.commit();
+            return patient;
             
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
+            return null;
         }
     }
     
@@ -48,32 +97,50 @@ public class PatientDAO {
      * Get all patients from the database
      */
     public List<Patient> getAllPatients() {
+        return findPatients(new Criteria<Field>().sortBy(Field.ID, Criteria.Direction.DESC));
+    }
+    
+    /**
+     * Get patients matching the criteria, filtered and sorted by the database
+     */
+    public List<Patient> findPatients(Criteria<Field> criteria) {
         List<Patient> patients = new ArrayList<>();
-        String sql = "SELECT * FROM patients ORDER BY patient_id DESC";
+        String sql = criteria.toSql("SELECT * FROM patients");
         
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapPatient(rs));
+                }
+            }
             
-            while (rs.next()) {
-                Patient patient = new Patient();
-                patient.setPatientId(rs.getInt("patient_id"));
-                patient.setName(rs.getString("name"));
-                patient.setAge(rs.getInt("age"));
-                patient.setGender(rs.getString("gender"));
-                patient.setPhone(rs.getString("phone"));
-                patient.setEmail(rs.getString("email"));
-                patient.setAddress(rs.getString("address"));
-                patient.setDisease(rs.getString("disease"));
-                patient.setBloodGroup(rs.getString("blood_group"));
-                patient.setEmergencyContact(rs.getString("emergency_contact"));
-                
-                Date admissionDate = rs.getDate("admission_date");
-                if (admissionDate != null) {
-                    patient.setAdmissionDate(admissionDate.toLocalDate());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return patients;
+    }
+    
+    /**
+     * Get list-view projections of the patients matching the criteria
+     */
+    public List<PatientSummary> findPatientSummaries(Criteria<Field> criteria) {
+        List<PatientSummary> patients = new ArrayList<>();
+        String sql = criteria.toSql("SELECT " + SUMMARY_COLUMNS + " FROM patients");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapPatientSummary(rs));
                 }
-                
-                patients.add(patient);
             }
             
         } catch (SQLException e) {
@@ -83,6 +150,27 @@ public class PatientDAO {
         return patients;
     }
     
+    /**
+     * Count all patients without loading them
+     */
+    public int countPatients() {
+        String sql = "SELECT COUNT(*) FROM patients";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return 0;
+    }
+    
     /**
      * Get patient by ID
      */
@@ -96,24 +184,7 @@ public class PatientDAO {
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                Patient patient = new Patient();
-                patient.setPatientId(rs.getInt("patient_id"));
-                patient.setName(rs.getString("name"));
-                patient.setAge(rs.getInt("age"));
-                patient.setGender(rs.getString("gender"));
-                patient.setPhone(rs.getString("phone"));
-                patient.setEmail(rs.getString("email"));
-                patient.setAddress(rs.getString("address"));
-                patient.setDisease(rs.getString("disease"));
-                patient.setBloodGroup(rs.getString("blood_group"));
-                patient.setEmergencyContact(rs.getString("emergency_contact"));
-                
-                Date admissionDate = rs.getDate("admission_date");
-                if (admissionDate != null) {
-                    patient.setAdmissionDate(admissionDate.toLocalDate());
-                }
-                
-                return patient;
+                return mapPatient(rs);
             }
             
         } catch (SQLException e) {
@@ -124,35 +195,45 @@ public class PatientDAO {
     }
     
     /**
-     * Update patient information
+     * Update the columns changed since the patient was loaded; does nothing and
+     * returns UNCHANGED if none were. Only applies if the row still has the
+     * patient's version; on success the version is advanced and the changes cleared.
      */
-    public boolean updatePatient(Patient patient) {
-        String sql = "UPDATE patients SET name = ?, age = ?, gender = ?, phone = ?, email = ?, " +
-                    "address = ?, disease = ?, blood_group = ?, emergency_contact = ?, " +
-                    "admission_date = ? WHERE patient_id = ?";
+    public UpdateResult updatePatient(Patient patient) {
+        if (!patient.hasChanges()) {
+            return UpdateResult.UNCHANGED;
+        }
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        List<String> columns = new ArrayList<>(patient.getChangedColumns());
+        String sql = UpdateResult.versionedUpdateSql("patients", columns, "patient_id");
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, patient.getName());
-            pstmt.setInt(2, patient.getAge());
-            pstmt.setString(3, patient.getGender());
-            pstmt.setString(4, patient.getPhone());
-            pstmt.setString(5, patient.getEmail());
-            pstmt.setString(6, patient.getAddress());
-            pstmt.setString(7, patient.getDisease());
-            pstmt.setString(8, patient.getBloodGroup());
-            pstmt.setString(9, patient.getEmergencyContact());
-            pstmt.setDate(10, patient.getAdmissionDate() != null ? 
-                         Date.valueOf(patient.getAdmissionDate()) : null);
-            pstmt.setInt(11, patient.getPatientId());
+            int index = 1;
+            for (String column : columns) {
+                bindColumn(pstmt, index++, patient, column);
+            }
+            pstmt.setInt(index++, patient.getPatientId());
+            pstmt.setInt(index, patient.getVersion());
             
-            int result = pstmt.executeUpdate();
-            return result > 0;
+            if (pstmt.executeUpdate() == 0) {
+                UpdateResult result = UpdateResult.afterMiss(conn, "patients", "patient_id", patient.getPatientId());
+                unitOfWork.commit();
+                return result;
+            }
+            ChangeTracking.recordUpdate(conn, "patients", patient.getPatientId());
+            unitOfWork.afterCommit(() -> {
+                patient.setVersion(patient.getVersion() + 1);
+                patient.clearChanges();
+            });
+            unitOfWork.commit();
+            return UpdateResult.UPDATED;
             
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
+            return UpdateResult.FAILED;
         }
     }
     
@@ -162,11 +243,19 @@ public class PatientDAO {
     public boolean deletePatient(int patientId) {
         String sql = "DELETE FROM patients WHERE patient_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        // The cascaded appointment log entries, the delete and its own log entry commit together
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            ChangeTracking.recordCascadedAppointmentDeletions(conn, "patient_id", patientId);
+            
             pstmt.setInt(1, patientId);
             int result = pstmt.executeUpdate();
+            if (result > 0) {
+                ChangeTracking.recordDeletion(conn, "patients", patientId);
+            }
+            unitOfWork.commit();
             return result > 0;
             
         } catch (SQLException e) {
@@ -176,46 +265,160 @@ public class PatientDAO {
     }
     
     /**
-     * Search patients by name or phone
+     * Get patients added, changed or deleted since the given high-water mark.
+     * A null mark loads every patient matching the criteria. In a delta, changed
+     * patients that no longer match the criteria are reported as deleted so they
+     * drop out of a filtered view.
      */
-    public List<Patient> searchPatients(String searchTerm) {
-        List<Patient> patients = new ArrayList<>();
-        String sql = "SELECT * FROM patients WHERE name LIKE ? OR phone LIKE ? ORDER BY name";
+    public ChangeSet<PatientSummary> getPatientChangesSince(Timestamp since, Criteria<Field> criteria) {
+        if (since == null) {
+            return loadAllChanges(criteria);
+        }
+        
+        List<PatientSummary> patients = new ArrayList<>();
+        List<Integer> removedIds = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + ", " + criteria.matchExpression() + " AS matches_criteria " +
+                    "FROM patients WHERE updated_at >= ? ORDER BY patient_id";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
+            Timestamp highWaterMark = ChangeTracking.currentTimestamp(conn);
+            int index = criteria.bind(pstmt, 1);
+            pstmt.setTimestamp(index, since);
             
-            ResultSet rs = pstmt.executeQuery();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getBoolean("matches_criteria")) {
+                        patients.add(mapPatientSummary(rs));
+                    } else {
+                        removedIds.add(rs.getInt("patient_id"));
+                    }
+                }
+            }
             
-            while (rs.next()) {
-                Patient patient = new Patient();
-                patient.setPatientId(rs.getInt("patient_id"));
-                patient.setName(rs.getString("name"));
-                patient.setAge(rs.getInt("age"));
-                patient.setGender(rs.getString("gender"));
-                patient.setPhone(rs.getString("phone"));
-                patient.setEmail(rs.getString("email"));
-                patient.setAddress(rs.getString("address"));
-                patient.setDisease(rs.getString("disease"));
-                patient.setBloodGroup(rs.getString("blood_group"));
-                patient.setEmergencyContact(rs.getString("emergency_contact"));
-                
-                Date admissionDate = rs.getDate("admission_date");
-                if (admissionDate != null) {
-                    patient.setAdmissionDate(admissionDate.toLocalDate());
+            removedIds.addAll(ChangeTracking.getDeletedIds(conn, "patients", since));
+            return new ChangeSet<>(patients, removedIds, highWaterMark, false);
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return ChangeSet.unchanged(since);
+        }
+    }
+    
+    private ChangeSet<PatientSummary> loadAllChanges(Criteria<Field> criteria) {
+        List<PatientSummary> patients = new ArrayList<>();
+        String sql = criteria.toSql("SELECT " + SUMMARY_COLUMNS + " FROM patients");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            Timestamp highWaterMark = ChangeTracking.currentTimestamp(conn);
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapPatientSummary(rs));
                 }
-                
-                patients.add(patient);
             }
             
+            return new ChangeSet<>(patients, new ArrayList<>(), highWaterMark, true);
+            
         } catch (SQLException e) {
             e.printStackTrace();
+            return ChangeSet.unchanged(null);
+        }
+    }
+    
+    /**
+     * Search patients by name or phone
+     */
+    public List<Patient> searchPatients(String searchTerm) {
+        return findPatients(new Criteria<Field>()
+                .anyContains(searchTerm, Field.NAME, Field.PHONE)
+                .sortBy(Field.NAME, Criteria.Direction.ASC));
+    }
+    
+    /**
+     * Bind the value of one updatable column
+     */
+    private void bindColumn(PreparedStatement pstmt, int index, Patient patient, String column) throws SQLException {
+        switch (column) {
+            case "name":
+                pstmt.setString(index, patient.getName());
+                break;
+            case "age":
+                pstmt.setInt(index, patient.getAge());
+                break;
+            case "gender":
+                pstmt.setString(index, patient.getGender());
+                break;
+            case "phone":
+                pstmt.setString(index, patient.getPhone());
+                break;
+            case "email":
+                pstmt.setString(index, patient.getEmail());
+                break;
+            case "address":
+                pstmt.setString(index, patient.getAddress());
+                break;
+            case "disease":
+                pstmt.setString(index, patient.getDisease());
+                break;
+            case "blood_group":
+                pstmt.setString(index, patient.getBloodGroup());
+                break;
+            case "emergency_contact":
+                pstmt.setString(index, patient.getEmergencyContact());
+                break;
+            case "admission_date":
+                pstmt.setDate(index, patient.getAdmissionDate() != null ? 
+                             Date.valueOf(patient.getAdmissionDate()) : null);
+                break;
+            default:
+                throw new IllegalArgumentException("Not an updatable column: " + column);
         }
+    }
+    
+    private Patient mapPatient(ResultSet rs) throws SQLException {
+        Patient patient = new Patient();
+        patient.setPatientId(rs.getInt("patient_id"));
+        patient.setName(rs.getString("name"));
+        patient.setAge(rs.getInt("age"));
+        patient.setGender(rs.getString("gender"));
+        patient.setPhone(rs.getString("phone"));
+        patient.setEmail(rs.getString("email"));
+        patient.setAddress(rs.getString("address"));
+        patient.setDisease(rs.getString("disease"));
+        patient.setBloodGroup(rs.getString("blood_group"));
+        patient.setEmergencyContact(rs.getString("emergency_contact"));
         
-        return patients;
+        Date admissionDate = rs.getDate("admission_date");
+        if (admissionDate != null) {
+            patient.setAdmissionDate(admissionDate.toLocalDate());
+        }
+        patient.setVersion(rs.getInt("version"));
+        patient.clearChanges();
+        
+        return patient;
+    }
+    
+    private PatientSummary mapPatientSummary(ResultSet rs) throws SQLException {
+        PatientSummary patient = new PatientSummary();
+        patient.setPatientId(rs.getInt("patient_id"));
+        patient.setName(rs.getString("name"));
+        patient.setAge(rs.getInt("age"));
+        patient.setGender(rs.getString("gender"));
+        patient.setPhone(rs.getString("phone"));
+        patient.setEmail(rs.getString("email"));
+        patient.setDisease(rs.getString("disease"));
+        patient.setBloodGroup(rs.getString("blood_group"));
+        
+        Date admissionDate = rs.getDate("admission_date");
+        if (admissionDate != null) {
+            patient.setAdmissionDate(admissionDate.toLocalDate());
+        }
+        
+        return patient;
     }
 }
@@ -0,0 +1,10 @@
+package com.hospital.dao;
+
+/**
+ * A column that callers may filter or sort on.
+ * Each DAO exposes its whitelist as an enum implementing this interface,
+ * so only known column expressions ever reach the generated SQL.
+ */
+public interface QueryField {
+    String getColumn();
+}
@@ -0,0 +1,129 @@
+package com.hospital.dao;
+
+import com.hospital.model.Reminder;
+import com.hospital.util.DatabaseConnection;
+import com.hospital.util.UnitOfWork;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the reminder outbox. Due reminders are written
+ * here first and handed to a sender afterwards, so a reminder is never lost
+ * if sending fails or the application stops in between.
+ */
+public class ReminderOutboxDAO {
+    
+    /**
+     * Write due reminders to the outbox as one batch. A reminder is only
+     * written if its appointment is still scheduled exactly lead after
+     * remindAt, so reminders for cancelled or moved appointments drop out
+     * here; one already in the outbox is not written twice.
+     * @return the number of reminders written, or -1 on failure
+     */
+    public int enqueue(List<Reminder> reminders, Duration lead) {
+        String sql = "INSERT IGNORE INTO reminder_outbox (appointment_id, remind_at, recipient, message) " +
+                    "SELECT a.appointment_id, ?, p.phone, CONCAT('Reminder: ', p.name, ', you have an appointment with Dr. ', " +
+                    "d.name, ' on ', DATE_FORMAT(a.appointment_date, '%Y-%m-%d'), ' at ', " +
+                    "TIME_FORMAT(a.appointment_time, '%H:%i'), '.') " +
+                    "FROM appointments a JOIN patients p ON a.patient_id = p.patient_id " +
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                    "WHERE a.appointment_id = ? AND a.status = 'Scheduled' AND a.appointment_date = ? " +
+                    "AND TIME_TO_SEC(a.appointment_time) DIV 60 = ?";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            UnitOfWork.Batch insert = unitOfWork.batch(sql);
+            for (Reminder reminder : reminders) {
+                LocalDateTime appointmentAt = reminder.getRemindAt().plus(lead);
+                insert.add(Timestamp.valueOf(reminder.getRemindAt()), reminder.getAppointmentId(),
+                           appointmentAt.toLocalDate(), appointmentAt.toLocalTime().toSecondOfDay() / 60);
+            }
+            insert.flush();
+            unitOfWork.commit();
+            return insert.getUpdateCount();
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    /**
+     * Lock up to limit pending reminders, oldest first, for the current
+     * UnitOfWork. Rows locked by another sender are skipped.
+     */
+    public List<Reminder> lockPending(int limit) {
+        List<Reminder> reminders = new ArrayList<>();
+        String sql = "SELECT * FROM reminder_outbox WHERE status = 'Pending' " +
+                    "ORDER BY outbox_id LIMIT ? FOR UPDATE SKIP LOCKED";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    reminders.add(mapReminder(rs));
+                }
+            }
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return reminders;
+    }
+    
+    /**
+     * Mark reminders as sent
+     */
+    public boolean markSent(List<Reminder> reminders) {
+        return mark(reminders, "UPDATE reminder_outbox SET status = 'Sent', attempts = attempts + 1, " +
+                              "sent_at = NOW() WHERE outbox_id = ?");
+    }
+    
+    /**
+     * Count a failed attempt; reminders that have used up maxAttempts are
+     * marked Failed, the rest stay Pending for the next round
+     */
+    public boolean markFailed(List<Reminder> reminders, int maxAttempts) {
+        return mark(reminders, "UPDATE reminder_outbox SET attempts = attempts + 1, " +
+                              "status = IF(attempts >= " + maxAttempts + ", 'Failed', 'Pending') WHERE outbox_id = ?");
+    }
+    
+    private boolean mark(List<Reminder> reminders, String sql) {
+        if (reminders.isEmpty()) {
+            return true;
+        }
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            UnitOfWork.Batch update = unitOfWork.batch(sql);
+            for (Reminder reminder : reminders) {
+                update.add(reminder.getOutboxId());
+            }
+            update.flush();
+            unitOfWork.commit();
+            return true;
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    private Reminder mapReminder(ResultSet rs) throws SQLException {
+        Reminder reminder = new Reminder();
+        reminder.setOutboxId(rs.getLong("outbox_id"));
+        reminder.setAppointmentId(rs.getInt("appointment_id"));
+        reminder.setRemindAt(rs.getTimestamp("remind_at").toLocalDateTime());
+        reminder.setRecipient(rs.getString("recipient"));
+        reminder.setMessage(rs.getString("message"));
+        reminder.setStatus(rs.getString("status"));
+        reminder.setAttempts(rs.getInt("attempts"));
+        
+        return reminder;
+    }
+}
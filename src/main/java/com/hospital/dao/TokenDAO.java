@@ -0,0 +1,75 @@
+package com.hospital.dao;
+
+import com.hospital.model.TokenEvent;
+import com.hospital.util.UnitOfWork;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the walk-in token journal. Rows are only ever
+ * inserted; the queue state is rebuilt by replaying a day's events in order.
+ */
+public class TokenDAO {
+    
+    /**
+     * Append events in one transaction, as JDBC batches
+     * @return false if nothing was written
+     */
+    public boolean appendEvents(List<TokenEvent> events) {
+        String sql = "INSERT INTO opd_token_events (token_date, doctor_id, token_number, event_type, " +
+                    "patient_name, event_time) VALUES (?, ?, ?, ?, ?, ?)";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            UnitOfWork.Batch insert = unitOfWork.batch(sql);
+            for (TokenEvent event : events) {
+                insert.add(event.getTokenDate(), event.getDoctorId(), event.getTokenNumber(), event.getType(),
+                           event.getPatientName(), Timestamp.valueOf(event.getEventTime()));
+            }
+            insert.flush();
+            unitOfWork.commit();
+            return true;
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * All events of one day, in the order they were written, read in their
+     * own transaction like appendEvents
+     * @return the events, or null if the read failed
+     */
+    public List<TokenEvent> getEvents(LocalDate date) {
+        List<TokenEvent> events = new ArrayList<>();
+        String sql = "SELECT * FROM opd_token_events WHERE token_date = ? ORDER BY event_id";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             PreparedStatement pstmt = unitOfWork.getConnection().prepareStatement(sql)) {
+            
+            pstmt.setDate(1, Date.valueOf(date));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(new TokenEvent(
+                        rs.getDate("token_date").toLocalDate(),
+                        rs.getInt("doctor_id"),
+                        rs.getInt("token_number"),
+                        rs.getString("event_type"),
+                        rs.getString("patient_name"),
+                        rs.getTimestamp("event_time").toLocalDateTime()
+                    ));
+                }
+            }
+            unitOfWork.commit();
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+        
+        return events;
+    }
+}
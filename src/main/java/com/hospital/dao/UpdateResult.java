@@ -0,0 +1,56 @@
+package com.hospital.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Outcome of a versioned (optimistic) update.
+ * Updates only apply when the row still has the version the caller read;
+ * otherwise nothing is written and the caller gets CONFLICT.
+ */
+public enum UpdateResult {
+    /** The row was written and the entity's version was advanced */
+    UPDATED,
+    /** Someone else saved the row after it was read; nothing was written */
+    CONFLICT,
+    /** Nothing had changed, so no statement was sent */
+    UNCHANGED,
+    /** The row no longer exists */
+    NOT_FOUND,
+    /** The statement failed (see the log) */
+    FAILED;
+    
+    public boolean isSuccess() {
+        return this == UPDATED || this == UNCHANGED;
+    }
+    
+    /**
+     * UPDATE table SET col = ?, ..., version = version + 1 WHERE id = ? AND version = ?
+     * (column names come from the entity setters, never from user input)
+     */
+    static String versionedUpdateSql(String tableName, List<String> columns, String idColumn) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+        for (String column : columns) {
+            sql.append(column).append(" = ?, ");
+        }
+        return sql.append("version = version + 1 WHERE ").append(idColumn).append(" = ? AND version = ?").toString();
+    }
+    
+    /**
+     * Work out why a versioned UPDATE matched no rows
+     */
+    static UpdateResult afterMiss(Connection conn, String tableName, String idColumn, int id) throws SQLException {
+        String sql = "SELECT 1 FROM " + tableName + " WHERE " + idColumn + " = ?";
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, id);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? CONFLICT : NOT_FOUND;
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.hospital.dao;
 
 import com.hospital.model.User;
+import com.hospital.model.UserCredentials;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.PasswordHasher;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -13,30 +15,21 @@ import java.util.List;
 public class UserDAO {
     
     /**
-     * Authenticate user login
+     * Get an active user with the stored password hash, to check a login
+     * @return the credentials, or null if there is no such active user
      */
-    public User authenticateUser(String username, String password) {
-        String sql = "SELECT * FROM users WHERE username = ? AND password = ? AND is_active = true";
+    public UserCredentials findCredentials(String username) {
+        String sql = "SELECT * FROM users WHERE username = ? AND is_active = true";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, username);
-            pstmt.setString(2, password);
             
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                User user = new User();
-                user.setUserId(rs.getInt("user_id"));
-                user.setUsername(rs.getString("username"));
-                user.setPassword(rs.getString("password"));
-                user.setRole(rs.getString("role"));
-                user.setFullName(rs.getString("full_name"));
-                user.setEmail(rs.getString("email"));
-                user.setActive(rs.getBoolean("is_active"));
-                
-                return user;
+                return new UserCredentials(mapUser(rs), rs.getString("password"));
             }
             
         } catch (SQLException e) {
@@ -47,27 +40,61 @@ public class UserDAO {
     }
     
     /**
-     * Add a new user
+     * Replace a user's stored hash, e.g. when upgrading an old hash after login
      */
-    public boolean addUser(User user) {
-        String sql = "INSERT INTO users (username, password, role, full_name, email, is_active) VALUES (?, ?, ?, ?, ?, ?)";
+    public boolean updatePasswordHash(int userId, String passwordHash) {
+        String sql = "UPDATE users SET password = ? WHERE user_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            pstmt.setString(1, passwordHash);
+            pstmt.setInt(2, userId);
+            return pstmt.executeUpdate() > 0;
+            
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Set a new password for a user; only its salted hash is stored
+     */
+    public boolean changePassword(int userId, String password) {
+        return updatePasswordHash(userId, PasswordHasher.hash(password));
+    }
+    
+    /**
+     * Add a new user with the given password
+     * @return the saved user with its generated id, or null if the insert failed
+     */
+    public User addUser(User user, String password) {
+        String sql = "INSERT INTO users (username, password, role, full_name, email, is_active) VALUES (?, ?, ?, ?, ?, ?)";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            
             pstmt.setString(1, user.getUsername());
-            pstmt.setString(2, user.getPassword());
+            pstmt.setString(2, PasswordHasher.hash(password));
             pstmt.setString(3, user.getRole());
             pstmt.setString(4, user.getFullName());
             pstmt.setString(5, user.getEmail());
             pstmt.setBoolean(6, user.isActive());
             
-            int result = pstmt.executeUpdate();
-            return result > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    user.setUserId(keys.getInt(1));
+                }
+            }
+            return user;
             
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
+            return null;
         }
     }
     
@@ -83,16 +110,7 @@ public class UserDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                User user = new User();
-                user.setUserId(rs.getInt("user_id"));
-                user.setUsername(rs.getString("username"));
-                user.setPassword(rs.getString("password"));
-                user.setRole(rs.getString("role"));
-                user.setFullName(rs.getString("full_name"));
-                user.setEmail(rs.getString("email"));
-                user.setActive(rs.getBoolean("is_active"));
-                
-                users.add(user);
+                users.add(mapUser(rs));
             }
             
         } catch (SQLException e) {
@@ -103,21 +121,20 @@ public class UserDAO {
     }
     
     /**
-     * Update user
+     * Update user details; the password is changed with changePassword
      */
     public boolean updateUser(User user) {
-        String sql = "UPDATE users SET username = ?, password = ?, role = ?, full_name = ?, email = ?, is_active = ? WHERE user_id = ?";
+        String sql = "UPDATE users SET username = ?, role = ?, full_name = ?, email = ?, is_active = ? WHERE user_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, user.getUsername());
-            pstmt.setString(2, user.getPassword());
-            pstmt.setString(3, user.getRole());
-            pstmt.setString(4, user.getFullName());
-            pstmt.setString(5, user.getEmail());
-            pstmt.setBoolean(6, user.isActive());
-            pstmt.setInt(7, user.getUserId());
+            pstmt.setString(2, user.getRole());
+            pstmt.setString(3, user.getFullName());
+            pstmt.setString(4, user.getEmail());
+            pstmt.setBoolean(5, user.isActive());
+            pstmt.setInt(6, user.getUserId());
             
             int result = pstmt.executeUpdate();
             return result > 0;
@@ -169,4 +186,16 @@ public class UserDAO {
         
         return false;
     }
+    
+    private User mapUser(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setUserId(rs.getInt("user_id"));
+        user.setUsername(rs.getString("username"));
+        user.setRole(rs.getString("role"));
+        user.setFullName(rs.getString("full_name"));
+        user.setEmail(rs.getString("email"));
+        user.setActive(rs.getBoolean("is_active"));
+        
+        return user;
+    }
 }
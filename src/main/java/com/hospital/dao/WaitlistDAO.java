@@ -0,0 +1,242 @@
+package com.hospital.dao;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.WaitlistEntry;
+import com.hospital.util.DatabaseConnection;
+import com.hospital.util.UnitOfWork;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the waitlist. The queue itself lives in the
+ * waitlist table, ordered by urgency and then by time waited through the
+ * per-doctor and per-specialization queue indexes, so every desk sees and
+ * claims from the same queue.
+ */
+public class WaitlistDAO {
+    
+    private static final String SELECT_WITH_NAMES =
+            "SELECT w.*, p.name as patient_name, d.name as doctor_name FROM waitlist w " +
+            "JOIN patients p ON w.patient_id = p.patient_id " +
+            "LEFT JOIN doctors d ON w.doctor_id = d.doctor_id";
+    
+    /**
+     * Put a patient on the waitlist
+     * @return the saved entry with its generated id, or null if the insert failed
+     */
+    public WaitlistEntry addEntry(WaitlistEntry entry) {
+        String sql = "INSERT INTO waitlist (patient_id, doctor_id, specialization, urgency, duration_minutes, " +
+                    "earliest_date, latest_date, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            
+            pstmt.setInt(1, entry.getPatientId());
+            if (entry.getDoctorId() > 0) {
+                pstmt.setInt(2, entry.getDoctorId());
+            } else {
+                pstmt.setNull(2, Types.INTEGER);
+            }
+            pstmt.setString(3, entry.getSpecialization());
+            pstmt.setInt(4, entry.getUrgency());
+            pstmt.setInt(5, entry.getDurationMinutes());
+            pstmt.setDate(6, entry.getEarliestDate() != null ? Date.valueOf(entry.getEarliestDate()) : null);
+            pstmt.setDate(7, entry.getLatestDate() != null ? Date.valueOf(entry.getLatestDate()) : null);
+            pstmt.setString(8, entry.getNotes());
+            
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    entry.setWaitlistId(keys.getInt(1));
+                }
+            }
+            ChangeTracking.recordInsert(conn, "waitlist", entry.getWaitlistId());
+            unitOfWork.afterCommit(() -> {
+                entry.setStatus("Waiting");
+                entry.setVersion(0);
+            });
+            unitOfWork.commit();
+            return entry;
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * Get everyone still waiting, in the order they would be served
+     */
+    public List<WaitlistEntry> getWaitingEntries() {
+        List<WaitlistEntry> entries = new ArrayList<>();
+        String sql = SELECT_WITH_NAMES + " WHERE w.status = 'Waiting' " +
+                    "ORDER BY w.urgency DESC, w.created_at, w.waitlist_id";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            while (rs.next()) {
+                entries.add(mapEntry(rs));
+            }
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        return entries;
+    }
+    
+    /**
+     * Take a waiting patient off the list
+     */
+    public boolean removeEntry(int waitlistId) {
+        String sql = "UPDATE waitlist SET status = 'Removed', version = version + 1 " +
+                    "WHERE waitlist_id = ? AND status = 'Waiting'";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, waitlistId);
+            int result = pstmt.executeUpdate();
+            if (result > 0) {
+                ChangeTracking.recordUpdate(conn, "waitlist", waitlistId);
+            }
+            unitOfWork.commit();
+            return result > 0;
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Fill a freed slot from the waitlist in one transaction. The doctor's
+     * row, then their appointments around the slot, are locked and checked
+     * first, so the slot is only filled once even if several desks try or a
+     * desk books it through AppointmentService. The best waiting
+     * patient is then claimed with SKIP LOCKED: the one with the highest
+     * urgency, then the longest wait, who asked for this doctor or for any
+     * doctor of the specialization, whose visit fits in the slot and whose
+     * date window includes the day, and who has nothing else booked at
+     * that time. The appointment is booked and the entry marked Booked.
+     * @return the entry that got the slot, or null if nobody did
+     */
+    public WaitlistEntry backfill(int doctorId, String specialization, LocalDate date, LocalTime time, int freeMinutes) {
+        String slotSql = "SELECT appointment_id FROM appointments WHERE doctor_id = ? AND appointment_date = ? " +
+                        "AND status != 'Cancelled' AND TIME_TO_SEC(appointment_time) < ? " +
+                        "AND TIME_TO_SEC(appointment_time) + duration_minutes * 60 > ? FOR UPDATE";
+        String candidateSql = SELECT_WITH_NAMES + " WHERE w.status = 'Waiting' " +
+                             "AND (w.doctor_id = ? OR (w.doctor_id IS NULL AND w.specialization = ?)) " +
+                             "AND w.duration_minutes <= ? " +
+                             "AND (w.earliest_date IS NULL OR w.earliest_date <= ?) " +
+                             "AND (w.latest_date IS NULL OR w.latest_date >= ?) " +
+                             "AND NOT EXISTS (SELECT 1 FROM appointments a WHERE a.patient_id = w.patient_id " +
+                             "AND a.appointment_date = ? AND a.status != 'Cancelled' " +
+                             "AND TIME_TO_SEC(a.appointment_time) < ? + w.duration_minutes * 60 " +
+                             "AND TIME_TO_SEC(a.appointment_time) + a.duration_minutes * 60 > ?) " +
+                             "ORDER BY w.urgency DESC, w.created_at, w.waitlist_id LIMIT 1 FOR UPDATE OF w SKIP LOCKED";
+        String claimSql = "UPDATE waitlist SET status = 'Booked', appointment_id = ?, version = version + 1 " +
+                         "WHERE waitlist_id = ?";
+        
+        try (UnitOfWork unitOfWork = UnitOfWork.begin();
+             Connection conn = DatabaseConnection.getConnection()) {
+            
+            // Same lock, taken first, as AppointmentService bookings of this doctor
+            if (!new DoctorDAO().lockDoctor(doctorId)) {
+                return null;
+            }
+            
+            int start = time.toSecondOfDay();
+            try (PreparedStatement slot = conn.prepareStatement(slotSql)) {
+                slot.setInt(1, doctorId);
+                slot.setDate(2, Date.valueOf(date));
+                slot.setInt(3, start + freeMinutes * 60);
+                slot.setInt(4, start);
+                try (ResultSet rs = slot.executeQuery()) {
+                    if (rs.next()) {
+                        // Someone already booked into the slot
+                        return null;
+                    }
+                }
+            }
+            
+            WaitlistEntry entry;
+            try (PreparedStatement candidate = conn.prepareStatement(candidateSql)) {
+                candidate.setInt(1, doctorId);
+                candidate.setString(2, specialization);
+                candidate.setInt(3, freeMinutes);
+                candidate.setDate(4, Date.valueOf(date));
+                candidate.setDate(5, Date.valueOf(date));
+                candidate.setDate(6, Date.valueOf(date));
+                candidate.setInt(7, start);
+                candidate.setInt(8, start);
+                try (ResultSet rs = candidate.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    entry = mapEntry(rs);
+                }
+            }
+            
+            Appointment appointment = new Appointment(entry.getPatientId(), doctorId, date, time);
+            appointment.setDurationMinutes(entry.getDurationMinutes());
+            appointment.setNotes(entry.getNotes() != null ? entry.getNotes() : "Booked from waitlist");
+            if (new AppointmentDAO().bookAppointment(appointment) == null) {
+                return null;
+            }
+            
+            try (PreparedStatement claim = conn.prepareStatement(claimSql)) {
+                claim.setInt(1, appointment.getAppointmentId());
+                claim.setInt(2, entry.getWaitlistId());
+                claim.executeUpdate();
+            }
+            ChangeTracking.recordUpdate(conn, "waitlist", entry.getWaitlistId());
+            
+            unitOfWork.afterCommit(() -> {
+                entry.setStatus("Booked");
+                entry.setAppointmentId(appointment.getAppointmentId());
+                entry.setVersion(entry.getVersion() + 1);
+            });
+            unitOfWork.commit();
+            return entry;
+        
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    private WaitlistEntry mapEntry(ResultSet rs) throws SQLException {
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setWaitlistId(rs.getInt("waitlist_id"));
+        entry.setPatientId(rs.getInt("patient_id"));
+        entry.setDoctorId(rs.getInt("doctor_id"));
+        entry.setSpecialization(rs.getString("specialization"));
+        entry.setUrgency(rs.getInt("urgency"));
+        entry.setDurationMinutes(rs.getInt("duration_minutes"));
+        Date earliest = rs.getDate("earliest_date");
+        entry.setEarliestDate(earliest != null ? earliest.toLocalDate() : null);
+        Date latest = rs.getDate("latest_date");
+        entry.setLatestDate(latest != null ? latest.toLocalDate() : null);
+        entry.setNotes(rs.getString("notes"));
+        entry.setStatus(rs.getString("status"));
+        entry.setAppointmentId(rs.getInt("appointment_id"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        entry.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        entry.setVersion(rs.getInt("version"));
+        entry.setPatientName(rs.getString("patient_name"));
+        entry.setDoctorName(rs.getString("doctor_name"));
+        
+        return entry;
+    }
+}
@@ -7,16 +7,22 @@ import java.time.LocalDateTime;
 /**
  * Appointment model class representing appointment entity
  */
-public class Appointment {
+public class Appointment extends TrackedEntity {
+    public static final int DEFAULT_DURATION_MINUTES = 30;
+    
     private int appointmentId;
     private int patientId;
     private int doctorId;
     private LocalDate appointmentDate;
     private LocalTime appointmentTime;
+    private int durationMinutes = DEFAULT_DURATION_MINUTES;
     private String status;
     private String notes;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private int version;
+    // True when read from appointments_archive
+    private boolean archived;
     
     // For display purposes
     private String patientName;
@@ -52,22 +58,40 @@ public class Appointment {
     public void setAppointmentId(int appointmentId) { this.appointmentId = appointmentId; }
     
     public int getPatientId() { return patientId; }
-    public void setPatientId(int patientId) { this.patientId = patientId; }
+    public void setPatientId(int patientId) { columnChanged("patient_id", this.patientId, patientId); this.patientId = patientId; }
     
     public int getDoctorId() { return doctorId; }
-    public void setDoctorId(int doctorId) { this.doctorId = doctorId; }
+    public void setDoctorId(int doctorId) { columnChanged("doctor_id", this.doctorId, doctorId); this.doctorId = doctorId; }
     
     public LocalDate getAppointmentDate() { return appointmentDate; }
-    public void setAppointmentDate(LocalDate appointmentDate) { this.appointmentDate = appointmentDate; }
+    public void setAppointmentDate(LocalDate appointmentDate) { columnChanged("appointment_date", this.appointmentDate, appointmentDate); this.appointmentDate = appointmentDate; }
     
     public LocalTime getAppointmentTime() { return appointmentTime; }
-    public void setAppointmentTime(LocalTime appointmentTime) { this.appointmentTime = appointmentTime; }
+    public void setAppointmentTime(LocalTime appointmentTime) { columnChanged("appointment_time", this.appointmentTime, appointmentTime); this.appointmentTime = appointmentTime; }
+    
+    public int getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(int durationMinutes) { columnChanged("duration_minutes", this.durationMinutes, durationMinutes); this.durationMinutes = durationMinutes; }
+    
+    /**
+     * Time the appointment ends (exclusive)
+     */
+    public LocalTime getEndTime() { return appointmentTime.plusMinutes(durationMinutes); }
+    
+    /**
+     * Whether the appointment is over by midnight. Overlap checks look at one
+     * day at a time, so one running into the next day is not allowed.
+     */
+    public boolean endsSameDay() { return fitsInDay(appointmentTime, durationMinutes); }
+    
+    public static boolean fitsInDay(LocalTime time, int durationMinutes) {
+        return time.toSecondOfDay() + durationMinutes * 60 <= 24 * 60 * 60;
+    }
     
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) { columnChanged("status", this.status, status); this.status = status; }
     
     public String getNotes() { return notes; }
-    public void setNotes(String notes) { this.notes = notes; }
+    public void setNotes(String notes) { columnChanged("notes", this.notes, notes); this.notes = notes; }
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
@@ -75,6 +99,12 @@ public class Appointment {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
+    
     public String getPatientName() { return patientName; }
     public void setPatientName(String patientName) { this.patientName = patientName; }
     
@@ -0,0 +1,92 @@
+package com.hospital.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Lightweight appointment projection for list screens.
+ * Notes are cut to a short preview by the query; load the full Appointment
+ * when a dialog opens.
+ */
+public class AppointmentSummary {
+    
+    /**
+     * Longest notes text kept in a summary
+     */
+    public static final int NOTES_PREVIEW_LENGTH = 80;
+    
+    private int appointmentId;
+    private int patientId;
+    private int doctorId;
+    private String patientName;
+    private String doctorName;
+    private String doctorSpecialization;
+    private LocalDate appointmentDate;
+    private LocalTime appointmentTime;
+    private int durationMinutes = Appointment.DEFAULT_DURATION_MINUTES;
+    private String status;
+    private String notesPreview;
+    
+    // Default constructor
+    public AppointmentSummary() {}
+    
+    /**
+     * Summary of an appointment that is already in memory, e.g. one just booked
+     */
+    public static AppointmentSummary of(Appointment appointment) {
+        AppointmentSummary summary = new AppointmentSummary();
+        summary.setAppointmentId(appointment.getAppointmentId());
+        summary.setPatientId(appointment.getPatientId());
+        summary.setDoctorId(appointment.getDoctorId());
+        summary.setPatientName(appointment.getPatientName());
+        summary.setDoctorName(appointment.getDoctorName());
+        summary.setDoctorSpecialization(appointment.getDoctorSpecialization());
+        summary.setAppointmentDate(appointment.getAppointmentDate());
+        summary.setAppointmentTime(appointment.getAppointmentTime());
+        summary.setDurationMinutes(appointment.getDurationMinutes());
+        summary.setStatus(appointment.getStatus());
+        String notes = appointment.getNotes();
+        summary.setNotesPreview(notes != null && notes.length() > NOTES_PREVIEW_LENGTH
+                                ? notes.substring(0, NOTES_PREVIEW_LENGTH) : notes);
+        return summary;
+    }
+    
+    // Getters and Setters
+    public int getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(int appointmentId) { this.appointmentId = appointmentId; }
+    
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+    
+    public int getDoctorId() { return doctorId; }
+    public void setDoctorId(int doctorId) { this.doctorId = doctorId; }
+    
+    public String getPatientName() { return patientName; }
+    public void setPatientName(String patientName) { this.patientName = patientName; }
+    
+    public String getDoctorName() { return doctorName; }
+    public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
+    
+    public String getDoctorSpecialization() { return doctorSpecialization; }
+    public void setDoctorSpecialization(String doctorSpecialization) { this.doctorSpecialization = doctorSpecialization; }
+    
+    public LocalDate getAppointmentDate() { return appointmentDate; }
+    public void setAppointmentDate(LocalDate appointmentDate) { this.appointmentDate = appointmentDate; }
+    
+    public LocalTime getAppointmentTime() { return appointmentTime; }
+    public void setAppointmentTime(LocalTime appointmentTime) { this.appointmentTime = appointmentTime; }
+    
+    public int getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(int durationMinutes) { this.durationMinutes = durationMinutes; }
+    
+    /**
+     * Time the appointment ends (exclusive)
+     */
+    public LocalTime getEndTime() { return appointmentTime.plusMinutes(durationMinutes); }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public String getNotesPreview() { return notesPreview; }
+    public void setNotesPreview(String notesPreview) { this.notesPreview = notesPreview; }
+}
@@ -0,0 +1,47 @@
+package com.hospital.model;
+
+/**
+ * ChangeEvent model class representing one entry of the change_log feed
+ */
+public class ChangeEvent {
+    public static final String INSERT = "I";
+    public static final String UPDATE = "U";
+    public static final String DELETE = "D";
+    // Moved to appointments_archive: gone from the table, still part of history
+    public static final String ARCHIVE = "A";
+
+    private final long changeId;
+    private final String tableName;
+    private final int recordId;
+    private final String operation;
+
+    public ChangeEvent(long changeId, String tableName, int recordId, String operation) {
+        this.changeId = changeId;
+        this.tableName = tableName;
+        this.recordId = recordId;
+        this.operation = operation;
+    }
+
+    // Getters
+    public long getChangeId() { return changeId; }
+
+    public String getTableName() { return tableName; }
+
+    public int getRecordId() { return recordId; }
+
+    public String getOperation() { return operation; }
+
+    public boolean isDelete() { return DELETE.equals(operation); }
+
+    public boolean isArchive() { return ARCHIVE.equals(operation); }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "changeId=" + changeId +
+                ", tableName='" + tableName + '\'' +
+                ", recordId=" + recordId +
+                ", operation='" + operation + '\'' +
+                '}';
+    }
+}
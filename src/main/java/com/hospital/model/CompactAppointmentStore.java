@@ -0,0 +1,180 @@
+package com.hospital.model;
+
+import com.hospital.util.StringDictionary;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Column-per-field appointment storage for large result sets.
+ * Each appointment is a row index into primitive arrays: dates as epoch days,
+ * times as second of day, durations in minutes, status as a byte code and names as codes into
+ * shared dictionaries, so a doctor's name is held once however many
+ * appointments they have. Notes and audit timestamps are not kept; load
+ * the full Appointment when a row is opened.
+ */
+public class CompactAppointmentStore {
+    
+    /**
+     * Status values in code order (matches the appointments.status ENUM)
+     */
+    private static final String[] STATUS_NAMES = {"Scheduled", "Completed", "Cancelled", "No Show"};
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final StringDictionary patientNames = new StringDictionary();
+    private final StringDictionary doctorNames = new StringDictionary();
+    private final StringDictionary specializations = new StringDictionary();
+    
+    private int size;
+    private int[] appointmentIds;
+    private int[] patientIds;
+    private int[] doctorIds;
+    private int[] epochDays;
+    private int[] secondsOfDay;
+    private int[] durationsMinutes;
+    private byte[] statusCodes;
+    private int[] patientNameCodes;
+    private int[] doctorNameCodes;
+    private int[] specializationCodes;
+    
+    public CompactAppointmentStore() {
+        this(INITIAL_CAPACITY);
+    }
+    
+    public CompactAppointmentStore(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        appointmentIds = new int[capacity];
+        patientIds = new int[capacity];
+        doctorIds = new int[capacity];
+        epochDays = new int[capacity];
+        secondsOfDay = new int[capacity];
+        durationsMinutes = new int[capacity];
+        statusCodes = new byte[capacity];
+        patientNameCodes = new int[capacity];
+        doctorNameCodes = new int[capacity];
+        specializationCodes = new int[capacity];
+    }
+    
+    /**
+     * Append an appointment already split into primitive columns
+     * @return the row index
+     */
+    public int add(int appointmentId, int patientId, int doctorId, int epochDay, int secondOfDay,
+                   int durationMinutes, byte statusCode, String patientName, String doctorName, String specialization) {
+        if (size == appointmentIds.length) {
+            grow();
+        }
+        int row = size++;
+        appointmentIds[row] = appointmentId;
+        patientIds[row] = patientId;
+        doctorIds[row] = doctorId;
+        epochDays[row] = epochDay;
+        secondsOfDay[row] = secondOfDay;
+        durationsMinutes[row] = durationMinutes;
+        statusCodes[row] = statusCode;
+        patientNameCodes[row] = patientNames.encode(patientName);
+        doctorNameCodes[row] = doctorNames.encode(doctorName);
+        specializationCodes[row] = specializations.encode(specialization);
+        return row;
+    }
+    
+    /**
+     * Append an appointment (notes and timestamps are dropped)
+     * @return the row index
+     */
+    public int add(Appointment appointment) {
+        return add(appointment.getAppointmentId(), appointment.getPatientId(), appointment.getDoctorId(),
+                   (int) appointment.getAppointmentDate().toEpochDay(),
+                   appointment.getAppointmentTime().toSecondOfDay(),
+                   appointment.getDurationMinutes(),
+                   statusCode(appointment.getStatus()),
+                   appointment.getPatientName(), appointment.getDoctorName(),
+                   appointment.getDoctorSpecialization());
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int getAppointmentId(int row) { return appointmentIds[row]; }
+    
+    public int getPatientId(int row) { return patientIds[row]; }
+    
+    public int getDoctorId(int row) { return doctorIds[row]; }
+    
+    public int getEpochDay(int row) { return epochDays[row]; }
+    
+    public int getSecondOfDay(int row) { return secondsOfDay[row]; }
+    
+    public int getDurationMinutes(int row) { return durationsMinutes[row]; }
+    
+    public byte getStatusCode(int row) { return statusCodes[row]; }
+    
+    public LocalDate getAppointmentDate(int row) { return LocalDate.ofEpochDay(epochDays[row]); }
+    
+    public LocalTime getAppointmentTime(int row) { return LocalTime.ofSecondOfDay(secondsOfDay[row]); }
+    
+    public String getStatus(int row) { return statusName(statusCodes[row]); }
+    
+    public String getPatientName(int row) { return patientNames.decode(patientNameCodes[row]); }
+    
+    public String getDoctorName(int row) { return doctorNames.decode(doctorNameCodes[row]); }
+    
+    public String getDoctorSpecialization(int row) { return specializations.decode(specializationCodes[row]); }
+    
+    /**
+     * Build a regular Appointment for one row (without notes)
+     */
+    public Appointment toAppointment(int row) {
+        Appointment appointment = new Appointment(appointmentIds[row], patientIds[row], doctorIds[row],
+                getAppointmentDate(row), getAppointmentTime(row), getStatus(row), null);
+        appointment.setPatientName(getPatientName(row));
+        appointment.setDoctorName(getDoctorName(row));
+        appointment.setDoctorSpecialization(getDoctorSpecialization(row));
+        appointment.setDurationMinutes(durationsMinutes[row]);
+        appointment.clearChanges();
+        return appointment;
+    }
+    
+    /**
+     * Release spare capacity once loading is finished
+     */
+    public void trimToSize() {
+        resize(size);
+    }
+    
+    /**
+     * Byte code for a status name, or -1 if unknown
+     */
+    public static byte statusCode(String status) {
+        for (byte code = 0; code < STATUS_NAMES.length; code++) {
+            if (STATUS_NAMES[code].equals(status)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+    
+    public static String statusName(byte code) {
+        return code >= 0 && code < STATUS_NAMES.length ? STATUS_NAMES[code] : null;
+    }
+    
+    private void grow() {
+        resize(Math.max(16, appointmentIds.length + (appointmentIds.length >> 1)));
+    }
+    
+    private void resize(int capacity) {
+        appointmentIds = Arrays.copyOf(appointmentIds, capacity);
+        patientIds = Arrays.copyOf(patientIds, capacity);
+        doctorIds = Arrays.copyOf(doctorIds, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        secondsOfDay = Arrays.copyOf(secondsOfDay, capacity);
+        durationsMinutes = Arrays.copyOf(durationsMinutes, capacity);
+        statusCodes = Arrays.copyOf(statusCodes, capacity);
+        patientNameCodes = Arrays.copyOf(patientNameCodes, capacity);
+        doctorNameCodes = Arrays.copyOf(doctorNameCodes, capacity);
+        specializationCodes = Arrays.copyOf(specializationCodes, capacity);
+    }
+}
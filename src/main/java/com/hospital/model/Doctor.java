@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 /**
  * Doctor model class representing doctor entity
  */
-public class Doctor {
+public class Doctor extends TrackedEntity {
     private int doctorId;
     private String name;
     private String specialization;
@@ -19,6 +19,7 @@ public class Doctor {
     private String availableTime;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private int version;
     
     // Default constructor
     public Doctor() {}
@@ -52,31 +53,31 @@ public class Doctor {
     public void setDoctorId(int doctorId) { this.doctorId = doctorId; }
     
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { columnChanged("name", this.name, name); this.name = name; }
     
     public String getSpecialization() { return specialization; }
-    public void setSpecialization(String specialization) { this.specialization = specialization; }
+    public void setSpecialization(String specialization) { columnChanged("specialization", this.specialization, specialization); this.specialization = specialization; }
     
     public String getPhone() { return phone; }
-    public void setPhone(String phone) { this.phone = phone; }
+    public void setPhone(String phone) { columnChanged("phone", this.phone, phone); this.phone = phone; }
     
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) { columnChanged("email", this.email, email); this.email = email; }
     
     public int getExperienceYears() { return experienceYears; }
-    public void setExperienceYears(int experienceYears) { this.experienceYears = experienceYears; }
+    public void setExperienceYears(int experienceYears) { columnChanged("experience_years", this.experienceYears, experienceYears); this.experienceYears = experienceYears; }
     
     public String getQualification() { return qualification; }
-    public void setQualification(String qualification) { this.qualification = qualification; }
+    public void setQualification(String qualification) { columnChanged("qualification", this.qualification, qualification); this.qualification = qualification; }
     
     public BigDecimal getConsultationFee() { return consultationFee; }
-    public void setConsultationFee(BigDecimal consultationFee) { this.consultationFee = consultationFee; }
+    public void setConsultationFee(BigDecimal consultationFee) { columnChanged("consultation_fee", this.consultationFee, consultationFee); this.consultationFee = consultationFee; }
     
     public String getAvailableDays() { return availableDays; }
-    public void setAvailableDays(String availableDays) { this.availableDays = availableDays; }
+    public void setAvailableDays(String availableDays) { columnChanged("available_days", this.availableDays, availableDays); this.availableDays = availableDays; }
     
     public String getAvailableTime() { return availableTime; }
-    public void setAvailableTime(String availableTime) { this.availableTime = availableTime; }
+    public void setAvailableTime(String availableTime) { columnChanged("available_time", this.availableTime, availableTime); this.availableTime = availableTime; }
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
@@ -84,6 +85,9 @@ public class Doctor {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    
     @Override
     public String toString() {
         return "Dr. " + name + " (" + specialization + ")";
@@ -0,0 +1,159 @@
+package com.hospital.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A doctor's free-text availability ("Mon,Wed-Fri" and "09:00-17:00")
+ * compiled once into a weekday mask and a working window, so slot grids
+ * can be built without re-parsing the strings for every day.
+ */
+public class DoctorSchedule {
+    public static final int SLOT_MINUTES = 30;
+    
+    private static final String[] DAY_NAMES = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+    
+    // Bit (dayOfWeek - 1) is set for each working day
+    private final int dayMask;
+    private final LocalTime start;
+    private final LocalTime end;
+    
+    private DoctorSchedule(int dayMask, LocalTime start, LocalTime end) {
+        this.dayMask = dayMask;
+        this.start = start;
+        this.end = end;
+    }
+    
+    /**
+     * Parse the doctor's available_days and available_time columns.
+     * Blank days mean every day; a blank or unreadable time means no
+     * working window, so the doctor has no slots.
+     */
+    public static DoctorSchedule compile(String availableDays, String availableTime) {
+        int mask = parseDays(availableDays);
+        LocalTime start = null;
+        LocalTime end = null;
+        
+        if (availableTime != null) {
+            String[] parts = availableTime.split("-");
+            if (parts.length == 2) {
+                try {
+                    start = LocalTime.parse(parts[0].trim());
+                    end = LocalTime.parse(parts[1].trim());
+                } catch (DateTimeParseException e) {
+                    start = null;
+                    end = null;
+                }
+            }
+        }
+        if (start == null || !end.isAfter(start)) {
+            return new DoctorSchedule(mask, null, null);
+        }
+        return new DoctorSchedule(mask, start, end);
+    }
+    
+    public static DoctorSchedule of(Doctor doctor) {
+        return compile(doctor.getAvailableDays(), doctor.getAvailableTime());
+    }
+    
+    public static DoctorSchedule of(DoctorSummary doctor) {
+        return compile(doctor.getAvailableDays(), doctor.getAvailableTime());
+    }
+    
+    public boolean worksOn(DayOfWeek day) {
+        return (dayMask & (1 << (day.getValue() - 1))) != 0;
+    }
+    
+    public boolean worksOn(LocalDate date) {
+        return start != null && worksOn(date.getDayOfWeek());
+    }
+    
+    /**
+     * Start of the working window, or null if there is none
+     */
+    public LocalTime getStart() { return start; }
+    
+    /**
+     * End of the working window (exclusive), or null if there is none
+     */
+    public LocalTime getEnd() { return end; }
+    
+    /**
+     * Number of SLOT_MINUTES slots on the given date
+     */
+    public int slotCount(LocalDate date) {
+        if (!worksOn(date)) {
+            return 0;
+        }
+        return (end.toSecondOfDay() - start.toSecondOfDay()) / (SLOT_MINUTES * 60);
+    }
+    
+    /**
+     * Slot start times on the given date; empty on days off
+     */
+    public List<LocalTime> slotsOn(LocalDate date) {
+        int count = slotCount(date);
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<LocalTime> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(start.plusMinutes((long) i * SLOT_MINUTES));
+        }
+        return slots;
+    }
+    
+    /**
+     * Index of the slot containing the time, or -1 if outside the window
+     */
+    public int slotIndex(LocalTime time) {
+        if (start == null || time.isBefore(start) || !time.isBefore(end)) {
+            return -1;
+        }
+        return (time.toSecondOfDay() - start.toSecondOfDay()) / (SLOT_MINUTES * 60);
+    }
+    
+    /**
+     * Accepts "Mon,Tue,Fri", ranges such as "Mon-Fri", and full day names
+     */
+    private static int parseDays(String availableDays) {
+        if (availableDays == null || availableDays.trim().isEmpty()) {
+            return 0x7F;
+        }
+        int mask = 0;
+        for (String token : availableDays.split(",")) {
+            String[] range = token.split("-");
+            int from = dayIndex(range[0]);
+            int to = range.length > 1 ? dayIndex(range[1]) : from;
+            if (from < 0 || to < 0) {
+                continue;
+            }
+            for (int day = from; ; day = (day + 1) % 7) {
+                mask |= 1 << day;
+                if (day == to) {
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+    
+    private static int dayIndex(String name) {
+        String prefix = name.trim().toUpperCase();
+        if (prefix.length() < 3) {
+            return -1;
+        }
+        prefix = prefix.substring(0, 3);
+        for (int i = 0; i < DAY_NAMES.length; i++) {
+            if (DAY_NAMES[i].equals(prefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
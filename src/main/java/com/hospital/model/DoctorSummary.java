@@ -0,0 +1,78 @@
+package com.hospital.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Lightweight doctor projection for list screens.
+ * Holds only the columns shown in tables and combo boxes; load the full
+ * Doctor when a dialog opens.
+ */
+public class DoctorSummary {
+    private int doctorId;
+    private String name;
+    private String specialization;
+    private String phone;
+    private String email;
+    private int experienceYears;
+    private String qualification;
+    private BigDecimal consultationFee;
+    private String availableDays;
+    private String availableTime;
+    
+    // Default constructor
+    public DoctorSummary() {}
+    
+    /**
+     * Summary of a doctor that is already in memory, e.g. one just saved
+     */
+    public static DoctorSummary of(Doctor doctor) {
+        DoctorSummary summary = new DoctorSummary();
+        summary.setDoctorId(doctor.getDoctorId());
+        summary.setName(doctor.getName());
+        summary.setSpecialization(doctor.getSpecialization());
+        summary.setPhone(doctor.getPhone());
+        summary.setEmail(doctor.getEmail());
+        summary.setExperienceYears(doctor.getExperienceYears());
+        summary.setQualification(doctor.getQualification());
+        summary.setConsultationFee(doctor.getConsultationFee());
+        summary.setAvailableDays(doctor.getAvailableDays());
+        summary.setAvailableTime(doctor.getAvailableTime());
+        return summary;
+    }
+    
+    // Getters and Setters
+    public int getDoctorId() { return doctorId; }
+    public void setDoctorId(int doctorId) { this.doctorId = doctorId; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getSpecialization() { return specialization; }
+    public void setSpecialization(String specialization) { this.specialization = specialization; }
+    
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+    
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    
+    public int getExperienceYears() { return experienceYears; }
+    public void setExperienceYears(int experienceYears) { this.experienceYears = experienceYears; }
+    
+    public String getQualification() { return qualification; }
+    public void setQualification(String qualification) { this.qualification = qualification; }
+    
+    public BigDecimal getConsultationFee() { return consultationFee; }
+    public void setConsultationFee(BigDecimal consultationFee) { this.consultationFee = consultationFee; }
+    
+    public String getAvailableDays() { return availableDays; }
+    public void setAvailableDays(String availableDays) { this.availableDays = availableDays; }
+    
+    public String getAvailableTime() { return availableTime; }
+    public void setAvailableTime(String availableTime) { this.availableTime = availableTime; }
+    
+    @Override
+    public String toString() {
+        return "Dr. " + name + " (" + specialization + ")";
+    }
+}
@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 /**
  * Patient model class representing patient entity
  */
-public class Patient {
+public class Patient extends TrackedEntity {
     private int patientId;
     private String name;
     private int age;
@@ -20,6 +20,7 @@ public class Patient {
     private LocalDate admissionDate;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private int version;
     
     // Default constructor
     public Patient() {}
@@ -55,34 +56,34 @@ public class Patient {
     public void setPatientId(int patientId) { this.patientId = patientId; }
     
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { columnChanged("name", this.name, name); this.name = name; }
     
     public int getAge() { return age; }
-    public void setAge(int age) { this.age = age; }
+    public void setAge(int age) { columnChanged("age", this.age, age); this.age = age; }
     
     public String getGender() { return gender; }
-    public void setGender(String gender) { this.gender = gender; }
+    public void setGender(String gender) { columnChanged("gender", this.gender, gender); this.gender = gender; }
     
     public String getPhone() { return phone; }
-    public void setPhone(String phone) { this.phone = phone; }
+    public void setPhone(String phone) { columnChanged("phone", this.phone, phone); this.phone = phone; }
     
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) { columnChanged("email", this.email, email); this.email = email; }
     
     public String getAddress() { return address; }
-    public void setAddress(String address) { this.address = address; }
+    public void setAddress(String address) { columnChanged("address", this.address, address); this.address = address; }
     
     public String getDisease() { return disease; }
-    public void setDisease(String disease) { this.disease = disease; }
+    public void setDisease(String disease) { columnChanged("disease", this.disease, disease); this.disease = disease; }
     
     public String getBloodGroup() { return bloodGroup; }
-    public void setBloodGroup(String bloodGroup) { this.bloodGroup = bloodGroup; }
+    public void setBloodGroup(String bloodGroup) { columnChanged("blood_group", this.bloodGroup, bloodGroup); this.bloodGroup = bloodGroup; }
     
     public String getEmergencyContact() { return emergencyContact; }
-    public void setEmergencyContact(String emergencyContact) { this.emergencyContact = emergencyContact; }
+    public void setEmergencyContact(String emergencyContact) { columnChanged("emergency_contact", this.emergencyContact, emergencyContact); this.emergencyContact = emergencyContact; }
     
     public LocalDate getAdmissionDate() { return admissionDate; }
-    public void setAdmissionDate(LocalDate admissionDate) { this.admissionDate = admissionDate; }
+    public void setAdmissionDate(LocalDate admissionDate) { columnChanged("admission_date", this.admissionDate, admissionDate); this.admissionDate = admissionDate; }
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
@@ -90,6 +91,9 @@ public class Patient {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    
     @Override
     public String toString() {
         return "Patient{" +
@@ -0,0 +1,73 @@
+package com.hospital.model;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight patient projection for list screens.
+ * Holds only the columns shown in tables and combo boxes; load the full
+ * Patient (address, emergency contact, timestamps) when a dialog opens.
+ */
+public class PatientSummary {
+    private int patientId;
+    private String name;
+    private int age;
+    private String gender;
+    private String phone;
+    private String email;
+    private String disease;
+    private String bloodGroup;
+    private LocalDate admissionDate;
+    
+    // Default constructor
+    public PatientSummary() {}
+    
+    /**
+     * Summary of a patient that is already in memory, e.g. one just saved
+     */
+    public static PatientSummary of(Patient patient) {
+        PatientSummary summary = new PatientSummary();
+        summary.setPatientId(patient.getPatientId());
+        summary.setName(patient.getName());
+        summary.setAge(patient.getAge());
+        summary.setGender(patient.getGender());
+        summary.setPhone(patient.getPhone());
+        summary.setEmail(patient.getEmail());
+        summary.setDisease(patient.getDisease());
+        summary.setBloodGroup(patient.getBloodGroup());
+        summary.setAdmissionDate(patient.getAdmissionDate());
+        return summary;
+    }
+    
+    // Getters and Setters
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public int getAge() { return age; }
+    public void setAge(int age) { this.age = age; }
+    
+    public String getGender() { return gender; }
+    public void setGender(String gender) { this.gender = gender; }
+    
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+    
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    
+    public String getDisease() { return disease; }
+    public void setDisease(String disease) { this.disease = disease; }
+    
+    public String getBloodGroup() { return bloodGroup; }
+    public void setBloodGroup(String bloodGroup) { this.bloodGroup = bloodGroup; }
+    
+    public LocalDate getAdmissionDate() { return admissionDate; }
+    public void setAdmissionDate(LocalDate admissionDate) { this.admissionDate = admissionDate; }
+    
+    @Override
+    public String toString() {
+        return name + " (ID: " + patientId + ")";
+    }
+}
@@ -0,0 +1,61 @@
+package com.hospital.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reminder model class representing one row of the reminder outbox
+ */
+public class Reminder {
+    private long outboxId;
+    private int appointmentId;
+    private LocalDateTime remindAt;
+    private String recipient;
+    private String message;
+    private String status = "Pending";
+    private int attempts;
+    
+    // Default constructor
+    public Reminder() {}
+    
+    // Constructor for a reminder that has come due but is not in the outbox yet
+    public Reminder(int appointmentId, LocalDateTime remindAt) {
+        this.appointmentId = appointmentId;
+        this.remindAt = remindAt;
+    }
+    
+    // Getters and Setters
+    public long getOutboxId() { return outboxId; }
+    public void setOutboxId(long outboxId) { this.outboxId = outboxId; }
+    
+    public int getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(int appointmentId) { this.appointmentId = appointmentId; }
+    
+    public LocalDateTime getRemindAt() { return remindAt; }
+    public void setRemindAt(LocalDateTime remindAt) { this.remindAt = remindAt; }
+    
+    /**
+     * The patient's phone number
+     */
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    
+    @Override
+    public String toString() {
+        return "Reminder{" +
+                "outboxId=" + outboxId +
+                ", appointmentId=" + appointmentId +
+                ", remindAt=" + remindAt +
+                ", recipient='" + recipient + '\'' +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
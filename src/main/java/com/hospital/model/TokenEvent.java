@@ -0,0 +1,62 @@
+package com.hospital.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * TokenEvent model class representing one entry of the append-only
+ * opd_token_events journal. An ISSUED event is also the walk-in token itself.
+ */
+public class TokenEvent {
+    public static final String ISSUED = "Issued";
+    public static final String CALLED = "Called";
+    public static final String DONE = "Done";
+
+    private final LocalDate tokenDate;
+    private final int doctorId;
+    private final int tokenNumber;
+    private final String type;
+    private final String patientName;
+    private final LocalDateTime eventTime;
+
+    public TokenEvent(LocalDate tokenDate, int doctorId, int tokenNumber, String type,
+                      String patientName, LocalDateTime eventTime) {
+        this.tokenDate = tokenDate;
+        this.doctorId = doctorId;
+        this.tokenNumber = tokenNumber;
+        this.type = type;
+        this.patientName = patientName;
+        this.eventTime = eventTime;
+    }
+
+    /**
+     * The same token with another event type, stamped now
+     */
+    public TokenEvent next(String type) {
+        return new TokenEvent(tokenDate, doctorId, tokenNumber, type, patientName, LocalDateTime.now());
+    }
+
+    // Getters
+    public LocalDate getTokenDate() { return tokenDate; }
+
+    public int getDoctorId() { return doctorId; }
+
+    public int getTokenNumber() { return tokenNumber; }
+
+    public String getType() { return type; }
+
+    public String getPatientName() { return patientName; }
+
+    public LocalDateTime getEventTime() { return eventTime; }
+
+    @Override
+    public String toString() {
+        return "TokenEvent{" +
+                "tokenDate=" + tokenDate +
+                ", doctorId=" + doctorId +
+                ", tokenNumber=" + tokenNumber +
+                ", type='" + type + '\'' +
+                ", patientName='" + patientName + '\'' +
+                '}';
+    }
+}
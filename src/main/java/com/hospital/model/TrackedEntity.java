@@ -0,0 +1,48 @@
+package com.hospital.model;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Base class for entities that remember which columns were changed since
+ * they were loaded, so updates can write only those columns.
+ * The DAOs call clearChanges() after loading or saving a row.
+ */
+public abstract class TrackedEntity {
+    private final Set<String> changedColumns = new LinkedHashSet<>();
+    
+    /**
+     * Record a setter call; setting a column to the value it already has is not a change
+     */
+    protected void columnChanged(String column, Object oldValue, Object newValue) {
+        if (!sameValue(oldValue, newValue)) {
+            changedColumns.add(column);
+        }
+    }
+    
+    /**
+     * Columns changed since the last clearChanges(), in the order they were first set
+     */
+    public Set<String> getChangedColumns() {
+        return Collections.unmodifiableSet(changedColumns);
+    }
+    
+    public boolean hasChanges() {
+        return !changedColumns.isEmpty();
+    }
+    
+    public void clearChanges() {
+        changedColumns.clear();
+    }
+    
+    private static boolean sameValue(Object a, Object b) {
+        if (a instanceof BigDecimal && b instanceof BigDecimal) {
+            // 500 and 500.00 are the same fee
+            return ((BigDecimal) a).compareTo((BigDecimal) b) == 0;
+        }
+        return Objects.equals(a, b);
+    }
+}
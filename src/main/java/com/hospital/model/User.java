@@ -3,12 +3,12 @@ package com.hospital.model;
 import java.time.LocalDateTime;
 
 /**
- * User model class for login system
+ * User model class for login system. Never carries the password; see
+ * UserCredentials for the stored hash.
  */
 public class User {
     private int userId;
     private String username;
-    private String password;
     private String role;
     private String fullName;
     private String email;
@@ -20,20 +20,18 @@ public class User {
     public User() {}
     
     // Constructor with essential fields
-    public User(String username, String password, String role, String fullName) {
+    public User(String username, String role, String fullName) {
         this.username = username;
-        this.password = password;
         this.role = role;
         this.fullName = fullName;
         this.isActive = true;
     }
     
     // Full constructor
-    public User(int userId, String username, String password, String role, String fullName,
+    public User(int userId, String username, String role, String fullName,
                 String email, boolean isActive) {
         this.userId = userId;
         this.username = username;
-        this.password = password;
         this.role = role;
         this.fullName = fullName;
         this.email = email;
@@ -47,9 +45,6 @@ public class User {
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
     
-    public String getPassword() { return password; }
-    public void setPassword(String password) { this.password = password; }
-    
     public String getRole() { return role; }
     public void setRole(String role) { this.role = role; }
     
@@ -0,0 +1,25 @@
+package com.hospital.model;
+
+/**
+ * A user together with the stored password hash, read only to check a login
+ */
+public class UserCredentials {
+    private User user;
+    private String passwordHash;
+    
+    // Default constructor
+    public UserCredentials() {}
+    
+    // Full constructor
+    public UserCredentials(User user, String passwordHash) {
+        this.user = user;
+        this.passwordHash = passwordHash;
+    }
+    
+    // Getters and Setters
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    
+    public String getPasswordHash() { return passwordHash; }
+    public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
+}
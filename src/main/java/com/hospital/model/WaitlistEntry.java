@@ -0,0 +1,104 @@
+package com.hospital.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A patient waiting for a slot, either with one doctor or with any doctor
+ * of a specialization (doctorId 0). Higher urgency is served first, then
+ * whoever has waited longest.
+ */
+public class WaitlistEntry {
+    public static final int MIN_URGENCY = 1;
+    public static final int MAX_URGENCY = 5;
+    
+    private int waitlistId;
+    private int patientId;
+    private int doctorId;
+    private String specialization;
+    private int urgency = 3;
+    private int durationMinutes = Appointment.DEFAULT_DURATION_MINUTES;
+    private LocalDate earliestDate;
+    private LocalDate latestDate;
+    private String notes;
+    private String status = "Waiting";
+    private int appointmentId;
+    private LocalDateTime createdAt;
+    private int version;
+    
+    // For display purposes
+    private String patientName;
+    private String doctorName;
+    
+    // Default constructor
+    public WaitlistEntry() {}
+    
+    // Getters and Setters
+    public int getWaitlistId() { return waitlistId; }
+    public void setWaitlistId(int waitlistId) { this.waitlistId = waitlistId; }
+    
+    public int getPatientId() { return patientId; }
+    public void setPatientId(int patientId) { this.patientId = patientId; }
+    
+    /**
+     * The requested doctor, or 0 for any doctor of the specialization
+     */
+    public int getDoctorId() { return doctorId; }
+    public void setDoctorId(int doctorId) { this.doctorId = doctorId; }
+    
+    public String getSpecialization() { return specialization; }
+    public void setSpecialization(String specialization) { this.specialization = specialization; }
+    
+    public int getUrgency() { return urgency; }
+    public void setUrgency(int urgency) { this.urgency = urgency; }
+    
+    public int getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(int durationMinutes) { this.durationMinutes = durationMinutes; }
+    
+    /**
+     * First acceptable day, or null for any
+     */
+    public LocalDate getEarliestDate() { return earliestDate; }
+    public void setEarliestDate(LocalDate earliestDate) { this.earliestDate = earliestDate; }
+    
+    /**
+     * Last acceptable day, or null for any
+     */
+    public LocalDate getLatestDate() { return latestDate; }
+    public void setLatestDate(LocalDate latestDate) { this.latestDate = latestDate; }
+    
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    /**
+     * The appointment booked from this entry, or 0 while waiting
+     */
+    public int getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(int appointmentId) { this.appointmentId = appointmentId; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    
+    public String getPatientName() { return patientName; }
+    public void setPatientName(String patientName) { this.patientName = patientName; }
+    
+    public String getDoctorName() { return doctorName; }
+    public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
+    
+    @Override
+    public String toString() {
+        return "WaitlistEntry{" +
+                "waitlistId=" + waitlistId +
+                ", patientName='" + patientName + '\'' +
+                ", specialization='" + specialization + '\'' +
+                ", urgency=" + urgency +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
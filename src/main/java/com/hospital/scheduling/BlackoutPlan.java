@@ -0,0 +1,81 @@
+package com.hospital.scheduling;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.DoctorSummary;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Proposed moves for the appointments of a doctor who is away from
+ * getFrom() to getTo(), as worked out by BlackoutPlanner. Nothing is
+ * written until the plan is applied.
+ */
+public class BlackoutPlan {
+    
+    /**
+     * One appointment and the slot it would move to
+     */
+    public static class Move {
+        private final Appointment appointment;
+        private final DoctorSummary doctor;
+        private final LocalDate date;
+        private final LocalTime time;
+        
+        Move(Appointment appointment, DoctorSummary doctor, LocalDate date, LocalTime time) {
+            this.appointment = appointment;
+            this.doctor = doctor;
+            this.date = date;
+            this.time = time;
+        }
+        
+        public Appointment getAppointment() { return appointment; }
+        public DoctorSummary getDoctor() { return doctor; }
+        public LocalDate getDate() { return date; }
+        public LocalTime getTime() { return time; }
+    }
+    
+    private final int doctorId;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final LocalDate searchTo;
+    private final List<Integer> candidateIds;
+    private final List<Move> moves;
+    private final List<Appointment> unplaced;
+    
+    BlackoutPlan(int doctorId, LocalDate from, LocalDate to, LocalDate searchTo, List<Integer> candidateIds,
+                 List<Move> moves, List<Appointment> unplaced) {
+        this.doctorId = doctorId;
+        this.from = from;
+        this.to = to;
+        this.searchTo = searchTo;
+        this.candidateIds = Collections.unmodifiableList(candidateIds);
+        this.moves = Collections.unmodifiableList(moves);
+        this.unplaced = Collections.unmodifiableList(unplaced);
+    }
+    
+    public int getDoctorId() { return doctorId; }
+    
+    public LocalDate getFrom() { return from; }
+    
+    public LocalDate getTo() { return to; }
+    
+    /**
+     * Last day replacement slots were searched on
+     */
+    public LocalDate getSearchTo() { return searchTo; }
+    
+    /**
+     * Doctors that may take over appointments, the absent one included
+     */
+    public List<Integer> getCandidateIds() { return candidateIds; }
+    
+    public List<Move> getMoves() { return moves; }
+    
+    /**
+     * Appointments no slot was found for; they stay where they are
+     */
+    public List<Appointment> getUnplaced() { return unplaced; }
+}
@@ -0,0 +1,249 @@
+package com.hospital.scheduling;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.dao.UpdateResult;
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.Doctor;
+import com.hospital.model.DoctorSchedule;
+import com.hospital.model.DoctorSummary;
+import com.hospital.util.UnitOfWork;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Moves a doctor's appointments out of a leave period. Planning reads the
+ * affected Scheduled appointments with one query on the doctor-slot index
+ * and every candidate doctor's bookings with one more, builds an
+ * IntervalTree per doctor-day, and then places each appointment in turn:
+ * the earliest day with a free slot (with a doctor of the same
+ * specialization, or the absent doctor after the leave), at the time
+ * closest to the original one. Applying re-reads and locks the same
+ * bookings, checks every move again and saves them all as one batch.
+ */
+public class BlackoutPlanner {
+    
+    /**
+     * Days after the original date searched for a replacement slot
+     */
+    public static final int SEARCH_DAYS = 14;
+    
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    
+    /**
+     * Work out moves for the doctor's Scheduled appointments from from to to (inclusive)
+     * @return the plan, or null if the doctor does not exist
+     */
+    public BlackoutPlan plan(int doctorId, LocalDate from, LocalDate to) {
+        Doctor doctor = doctorDAO.getDoctorById(doctorId);
+        if (doctor == null) {
+            return null;
+        }
+        
+        List<Appointment> affected = appointmentDAO.findAppointments(new Criteria<AppointmentDAO.Field>()
+                .equalTo(AppointmentDAO.Field.DOCTOR_ID, doctorId)
+                .between(AppointmentDAO.Field.DATE, from, to)
+                .equalTo(AppointmentDAO.Field.STATUS, "Scheduled")
+                .sortBy(AppointmentDAO.Field.DATE, Criteria.Direction.ASC)
+                .sortBy(AppointmentDAO.Field.TIME, Criteria.Direction.ASC));
+        
+        // Other doctors first, the absent doctor last, so a same-day move
+        // to a colleague beats waiting for the doctor to come back
+        List<DoctorSummary> candidates = new ArrayList<>();
+        DoctorSummary self = null;
+        for (DoctorSummary candidate : doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>()
+                .equalTo(DoctorDAO.Field.SPECIALIZATION, doctor.getSpecialization())
+                .sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC))) {
+            if (candidate.getDoctorId() == doctorId) {
+                self = candidate;
+            } else {
+                candidates.add(candidate);
+            }
+        }
+        if (self != null) {
+            candidates.add(self);
+        }
+        List<Integer> candidateIds = new ArrayList<>();
+        for (DoctorSummary candidate : candidates) {
+            candidateIds.add(candidate.getDoctorId());
+        }
+        
+        LocalDate searchTo = to.plusDays(SEARCH_DAYS);
+        Set<Integer> moving = new HashSet<>();
+        for (Appointment appointment : affected) {
+            moving.add(appointment.getAppointmentId());
+        }
+        Map<Long, IntervalTree> calendar = buildCalendar(appointmentDAO.findAppointmentSummaries(
+                agendaCriteria(candidateIds, from, searchTo)), moving);
+        
+        List<BlackoutPlan.Move> moves = new ArrayList<>();
+        List<Appointment> unplaced = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Appointment appointment : affected) {
+            BlackoutPlan.Move move = place(appointment, candidates, doctorId, to, searchTo, calendar, now);
+            if (move == null) {
+                unplaced.add(appointment);
+            } else {
+                moves.add(move);
+                book(calendar, appointment.getAppointmentId(), move.getDoctor().getDoctorId(), move.getDate(),
+                     move.getTime(), appointment.getDurationMinutes());
+            }
+        }
+        return new BlackoutPlan(doctorId, from, to, searchTo, candidateIds, moves, unplaced);
+    }
+    
+    /**
+     * Save the plan's moves. The absent and target doctors' rows, then the
+     * candidates' bookings, are locked and read again first; if any move no
+     * longer fits, nothing is written.
+     * @return UPDATED, UNCHANGED when there is nothing to move, CONFLICT
+     *         when the schedules changed since planning (plan again), or FAILED
+     */
+    public UpdateResult apply(BlackoutPlan plan) {
+        if (plan.getMoves().isEmpty()) {
+            return UpdateResult.UNCHANGED;
+        }
+        UpdateResult[] result = {UpdateResult.FAILED};
+        UnitOfWork.run(unitOfWork -> {
+            Set<Integer> moving = new HashSet<>();
+            // Ascending, like AppointmentService, so the two cannot deadlock
+            Set<Integer> doctorIds = new TreeSet<>();
+            doctorIds.add(plan.getDoctorId());
+            for (BlackoutPlan.Move move : plan.getMoves()) {
+                moving.add(move.getAppointment().getAppointmentId());
+                doctorIds.add(move.getDoctor().getDoctorId());
+            }
+            // The doctor locks keep desk bookings out of the target slots until commit
+            for (int doctorId : doctorIds) {
+                if (!doctorDAO.lockDoctor(doctorId)) {
+                    result[0] = unitOfWork.isRollbackOnly() ? UpdateResult.FAILED : UpdateResult.CONFLICT;
+                    return false;
+                }
+            }
+            Map<Long, IntervalTree> calendar = buildCalendar(appointmentDAO.lockAppointmentSummaries(
+                    agendaCriteria(plan.getCandidateIds(), plan.getFrom(), plan.getSearchTo())), moving);
+            
+            List<Appointment> appointments = new ArrayList<>();
+            for (BlackoutPlan.Move move : plan.getMoves()) {
+                Appointment appointment = move.getAppointment();
+                int doctorId = move.getDoctor().getDoctorId();
+                int start = move.getTime().toSecondOfDay();
+                IntervalTree tree = calendar.get(dayKey(doctorId, move.getDate()));
+                if (tree != null && !tree.findOverlaps(start, start + appointment.getDurationMinutes() * 60).isEmpty()) {
+                    result[0] = UpdateResult.CONFLICT;
+                    return false;
+                }
+                book(calendar, appointment.getAppointmentId(), doctorId, move.getDate(), move.getTime(),
+                     appointment.getDurationMinutes());
+                
+                appointment.setDoctorId(doctorId);
+                appointment.setAppointmentDate(move.getDate());
+                appointment.setAppointmentTime(move.getTime());
+                appointment.setDoctorName(move.getDoctor().getName());
+                appointment.setDoctorSpecialization(move.getDoctor().getSpecialization());
+                appointments.add(appointment);
+            }
+            
+            result[0] = appointmentDAO.rescheduleAppointments(appointments);
+            return result[0] == UpdateResult.UPDATED;
+        });
+        return result[0];
+    }
+    
+    /**
+     * Earliest day up to searchTo with room for the appointment, and on
+     * that day the candidate slot closest to the original time
+     */
+    private BlackoutPlan.Move place(Appointment appointment, List<DoctorSummary> candidates, int absentId,
+                                    LocalDate to, LocalDate searchTo, Map<Long, IntervalTree> calendar,
+                                    LocalDateTime now) {
+        int length = appointment.getDurationMinutes() * 60;
+        int original = appointment.getAppointmentTime().toSecondOfDay();
+        
+        LocalDate first = appointment.getAppointmentDate().isBefore(now.toLocalDate())
+                          ? now.toLocalDate() : appointment.getAppointmentDate();
+        for (LocalDate date = first; !date.isAfter(searchTo); date = date.plusDays(1)) {
+            BlackoutPlan.Move best = null;
+            int bestDistance = Integer.MAX_VALUE;
+            
+            for (DoctorSummary candidate : candidates) {
+                if (candidate.getDoctorId() == absentId && !date.isAfter(to)) {
+                    continue;
+                }
+                DoctorSchedule schedule = DoctorSchedule.of(candidate);
+                if (!schedule.worksOn(date)) {
+                    continue;
+                }
+                int open = schedule.getStart().toSecondOfDay();
+                if (date.equals(now.toLocalDate())) {
+                    open = Math.max(open, now.toLocalTime().toSecondOfDay());
+                }
+                int close = schedule.getEnd().toSecondOfDay();
+                IntervalTree tree = calendar.get(dayKey(candidate.getDoctorId(), date));
+                if (tree == null) {
+                    tree = new IntervalTree();
+                }
+                
+                // First free slot at or after the original time, else the first of the day
+                int slot = tree.findGap(Math.max(open, original), close, length);
+                if (slot < 0) {
+                    slot = tree.findGap(open, close, length);
+                }
+                if (slot >= 0 && Math.abs(slot - original) < bestDistance) {
+                    bestDistance = Math.abs(slot - original);
+                    best = new BlackoutPlan.Move(appointment, candidate, date, LocalTime.ofSecondOfDay(slot));
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+        return null;
+    }
+    
+    private static Criteria<AppointmentDAO.Field> agendaCriteria(Collection<Integer> doctorIds, LocalDate from,
+                                                                 LocalDate to) {
+        return new Criteria<AppointmentDAO.Field>()
+                .in(AppointmentDAO.Field.DOCTOR_ID, doctorIds)
+                .between(AppointmentDAO.Field.DATE, from, to);
+    }
+    
+    /**
+     * Doctor-day trees of the active bookings, leaving out the ones being moved
+     */
+    private static Map<Long, IntervalTree> buildCalendar(List<AppointmentSummary> bookings, Set<Integer> moving) {
+        Map<Long, IntervalTree> calendar = new HashMap<>();
+        for (AppointmentSummary booking : bookings) {
+            if (!"Cancelled".equals(booking.getStatus()) && booking.getDurationMinutes() > 0
+                    && !moving.contains(booking.getAppointmentId())) {
+                book(calendar, booking.getAppointmentId(), booking.getDoctorId(), booking.getAppointmentDate(),
+                     booking.getAppointmentTime(), booking.getDurationMinutes());
+            }
+        }
+        return calendar;
+    }
+    
+    private static void book(Map<Long, IntervalTree> calendar, int appointmentId, int doctorId, LocalDate date,
+                             LocalTime time, int durationMinutes) {
+        int start = time.toSecondOfDay();
+        calendar.computeIfAbsent(dayKey(doctorId, date), key -> new IntervalTree())
+                .insert(appointmentId, start, start + durationMinutes * 60);
+    }
+    
+    private static long dayKey(int doctorId, LocalDate date) {
+        return ((long) doctorId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+}
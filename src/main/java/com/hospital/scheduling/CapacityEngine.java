@@ -0,0 +1,363 @@
+package com.hospital.scheduling;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.model.ChangeEvent;
+import com.hospital.model.CompactAppointmentStore;
+import com.hospital.model.DoctorSchedule;
+import com.hospital.model.DoctorSummary;
+import com.hospital.util.UnitOfWork;
+
+import javax.swing.SwingUtilities;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Free-slot counts for every doctor over the next few days.
+ * A full build reads the doctors once, compiles their schedules and loads
+ * every booking in the window with one range query, then fills each
+ * doctor's row in parallel. After that the engine follows ChangeFeed and
+ * only re-reads the appointments that changed, moving their bookings
+ * between cells instead of rebuilding. All state lives on one worker
+ * thread; listeners get immutable CapacityMatrix snapshots on the EDT.
+ */
+public class CapacityEngine {
+    
+    /**
+     * Receives a new snapshot after every build or change, on the EDT
+     */
+    public interface Listener {
+        void onCapacityChanged(CapacityMatrix matrix);
+    }
+    
+    private static final byte CANCELLED = CompactAppointmentStore.statusCode("Cancelled");
+    private static final long RETRY_SECONDS = 10;
+    
+    private final int dayCount;
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ChangeFeed.Listener appointmentListener = this::onAppointmentChanges;
+    private final ChangeFeed.Listener doctorListener = events -> submit(this::rebuild);
+    private ScheduledExecutorService worker;
+    private volatile CapacityMatrix matrix;
+    
+    // Only touched on the worker thread
+    private LocalDate firstDay;
+    private boolean retryPending;
+    private List<DoctorSummary> doctors;
+    private DoctorSchedule[] schedules;
+    private final Map<Integer, Integer> rowByDoctor = new HashMap<>();
+    // Bookings overlapping each slot: [doctor row][day][slot]
+    private int[][][] booked;
+    private int[][] freeSlots;
+    private int[][] totalSlots;
+    // Appointment id -> {row, day, first slot, end slot} for bookings inside the window
+    private final Map<Integer, int[]> bookings = new HashMap<>();
+    
+    /**
+     * @param dayCount days covered, starting today
+     */
+    public CapacityEngine(int dayCount) {
+        this.dayCount = dayCount;
+    }
+    
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Latest snapshot, or null before the first build finishes
+     */
+    public CapacityMatrix getMatrix() {
+        return matrix;
+    }
+    
+    /**
+     * Build in the background and start following the change feed
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "capacity-engine");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.addListener("appointments", appointmentListener);
+        feed.addListener("doctors", doctorListener);
+        worker.execute(this::rebuild);
+    }
+    
+    public synchronized void stop() {
+        if (worker == null) {
+            return;
+        }
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.removeListener("appointments", appointmentListener);
+        feed.removeListener("doctors", doctorListener);
+        worker.shutdownNow();
+        worker = null;
+    }
+    
+    /**
+     * Rebuild from scratch, e.g. after a long idle period
+     */
+    public void refresh() {
+        submit(this::rebuild);
+    }
+    
+    private synchronized void submit(Runnable task) {
+        if (worker != null) {
+            worker.execute(task);
+        }
+    }
+    
+    /**
+     * Try a full build again shortly; called on the worker after a failed read
+     */
+    private synchronized void retryRebuild() {
+        if (worker != null && !retryPending) {
+            retryPending = true;
+            worker.schedule(this::rebuild, RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+    
+    private void rebuild() {
+        retryPending = false;
+        LocalDate today = LocalDate.now();
+        List<DoctorSummary> loadedDoctors;
+        CompactAppointmentStore store;
+        // Read on a pooled connection: the shared one belongs to the EDT
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            loadedDoctors = doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>()
+                    .sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC));
+            store = appointmentDAO.loadCompactAppointments(new Criteria<AppointmentDAO.Field>()
+                    .between(AppointmentDAO.Field.DATE, today, today.plusDays(dayCount - 1)));
+            unitOfWork.commit();
+        } catch (SQLException e) {
+            // Keep the last snapshot rather than publish an empty one
+            e.printStackTrace();
+            retryRebuild();
+            return;
+        }
+        
+        firstDay = today;
+        doctors = loadedDoctors;
+        int doctorCount = doctors.size();
+        schedules = new DoctorSchedule[doctorCount];
+        rowByDoctor.clear();
+        for (int row = 0; row < doctorCount; row++) {
+            schedules[row] = DoctorSchedule.of(doctors.get(row));
+            rowByDoctor.put(doctors.get(row).getDoctorId(), row);
+        }
+        
+        // Bucket store rows by doctor so each doctor's row can be filled independently
+        int[] perDoctor = new int[doctorCount + 1];
+        int[] doctorRowOf = new int[store.size()];
+        for (int i = 0; i < store.size(); i++) {
+            Integer row = rowByDoctor.get(store.getDoctorId(i));
+            doctorRowOf[i] = row != null ? row : -1;
+            if (row != null) {
+                perDoctor[row + 1]++;
+            }
+        }
+        for (int row = 0; row < doctorCount; row++) {
+            perDoctor[row + 1] += perDoctor[row];
+        }
+        int[] byDoctor = new int[perDoctor[doctorCount]];
+        int[] fill = perDoctor.clone();
+        for (int i = 0; i < store.size(); i++) {
+            if (doctorRowOf[i] >= 0) {
+                byDoctor[fill[doctorRowOf[i]]++] = i;
+            }
+        }
+        
+        booked = new int[doctorCount][dayCount][];
+        freeSlots = new int[doctorCount][dayCount];
+        totalSlots = new int[doctorCount][dayCount];
+        int[][] spans = new int[store.size()][];
+        IntStream.range(0, doctorCount).parallel().forEach(row -> {
+            for (int day = 0; day < dayCount; day++) {
+                booked[row][day] = new int[schedules[row].slotCount(firstDay.plusDays(day))];
+            }
+            for (int k = perDoctor[row]; k < perDoctor[row + 1]; k++) {
+                int i = byDoctor[k];
+                if (store.getStatusCode(i) != CANCELLED) {
+                    spans[i] = spanOf(row, store.getEpochDay(i), store.getSecondOfDay(i), store.getDurationMinutes(i));
+                    mark(spans[i], 1);
+                }
+            }
+            for (int day = 0; day < dayCount; day++) {
+                recount(row, day);
+            }
+        });
+        
+        bookings.clear();
+        for (int i = 0; i < store.size(); i++) {
+            if (spans[i] != null) {
+                bookings.put(store.getAppointmentId(i), spans[i]);
+            }
+        }
+        
+        publish();
+    }
+    
+    private void onAppointmentChanges(List<ChangeEvent> events) {
+        Set<Integer> removed = new HashSet<>();
+        Set<Integer> changed = new HashSet<>();
+        for (ChangeEvent event : events) {
+            if (event.isDelete() || event.isArchive()) {
+                removed.add(event.getRecordId());
+                changed.remove(event.getRecordId());
+            } else {
+                changed.add(event.getRecordId());
+            }
+        }
+        submit(() -> applyChanges(removed, changed));
+    }
+    
+    private void applyChanges(Set<Integer> removed, Set<Integer> changed) {
+        if (doctors == null || !firstDay.equals(LocalDate.now())) {
+            // The window moved on overnight
+            rebuild();
+            return;
+        }
+        
+        Set<Long> touched = new HashSet<>();
+        for (int id : removed) {
+            unbook(id, touched);
+        }
+        if (!changed.isEmpty()) {
+            CompactAppointmentStore store;
+            try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+                store = appointmentDAO.loadCompactAppointments(new Criteria<AppointmentDAO.Field>()
+                        .in(AppointmentDAO.Field.ID, changed));
+                unitOfWork.commit();
+            } catch (SQLException e) {
+                // The removals above are already applied; a full rebuild puts the rest right
+                e.printStackTrace();
+                doctors = null;
+                retryRebuild();
+                return;
+            }
+            for (int id : changed) {
+                unbook(id, touched);
+            }
+            for (int i = 0; i < store.size(); i++) {
+                Integer row = rowByDoctor.get(store.getDoctorId(i));
+                if (row == null || store.getStatusCode(i) == CANCELLED) {
+                    continue;
+                }
+                int[] span = spanOf(row, store.getEpochDay(i), store.getSecondOfDay(i), store.getDurationMinutes(i));
+                if (span != null) {
+                    bookings.put(store.getAppointmentId(i), span);
+                    mark(span, 1);
+                    touched.add(cellKey(span[0], span[1]));
+                }
+            }
+        }
+        
+        if (touched.isEmpty()) {
+            return;
+        }
+        for (long key : touched) {
+            recount((int) (key >>> 32), (int) key);
+        }
+        publish();
+    }
+    
+    private void unbook(int appointmentId, Set<Long> touched) {
+        int[] span = bookings.remove(appointmentId);
+        if (span != null) {
+            mark(span, -1);
+            touched.add(cellKey(span[0], span[1]));
+        }
+    }
+    
+    /**
+     * {row, day, first slot, end slot} for every slot that
+     * [start, start + durationMinutes) overlaps, or null if the booking falls
+     * outside the window or the doctor's working hours. A booking that only
+     * starts or ends inside a slot still takes it.
+     */
+    private int[] spanOf(int row, int epochDay, int secondOfDay, int durationMinutes) {
+        int day = (int) (epochDay - firstDay.toEpochDay());
+        if (day < 0 || day >= dayCount) {
+            return null;
+        }
+        int slotCount = booked[row][day].length;
+        if (slotCount == 0) {
+            return null;
+        }
+        int slotSeconds = DoctorSchedule.SLOT_MINUTES * 60;
+        int offset = secondOfDay - schedules[row].getStart().toSecondOfDay();
+        int first = Math.max(Math.floorDiv(offset, slotSeconds), 0);
+        int end = Math.min(Math.floorDiv(offset + durationMinutes * 60 + slotSeconds - 1, slotSeconds), slotCount);
+        if (first >= end) {
+            return null;
+        }
+        return new int[] {row, day, first, end};
+    }
+    
+    private void mark(int[] span, int delta) {
+        if (span == null) {
+            return;
+        }
+        int[] slots = booked[span[0]][span[1]];
+        for (int slot = span[2]; slot < span[3]; slot++) {
+            slots[slot] += delta;
+        }
+    }
+    
+    private void recount(int row, int day) {
+        int[] slots = booked[row][day];
+        int free = 0;
+        for (int count : slots) {
+            if (count == 0) {
+                free++;
+            }
+        }
+        freeSlots[row][day] = free;
+        totalSlots[row][day] = slots.length;
+    }
+    
+    private static long cellKey(int row, int day) {
+        return ((long) row << 32) | day;
+    }
+    
+    private void publish() {
+        int[][] free = new int[freeSlots.length][];
+        int[][] total = new int[totalSlots.length][];
+        for (int row = 0; row < freeSlots.length; row++) {
+            free[row] = freeSlots[row].clone();
+            total[row] = totalSlots[row].clone();
+        }
+        CapacityMatrix snapshot = new CapacityMatrix(doctors, firstDay, free, total);
+        matrix = snapshot;
+        SwingUtilities.invokeLater(() -> {
+            for (Listener listener : listeners) {
+                listener.onCapacityChanged(snapshot);
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.hospital.scheduling;
+
+import com.hospital.model.DoctorSummary;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable doctors x days snapshot of slot capacity, as published by
+ * CapacityEngine. Rows follow the doctor list, columns start at getFirstDay().
+ */
+public class CapacityMatrix {
+    private final List<DoctorSummary> doctors;
+    private final LocalDate firstDay;
+    private final int[][] freeSlots;
+    private final int[][] totalSlots;
+    
+    CapacityMatrix(List<DoctorSummary> doctors, LocalDate firstDay, int[][] freeSlots, int[][] totalSlots) {
+        this.doctors = Collections.unmodifiableList(doctors);
+        this.firstDay = firstDay;
+        this.freeSlots = freeSlots;
+        this.totalSlots = totalSlots;
+    }
+    
+    public List<DoctorSummary> getDoctors() { return doctors; }
+    
+    public int getDoctorCount() { return doctors.size(); }
+    
+    public DoctorSummary getDoctor(int row) { return doctors.get(row); }
+    
+    public LocalDate getFirstDay() { return firstDay; }
+    
+    public int getDayCount() { return freeSlots.length == 0 ? 0 : freeSlots[0].length; }
+    
+    public LocalDate getDate(int day) { return firstDay.plusDays(day); }
+    
+    /**
+     * Unbooked slots in the doctor's working window
+     */
+    public int getFreeSlots(int row, int day) { return freeSlots[row][day]; }
+    
+    /**
+     * Slots in the doctor's working window; 0 on days off
+     */
+    public int getTotalSlots(int row, int day) { return totalSlots[row][day]; }
+    
+    /**
+     * Free slots across all doctors on one day
+     */
+    public int getFreeSlotsOn(int day) {
+        int free = 0;
+        for (int[] row : freeSlots) {
+            free += row[day];
+        }
+        return free;
+    }
+}
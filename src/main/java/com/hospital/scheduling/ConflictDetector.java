@@ -0,0 +1,201 @@
+package com.hospital.scheduling;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.Criteria;
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.ChangeEvent;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory double-booking checks. Each doctor-day is loaded once into an
+ * IntervalTree of its active (not cancelled) appointments, in seconds of
+ * the day, and then kept in step with the database by following
+ * ChangeFeed: deleted and archived appointments are dropped, changed ones
+ * are re-read and moved. Appointments end by midnight, so each sits in
+ * the tree of its own day and a slot running past midnight is never
+ * free. Only recently used days are kept. The database
+ * check in AppointmentDAO.isDoctorAvailable stays the final word when
+ * saving.
+ */
+public class ConflictDetector {
+    private static final ConflictDetector INSTANCE = new ConflictDetector();
+    
+    // Doctor-days kept in memory
+    private static final int MAX_DAYS = 256;
+    
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final Map<Long, IntervalTree> days = new LinkedHashMap<Long, IntervalTree>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, IntervalTree> eldest) {
+            if (size() <= MAX_DAYS) {
+                return false;
+            }
+            eldest.getValue().forEachId(bookings::remove);
+            return true;
+        }
+    };
+    // Appointment id -> where it sits in days
+    private final Map<Integer, Booking> bookings = new HashMap<>();
+    private final ChangeFeed.Listener changeListener = this::onAppointmentChanges;
+    private boolean listening;
+    
+    private static final class Booking {
+        final long dayKey;
+        final int start;
+        final int end;
+        
+        Booking(long dayKey, int start, int end) {
+            this.dayKey = dayKey;
+            this.start = start;
+            this.end = end;
+        }
+    }
+    
+    private ConflictDetector() {}
+    
+    public static ConflictDetector getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Ids of the active appointments overlapping [time, time + durationMinutes)
+     * @param excludeAppointmentId appointment being edited, or 0
+     */
+    public synchronized List<Integer> findConflicts(int doctorId, LocalDate date, LocalTime time,
+                                                    int durationMinutes, int excludeAppointmentId) {
+        int start = time.toSecondOfDay();
+        List<Integer> conflicts = day(doctorId, date).findOverlaps(start, start + durationMinutes * 60);
+        conflicts.remove(Integer.valueOf(excludeAppointmentId));
+        return conflicts;
+    }
+    
+    public boolean isFree(int doctorId, LocalDate date, LocalTime time, int durationMinutes,
+                          int excludeAppointmentId) {
+        return Appointment.fitsInDay(time, durationMinutes)
+                && findConflicts(doctorId, date, time, durationMinutes, excludeAppointmentId).isEmpty();
+    }
+    
+    /**
+     * Earliest free stretch of durationMinutes that starts at or after from
+     * and ends by to (null means midnight)
+     * @param excludeAppointmentId appointment being edited, or 0
+     * @return the start time, or null if the doctor has no such gap
+     */
+    public synchronized LocalTime findGap(int doctorId, LocalDate date, LocalTime from, LocalTime to,
+                                          int durationMinutes, int excludeAppointmentId) {
+        IntervalTree tree = day(doctorId, date);
+        Booking excluded = bookings.get(excludeAppointmentId);
+        boolean sameDay = excluded != null && excluded.dayKey == dayKey(doctorId, date);
+        if (sameDay) {
+            tree.remove(excludeAppointmentId, excluded.start);
+        }
+        
+        int end = to != null ? to.toSecondOfDay() : 24 * 60 * 60;
+        int gap = tree.findGap(from.toSecondOfDay(), end, durationMinutes * 60);
+        
+        if (sameDay) {
+            tree.insert(excludeAppointmentId, excluded.start, excluded.end);
+        }
+        return gap < 0 || gap >= 24 * 60 * 60 ? null : LocalTime.ofSecondOfDay(gap);
+    }
+    
+    /**
+     * Drop everything loaded so far
+     */
+    public synchronized void clear() {
+        days.clear();
+        bookings.clear();
+    }
+    
+    private IntervalTree day(int doctorId, LocalDate date) {
+        long key = dayKey(doctorId, date);
+        IntervalTree tree = days.get(key);
+        if (tree != null) {
+            return tree;
+        }
+        if (!listening) {
+            ChangeFeed.getInstance().addListener("appointments", changeListener);
+            listening = true;
+        }
+        tree = new IntervalTree();
+        days.put(key, tree);
+        try {
+            for (AppointmentSummary appointment : appointmentDAO.getDoctorAgenda(doctorId, date, date)) {
+                add(appointment);
+            }
+        } catch (SQLException e) {
+            // Answer from what loaded but do not keep it; the save-time check still applies
+            e.printStackTrace();
+            days.remove(key);
+            tree.forEachId(bookings::remove);
+        }
+        return tree;
+    }
+    
+    private void add(AppointmentSummary appointment) {
+        if ("Cancelled".equals(appointment.getStatus()) || appointment.getDurationMinutes() <= 0) {
+            return;
+        }
+        long key = dayKey(appointment.getDoctorId(), appointment.getAppointmentDate());
+        IntervalTree tree = days.get(key);
+        if (tree == null) {
+            return;
+        }
+        int start = appointment.getAppointmentTime().toSecondOfDay();
+        int end = start + appointment.getDurationMinutes() * 60;
+        tree.insert(appointment.getAppointmentId(), start, end);
+        bookings.put(appointment.getAppointmentId(), new Booking(key, start, end));
+    }
+    
+    private void drop(int appointmentId) {
+        Booking booking = bookings.remove(appointmentId);
+        if (booking != null) {
+            IntervalTree tree = days.get(booking.dayKey);
+            if (tree != null) {
+                tree.remove(appointmentId, booking.start);
+            }
+        }
+    }
+    
+    private void onAppointmentChanges(List<ChangeEvent> events) {
+        Set<Integer> changed = new HashSet<>();
+        synchronized (this) {
+            for (ChangeEvent event : events) {
+                drop(event.getRecordId());
+                if (event.isDelete() || event.isArchive()) {
+                    changed.remove(event.getRecordId());
+                } else {
+                    changed.add(event.getRecordId());
+                }
+            }
+            if (changed.isEmpty() || days.isEmpty()) {
+                return;
+            }
+        }
+        
+        // Re-read outside the lock; the rows land only in days already loaded
+        List<AppointmentSummary> appointments = appointmentDAO.findAppointmentSummaries(new Criteria<AppointmentDAO.Field>()
+                .in(AppointmentDAO.Field.ID, changed));
+        synchronized (this) {
+            for (AppointmentSummary appointment : appointments) {
+                drop(appointment.getAppointmentId());
+                add(appointment);
+            }
+        }
+    }
+    
+    private static long dayKey(int doctorId, LocalDate date) {
+        return ((long) doctorId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+}
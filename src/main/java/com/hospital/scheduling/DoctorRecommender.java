@@ -0,0 +1,314 @@
+package com.hospital.scheduling;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.ChangeEvent;
+import com.hospital.model.DoctorSchedule;
+import com.hospital.model.DoctorSummary;
+import com.hospital.util.UnitOfWork;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggests doctors for a new booking. Keeps, for every doctor, an
+ * IntervalTree per day of the next HORIZON_DAYS and a counter of their
+ * active appointments in that horizon. Both are built with one query and
+ * then kept current from ChangeFeed on a background thread, so
+ * recommend() only walks memory: a handful of tree searches per doctor of
+ * the requested specialization.
+ */
+public class DoctorRecommender {
+    private static final DoctorRecommender INSTANCE = new DoctorRecommender();
+    
+    /**
+     * Days ahead, starting today, covered by slots and load counters
+     */
+    public static final int HORIZON_DAYS = 28;
+    
+    private static final int SLOT_SECONDS = DoctorSchedule.SLOT_MINUTES * 60;
+    private static final long RETRY_SECONDS = 10;
+    
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final ChangeFeed.Listener appointmentListener = this::onAppointmentChanges;
+    private final ChangeFeed.Listener doctorListener = events -> submit(this::rebuild);
+    private ScheduledExecutorService worker;
+    
+    // Guarded by this; replaced wholesale by rebuild()
+    private LocalDate firstDay;
+    private boolean retryPending;
+    private final Map<Integer, DoctorEntry> doctors = new HashMap<>();
+    private final Map<String, List<DoctorEntry>> bySpecialization = new HashMap<>();
+    private final Map<Integer, Booking> bookings = new HashMap<>();
+    
+    private static final class DoctorEntry {
+        final DoctorSummary doctor;
+        final DoctorSchedule schedule;
+        final IntervalTree[] days = new IntervalTree[HORIZON_DAYS];
+        int load;
+        
+        DoctorEntry(DoctorSummary doctor) {
+            this.doctor = doctor;
+            this.schedule = DoctorSchedule.of(doctor);
+            for (int day = 0; day < HORIZON_DAYS; day++) {
+                days[day] = new IntervalTree();
+            }
+        }
+    }
+    
+    private static final class Booking {
+        final DoctorEntry entry;
+        final int day;
+        final int start;
+        
+        Booking(DoctorEntry entry, int day, int start) {
+            this.entry = entry;
+            this.day = day;
+            this.start = start;
+        }
+    }
+    
+    private DoctorRecommender() {}
+    
+    public static DoctorRecommender getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Build in the background and start following the change feed
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "doctor-recommender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.addListener("appointments", appointmentListener);
+        feed.addListener("doctors", doctorListener);
+        worker.execute(this::rebuild);
+    }
+    
+    public synchronized void stop() {
+        if (worker == null) {
+            return;
+        }
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.removeListener("appointments", appointmentListener);
+        feed.removeListener("doctors", doctorListener);
+        worker.shutdownNow();
+        worker = null;
+    }
+    
+    /**
+     * True once the first build has finished
+     */
+    public synchronized boolean isReady() {
+        return firstDay != null;
+    }
+    
+    /**
+     * Doctors of the specialization (any, if null) with room for
+     * durationMinutes between fromTime and toTime on some day from fromDate
+     * to toDate, within their working hours. Earlier days come first; on
+     * the same day the doctor with fewer upcoming appointments comes first,
+     * then the earlier slot.
+     */
+    public synchronized List<Recommendation> recommend(String specialization, LocalDate fromDate, LocalDate toDate,
+                                                       LocalTime fromTime, LocalTime toTime, int durationMinutes) {
+        if (firstDay == null) {
+            return Collections.emptyList();
+        }
+        Iterable<DoctorEntry> candidates = specialization == null ? doctors.values()
+                : bySpecialization.getOrDefault(key(specialization), Collections.emptyList());
+        LocalDateTime now = LocalDateTime.now();
+        int firstIndex = (int) Math.max(0, fromDate.toEpochDay() - firstDay.toEpochDay());
+        int lastIndex = (int) Math.min(HORIZON_DAYS - 1, toDate.toEpochDay() - firstDay.toEpochDay());
+        
+        List<Recommendation> recommendations = new ArrayList<>();
+        for (DoctorEntry entry : candidates) {
+            for (int day = firstIndex; day <= lastIndex; day++) {
+                LocalDate date = firstDay.plusDays(day);
+                if (!entry.schedule.worksOn(date)) {
+                    continue;
+                }
+                int open = Math.max(fromTime.toSecondOfDay(), entry.schedule.getStart().toSecondOfDay());
+                if (date.equals(now.toLocalDate())) {
+                    // Round up to the next slot of the doctor's grid
+                    int start = entry.schedule.getStart().toSecondOfDay();
+                    int elapsed = now.toLocalTime().toSecondOfDay() - start;
+                    open = Math.max(open, start + Math.floorDiv(elapsed + SLOT_SECONDS - 1, SLOT_SECONDS) * SLOT_SECONDS);
+                }
+                int close = entry.schedule.getEnd().toSecondOfDay();
+                if (toTime != null) {
+                    close = Math.min(close, toTime.toSecondOfDay());
+                }
+                int slot = entry.days[day].findGap(open, close, durationMinutes * 60);
+                if (slot >= 0) {
+                    recommendations.add(new Recommendation(entry.doctor, date, LocalTime.ofSecondOfDay(slot), entry.load));
+                    break;
+                }
+            }
+        }
+        recommendations.sort(Comparator.comparing(Recommendation::getDate)
+                .thenComparingInt(Recommendation::getLoad)
+                .thenComparing(Recommendation::getTime));
+        return recommendations;
+    }
+    
+    /**
+     * Active appointments the doctor has in the horizon, or 0 if unknown
+     */
+    public synchronized int getLoad(int doctorId) {
+        DoctorEntry entry = doctors.get(doctorId);
+        return entry != null ? entry.load : 0;
+    }
+    
+    private synchronized void submit(Runnable task) {
+        if (worker != null) {
+            worker.execute(task);
+        }
+    }
+    
+    /**
+     * Try a full build again shortly, keeping the current index until then
+     */
+    private synchronized void retryRebuild() {
+        if (worker != null && !retryPending) {
+            retryPending = true;
+            worker.schedule(this::rebuild, RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+    
+    private void rebuild() {
+        synchronized (this) {
+            retryPending = false;
+        }
+        LocalDate today = LocalDate.now();
+        List<DoctorSummary> doctorList;
+        List<AppointmentSummary> appointments;
+        // Read on a pooled connection: the shared one belongs to the EDT
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            doctorList = doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>());
+            appointments = appointmentDAO.findAppointmentSummaries(new Criteria<AppointmentDAO.Field>()
+                    .between(AppointmentDAO.Field.DATE, today, today.plusDays(HORIZON_DAYS - 1)));
+            unitOfWork.commit();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            retryRebuild();
+            return;
+        }
+        
+        synchronized (this) {
+            firstDay = today;
+            doctors.clear();
+            bySpecialization.clear();
+            bookings.clear();
+            for (DoctorSummary doctor : doctorList) {
+                DoctorEntry entry = new DoctorEntry(doctor);
+                doctors.put(doctor.getDoctorId(), entry);
+                bySpecialization.computeIfAbsent(key(doctor.getSpecialization()), k -> new ArrayList<>()).add(entry);
+            }
+            for (AppointmentSummary appointment : appointments) {
+                book(appointment);
+            }
+        }
+    }
+    
+    private void onAppointmentChanges(List<ChangeEvent> events) {
+        Set<Integer> removed = new HashSet<>();
+        Set<Integer> changed = new HashSet<>();
+        for (ChangeEvent event : events) {
+            if (event.isDelete() || event.isArchive()) {
+                removed.add(event.getRecordId());
+                changed.remove(event.getRecordId());
+            } else {
+                changed.add(event.getRecordId());
+            }
+        }
+        submit(() -> applyChanges(removed, changed));
+    }
+    
+    private void applyChanges(Set<Integer> removed, Set<Integer> changed) {
+        synchronized (this) {
+            if (firstDay == null || !firstDay.equals(LocalDate.now())) {
+                // The horizon moved on overnight
+                submit(this::rebuild);
+                return;
+            }
+            for (int id : removed) {
+                unbook(id);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        
+        List<AppointmentSummary> appointments;
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            appointments = appointmentDAO.findAppointmentSummaries(new Criteria<AppointmentDAO.Field>()
+                    .in(AppointmentDAO.Field.ID, changed));
+            unitOfWork.commit();
+        } catch (SQLException e) {
+            // The changed bookings are unknown now; a full build puts them right
+            e.printStackTrace();
+            retryRebuild();
+            return;
+        }
+        synchronized (this) {
+            for (int id : changed) {
+                unbook(id);
+            }
+            for (AppointmentSummary appointment : appointments) {
+                book(appointment);
+            }
+        }
+    }
+    
+    private void book(AppointmentSummary appointment) {
+        DoctorEntry entry = doctors.get(appointment.getDoctorId());
+        int day = (int) (appointment.getAppointmentDate().toEpochDay() - firstDay.toEpochDay());
+        if (entry == null || day < 0 || day >= HORIZON_DAYS || "Cancelled".equals(appointment.getStatus())
+                || appointment.getDurationMinutes() <= 0) {
+            return;
+        }
+        int start = appointment.getAppointmentTime().toSecondOfDay();
+        entry.days[day].insert(appointment.getAppointmentId(), start, start + appointment.getDurationMinutes() * 60);
+        entry.load++;
+        bookings.put(appointment.getAppointmentId(), new Booking(entry, day, start));
+    }
+    
+    private void unbook(int appointmentId) {
+        Booking booking = bookings.remove(appointmentId);
+        if (booking != null) {
+            booking.entry.days[booking.day].remove(appointmentId, booking.start);
+            booking.entry.load--;
+        }
+    }
+    
+    private static String key(String specialization) {
+        return specialization == null ? "" : specialization.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,49 @@
+package com.hospital.scheduling;
+
+import com.hospital.model.Reminder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * Appends reminders to a text file, one tab-separated line each, instead
+ * of sending them. Useful for testing and as a hand-off to other tools.
+ */
+public class FileReminderSender implements ReminderSender {
+    private final Path file;
+    private BufferedWriter writer;
+    
+    public FileReminderSender(Path file) {
+        this.file = file;
+    }
+    
+    @Override
+    public synchronized void send(Reminder reminder) throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        writer.write(LocalDateTime.now() + "\t" + reminder.getAppointmentId() + "\t" +
+                     (reminder.getRecipient() != null ? reminder.getRecipient() : "") + "\t" + reminder.getMessage());
+        writer.newLine();
+    }
+    
+    @Override
+    public synchronized void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+    
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
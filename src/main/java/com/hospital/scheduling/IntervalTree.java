@@ -0,0 +1,249 @@
+package com.hospital.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Half-open integer intervals [start, end), each tagged with an id, kept in
+ * a treap ordered by (start, id). Every node also tracks its subtree's
+ * earliest start, latest end and widest free stretch, which lets overlap
+ * and gap queries skip whole subtrees: both run in O(log n) expected time
+ * (plus the number of overlaps reported) when the intervals do not
+ * overlap each other, which is the normal state of a booked day.
+ * Not thread-safe.
+ */
+public class IntervalTree {
+    
+    private static final class Node {
+        final int id;
+        final int start;
+        final int end;
+        final int priority;
+        Node left, right;
+        int minStart, maxEnd;
+        // Widest uncovered stretch between minStart and maxEnd; exact while
+        // intervals are disjoint, otherwise an upper bound
+        int maxGap;
+        
+        Node(int id, int start, int end, int priority) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            update();
+        }
+        
+        void update() {
+            minStart = left != null ? left.minStart : start;
+            int coveredTo = left != null ? Math.max(left.maxEnd, end) : end;
+            maxEnd = right != null ? Math.max(coveredTo, right.maxEnd) : coveredTo;
+            maxGap = 0;
+            if (left != null) {
+                maxGap = Math.max(left.maxGap, start - left.maxEnd);
+            }
+            if (right != null) {
+                maxGap = Math.max(maxGap, Math.max(right.maxGap, right.minStart - coveredTo));
+            }
+        }
+    }
+    
+    private final Random random = new Random();
+    private Node root;
+    private int size;
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Add [start, end); the caller keeps ids unique
+     */
+    public void insert(int id, int start, int end) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Empty interval [" + start + ", " + end + ")");
+        }
+        Node[] parts = split(root, start, id);
+        root = merge(merge(parts[0], new Node(id, start, end, random.nextInt())), parts[1]);
+        size++;
+    }
+    
+    /**
+     * Remove the interval with this id and start
+     * @return false if it was not in the tree
+     */
+    public boolean remove(int id, int start) {
+        int before = size;
+        root = remove(root, id, start);
+        return size < before;
+    }
+    
+    private Node remove(Node node, int id, int start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp == 0) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, id, start);
+        } else {
+            node.right = remove(node.right, id, start);
+        }
+        node.update();
+        return node;
+    }
+    
+    /**
+     * True if any interval other than excludeId overlaps [start, end)
+     */
+    public boolean overlaps(int start, int end, int excludeId) {
+        for (int id : findOverlaps(start, end)) {
+            if (id != excludeId) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Ids of the intervals overlapping [start, end), in start order
+     */
+    public List<Integer> findOverlaps(int start, int end) {
+        List<Integer> ids = new ArrayList<>();
+        collectOverlaps(root, start, end, ids);
+        return ids;
+    }
+    
+    private void collectOverlaps(Node node, int start, int end, List<Integer> ids) {
+        // Nothing below ends after start, or everything below starts at or after end
+        if (node == null || node.maxEnd <= start || node.minStart >= end) {
+            return;
+        }
+        collectOverlaps(node.left, start, end, ids);
+        if (node.start < end && node.end > start) {
+            ids.add(node.id);
+        }
+        if (node.start < end) {
+            collectOverlaps(node.right, start, end, ids);
+        }
+    }
+    
+    /**
+     * Earliest start s with from <= s and s + length <= to such that
+     * [s, s + length) overlaps no interval
+     * @return the start, or -1 if there is no such gap
+     */
+    public int findGap(int from, int to, int length) {
+        int[] cursor = {from};
+        if (findGap(root, cursor, length, to)) {
+            return cursor[0];
+        }
+        return cursor[0] + length <= to ? cursor[0] : -1;
+    }
+    
+    /**
+     * In-order walk that moves cursor past every interval it meets
+     * @return true once a gap of length is found at cursor
+     */
+    private boolean findGap(Node node, int[] cursor, int length, int to) {
+        if (node == null || node.maxEnd <= cursor[0]) {
+            return false;
+        }
+        if (cursor[0] + length > to) {
+            // Stop walking; the caller's final check fails too
+            return false;
+        }
+        if (node.minStart - cursor[0] >= length) {
+            return true;
+        }
+        if (node.maxGap < length) {
+            // No gap inside this subtree is wide enough
+            cursor[0] = Math.max(cursor[0], node.maxEnd);
+            return false;
+        }
+        if (findGap(node.left, cursor, length, to)) {
+            return true;
+        }
+        if (cursor[0] + length > to) {
+            return false;
+        }
+        if (node.start - cursor[0] >= length) {
+            return true;
+        }
+        cursor[0] = Math.max(cursor[0], node.end);
+        return findGap(node.right, cursor, length, to);
+    }
+    
+    /**
+     * Visit every id in start order
+     */
+    public void forEachId(IntConsumer action) {
+        forEachId(root, action);
+    }
+    
+    private void forEachId(Node node, IntConsumer action) {
+        if (node != null) {
+            forEachId(node.left, action);
+            action.accept(node.id);
+            forEachId(node.right, action);
+        }
+    }
+    
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+    
+    private static int compare(int start, int id, Node node) {
+        if (start != node.start) {
+            return Integer.compare(start, node.start);
+        }
+        return Integer.compare(id, node.id);
+    }
+    
+    /**
+     * Split into keys before (start, id) and keys at or after it
+     */
+    private static Node[] split(Node node, int start, int id) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(start, id, node) <= 0) {
+            Node[] parts = split(node.left, start, id);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+            return parts;
+        }
+        Node[] parts = split(node.right, start, id);
+        node.right = parts[0];
+        node.update();
+        parts[0] = node;
+        return parts;
+    }
+    
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+}
@@ -0,0 +1,40 @@
+package com.hospital.scheduling;
+
+import com.hospital.model.DoctorSummary;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A doctor suggested by DoctorRecommender: their earliest free slot in the
+ * requested window and how many appointments they already have coming up
+ */
+public class Recommendation {
+    private final DoctorSummary doctor;
+    private final LocalDate date;
+    private final LocalTime time;
+    private final int load;
+    
+    Recommendation(DoctorSummary doctor, LocalDate date, LocalTime time, int load) {
+        this.doctor = doctor;
+        this.date = date;
+        this.time = time;
+        this.load = load;
+    }
+    
+    public DoctorSummary getDoctor() { return doctor; }
+    
+    public LocalDate getDate() { return date; }
+    
+    public LocalTime getTime() { return time; }
+    
+    /**
+     * Active appointments in the recommender's horizon
+     */
+    public int getLoad() { return load; }
+    
+    @Override
+    public String toString() {
+        return "Dr. " + doctor.getName() + " - " + date + " " + time + " (" + load + " booked)";
+    }
+}
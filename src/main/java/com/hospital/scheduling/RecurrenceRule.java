@@ -0,0 +1,60 @@
+package com.hospital.scheduling;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * When a recurring series repeats: a first date, a fixed number of days
+ * between occurrences, and a number of occurrences.
+ */
+public class RecurrenceRule {
+    
+    /**
+     * Longest series accepted, two years of weekly visits
+     */
+    public static final int MAX_OCCURRENCES = 104;
+    
+    private final LocalDate firstDate;
+    private final int intervalDays;
+    private final int occurrences;
+    
+    public RecurrenceRule(LocalDate firstDate, int intervalDays, int occurrences) {
+        if (intervalDays < 1) {
+            throw new IllegalArgumentException("Interval must be at least one day");
+        }
+        if (occurrences < 1 || occurrences > MAX_OCCURRENCES) {
+            throw new IllegalArgumentException("Occurrences must be between 1 and " + MAX_OCCURRENCES);
+        }
+        this.firstDate = firstDate;
+        this.intervalDays = intervalDays;
+        this.occurrences = occurrences;
+    }
+    
+    public static RecurrenceRule weekly(LocalDate firstDate, int everyWeeks, int occurrences) {
+        return new RecurrenceRule(firstDate, everyWeeks * 7, occurrences);
+    }
+    
+    public LocalDate getFirstDate() { return firstDate; }
+    
+    public int getIntervalDays() { return intervalDays; }
+    
+    public int getOccurrences() { return occurrences; }
+    
+    /**
+     * Every occurrence date, in order
+     */
+    public List<LocalDate> dates() {
+        List<LocalDate> dates = new ArrayList<>(occurrences);
+        for (int i = 0; i < occurrences; i++) {
+            dates.add(firstDate.plusDays((long) i * intervalDays));
+        }
+        return dates;
+    }
+    
+    @Override
+    public String toString() {
+        String every = intervalDays % 7 == 0 ? intervalDays / 7 + " week(s)" : intervalDays + " day(s)";
+        return occurrences + " x every " + every + " from " + firstDate;
+    }
+}
@@ -0,0 +1,318 @@
+package com.hospital.scheduling;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.ReminderOutboxDAO;
+import com.hospital.model.ChangeEvent;
+import com.hospital.model.CompactAppointmentStore;
+import com.hospital.model.Reminder;
+import com.hospital.util.UnitOfWork;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a reminder LEAD before every scheduled appointment without scanning
+ * the appointments table. Upcoming reminder times sit in a sorted queue in
+ * memory, loaded a day at a time with one range query per day of
+ * appointments, and kept current from ChangeFeed. The worker sleeps until
+ * the earliest reminder is due, writes everything due to the reminder
+ * outbox as one batch, then hands the outbox to the ReminderSender in
+ * batches. Cancelled or moved appointments are not removed from the queue;
+ * their reminders are dropped when the outbox insert finds the appointment
+ * no longer matches.
+ */
+public class ReminderScheduler {
+    private static final ReminderScheduler INSTANCE = new ReminderScheduler();
+    
+    /**
+     * How long before the appointment the reminder goes out
+     */
+    public static final Duration LEAD = Duration.ofHours(24);
+    
+    private static final long LEAD_MINUTES = LEAD.toMinutes();
+    // Days of appointments loaded beyond the ones whose reminders are due within LEAD
+    private static final int LOAD_AHEAD_DAYS = 1;
+    // Outbox rows handed to the sender per transaction
+    private static final int SEND_BATCH = 200;
+    private static final int MAX_ATTEMPTS = 5;
+    // Retry failed sends and pick up rows left by other instances
+    private static final long RETRY_MINUTES = 5;
+    
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final ReminderOutboxDAO outboxDAO = new ReminderOutboxDAO();
+    private final ChangeFeed.Listener appointmentListener = this::onAppointmentChanges;
+    private volatile ReminderSender sender = new FileReminderSender(
+            Paths.get(System.getProperty("hospital.reminders.file", "reminders.log")));
+    private ScheduledExecutorService worker;
+    
+    // Only touched on the worker thread
+    // Queued reminders as (local epoch minute << 32 | appointment id), earliest first
+    private final TreeSet<Long> queue = new TreeSet<>();
+    // Appointments dated before this day are in the queue
+    private LocalDate loadedTo;
+    private ScheduledFuture<?> wakeUp;
+    // Changed appointments whose reminders are still to be read
+    private final Set<Integer> changedIds = new HashSet<>();
+    private boolean changeRetryPending;
+    
+    private ReminderScheduler() {}
+    
+    public static ReminderScheduler getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Replace the sender, e.g. with an SMS gateway; the default writes to
+     * the file named by the hospital.reminders.file system property
+     */
+    public void setSender(ReminderSender sender) {
+        this.sender = sender;
+    }
+    
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reminder-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        ChangeFeed.getInstance().addListener("appointments", appointmentListener);
+        worker.execute(() -> {
+            queue.clear();
+            changedIds.clear();
+            changeRetryPending = false;
+            loadedTo = LocalDate.now();
+            tick();
+        });
+        worker.scheduleWithFixedDelay(this::dispatch, RETRY_MINUTES, RETRY_MINUTES, TimeUnit.MINUTES);
+    }
+    
+    public synchronized void stop() {
+        if (worker == null) {
+            return;
+        }
+        ChangeFeed.getInstance().removeListener("appointments", appointmentListener);
+        worker.shutdownNow();
+        worker = null;
+    }
+    
+    private synchronized void submit(Runnable task) {
+        if (worker != null) {
+            worker.execute(task);
+        }
+    }
+    
+    /**
+     * Load any newly needed days, move due reminders to the outbox and
+     * sleep until the next one
+     */
+    private void tick() {
+        boolean extended = extend();
+        
+        long now = minuteOf(LocalDateTime.now());
+        List<Long> dueKeys = new ArrayList<>();
+        while (!queue.isEmpty() && queue.first() >>> 32 <= now) {
+            dueKeys.add(queue.pollFirst());
+        }
+        if (!dueKeys.isEmpty()) {
+            List<Reminder> due = new ArrayList<>(dueKeys.size());
+            for (long key : dueKeys) {
+                due.add(new Reminder((int) key, dateTimeOf(key >>> 32)));
+            }
+            if (outboxDAO.enqueue(due, LEAD) < 0) {
+                // Keep them queued and back off instead of retrying at once
+                queue.addAll(dueKeys);
+                scheduleWakeUp(RETRY_MINUTES);
+                return;
+            }
+            dispatch();
+        }
+        
+        // A failed load is retried from the same day after a back-off
+        scheduleWakeUp(extended ? 1 : RETRY_MINUTES);
+    }
+    
+    /**
+     * Queue reminders for the days whose reminders can fall due before the
+     * next day's load, one range query for all of them
+     * @return false if the load failed; loadedTo is then left where it was
+     */
+    private boolean extend() {
+        LocalDate horizon = LocalDateTime.now().plus(LEAD).toLocalDate().plusDays(LOAD_AHEAD_DAYS);
+        if (loadedTo.isAfter(horizon)) {
+            return true;
+        }
+        CompactAppointmentStore store = load(new Criteria<AppointmentDAO.Field>()
+                .between(AppointmentDAO.Field.DATE, loadedTo, horizon)
+                .equalTo(AppointmentDAO.Field.STATUS, "Scheduled"));
+        if (store == null) {
+            return false;
+        }
+        loadedTo = horizon.plusDays(1);
+        add(store);
+        return true;
+    }
+    
+    /**
+     * Read appointments on a pooled connection; the shared one belongs to the EDT
+     * @return the appointments, or null if the read failed
+     */
+    private CompactAppointmentStore load(Criteria<AppointmentDAO.Field> criteria) {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            CompactAppointmentStore store = appointmentDAO.loadCompactAppointments(criteria);
+            unitOfWork.commit();
+            return store;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    private void add(CompactAppointmentStore store) {
+        long now = minuteOf(LocalDateTime.now());
+        long loadedToMinute = loadedTo.toEpochDay() * 24 * 60;
+        for (int i = 0; i < store.size(); i++) {
+            long appointmentMinute = (long) store.getEpochDay(i) * 24 * 60 + store.getSecondOfDay(i) / 60;
+            if (!"Scheduled".equals(store.getStatus(i)) || appointmentMinute <= now
+                    || appointmentMinute >= loadedToMinute) {
+                continue;
+            }
+            queue.add(((appointmentMinute - LEAD_MINUTES) << 32) | store.getAppointmentId(i));
+        }
+    }
+    
+    /**
+     * Wake for the next reminder, or to load the next day, whichever comes
+     * first, but no sooner than minDelayMinutes
+     */
+    private void scheduleWakeUp(long minDelayMinutes) {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        long now = minuteOf(LocalDateTime.now());
+        long next = loadedTo.toEpochDay() * 24 * 60 - LEAD_MINUTES - LOAD_AHEAD_DAYS * 24 * 60;
+        if (!queue.isEmpty()) {
+            next = Math.min(next, queue.first() >>> 32);
+        }
+        long delayMinutes = Math.max(next - now, minDelayMinutes);
+        synchronized (this) {
+            if (worker != null) {
+                wakeUp = worker.schedule(this::tick, delayMinutes, TimeUnit.MINUTES);
+            }
+        }
+    }
+    
+    private void onAppointmentChanges(List<ChangeEvent> events) {
+        Set<Integer> changed = new HashSet<>();
+        for (ChangeEvent event : events) {
+            if (event.isDelete() || event.isArchive()) {
+                changed.remove(event.getRecordId());
+            } else {
+                changed.add(event.getRecordId());
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        submit(() -> {
+            changedIds.addAll(changed);
+            loadChanged();
+        });
+    }
+    
+    /**
+     * Queue reminders for the changed appointments not read yet. After a
+     * failed read the ids are kept and tried again after a back-off.
+     */
+    private void loadChanged() {
+        if (loadedTo == null || changedIds.isEmpty()) {
+            return;
+        }
+        // Old reminders of moved appointments stay queued and drop out at the outbox
+        CompactAppointmentStore store = load(new Criteria<AppointmentDAO.Field>()
+                .in(AppointmentDAO.Field.ID, changedIds));
+        if (store == null) {
+            synchronized (this) {
+                if (worker != null && !changeRetryPending) {
+                    changeRetryPending = true;
+                    worker.schedule(() -> {
+                        changeRetryPending = false;
+                        loadChanged();
+                    }, RETRY_MINUTES, TimeUnit.MINUTES);
+                }
+            }
+            return;
+        }
+        changedIds.clear();
+        add(store);
+        // A booking made less than LEAD ahead is due at once
+        scheduleWakeUp(0);
+    }
+    
+    /**
+     * Hand pending outbox rows to the sender until the outbox is empty
+     */
+    private void dispatch() {
+        ReminderSender current = sender;
+        while (true) {
+            List<Reminder> sent = new ArrayList<>();
+            List<Reminder> failed = new ArrayList<>();
+            int[] claimed = {0};
+            boolean committed = UnitOfWork.run(unitOfWork -> {
+                List<Reminder> batch = outboxDAO.lockPending(SEND_BATCH);
+                claimed[0] = batch.size();
+                for (Reminder reminder : batch) {
+                    try {
+                        current.send(reminder);
+                        sent.add(reminder);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        failed.add(reminder);
+                    }
+                }
+                try {
+                    current.flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    failed.addAll(sent);
+                    sent.clear();
+                }
+                return outboxDAO.markSent(sent) && outboxDAO.markFailed(failed, MAX_ATTEMPTS);
+            });
+            if (!committed || !failed.isEmpty() || claimed[0] < SEND_BATCH) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Minutes since 1970-01-01 00:00 on the local wall clock, which is how
+     * appointment dates and times are stored
+     */
+    private static long minuteOf(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay() * 24 * 60 + dateTime.toLocalTime().toSecondOfDay() / 60;
+    }
+    
+    private static LocalDateTime dateTimeOf(long minute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(minute, 24 * 60)).atStartOfDay()
+                .plusMinutes(Math.floorMod(minute, 24 * 60));
+    }
+}
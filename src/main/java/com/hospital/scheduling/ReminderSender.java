@@ -0,0 +1,22 @@
+package com.hospital.scheduling;
+
+import com.hospital.model.Reminder;
+
+import java.io.IOException;
+
+/**
+ * Delivers reminders taken from the outbox, e.g. by SMS or e-mail.
+ * Delivery is at least once: a reminder whose batch fails is sent again.
+ */
+public interface ReminderSender {
+    
+    /**
+     * Deliver one reminder; throw to leave it in the outbox for another try
+     */
+    void send(Reminder reminder) throws IOException;
+    
+    /**
+     * Called after each batch, before the batch is marked as sent
+     */
+    default void flush() throws IOException {}
+}
@@ -0,0 +1,46 @@
+package com.hospital.scheduling;
+
+import com.hospital.model.Appointment;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of booking a recurring series: the appointments created and,
+ * by date, why each other occurrence was left out
+ */
+public class SeriesResult {
+    private final List<Appointment> booked = new ArrayList<>();
+    private final Map<LocalDate, String> skipped = new TreeMap<>();
+    private boolean failed;
+    
+    void addBooked(List<Appointment> appointments) {
+        booked.addAll(appointments);
+    }
+    
+    void skip(LocalDate date, String reason) {
+        skipped.put(date, reason);
+    }
+    
+    void setFailed() {
+        failed = true;
+    }
+    
+    public List<Appointment> getBooked() { return Collections.unmodifiableList(booked); }
+    
+    public Map<LocalDate, String> getSkipped() { return Collections.unmodifiableMap(skipped); }
+    
+    /**
+     * True if the transaction failed and nothing was booked
+     */
+    public boolean isFailed() { return failed; }
+    
+    @Override
+    public String toString() {
+        return booked.size() + " booked, " + skipped.size() + " skipped" + (failed ? " (failed)" : "");
+    }
+}
@@ -0,0 +1,67 @@
+package com.hospital.scheduling;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.model.Appointment;
+import com.hospital.model.Doctor;
+import com.hospital.model.DoctorSchedule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Books recurring series such as weekly dialysis or physiotherapy visits.
+ * The rule is expanded against the doctor's compiled working days and
+ * hours first; the remaining dates are checked for overlaps with one query
+ * and inserted in one batched transaction by AppointmentDAO.bookSeries.
+ */
+public class SeriesScheduler {
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    
+    /**
+     * Book the template's patient, doctor, time, duration and notes on every
+     * date of the rule that the doctor can take
+     */
+    public SeriesResult book(Appointment template, RecurrenceRule rule) {
+        SeriesResult result = new SeriesResult();
+        Doctor doctor = doctorDAO.getDoctorById(template.getDoctorId());
+        DoctorSchedule schedule = doctor != null ? DoctorSchedule.of(doctor) : null;
+        LocalTime start = template.getAppointmentTime();
+        int end = start.toSecondOfDay() + template.getDurationMinutes() * 60;
+        LocalDateTime now = LocalDateTime.now();
+        
+        List<LocalDate> candidates = new ArrayList<>();
+        for (LocalDate date : rule.dates()) {
+            if (date.atTime(start).isBefore(now)) {
+                result.skip(date, "In the past");
+            } else if (schedule == null || !schedule.worksOn(date)) {
+                result.skip(date, "Doctor does not work on " + date.getDayOfWeek());
+            } else if (start.isBefore(schedule.getStart()) || end > schedule.getEnd().toSecondOfDay()) {
+                result.skip(date, "Outside working hours " + schedule.getStart() + "-" + schedule.getEnd());
+            } else {
+                candidates.add(date);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return result;
+        }
+        
+        Set<LocalDate> conflicts = new HashSet<>();
+        List<Appointment> booked = appointmentDAO.bookSeries(template, candidates, conflicts);
+        if (booked == null) {
+            result.setFailed();
+            return result;
+        }
+        result.addBooked(booked);
+        for (LocalDate date : conflicts) {
+            result.skip(date, "Overlaps another appointment");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package com.hospital.scheduling;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the walk-in token queues, as published by
+ * TokenQueue. One line per doctor who has issued a token today.
+ */
+public class TokenBoard {
+    private final LocalDate date;
+    private final List<Line> lines;
+    
+    /**
+     * One doctor's queue
+     */
+    public static class Line {
+        private final int doctorId;
+        private final int serving;
+        private final String servingPatient;
+        private final int lastIssued;
+        private final List<Integer> upNext;
+        
+        Line(int doctorId, int serving, String servingPatient, int lastIssued, List<Integer> upNext) {
+            this.doctorId = doctorId;
+            this.serving = serving;
+            this.servingPatient = servingPatient;
+            this.lastIssued = lastIssued;
+            this.upNext = Collections.unmodifiableList(upNext);
+        }
+        
+        public int getDoctorId() { return doctorId; }
+        
+        /**
+         * Token being seen now, or 0
+         */
+        public int getServing() { return serving; }
+        
+        public String getServingPatient() { return servingPatient; }
+        
+        public int getLastIssued() { return lastIssued; }
+        
+        /**
+         * The next few tokens to be called, in order
+         */
+        public List<Integer> getUpNext() { return upNext; }
+        
+        public int getWaiting() { return upNext.isEmpty() ? 0 : lastIssued - upNext.get(0) + 1; }
+    }
+    
+    TokenBoard(LocalDate date, List<Line> lines) {
+        this.date = date;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+    
+    public LocalDate getDate() { return date; }
+    
+    public List<Line> getLines() { return lines; }
+    
+    public Line getLine(int doctorId) {
+        for (Line line : lines) {
+            if (line.getDoctorId() == doctorId) {
+                return line;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,325 @@
+package com.hospital.scheduling;
+
+import com.hospital.dao.TokenDAO;
+import com.hospital.model.TokenEvent;
+
+import javax.swing.SwingUtilities;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Walk-in (OPD) token queues, one per doctor per day. Tokens are numbered
+ * from 1 each day and called in number order. Issuing only touches atomics
+ * and concurrent maps; calling locks just the one doctor's line, so its
+ * DONE and CALLED events reach the journal in number order. Desks never
+ * wait on the database: every event is appended to an in-memory journal that
+ * one writer thread drains into opd_token_events in batches, taking
+ * whatever has piled up while the last batch was being written. start()
+ * replays today's journal, so the queues survive a restart.
+ * Listeners get TokenBoard snapshots on the EDT, at most one per EDT pass
+ * however many tokens move in between.
+ * The queues live in this process; run the token desk and the display
+ * board from the same instance.
+ */
+public class TokenQueue {
+    private static final TokenQueue INSTANCE = new TokenQueue();
+    
+    /**
+     * Receives a new snapshot after tokens are issued or called, on the EDT
+     */
+    public interface Listener {
+        void onBoardChanged(TokenBoard board);
+    }
+    
+    // Most events written per transaction
+    private static final int MAX_BATCH = 500;
+    // Wait before retrying a failed write
+    private static final long RETRY_MILLIS = 2000;
+    // Tokens listed as up next on the board
+    private static final int UP_NEXT = 5;
+    
+    private final TokenDAO tokenDAO = new TokenDAO();
+    private final AtomicReference<Day> day = new AtomicReference<>();
+    private final BlockingQueue<TokenEvent> journal = new LinkedBlockingQueue<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean publishPending = new AtomicBoolean();
+    private volatile TokenBoard board;
+    private Thread writer;
+    
+    private static final class Day {
+        final LocalDate date;
+        final Map<Integer, DoctorLine> lines = new ConcurrentHashMap<>();
+        
+        Day(LocalDate date) {
+            this.date = date;
+        }
+        
+        DoctorLine line(int doctorId) {
+            return lines.computeIfAbsent(doctorId, id -> new DoctorLine());
+        }
+    }
+    
+    private static final class DoctorLine {
+        final AtomicInteger lastIssued = new AtomicInteger();
+        // Highest token number called so far; calls and completions hold the line's lock
+        final AtomicInteger lastCalled = new AtomicInteger();
+        final Map<Integer, TokenEvent> tokens = new ConcurrentHashMap<>();
+        final AtomicReference<TokenEvent> serving = new AtomicReference<>();
+    }
+    
+    private TokenQueue() {}
+    
+    public static TokenQueue getInstance() {
+        return INSTANCE;
+    }
+    
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Latest snapshot, or null until today's journal has been replayed
+     */
+    public TokenBoard getBoard() {
+        return board;
+    }
+    
+    public boolean isReady() {
+        return day.get() != null;
+    }
+    
+    /**
+     * Replay today's journal and start writing new events, in the background
+     */
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(this::run, "token-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    /**
+     * Stop after writing out the events still in memory
+     */
+    public synchronized void stop() {
+        if (writer == null) {
+            return;
+        }
+        writer.interrupt();
+        try {
+            writer.join(RETRY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+    
+    /**
+     * Give the next token of the day for a doctor
+     * @return the issued token, or null while the queue is still loading
+     */
+    public TokenEvent issue(int doctorId, String patientName) {
+        Day today = today();
+        if (today == null) {
+            return null;
+        }
+        DoctorLine line = today.line(doctorId);
+        int number = line.lastIssued.incrementAndGet();
+        TokenEvent token = new TokenEvent(today.date, doctorId, number, TokenEvent.ISSUED, patientName,
+                                          LocalDateTime.now());
+        line.tokens.put(number, token);
+        journal.add(token);
+        changed();
+        return token;
+    }
+    
+    /**
+     * Finish the doctor's current token, if any, and call the next one
+     * @return the called token, or null if nobody is waiting
+     */
+    public TokenEvent callNext(int doctorId) {
+        Day today = today();
+        if (today == null) {
+            return null;
+        }
+        DoctorLine line = today.line(doctorId);
+        TokenEvent called;
+        synchronized (line) {
+            int number = line.lastCalled.get();
+            if (number >= line.lastIssued.get()) {
+                complete(line);
+                return null;
+            }
+            
+            // The issuer bumps the counter just before publishing the token
+            TokenEvent token;
+            while ((token = line.tokens.get(number + 1)) == null) {
+                Thread.onSpinWait();
+            }
+            called = token.next(TokenEvent.CALLED);
+            line.lastCalled.set(number + 1);
+            TokenEvent previous = line.serving.getAndSet(called);
+            if (previous != null) {
+                journal.add(previous.next(TokenEvent.DONE));
+            }
+            journal.add(called);
+        }
+        changed();
+        return called;
+    }
+    
+    /**
+     * Finish the doctor's current token without calling another
+     */
+    public void complete(int doctorId) {
+        Day today = today();
+        if (today != null) {
+            complete(today.line(doctorId));
+        }
+    }
+    
+    private void complete(DoctorLine line) {
+        TokenEvent previous;
+        synchronized (line) {
+            previous = line.serving.getAndSet(null);
+            if (previous != null) {
+                journal.add(previous.next(TokenEvent.DONE));
+            }
+        }
+        if (previous != null) {
+            changed();
+        }
+    }
+    
+    /**
+     * Current day, starting a fresh one after midnight
+     */
+    private Day today() {
+        Day current = day.get();
+        if (current == null) {
+            return null;
+        }
+        LocalDate date = LocalDate.now();
+        if (!current.date.equals(date)) {
+            day.compareAndSet(current, new Day(date));
+            current = day.get();
+        }
+        return current;
+    }
+    
+    private void run() {
+        Day replayed;
+        try {
+            replayed = replay(LocalDate.now());
+        } catch (InterruptedException e) {
+            return;
+        }
+        day.set(replayed);
+        changed();
+        
+        List<TokenEvent> batch = new ArrayList<>();
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(journal.take());
+                }
+                journal.drainTo(batch, MAX_BATCH - batch.size());
+                if (tokenDAO.appendEvents(batch)) {
+                    batch.clear();
+                } else {
+                    // Keep the batch and try again; the desks carry on meanwhile
+                    TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                journal.drainTo(batch);
+                if (!batch.isEmpty()) {
+                    tokenDAO.appendEvents(batch);
+                }
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Rebuild a day from its journal, retrying until the read succeeds; an
+     * empty day would hand out token numbers that were already issued
+     */
+    private Day replay(LocalDate date) throws InterruptedException {
+        List<TokenEvent> events;
+        while ((events = tokenDAO.getEvents(date)) == null) {
+            TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+        }
+        Day replayed = new Day(date);
+        for (TokenEvent event : events) {
+            DoctorLine line = replayed.line(event.getDoctorId());
+            int number = event.getTokenNumber();
+            if (TokenEvent.ISSUED.equals(event.getType())) {
+                line.tokens.put(number, event);
+                line.lastIssued.accumulateAndGet(number, Math::max);
+            } else if (TokenEvent.CALLED.equals(event.getType())) {
+                if (number < line.lastCalled.get()) {
+                    // A later token was already called, so this one is not being served
+                    continue;
+                }
+                line.lastCalled.set(number);
+                line.serving.set(event);
+            } else if (TokenEvent.DONE.equals(event.getType())) {
+                TokenEvent serving = line.serving.get();
+                if (serving != null && serving.getTokenNumber() == number) {
+                    line.serving.set(null);
+                }
+            }
+        }
+        return replayed;
+    }
+    
+    private void changed() {
+        if (publishPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::publish);
+        }
+    }
+    
+    private void publish() {
+        // Cleared first so a change made while the snapshot is taken schedules another
+        publishPending.set(false);
+        Day current = day.get();
+        if (current == null) {
+            return;
+        }
+        List<TokenBoard.Line> lines = new ArrayList<>();
+        for (Map.Entry<Integer, DoctorLine> entry : new TreeMap<>(current.lines).entrySet()) {
+            DoctorLine line = entry.getValue();
+            int lastIssued = line.lastIssued.get();
+            List<Integer> upNext = new ArrayList<>();
+            for (int number = line.lastCalled.get() + 1; number <= lastIssued && upNext.size() < UP_NEXT; number++) {
+                upNext.add(number);
+            }
+            TokenEvent serving = line.serving.get();
+            lines.add(new TokenBoard.Line(entry.getKey(), serving != null ? serving.getTokenNumber() : 0,
+                                          serving != null ? serving.getPatientName() : null, lastIssued, upNext));
+        }
+        TokenBoard snapshot = new TokenBoard(current.date, lines);
+        board = snapshot;
+        for (Listener listener : listeners) {
+            listener.onBoardChanged(snapshot);
+        }
+    }
+}
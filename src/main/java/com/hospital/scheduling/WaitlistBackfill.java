@@ -0,0 +1,160 @@
+package com.hospital.scheduling;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.dao.WaitlistDAO;
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.Doctor;
+import com.hospital.model.WaitlistEntry;
+import com.hospital.util.UnitOfWork;
+
+import javax.swing.SwingUtilities;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Offers freed slots to the waitlist. A cancelled or moved appointment is
+ * handed to one background thread, which fills the slot with
+ * WaitlistDAO.backfill: one short transaction per patient booked, so a
+ * desk never waits on it and a slot is dealt with within a few queries of
+ * being freed. A long slot can go to several shorter waiting visits in
+ * turn. Desks racing on the same queue are kept apart by the database
+ * locks, not by this class.
+ */
+public class WaitlistBackfill {
+    private static final WaitlistBackfill INSTANCE = new WaitlistBackfill();
+    
+    /**
+     * Told about every patient booked from the waitlist, on the EDT
+     */
+    public interface Listener {
+        void onBackfilled(WaitlistEntry entry, AppointmentSummary slot);
+    }
+    
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final WaitlistDAO waitlistDAO = new WaitlistDAO();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private ExecutorService worker;
+    
+    private WaitlistBackfill() {}
+    
+    public static WaitlistBackfill getInstance() {
+        return INSTANCE;
+    }
+    
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+    
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "waitlist-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public synchronized void stop() {
+        if (worker == null) {
+            return;
+        }
+        worker.shutdownNow();
+        worker = null;
+    }
+    
+    /**
+     * Offer the slot of an appointment that has just been cancelled
+     */
+    public void appointmentCancelled(int appointmentId) {
+        submit(() -> fill(null, appointmentId));
+    }
+    
+    /**
+     * Offer a slot given up by an appointment, as it was before it was
+     * cancelled or moved
+     */
+    public void slotFreed(AppointmentSummary slot) {
+        submit(() -> fill(slot, 0));
+    }
+    
+    private synchronized void submit(Runnable task) {
+        if (worker != null) {
+            worker.execute(task);
+        }
+    }
+    
+    /**
+     * Book waiting patients into the slot, each in its own unit of work. The
+     * appointment and doctor lookups run in the same unit as the booking, on
+     * its pooled connection rather than the EDT's shared one.
+     * @param freed the slot, or null to read it from the cancelled appointment
+     */
+    private void fill(AppointmentSummary freed, int cancelledId) {
+        AppointmentSummary slot = freed;
+        Doctor doctor = null;
+        LocalTime time = null;
+        int freeMinutes = 0;
+        while (true) {
+            WaitlistEntry entry;
+            try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+                if (slot == null) {
+                    Appointment appointment = appointmentDAO.getAppointmentById(cancelledId);
+                    if (appointment == null) {
+                        return;
+                    }
+                    slot = AppointmentSummary.of(appointment);
+                }
+                if (doctor == null) {
+                    if (slot.getAppointmentDate() == null || slot.getAppointmentTime() == null
+                            || LocalDateTime.of(slot.getAppointmentDate(), slot.getAppointmentTime()).isBefore(LocalDateTime.now())) {
+                        return;
+                    }
+                    doctor = doctorDAO.getDoctorById(slot.getDoctorId());
+                    if (doctor == null) {
+                        return;
+                    }
+                    time = slot.getAppointmentTime();
+                    freeMinutes = slot.getDurationMinutes();
+                }
+                
+                entry = waitlistDAO.backfill(doctor.getDoctorId(), doctor.getSpecialization(),
+                        slot.getAppointmentDate(), time, freeMinutes);
+                if (entry == null) {
+                    return;
+                }
+                unitOfWork.commit();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return;
+            }
+            
+            AppointmentSummary filled = slot;
+            SwingUtilities.invokeLater(() -> {
+                for (Listener listener : listeners) {
+                    listener.onBackfilled(entry, filled);
+                }
+            });
+            LocalTime next = time.plusMinutes(entry.getDurationMinutes());
+            freeMinutes -= entry.getDurationMinutes();
+            if (!next.isAfter(time) || freeMinutes <= 0) {
+                // Slot used up, or ran past midnight
+                return;
+            }
+            time = next;
+        }
+    }
+}
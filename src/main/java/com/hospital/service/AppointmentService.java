@@ -0,0 +1,190 @@
+package com.hospital.service;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.dao.UpdateResult;
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.scheduling.WaitlistBackfill;
+import com.hospital.util.UnitOfWork;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Booking rules for appointments, shared by the Swing desks and the HTTP API.
+ * Each call runs in its own pooled transaction. Bookings and edits lock the
+ * doctor's row before checking availability, so two desks booking the same
+ * doctor at once cannot both get the slot. Series bookings, waitlist
+ * backfill and blackout moves take the same lock, and the availability
+ * check is itself a locking read, so a path that forgets the lock still
+ * cannot book over a slot checked here.
+ */
+public class AppointmentService {
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    
+    public List<AppointmentSummary> findAppointments(Criteria<AppointmentDAO.Field> criteria) throws ServiceException {
+        return Units.run(unitOfWork -> appointmentDAO.findAppointmentSummaries(criteria));
+    }
+    
+    public Appointment getAppointment(int appointmentId) throws ServiceException {
+        Appointment appointment = Units.run(unitOfWork -> appointmentDAO.getAppointmentById(appointmentId));
+        if (appointment == null) {
+            throw new ServiceException(ServiceException.Reason.NOT_FOUND, "Appointment " + appointmentId + " not found.");
+        }
+        return appointment;
+    }
+    
+    public boolean isDoctorAvailable(int doctorId, LocalDate date, LocalTime time, int durationMinutes,
+                                     int excludeAppointmentId) throws ServiceException {
+        return Units.run(unitOfWork ->
+                appointmentDAO.isDoctorAvailable(doctorId, date, time, durationMinutes, excludeAppointmentId));
+    }
+    
+    /**
+     * Check the fields every appointment needs, without touching the database
+     */
+    public void validateDetails(Appointment candidate) throws ServiceException {
+        if (candidate.getPatientId() <= 0) {
+            throw invalid("Please select a patient.");
+        }
+        if (candidate.getDoctorId() <= 0) {
+            throw invalid("Please select a doctor.");
+        }
+        if (candidate.getAppointmentDate() == null) {
+            throw invalid("Date is required.");
+        }
+        if (candidate.getAppointmentTime() == null) {
+            throw invalid("Time is required.");
+        }
+        if (candidate.getDurationMinutes() <= 0) {
+            throw invalid("Duration must be positive.");
+        }
+        if (!candidate.endsSameDay()) {
+            throw invalid("Appointment must end by midnight.");
+        }
+        
+        // Check if appointment is in the past
+        LocalDate today = LocalDate.now();
+        if (candidate.getAppointmentDate().isBefore(today) ||
+            (candidate.getAppointmentDate().equals(today) && candidate.getAppointmentTime().isBefore(LocalTime.now()))) {
+            throw invalid("Cannot schedule appointments in the past.");
+        }
+    }
+    
+    /**
+     * Check the candidate's details and, for a new appointment or one whose
+     * slot moved or grew, that the doctor is free
+     * @param original the appointment as it was before the edit, or null for a new one
+     */
+    public void validate(Appointment candidate, Appointment original) throws ServiceException {
+        validateDetails(candidate);
+        if (original != null &&
+            candidate.getAppointmentDate().equals(original.getAppointmentDate()) &&
+            candidate.getAppointmentTime().equals(original.getAppointmentTime()) &&
+            candidate.getDurationMinutes() <= original.getDurationMinutes() &&
+            candidate.getDoctorId() == original.getDoctorId()) {
+            return;
+        }
+        
+        int excludeAppointmentId = original != null ? original.getAppointmentId() : 0;
+        if (!isDoctorAvailable(candidate.getDoctorId(), candidate.getAppointmentDate(), candidate.getAppointmentTime(),
+                               candidate.getDurationMinutes(), excludeAppointmentId)) {
+            throw new ServiceException(ServiceException.Reason.UNAVAILABLE, (candidate.getDoctorName() != null
+                    ? "Dr. " + candidate.getDoctorName() : "The doctor") + " is not available at the selected time.");
+        }
+    }
+    
+    /**
+     * Book a new appointment after checking the slot under the doctor's lock
+     * @return the saved appointment with its generated id
+     */
+    public Appointment book(Appointment appointment) throws ServiceException {
+        validateDetails(appointment);
+        return Units.run(unitOfWork -> {
+            lockDoctor(unitOfWork, appointment.getDoctorId());
+            validate(appointment, null);
+            Appointment saved = appointmentDAO.bookAppointment(appointment);
+            if (saved == null) {
+                throw new ServiceException(ServiceException.Reason.FAILED, "Failed to book appointment.");
+            }
+            return saved;
+        });
+    }
+    
+    /**
+     * Save an edited appointment. A slot the edit gives up is offered to the
+     * waitlist once the change is committed.
+     * @return UPDATED, UNCHANGED, CONFLICT or NOT_FOUND
+     */
+    public UpdateResult update(Appointment appointment) throws ServiceException {
+        AppointmentSummary[] before = new AppointmentSummary[1];
+        UpdateResult result = Units.run(unitOfWork -> {
+            Appointment current = appointmentDAO.getAppointmentById(appointment.getAppointmentId());
+            if (current == null) {
+                return UpdateResult.NOT_FOUND;
+            }
+            // Lock in id order so two edits swapping doctors cannot deadlock
+            lockDoctor(unitOfWork, Math.min(current.getDoctorId(), appointment.getDoctorId()));
+            lockDoctor(unitOfWork, Math.max(current.getDoctorId(), appointment.getDoctorId()));
+            if (!"Cancelled".equals(appointment.getStatus())) {
+                validate(appointment, current);
+            }
+            before[0] = AppointmentSummary.of(current);
+            return appointmentDAO.updateAppointment(appointment);
+        });
+        
+        if (result == UpdateResult.FAILED) {
+            throw new ServiceException(ServiceException.Reason.FAILED, "Failed to update appointment.");
+        }
+        if (result == UpdateResult.UPDATED && freesSlot(before[0], appointment)) {
+            WaitlistBackfill.getInstance().slotFreed(before[0]);
+        }
+        return result;
+    }
+    
+    /**
+     * Cancel an appointment and offer its slot to the waitlist
+     */
+    public void cancel(int appointmentId) throws ServiceException {
+        boolean cancelled = Units.run(unitOfWork -> {
+            if (appointmentDAO.getAppointmentById(appointmentId) == null) {
+                throw new ServiceException(ServiceException.Reason.NOT_FOUND, "Appointment " + appointmentId + " not found.");
+            }
+            return appointmentDAO.cancelAppointment(appointmentId);
+        });
+        if (!cancelled) {
+            throw new ServiceException(ServiceException.Reason.FAILED, "Failed to cancel appointment.");
+        }
+        WaitlistBackfill.getInstance().appointmentCancelled(appointmentId);
+    }
+    
+    private void lockDoctor(UnitOfWork unitOfWork, int doctorId) throws ServiceException {
+        if (!doctorDAO.lockDoctor(doctorId)) {
+            if (unitOfWork.isRollbackOnly()) {
+                throw new ServiceException(ServiceException.Reason.FAILED, "A database error occurred.");
+            }
+            throw invalid("Doctor " + doctorId + " not found.");
+        }
+    }
+    
+    /**
+     * True if an edit cancelled an active booking or moved it off its slot
+     */
+    private static boolean freesSlot(AppointmentSummary before, Appointment after) {
+        if ("Cancelled".equals(before.getStatus())) {
+            return false;
+        }
+        return "Cancelled".equals(after.getStatus())
+                || before.getDoctorId() != after.getDoctorId()
+                || !before.getAppointmentDate().equals(after.getAppointmentDate())
+                || !before.getAppointmentTime().equals(after.getAppointmentTime());
+    }
+    
+    private static ServiceException invalid(String message) {
+        return new ServiceException(ServiceException.Reason.INVALID, message);
+    }
+}
@@ -0,0 +1,187 @@
+package com.hospital.service;
+
+import com.hospital.dao.UserDAO;
+import com.hospital.model.User;
+import com.hospital.model.UserCredentials;
+import com.hospital.util.PasswordHasher;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Logins and sessions. Passwords are checked against their PBKDF2 hash on
+ * a small pool sized to the CPUs, off the caller's thread, so a burst of
+ * logins at shift change queues for CPU instead of freezing a desk.
+ *
+ * A successful login is remembered per user as a keyed fingerprint of the
+ * password and the stored hash, so logging in again, e.g. after logout,
+ * skips the PBKDF2 work. The stored hash is still read on every login, so a
+ * changed password or deactivated user takes effect at once. Failed logins
+ * are never remembered and always pay the full hashing cost, and the key
+ * exists only in this process's memory.
+ */
+public class AuthService {
+    private static final AuthService INSTANCE = new AuthService();
+    
+    /**
+     * Sessions end after this long without use
+     */
+    public static final Duration IDLE_TIMEOUT =
+            Duration.ofMinutes(Long.getLong("hospital.session.idleMinutes", 30));
+    
+    private static final long IDLE_TIMEOUT_MILLIS = IDLE_TIMEOUT.toMillis();
+    // A remembered login unused for this long must be verified in full again
+    private static final long REMEMBER_MILLIS = Duration.ofHours(24).toMillis();
+    private static final int TOKEN_BYTES = 32;
+    
+    private final UserDAO userDAO = new UserDAO();
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, RememberedLogin> rememberedLogins = new ConcurrentHashMap<>();
+    private final byte[] fingerprintKey = new byte[32];
+    private final ExecutorService verifier;
+    
+    private static class RememberedLogin {
+        final byte[] fingerprint;
+        volatile long lastUsed;
+        
+        RememberedLogin(byte[] fingerprint, long lastUsed) {
+            this.fingerprint = fingerprint;
+            this.lastUsed = lastUsed;
+        }
+    }
+    
+    /**
+     * Hash checked when the username does not exist, so an unknown user
+     * takes as long to reject as a wrong password
+     */
+    private static class DummyHash {
+        static final String VALUE = PasswordHasher.hash("no such user");
+    }
+    
+    private AuthService() {
+        random.nextBytes(fingerprintKey);
+        AtomicInteger count = new AtomicInteger();
+        verifier = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread thread = new Thread(r, "login-verify-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public static AuthService getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Check the username and password on the verification pool
+     * @return a future of the new session, or of null if the login was
+     *         refused; it fails with a ServiceException if the database could
+     *         not be reached
+     */
+    public CompletableFuture<Session> login(String username, String password) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return authenticate(username, password);
+            } catch (ServiceException e) {
+                throw new CompletionException(e);
+            }
+        }, verifier);
+    }
+    
+    /**
+     * The session for a token, counting this as use, or null if there is
+     * none or it has been idle too long
+     */
+    public Session getSession(String token) {
+        Session session = token != null ? sessions.get(token) : null;
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (session.isIdle(now, IDLE_TIMEOUT_MILLIS)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+    
+    public void logout(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+    
+    private Session authenticate(String username, String password) throws ServiceException {
+        UserCredentials credentials = Units.run(unitOfWork -> userDAO.findCredentials(username));
+        if (credentials == null) {
+            PasswordHasher.verify(password, DummyHash.VALUE);
+            return null;
+        }
+        
+        String stored = credentials.getPasswordHash();
+        byte[] fingerprint = fingerprint(username, stored, password);
+        long now = System.currentTimeMillis();
+        RememberedLogin remembered = rememberedLogins.get(username);
+        boolean known = remembered != null && now - remembered.lastUsed < REMEMBER_MILLIS
+                && MessageDigest.isEqual(remembered.fingerprint, fingerprint);
+        
+        if (known) {
+            remembered.lastUsed = now;
+        } else {
+            if (!PasswordHasher.verify(password, stored)) {
+                return null;
+            }
+            if (PasswordHasher.needsRehash(stored)) {
+                // Upgrade plaintext or weaker hashes while the password is at hand
+                String rehashed = PasswordHasher.hash(password);
+                int userId = credentials.getUser().getUserId();
+                if (Units.run(unitOfWork -> userDAO.updatePasswordHash(userId, rehashed))) {
+                    fingerprint = fingerprint(username, rehashed, password);
+                }
+            }
+            rememberedLogins.put(username, new RememberedLogin(fingerprint, now));
+        }
+        return openSession(credentials.getUser(), now);
+    }
+    
+    private Session openSession(User user, long now) {
+        // Sessions left to expire are dropped here rather than by a timer
+        sessions.values().removeIf(session -> session.isIdle(now, IDLE_TIMEOUT_MILLIS));
+        
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), user, now);
+        sessions.put(session.getToken(), session);
+        return session;
+    }
+    
+    private byte[] fingerprint(String username, String stored, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(fingerprintKey, "HmacSHA256"));
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(stored.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            // Every JDK ships HmacSHA256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.hospital.service;
+
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.model.DoctorSummary;
+
+import java.util.List;
+
+/**
+ * Read-only lookups of doctors for booking screens and kiosks
+ */
+public class DirectoryService {
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    
+    /**
+     * Doctors by name, optionally only one specialization
+     */
+    public List<DoctorSummary> listDoctors(String specialization) throws ServiceException {
+        Criteria<DoctorDAO.Field> criteria = new Criteria<DoctorDAO.Field>()
+                .sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC);
+        if (specialization != null && !specialization.isEmpty()) {
+            criteria.equalTo(DoctorDAO.Field.SPECIALIZATION, specialization);
+        }
+        return Units.run(unitOfWork -> doctorDAO.findDoctorSummaries(criteria));
+    }
+}
@@ -0,0 +1,29 @@
+package com.hospital.service;
+
+/**
+ * A service call that was refused, with a message fit to show the user
+ */
+public class ServiceException extends Exception {
+    
+    public enum Reason {
+        // Missing or malformed input
+        INVALID,
+        NOT_FOUND,
+        // The doctor already has an appointment at that time
+        UNAVAILABLE,
+        // Changed by someone else in the meantime
+        CONFLICT,
+        FAILED
+    }
+    
+    private final Reason reason;
+    
+    public ServiceException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+    
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hospital.service;
+
+import com.hospital.model.User;
+
+/**
+ * A logged-in user, identified by a random token. Ends after
+ * AuthService.IDLE_TIMEOUT without use, or on logout.
+ */
+public class Session {
+    private final String token;
+    private final User user;
+    private final long createdAt;
+    private volatile long lastUsed;
+    
+    Session(String token, User user, long now) {
+        this.token = token;
+        this.user = user;
+        this.createdAt = now;
+        this.lastUsed = now;
+    }
+    
+    public String getToken() { return token; }
+    
+    public User getUser() { return user; }
+    
+    public long getCreatedAt() { return createdAt; }
+    
+    public long getLastUsed() { return lastUsed; }
+    
+    void touch(long now) {
+        lastUsed = now;
+    }
+    
+    boolean isIdle(long now, long idleTimeoutMillis) {
+        return now - lastUsed >= idleTimeoutMillis;
+    }
+}
@@ -0,0 +1,36 @@
+package com.hospital.service;
+
+import com.hospital.util.UnitOfWork;
+
+import java.sql.SQLException;
+
+/**
+ * Runs each service call in its own UnitOfWork, so every call uses one
+ * pooled connection for its whole duration. Concurrent callers are bounded
+ * by the pool size and wait for a connection rather than sharing one.
+ */
+final class Units {
+    
+    interface Call<T> {
+        T call(UnitOfWork unitOfWork) throws SQLException, ServiceException;
+    }
+    
+    private Units() {}
+    
+    /**
+     * Run the call and commit; a ServiceException or failed statement rolls back
+     */
+    static <T> T run(Call<T> call) throws ServiceException {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            T result = call.call(unitOfWork);
+            if (unitOfWork.isRollbackOnly()) {
+                throw new ServiceException(ServiceException.Reason.FAILED, "A database error occurred.");
+            }
+            unitOfWork.commit();
+            return result;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new ServiceException(ServiceException.Reason.FAILED, "A database error occurred: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.hospital.tools;
+
+import com.hospital.analytics.AggregationEngine;
+import com.hospital.analytics.AppointmentFacts;
+import com.hospital.analytics.Dimension;
+import com.hospital.analytics.FactFilter;
+import com.hospital.analytics.GroupCounts;
+import com.hospital.model.CompactAppointmentStore;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Times AggregationEngine reports over generated appointment history.
+ * Works on generated data, no database needed.
+ *
+ * Usage: java com.hospital.tools.AnalyticsBenchmark [appointments] [years] [doctors]
+ */
+public class AnalyticsBenchmark {
+    
+    private static final String[] SPECIALIZATIONS = {
+        "Cardiology", "Neurology", "Orthopedics", "Pediatrics", "Dermatology",
+        "General Medicine", "Gynecology", "Psychiatry", "Oncology", "ENT"
+    };
+    private static final String[] STATUSES = {"Scheduled", "Completed", "Cancelled", "No Show"};
+    private static final int RUNS = 20;
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int doctors = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        
+        AppointmentFacts facts = generate(count, years, doctors);
+        AggregationEngine engine = new AggregationEngine();
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusYears(years);
+        
+        System.out.println("Appointments: " + facts.size() + " over " + years + " years, doctors: " + doctors);
+        
+        time("Appointments per specialization per month", () ->
+            engine.countBy(facts, new FactFilter().between(from, to), Dimension.SPECIALIZATION, Dimension.MONTH));
+        time("Appointments per doctor per status", () ->
+            engine.countBy(facts, new FactFilter().between(from, to), Dimension.DOCTOR, Dimension.STATUS));
+        time("No-shows by day of week, one specialization", () ->
+            engine.countBy(facts, new FactFilter().status("No Show").specialization("Cardiology"),
+                           Dimension.DAY_OF_WEEK));
+    }
+    
+    private interface Report {
+        GroupCounts run();
+    }
+    
+    private static void time(String name, Report report) {
+        // Warm up the JIT before measuring
+        for (int i = 0; i < 5; i++) {
+            report.run();
+        }
+        long best = Long.MAX_VALUE;
+        int total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            total = report.run().total();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-45s %6.1f ms (best of %d, %,d rows matched)%n", name, best / 1e6, RUNS, total);
+    }
+    
+    private static AppointmentFacts generate(int count, int years, int doctors) {
+        Random random = new Random(42);
+        AppointmentFacts facts = new AppointmentFacts();
+        for (int doctorId = 1; doctorId <= doctors; doctorId++) {
+            facts.putDoctor(doctorId, "Doctor " + doctorId, SPECIALIZATIONS[doctorId % SPECIALIZATIONS.length]);
+        }
+        
+        int firstDay = (int) LocalDate.now().minusYears(years).toEpochDay();
+        int days = years * 365;
+        for (int i = 0; i < count; i++) {
+            facts.upsert(i + 1, 1 + random.nextInt(50_000), 1 + random.nextInt(doctors),
+                         firstDay + random.nextInt(days),
+                         CompactAppointmentStore.statusCode(STATUSES[random.nextInt(STATUSES.length)]));
+        }
+        return facts;
+    }
+}
@@ -0,0 +1,94 @@
+package com.hospital.tools;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.CompactAppointmentStore;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures heap used per appointment by a List&lt;Appointment&gt; versus a
+ * CompactAppointmentStore. Works on generated data, no database needed.
+ *
+ * Usage: java com.hospital.tools.AppointmentMemoryBenchmark [appointments] [doctors] [patients]
+ */
+public class AppointmentMemoryBenchmark {
+    
+    private static final String[] SPECIALIZATIONS = {
+        "Cardiology", "Neurology", "Orthopedics", "Pediatrics", "Dermatology",
+        "General Medicine", "Gynecology", "Psychiatry", "Oncology", "ENT"
+    };
+    private static final String[] STATUSES = {"Scheduled", "Completed", "Cancelled", "No Show"};
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int doctors = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int patients = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        
+        System.out.println("Appointments: " + count + ", doctors: " + doctors + ", patients: " + patients);
+        
+        long baseline = usedMemory();
+        List<Appointment> list = generate(count, doctors, patients);
+        long listBytes = usedMemory() - baseline;
+        
+        CompactAppointmentStore store = toStore(list);
+        list = null;
+        long storeBytes = usedMemory() - baseline;
+        
+        System.out.printf("List<Appointment>:        %,d bytes (%.1f bytes/appointment)%n",
+                          listBytes, (double) listBytes / count);
+        System.out.printf("CompactAppointmentStore:  %,d bytes (%.1f bytes/appointment)%n",
+                          storeBytes, (double) storeBytes / store.size());
+        System.out.printf("Reduction:                %.1fx%n", (double) listBytes / storeBytes);
+    }
+    
+    /**
+     * Build appointments the way JDBC would: every row gets its own String
+     * and date/time instances, even when the values repeat
+     */
+    private static List<Appointment> generate(int count, int doctors, int patients) {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.now().minusYears(3);
+        List<Appointment> list = new ArrayList<>(count);
+        
+        for (int i = 0; i < count; i++) {
+            int doctorId = 1 + random.nextInt(doctors);
+            int patientId = 1 + random.nextInt(patients);
+            
+            Appointment appointment = new Appointment(i + 1, patientId, doctorId,
+                    start.plusDays(random.nextInt(3 * 365)),
+                    LocalTime.of(9 + random.nextInt(8), random.nextInt(4) * 15),
+                    new String(STATUSES[random.nextInt(STATUSES.length)]), null);
+            appointment.setPatientName(new String("Patient " + patientId));
+            appointment.setDoctorName(new String("Doctor " + doctorId));
+            appointment.setDoctorSpecialization(new String(SPECIALIZATIONS[doctorId % SPECIALIZATIONS.length]));
+            list.add(appointment);
+        }
+        
+        return list;
+    }
+    
+    private static CompactAppointmentStore toStore(List<Appointment> list) {
+        CompactAppointmentStore store = new CompactAppointmentStore(list.size());
+        for (Appointment appointment : list) {
+            store.add(appointment);
+        }
+        return store;
+    }
+    
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,407 @@
+package com.hospital.tools;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.dao.PatientDAO;
+import com.hospital.dao.UpdateResult;
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.DoctorSummary;
+import com.hospital.model.PatientSummary;
+import com.hospital.service.AppointmentService;
+import com.hospital.service.AuthService;
+import com.hospital.service.ServiceException;
+import com.hospital.service.Session;
+import com.hospital.util.UnitOfWork;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of many front desks working at once. Each desk is a virtual
+ * thread running a mix of logins, searches, bookings, edits and
+ * cancellations through the service layer, plus recurring bookings through
+ * AppointmentDAO.bookSeries, so both booking paths race on the same
+ * doctors, as fast as it can or with a random pause between steps. Reports throughput, latency percentiles and
+ * errors per operation, then checks the booked days for overlapping
+ * appointments of one doctor, which should never happen.
+ *
+ * Books on days a year ahead and deletes what it booked afterwards unless
+ * --keep is given. Point it at a scratch database with -Dhospital.db.url=...
+ * and try different pool sizes with -Dhospital.db.poolSize=N.
+ *
+ * Usage: java com.hospital.tools.FrontDeskSimulator [desks] [seconds] [days] [thinkMillis] [--keep]
+ */
+public class FrontDeskSimulator {
+    
+    private enum Op {
+        LOGIN(5), SEARCH(40), BOOK(20), SERIES(5), EDIT(15), CANCEL(15);
+        
+        final int weight;
+        
+        Op(int weight) { this.weight = weight; }
+    }
+    
+    private static final int TOTAL_WEIGHT = Arrays.stream(Op.values()).mapToInt(op -> op.weight).sum();
+    private static final String[] SEARCH_TERMS = {"a", "e", "i", "o", "an", "ar", "el", "Jo"};
+    private static final int[] DURATIONS = {15, 30};
+    private static final int SERIES_LENGTH = 3;
+    private static final LocalTime OPENS = LocalTime.of(9, 0);
+    // Number of 15-minute slots in the bookable part of the day
+    private static final int SLOTS = 8 * 4;
+    private static final String LOGIN_USER = System.getProperty("hospital.sim.user", "admin");
+    private static final String LOGIN_PASSWORD = System.getProperty("hospital.sim.password", "admin123");
+    
+    private final AppointmentService appointmentService = new AppointmentService();
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final AuthService authService = AuthService.getInstance();
+    private final List<DoctorSummary> doctors;
+    private final List<PatientSummary> patients;
+    private final LocalDate firstDay;
+    private final int days;
+    private final long thinkMillis;
+    // Everything the simulation booked, to delete afterwards
+    private final Set<Integer> created = ConcurrentHashMap.newKeySet();
+    
+    private FrontDeskSimulator(List<DoctorSummary> doctors, List<PatientSummary> patients,
+                               LocalDate firstDay, int days, long thinkMillis) {
+        this.doctors = doctors;
+        this.patients = patients;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.thinkMillis = thinkMillis;
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        List<String> positional = new ArrayList<>();
+        boolean keep = false;
+        for (String arg : args) {
+            if (arg.equals("--keep")) {
+                keep = true;
+            } else {
+                positional.add(arg);
+            }
+        }
+        int desks = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : 50;
+        int seconds = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 60;
+        int days = positional.size() > 2 ? Integer.parseInt(positional.get(2)) : 3;
+        long thinkMillis = positional.size() > 3 ? Long.parseLong(positional.get(3)) : 0;
+        
+        List<DoctorSummary> doctors = new DoctorDAO().findDoctorSummaries(new Criteria<DoctorDAO.Field>());
+        List<PatientSummary> patients = new PatientDAO().findPatientSummaries(new Criteria<PatientDAO.Field>().limit(1000));
+        if (doctors.isEmpty() || patients.isEmpty()) {
+            System.out.println("Need at least one doctor and one patient in the database.");
+            return;
+        }
+        
+        FrontDeskSimulator simulator = new FrontDeskSimulator(doctors, patients,
+                LocalDate.now().plusYears(1), days, thinkMillis);
+        System.out.println("Desks: " + desks + ", seconds: " + seconds + ", days: " + days + " from " +
+                           simulator.firstDay + ", doctors: " + doctors.size() + ", patients: " + patients.size() +
+                           ", think time: 0-" + thinkMillis + " ms");
+        
+        Stats[] totals = simulator.run(desks, seconds);
+        simulator.report(totals, seconds);
+        simulator.checkDoubleBookings();
+        if (!keep) {
+            simulator.cleanUp();
+        }
+    }
+    
+    /**
+     * Run the desks for the given time and merge their statistics
+     */
+    private Stats[] run(int desks, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Desk> running = new ArrayList<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < desks; i++) {
+            Desk desk = new Desk(new Random(i), deadline);
+            running.add(desk);
+            executor.execute(desk);
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 120L, TimeUnit.SECONDS);
+        
+        Stats[] totals = newStats();
+        for (Desk desk : running) {
+            for (Op op : Op.values()) {
+                totals[op.ordinal()].addAll(desk.stats[op.ordinal()]);
+            }
+        }
+        return totals;
+    }
+    
+    private class Desk implements Runnable {
+        private final Random random;
+        private final long deadline;
+        private final Stats[] stats = newStats();
+        // Scheduled appointments this desk booked and has not cancelled
+        private final List<Integer> booked = new ArrayList<>();
+        
+        Desk(Random random, long deadline) {
+            this.random = random;
+            this.deadline = deadline;
+        }
+        
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                Op op = pick();
+                if ((op == Op.EDIT || op == Op.CANCEL) && booked.isEmpty()) {
+                    op = Op.BOOK;
+                }
+                
+                long start = System.nanoTime();
+                Outcome outcome;
+                try {
+                    outcome = step(op);
+                } catch (ServiceException e) {
+                    outcome = e.getReason() == ServiceException.Reason.FAILED ? Outcome.ERROR : Outcome.REJECTED;
+                } catch (SQLException | RuntimeException e) {
+                    outcome = Outcome.ERROR;
+                }
+                stats[op.ordinal()].record(System.nanoTime() - start, outcome);
+                
+                if (thinkMillis > 0) {
+                    try {
+                        Thread.sleep(random.nextInt((int) thinkMillis + 1));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+        
+        private Op pick() {
+            int roll = random.nextInt(TOTAL_WEIGHT);
+            for (Op op : Op.values()) {
+                roll -= op.weight;
+                if (roll < 0) {
+                    return op;
+                }
+            }
+            return Op.SEARCH;
+        }
+        
+        private Outcome step(Op op) throws ServiceException, SQLException {
+            switch (op) {
+                case LOGIN: {
+                    Session session = authService.login(LOGIN_USER, LOGIN_PASSWORD).join();
+                    if (session == null) {
+                        return Outcome.ERROR;
+                    }
+                    authService.logout(session.getToken());
+                    return Outcome.OK;
+                }
+                case SEARCH:
+                    if (random.nextBoolean()) {
+                        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+                            patientDAO.findPatientSummaries(new Criteria<PatientDAO.Field>()
+                                    .contains(PatientDAO.Field.NAME, SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)])
+                                    .sortBy(PatientDAO.Field.NAME, Criteria.Direction.ASC)
+                                    .limit(50));
+                            unitOfWork.commit();
+                        }
+                    } else {
+                        LocalDate day = randomDay();
+                        appointmentService.findAppointments(new Criteria<AppointmentDAO.Field>()
+                                .equalTo(AppointmentDAO.Field.DOCTOR_ID, randomDoctor())
+                                .between(AppointmentDAO.Field.DATE, day, day)
+                                .sortBy(AppointmentDAO.Field.TIME, Criteria.Direction.ASC));
+                    }
+                    return Outcome.OK;
+                case BOOK: {
+                    Appointment appointment = new Appointment(patients.get(random.nextInt(patients.size())).getPatientId(),
+                                                              randomDoctor(), randomDay(), randomTime());
+                    appointment.setDurationMinutes(DURATIONS[random.nextInt(DURATIONS.length)]);
+                    appointment.setNotes("Load test");
+                    Appointment saved = appointmentService.book(appointment);
+                    created.add(saved.getAppointmentId());
+                    booked.add(saved.getAppointmentId());
+                    return Outcome.OK;
+                }
+                case SERIES: {
+                    Appointment template = new Appointment(patients.get(random.nextInt(patients.size())).getPatientId(),
+                                                           randomDoctor(), firstDay, randomTime());
+                    template.setDurationMinutes(DURATIONS[random.nextInt(DURATIONS.length)]);
+                    template.setNotes("Load test series");
+                    Set<LocalDate> dates = new TreeSet<>();
+                    for (int i = 0; i < SERIES_LENGTH; i++) {
+                        dates.add(randomDay());
+                    }
+                    List<Appointment> series = appointmentDAO.bookSeries(template, new ArrayList<>(dates), new HashSet<>());
+                    if (series == null) {
+                        return Outcome.ERROR;
+                    }
+                    for (Appointment appointment : series) {
+                        created.add(appointment.getAppointmentId());
+                        booked.add(appointment.getAppointmentId());
+                    }
+                    return series.isEmpty() ? Outcome.REJECTED : Outcome.OK;
+                }
+                case EDIT: {
+                    int appointmentId = booked.get(random.nextInt(booked.size()));
+                    Appointment appointment = appointmentService.getAppointment(appointmentId);
+                    appointment.setAppointmentTime(randomTime());
+                    if (random.nextInt(4) == 0) {
+                        appointment.setDoctorId(randomDoctor());
+                    }
+                    UpdateResult result = appointmentService.update(appointment);
+                    return result == UpdateResult.UPDATED || result == UpdateResult.UNCHANGED
+                            ? Outcome.OK : Outcome.REJECTED;
+                }
+                case CANCEL:
+                    appointmentService.cancel(booked.remove(random.nextInt(booked.size())));
+                    return Outcome.OK;
+                default:
+                    throw new IllegalStateException(op.name());
+            }
+        }
+        
+        private LocalDate randomDay() {
+            return firstDay.plusDays(random.nextInt(days));
+        }
+        
+        private LocalTime randomTime() {
+            return OPENS.plusMinutes(15L * random.nextInt(SLOTS));
+        }
+        
+        private int randomDoctor() {
+            return doctors.get(random.nextInt(doctors.size())).getDoctorId();
+        }
+    }
+    
+    private void report(Stats[] totals, int seconds) {
+        System.out.println();
+        System.out.printf("%-8s %9s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+                "", "ops", "ok", "rejected", "errors", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        Stats all = new Stats();
+        for (Op op : Op.values()) {
+            Stats stats = totals[op.ordinal()];
+            print(op.name(), stats, seconds);
+            all.addAll(stats);
+        }
+        print("ALL", all, seconds);
+        System.out.println("(rejected = refused by the booking rules: slot taken or edited elsewhere)");
+    }
+    
+    private static void print(String name, Stats stats, int seconds) {
+        long[] sorted = Arrays.copyOf(stats.latencies, stats.count);
+        Arrays.sort(sorted);
+        System.out.printf("%-8s %9d %9d %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                name, stats.count, stats.ok, stats.rejected, stats.errors, (double) stats.count / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+    
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = Math.max(0, (int) Math.ceil(p * sorted.length) - 1);
+        return sorted[index] / 1_000_000.0;
+    }
+    
+    /**
+     * Look for two scheduled appointments of one doctor that overlap on the
+     * simulated days
+     */
+    private void checkDoubleBookings() {
+        List<AppointmentSummary> scheduled = appointmentDAO.findAppointmentSummaries(new Criteria<AppointmentDAO.Field>()
+                .between(AppointmentDAO.Field.DATE, firstDay, firstDay.plusDays(days - 1))
+                .equalTo(AppointmentDAO.Field.STATUS, "Scheduled")
+                .sortBy(AppointmentDAO.Field.DOCTOR_ID, Criteria.Direction.ASC)
+                .sortBy(AppointmentDAO.Field.DATE, Criteria.Direction.ASC)
+                .sortBy(AppointmentDAO.Field.TIME, Criteria.Direction.ASC));
+        
+        int anomalies = 0;
+        AppointmentSummary latest = null;
+        for (AppointmentSummary appointment : scheduled) {
+            if (latest != null && latest.getDoctorId() == appointment.getDoctorId()
+                    && latest.getAppointmentDate().equals(appointment.getAppointmentDate())
+                    && appointment.getAppointmentTime().isBefore(latest.getEndTime())) {
+                if (++anomalies <= 10) {
+                    System.out.println("Double booking: appointments " + latest.getAppointmentId() + " and " +
+                                       appointment.getAppointmentId() + " of doctor " + appointment.getDoctorId() +
+                                       " on " + appointment.getAppointmentDate() + " at " + appointment.getAppointmentTime());
+                }
+            }
+            if (latest == null || latest.getDoctorId() != appointment.getDoctorId()
+                    || !latest.getAppointmentDate().equals(appointment.getAppointmentDate())
+                    || appointment.getEndTime().isAfter(latest.getEndTime())) {
+                latest = appointment;
+            }
+        }
+        System.out.println();
+        System.out.println("Scheduled appointments on the simulated days: " + scheduled.size() +
+                           ", double bookings: " + anomalies);
+    }
+    
+    private void cleanUp() {
+        int deleted = 0;
+        for (int appointmentId : created) {
+            if (appointmentDAO.deleteAppointment(appointmentId)) {
+                deleted++;
+            }
+        }
+        System.out.println("Deleted " + deleted + " appointments booked by the simulation.");
+    }
+    
+    private static Stats[] newStats() {
+        Stats[] stats = new Stats[Op.values().length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new Stats();
+        }
+        return stats;
+    }
+    
+    private enum Outcome { OK, REJECTED, ERROR }
+    
+    /**
+     * Latencies and outcomes of one operation; owned by one desk until merged
+     */
+    private static class Stats {
+        long[] latencies = new long[256];
+        int count;
+        int ok;
+        int rejected;
+        int errors;
+        
+        void record(long nanos, Outcome outcome) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            switch (outcome) {
+                case OK: ok++; break;
+                case REJECTED: rejected++; break;
+                default: errors++;
+            }
+        }
+        
+        void addAll(Stats other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + other.count));
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            ok += other.ok;
+            rejected += other.rejected;
+            errors += other.errors;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.hospital.ui;
 
-import com.hospital.dao.AppointmentDAO;
 import com.hospital.model.Appointment;
-import com.hospital.model.Patient;
-import com.hospital.model.Doctor;
+import com.hospital.model.PatientSummary;
+import com.hospital.model.DoctorSchedule;
+import com.hospital.model.DoctorSummary;
+import com.hospital.scheduling.ConflictDetector;
+import com.hospital.scheduling.DoctorRecommender;
+import com.hospital.scheduling.Recommendation;
+import com.hospital.scheduling.RecurrenceRule;
+import com.hospital.service.AppointmentService;
+import com.hospital.service.ServiceException;
 
 import javax.swing.*;
 import java.awt.*;
@@ -13,29 +19,39 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Dialog for booking/editing appointments
  */
 public class AppointmentDialog extends JDialog {
-    private JComboBox<Patient> patientCombo;
-    private JComboBox<Doctor> doctorCombo;
+    private static final Integer[] DURATIONS = {15, 30, 45, 60, 90};
+    private static final String[] REPEAT_OPTIONS = {"Does not repeat", "Every week", "Every 2 weeks", "Every 4 weeks"};
+    private static final int[] REPEAT_WEEKS = {0, 1, 2, 4};
+    
+    private JComboBox<PatientSummary> patientCombo;
+    private JComboBox<DoctorSummary> doctorCombo;
     private JTextField dateField, timeField, notesField;
+    private JComboBox<Integer> durationCombo;
     private JComboBox<String> statusCombo;
-    private JButton saveButton, cancelButton, checkAvailabilityButton;
+    // Only shown when booking a new appointment
+    private JComboBox<String> repeatCombo;
+    private JSpinner occurrencesSpinner;
+    private JButton saveButton, cancelButton, checkAvailabilityButton, suggestDoctorButton;
     private boolean confirmed = false;
     private Appointment appointment;
-    private List<Patient> patients;
-    private List<Doctor> doctors;
-    private AppointmentDAO appointmentDAO;
+    private List<PatientSummary> patients;
+    private List<DoctorSummary> doctors;
+    private AppointmentService appointmentService;
     
     public AppointmentDialog(Frame parent, String title, Appointment existingAppointment, 
-                           List<Patient> patients, List<Doctor> doctors) {
+                           List<PatientSummary> patients, List<DoctorSummary> doctors) {
         super(parent, title, true);
         this.appointment = existingAppointment;
         this.patients = patients;
         this.doctors = doctors;
-        this.appointmentDAO = new AppointmentDAO();
+        this.appointmentService = new AppointmentService();
         
         initializeComponents();
         setupLayout();
@@ -54,7 +70,7 @@ public class AppointmentDialog extends JDialog {
     private void initializeComponents() {
         // Patient combo
         patientCombo = new JComboBox<>();
-        for (Patient patient : patients) {
+        for (PatientSummary patient : patients) {
             patientCombo.addItem(patient);
         }
         patientCombo.setRenderer(new DefaultListCellRenderer() {
@@ -62,8 +78,8 @@ public class AppointmentDialog extends JDialog {
             public Component getListCellRendererComponent(JList<?> list, Object value, int index,
                     boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof Patient) {
-                    Patient patient = (Patient) value;
+                if (value instanceof PatientSummary) {
+                    PatientSummary patient = (PatientSummary) value;
                     setText(patient.getName() + " (ID: " + patient.getPatientId() + ")");
                 }
                 return this;
@@ -72,7 +88,7 @@ public class AppointmentDialog extends JDialog {
         
         // Doctor combo
         doctorCombo = new JComboBox<>();
-        for (Doctor doctor : doctors) {
+        for (DoctorSummary doctor : doctors) {
             doctorCombo.addItem(doctor);
         }
         doctorCombo.setRenderer(new DefaultListCellRenderer() {
@@ -80,8 +96,8 @@ public class AppointmentDialog extends JDialog {
             public Component getListCellRendererComponent(JList<?> list, Object value, int index,
                     boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof Doctor) {
-                    Doctor doctor = (Doctor) value;
+                if (value instanceof DoctorSummary) {
+                    DoctorSummary doctor = (DoctorSummary) value;
                     setText("Dr. " + doctor.getName() + " (" + doctor.getSpecialization() + ")");
                 }
                 return this;
@@ -92,6 +108,13 @@ public class AppointmentDialog extends JDialog {
         timeField = new JTextField(20);
         notesField = new JTextField(20);
         
+        durationCombo = new JComboBox<>(DURATIONS);
+        durationCombo.setSelectedItem(Appointment.DEFAULT_DURATION_MINUTES);
+        
+        repeatCombo = new JComboBox<>(REPEAT_OPTIONS);
+        occurrencesSpinner = new JSpinner(new SpinnerNumberModel(12, 2, RecurrenceRule.MAX_OCCURRENCES, 1));
+        occurrencesSpinner.setEnabled(false);
+        
         String[] statuses = {"Scheduled", "Completed", "Cancelled", "No Show"};
         statusCombo = new JComboBox<>(statuses);
         
@@ -110,6 +133,11 @@ public class AppointmentDialog extends JDialog {
         checkAvailabilityButton.setForeground(Color.WHITE);
         checkAvailabilityButton.setFocusPainted(false);
         
+        suggestDoctorButton = new JButton("Suggest Doctor");
+        suggestDoctorButton.setBackground(new Color(111, 66, 193));
+        suggestDoctorButton.setForeground(Color.WHITE);
+        suggestDoctorButton.setFocusPainted(false);
+        
         // Set default values
         dateField.setText(LocalDate.now().toString());
         timeField.setText("10:00");
@@ -143,18 +171,29 @@ public class AppointmentDialog extends JDialog {
         addFormField(formPanel, gbc, 1, "Doctor *:", doctorCombo);
         addFormField(formPanel, gbc, 2, "Date (YYYY-MM-DD) *:", dateField);
         addFormField(formPanel, gbc, 3, "Time (HH:MM) *:", timeField);
-        addFormField(formPanel, gbc, 4, "Status:", statusCombo);
-        addFormField(formPanel, gbc, 5, "Notes:", notesField);
+        addFormField(formPanel, gbc, 4, "Duration (min):", durationCombo);
+        addFormField(formPanel, gbc, 5, "Status:", statusCombo);
+        addFormField(formPanel, gbc, 6, "Notes:", notesField);
+        int row = 7;
+        if (appointment == null) {
+            addFormField(formPanel, gbc, row++, "Repeat:", repeatCombo);
+            addFormField(formPanel, gbc, row++, "Occurrences:", occurrencesSpinner);
+        }
         
-        // Check availability button
+        // Check availability and suggestion buttons
         gbc.gridx = 1;
-        gbc.gridy = 6;
+        gbc.gridy = row++;
         gbc.anchor = GridBagConstraints.WEST;
-        formPanel.add(checkAvailabilityButton, gbc);
+        JPanel availabilityPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        availabilityPanel.setBackground(Color.WHITE);
+        availabilityPanel.add(checkAvailabilityButton);
+        availabilityPanel.add(Box.createHorizontalStrut(5));
+        availabilityPanel.add(suggestDoctorButton);
+        formPanel.add(availabilityPanel, gbc);
         
         // Add help text
         gbc.gridx = 1;
-        gbc.gridy = 7;
+        gbc.gridy = row;
         gbc.gridwidth = 1;
         JLabel helpLabel = new JLabel("<html><i>Date format: YYYY-MM-DD (e.g., 2024-03-15)<br>Time format: HH:MM (e.g., 14:30)</i></html>");
         helpLabel.setFont(new Font("Arial", Font.ITALIC, 10));
@@ -211,6 +250,10 @@ public class AppointmentDialog extends JDialog {
             }
         });
         
+        suggestDoctorButton.addActionListener(e -> suggestDoctor());
+        
+        repeatCombo.addActionListener(e -> occurrencesSpinner.setEnabled(repeatCombo.getSelectedIndex() > 0));
+        
         checkAvailabilityButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -222,7 +265,7 @@ public class AppointmentDialog extends JDialog {
     private void populateFields(Appointment appointment) {
         // Find and select patient
         for (int i = 0; i < patientCombo.getItemCount(); i++) {
-            Patient patient = patientCombo.getItemAt(i);
+            PatientSummary patient = patientCombo.getItemAt(i);
             if (patient.getPatientId() == appointment.getPatientId()) {
                 patientCombo.setSelectedIndex(i);
                 break;
@@ -231,7 +274,7 @@ public class AppointmentDialog extends JDialog {
         
         // Find and select doctor
         for (int i = 0; i < doctorCombo.getItemCount(); i++) {
-            Doctor doctor = doctorCombo.getItemAt(i);
+            DoctorSummary doctor = doctorCombo.getItemAt(i);
             if (doctor.getDoctorId() == appointment.getDoctorId()) {
                 doctorCombo.setSelectedIndex(i);
                 break;
@@ -240,28 +283,46 @@ public class AppointmentDialog extends JDialog {
         
         dateField.setText(appointment.getAppointmentDate().toString());
         timeField.setText(appointment.getAppointmentTime().toString());
+        if (((DefaultComboBoxModel<Integer>) durationCombo.getModel()).getIndexOf(appointment.getDurationMinutes()) < 0) {
+            durationCombo.addItem(appointment.getDurationMinutes());
+        }
+        durationCombo.setSelectedItem(appointment.getDurationMinutes());
         statusCombo.setSelectedItem(appointment.getStatus());
         notesField.setText(appointment.getNotes());
     }
     
     private void checkDoctorAvailability() {
         try {
-            Doctor selectedDoctor = (Doctor) doctorCombo.getSelectedItem();
+            DoctorSummary selectedDoctor = (DoctorSummary) doctorCombo.getSelectedItem();
             LocalDate date = LocalDate.parse(dateField.getText().trim());
             LocalTime time = LocalTime.parse(timeField.getText().trim());
+            int duration = (Integer) durationCombo.getSelectedItem();
             
             if (selectedDoctor != null) {
-                boolean isAvailable = appointmentDAO.isDoctorAvailable(selectedDoctor.getDoctorId(), date, time);
+                boolean isAvailable = ConflictDetector.getInstance().isFree(selectedDoctor.getDoctorId(), date, time,
+                                                                            duration, editedAppointmentId());
                 
                 if (isAvailable) {
                     JOptionPane.showMessageDialog(this, 
-                        "Dr. " + selectedDoctor.getName() + " is available on " + date + " at " + time, 
+                        "Dr. " + selectedDoctor.getName() + " is available on " + date + " at " + time +
+                        " for " + duration + " minutes", 
                         "Available", JOptionPane.INFORMATION_MESSAGE);
                 } else {
-                    JOptionPane.showMessageDialog(this, 
-                        "Dr. " + selectedDoctor.getName() + " is NOT available on " + date + " at " + time + 
-                        "\nPlease choose a different time.", 
-                        "Not Available", JOptionPane.WARNING_MESSAGE);
+                    LocalTime gap = findNextGap(selectedDoctor, date, time, duration);
+                    if (gap == null) {
+                        JOptionPane.showMessageDialog(this, 
+                            "Dr. " + selectedDoctor.getName() + " is NOT available on " + date + " at " + time + 
+                            "\nPlease choose a different time.", 
+                            "Not Available", JOptionPane.WARNING_MESSAGE);
+                    } else {
+                        int choice = JOptionPane.showConfirmDialog(this,
+                            "Dr. " + selectedDoctor.getName() + " is NOT available on " + date + " at " + time +
+                            "\nThe next free " + duration + " minutes start at " + gap + ". Use that time?",
+                            "Not Available", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                        if (choice == JOptionPane.YES_OPTION) {
+                            timeField.setText(gap.toString());
+                        }
+                    }
                 }
             }
         } catch (DateTimeParseException e) {
@@ -275,6 +336,67 @@ public class AppointmentDialog extends JDialog {
         }
     }
     
+    /**
+     * Offer the least busy doctors of a specialization with room in the
+     * week from the entered date, and fill in the one picked
+     */
+    private void suggestDoctor() {
+        DoctorRecommender recommender = DoctorRecommender.getInstance();
+        if (!recommender.isReady()) {
+            JOptionPane.showMessageDialog(this, 
+                "Doctor suggestions are still loading. Please try again in a moment.", 
+                "Suggest Doctor", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        LocalDate fromDate;
+        try {
+            fromDate = LocalDate.parse(dateField.getText().trim());
+        } catch (DateTimeParseException e) {
+            fromDate = LocalDate.now();
+        }
+        
+        Set<String> specializations = new TreeSet<>();
+        for (DoctorSummary doctor : doctors) {
+            specializations.add(doctor.getSpecialization());
+        }
+        DoctorSummary selectedDoctor = (DoctorSummary) doctorCombo.getSelectedItem();
+        String specialization = (String) JOptionPane.showInputDialog(this, 
+            "Specialization:", "Suggest Doctor", JOptionPane.QUESTION_MESSAGE, null, 
+            specializations.toArray(), selectedDoctor != null ? selectedDoctor.getSpecialization() : null);
+        if (specialization == null) {
+            return;
+        }
+        
+        int duration = (Integer) durationCombo.getSelectedItem();
+        List<Recommendation> recommendations = recommender.recommend(specialization, fromDate, fromDate.plusDays(6),
+                                                                     LocalTime.MIDNIGHT, null, duration);
+        if (recommendations.isEmpty()) {
+            JOptionPane.showMessageDialog(this, 
+                "No " + specialization + " doctor has a free " + duration + "-minute slot in the week from " + fromDate + ".", 
+                "Suggest Doctor", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        Recommendation[] options = recommendations.subList(0, Math.min(5, recommendations.size()))
+                .toArray(new Recommendation[0]);
+        Recommendation choice = (Recommendation) JOptionPane.showInputDialog(this, 
+            "Doctors with the earliest free slot and fewest upcoming appointments:", "Suggest Doctor", 
+            JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (choice == null) {
+            return;
+        }
+        
+        for (int i = 0; i < doctorCombo.getItemCount(); i++) {
+            if (doctorCombo.getItemAt(i).getDoctorId() == choice.getDoctor().getDoctorId()) {
+                doctorCombo.setSelectedIndex(i);
+                break;
+            }
+        }
+        dateField.setText(choice.getDate().toString());
+        timeField.setText(choice.getTime().toString());
+    }
+    
     private boolean validateAndSave() {
         // Validate required fields
         if (patientCombo.getSelectedItem() == null) {
@@ -321,29 +443,31 @@ public class AppointmentDialog extends JDialog {
             return false;
         }
         
-        // Check if appointment is in the past
-        if (appointmentDate.isBefore(LocalDate.now()) || 
-            (appointmentDate.equals(LocalDate.now()) && appointmentTime.isBefore(LocalTime.now()))) {
-            showError("Cannot schedule appointments in the past.");
-            return false;
-        }
-        
-        // Check doctor availability (only for new appointments or if time changed)
-        Doctor selectedDoctor = (Doctor) doctorCombo.getSelectedItem();
-        if (appointment == null || 
-            !appointmentDate.equals(appointment.getAppointmentDate()) || 
-            !appointmentTime.equals(appointment.getAppointmentTime()) ||
-            selectedDoctor.getDoctorId() != appointment.getDoctorId()) {
-            
-            try {
-                if (!appointmentDAO.isDoctorAvailable(selectedDoctor.getDoctorId(), appointmentDate, appointmentTime)) {
-                    showError("Dr. " + selectedDoctor.getName() + " is not available at the selected time.");
-                    return false;
-                }
-            } catch (Exception e) {
-                showError("Error checking doctor availability: " + e.getMessage());
-                return false;
+        // Past times and doctor availability (only for new appointments or if the slot changed);
+        // a series checks every occurrence itself and reports the ones it skips
+        DoctorSummary selectedDoctor = (DoctorSummary) doctorCombo.getSelectedItem();
+        PatientSummary selectedPatient = (PatientSummary) patientCombo.getSelectedItem();
+        int duration = (Integer) durationCombo.getSelectedItem();
+        boolean series = appointment == null && repeatCombo.getSelectedIndex() > 0;
+        Appointment candidate = new Appointment(selectedPatient.getPatientId(), selectedDoctor.getDoctorId(),
+                                                appointmentDate, appointmentTime);
+        candidate.setDurationMinutes(duration);
+        candidate.setDoctorName(selectedDoctor.getName());
+        try {
+            if (series) {
+                appointmentService.validateDetails(candidate);
+            } else {
+                appointmentService.validate(candidate, appointment);
+            }
+        } catch (ServiceException e) {
+            if (e.getReason() == ServiceException.Reason.UNAVAILABLE) {
+                LocalTime gap = findNextGap(selectedDoctor, appointmentDate, appointmentTime, duration);
+                showError(e.getMessage() +
+                          (gap != null ? "\nThe next free " + duration + " minutes start at " + gap + "." : ""));
+            } else {
+                showError(e.getMessage());
             }
+            return false;
         }
         
         // Create appointment object
@@ -351,18 +475,35 @@ public class AppointmentDialog extends JDialog {
             appointment = new Appointment();
         }
         
-        Patient selectedPatient = (Patient) patientCombo.getSelectedItem();
-        
         appointment.setPatientId(selectedPatient.getPatientId());
         appointment.setDoctorId(selectedDoctor.getDoctorId());
         appointment.setAppointmentDate(appointmentDate);
         appointment.setAppointmentTime(appointmentTime);
+        appointment.setDurationMinutes(duration);
         appointment.setStatus((String) statusCombo.getSelectedItem());
         appointment.setNotes(notesField.getText().trim().isEmpty() ? null : notesField.getText().trim());
+        appointment.setPatientName(selectedPatient.getName());
+        appointment.setDoctorName(selectedDoctor.getName());
+        appointment.setDoctorSpecialization(selectedDoctor.getSpecialization());
         
         return true;
     }
     
+    private int editedAppointmentId() {
+        return appointment != null ? appointment.getAppointmentId() : 0;
+    }
+    
+    /**
+     * Earliest free stretch at or after the requested time, within the
+     * doctor's working hours when the time falls inside them
+     */
+    private LocalTime findNextGap(DoctorSummary doctor, LocalDate date, LocalTime from, int duration) {
+        DoctorSchedule schedule = DoctorSchedule.of(doctor);
+        LocalTime to = schedule.slotIndex(from) >= 0 ? schedule.getEnd() : null;
+        return ConflictDetector.getInstance().findGap(doctor.getDoctorId(), date, from, to, duration,
+                                                      editedAppointmentId());
+    }
+    
     private void showError(String message) {
         JOptionPane.showMessageDialog(this, message, "Validation Error", JOptionPane.ERROR_MESSAGE);
     }
@@ -374,4 +515,15 @@ public class AppointmentDialog extends JDialog {
     public Appointment getAppointment() {
         return appointment;
     }
+    
+    /**
+     * How the new appointment repeats, or null for a single appointment
+     */
+    public RecurrenceRule getRecurrence() {
+        int weeks = REPEAT_WEEKS[repeatCombo.getSelectedIndex()];
+        if (weeks == 0 || appointment == null) {
+            return null;
+        }
+        return RecurrenceRule.weekly(appointment.getAppointmentDate(), weeks, (Integer) occurrencesSpinner.getValue());
+    }
 }
@@ -1,20 +1,37 @@
 package com.hospital.ui;
 
 import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.ChangeSet;
+import com.hospital.dao.Criteria;
 import com.hospital.dao.PatientDAO;
 import com.hospital.dao.DoctorDAO;
+import com.hospital.dao.EndOfDayJob;
+import com.hospital.dao.UpdateResult;
 import com.hospital.model.Appointment;
-import com.hospital.model.Patient;
-import com.hospital.model.Doctor;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.PatientSummary;
+import com.hospital.model.DoctorSummary;
 import com.hospital.model.User;
+import com.hospital.model.WaitlistEntry;
+import com.hospital.scheduling.RecurrenceRule;
+import com.hospital.scheduling.SeriesResult;
+import com.hospital.scheduling.SeriesScheduler;
+import com.hospital.scheduling.WaitlistBackfill;
+import com.hospital.service.AppointmentService;
+import com.hospital.service.ServiceException;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Appointment Management Frame
@@ -22,17 +39,33 @@ import java.util.List;
 public class AppointmentManagementFrame extends JFrame {
     private User currentUser;
     private AppointmentDAO appointmentDAO;
+    private AppointmentService appointmentService;
     private PatientDAO patientDAO;
     private DoctorDAO doctorDAO;
     private JTable appointmentTable;
-    private DefaultTableModel tableModel;
+    private KeyedTableModel tableModel;
     private JTextField searchField;
-    private JButton addButton, editButton, cancelButton, deleteButton, refreshButton;
+    private JButton addButton, editButton, cancelButton, deleteButton, capacityButton, waitlistButton, walkInButton, endOfDayButton, refreshButton;
     private JComboBox<String> statusFilter;
+    private ServerSortHeader<AppointmentDAO.Field> sortHeader;
+    // Current search term and status filter, applied by the database together with the sort order
+    private String searchTerm = "";
+    private String statusFilterValue = "All";
+    // High-water mark of the last refresh; null when the table must be fully reloaded
+    private Timestamp lastRefresh;
+    // Refresh from other desks' writes; skipped while a full reload is pending
+    private final ChangeFeed.Listener changeListener = events -> {
+        if (lastRefresh != null) {
+            loadAppointments();
+        }
+    };
+    // Tells the desk when a freed slot went to someone on the waitlist
+    private final WaitlistBackfill.Listener backfillListener = this::showBackfill;
     
     public AppointmentManagementFrame(User user) {
         this.currentUser = user;
         this.appointmentDAO = new AppointmentDAO();
+        this.appointmentService = new AppointmentService();
         this.patientDAO = new PatientDAO();
         this.doctorDAO = new DoctorDAO();
         
@@ -40,6 +73,10 @@ public class AppointmentManagementFrame extends JFrame {
         setupLayout();
         setupEventHandlers();
         loadAppointments();
+        ChangeFeed.getInstance().addListener("appointments", changeListener);
+        ChangeFeed.getInstance().addListener("patients", changeListener);
+        ChangeFeed.getInstance().addListener("doctors", changeListener);
+        WaitlistBackfill.getInstance().addListener(backfillListener);
         
         setTitle("Appointment Management");
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -50,12 +87,10 @@ public class AppointmentManagementFrame extends JFrame {
     private void initializeComponents() {
         // Table setup
         String[] columnNames = {"ID", "Patient", "Doctor", "Specialization", "Date", "Time", "Status", "Notes"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new KeyedTableModel(columnNames);
+        // Same order as the default ORDER BY in buildCriteria, for rows a delta inserts
+        tableModel.setRowOrder(Comparator.comparing((Object[] row) -> (LocalDate) row[4])
+                .thenComparing(row -> (LocalTime) row[5]).reversed());
         
         appointmentTable = new JTable(tableModel);
         appointmentTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -63,6 +98,14 @@ public class AppointmentManagementFrame extends JFrame {
         appointmentTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
         appointmentTable.setFont(new Font("Arial", Font.PLAIN, 12));
         
+        // Header clicks sort in the database
+        AppointmentDAO.Field[] columnFields = {
+            AppointmentDAO.Field.ID, AppointmentDAO.Field.PATIENT_NAME, AppointmentDAO.Field.DOCTOR_NAME,
+            AppointmentDAO.Field.SPECIALIZATION, AppointmentDAO.Field.DATE, AppointmentDAO.Field.TIME,
+            AppointmentDAO.Field.STATUS, null
+        };
+        sortHeader = new ServerSortHeader<>(appointmentTable, columnNames, columnFields, this::reloadAppointments);
+        
         // Search field
         searchField = new JTextField(20);
         searchField.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -77,6 +120,10 @@ public class AppointmentManagementFrame extends JFrame {
         editButton = createStyledButton("Edit Appointment", new Color(0, 123, 255));
         cancelButton = createStyledButton("Cancel Appointment", new Color(255, 193, 7));
         deleteButton = createStyledButton("Delete Appointment", new Color(220, 53, 69));
+        capacityButton = createStyledButton("Capacity", new Color(23, 162, 184));
+        waitlistButton = createStyledButton("Waitlist", new Color(253, 126, 20));
+        walkInButton = createStyledButton("Walk-ins", new Color(32, 201, 151));
+        endOfDayButton = createStyledButton("End of Day", new Color(111, 66, 193));
         refreshButton = createStyledButton("Refresh", new Color(108, 117, 125));
     }
     
@@ -138,6 +185,10 @@ public class AppointmentManagementFrame extends JFrame {
         buttonPanel.add(editButton);
         buttonPanel.add(cancelButton);
         buttonPanel.add(deleteButton);
+        buttonPanel.add(capacityButton);
+        buttonPanel.add(waitlistButton);
+        buttonPanel.add(walkInButton);
+        buttonPanel.add(endOfDayButton);
         buttonPanel.add(refreshButton);
         
         // Top Panel combining filter and buttons
@@ -164,28 +215,33 @@ public class AppointmentManagementFrame extends JFrame {
         editButton.addActionListener(e -> openEditAppointmentDialog());
         cancelButton.addActionListener(e -> cancelSelectedAppointment());
         deleteButton.addActionListener(e -> deleteSelectedAppointment());
+        capacityButton.addActionListener(e -> new CapacityFrame(currentUser).setVisible(true));
+        waitlistButton.addActionListener(e -> new WaitlistFrame(currentUser).setVisible(true));
+        walkInButton.addActionListener(e -> new TokenDeskFrame(currentUser).setVisible(true));
+        endOfDayButton.addActionListener(e -> runEndOfDay());
         refreshButton.addActionListener(e -> loadAppointments());
     }
     
     private void loadAppointments() {
         SwingUtilities.invokeLater(() -> {
             try {
-                tableModel.setRowCount(0);
-                List<Appointment> appointments = appointmentDAO.getAllAppointments();
+                if (sortHeader.isActive()) {
+                    // Only the database can place changed rows in a column sort's order
+                    lastRefresh = null;
+                }
+                ChangeSet<AppointmentSummary> changes = appointmentDAO.getAppointmentChangesSince(lastRefresh, buildCriteria());
                 
-                for (Appointment appointment : appointments) {
-                    Object[] row = {
-                        appointment.getAppointmentId(),
-                        appointment.getPatientName(),
-                        appointment.getDoctorName(),
-                        appointment.getDoctorSpecialization(),
-                        appointment.getAppointmentDate(),
-                        appointment.getAppointmentTime(),
-                        appointment.getStatus(),
-                        appointment.getNotes()
-                    };
-                    tableModel.addRow(row);
+                List<Object[]> rows = new ArrayList<>();
+                for (AppointmentSummary appointment : changes.getChangedRows()) {
+                    rows.add(toRow(appointment));
                 }
+                
+                if (changes.isFullLoad()) {
+                    tableModel.setRows(rows);
+                } else {
+                    tableModel.applyChanges(rows, changes.getDeletedIds());
+                }
+                lastRefresh = changes.getHighWaterMark();
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this, 
                     "Error loading appointments: " + e.getMessage(), 
@@ -195,93 +251,70 @@ public class AppointmentManagementFrame extends JFrame {
         });
     }
     
-    private void searchAppointments() {
-        String searchTerm = searchField.getText().trim();
-        
-        if (searchTerm.isEmpty()) {
-            loadAppointments();
-            return;
+    /**
+     * Discard the delta state and reload with the current search, filter and sort
+     */
+    private void reloadAppointments() {
+        lastRefresh = null;
+        loadAppointments();
+    }
+    
+    private Criteria<AppointmentDAO.Field> buildCriteria() {
+        Criteria<AppointmentDAO.Field> criteria = new Criteria<>();
+        if (!searchTerm.isEmpty()) {
+            criteria.anyContains(searchTerm, AppointmentDAO.Field.PATIENT_NAME,
+                                 AppointmentDAO.Field.DOCTOR_NAME, AppointmentDAO.Field.SPECIALIZATION);
+        }
+        if (!"All".equals(statusFilterValue)) {
+            criteria.equalTo(AppointmentDAO.Field.STATUS, statusFilterValue);
         }
+        if (!sortHeader.applyTo(criteria)) {
+            criteria.sortBy(AppointmentDAO.Field.DATE, Criteria.Direction.DESC)
+                    .sortBy(AppointmentDAO.Field.TIME, Criteria.Direction.DESC);
+        }
+        return criteria;
+    }
+    
+    private Object[] toRow(AppointmentSummary appointment) {
+        return new Object[] {
+            appointment.getAppointmentId(),
+            appointment.getPatientName(),
+            appointment.getDoctorName(),
+            appointment.getDoctorSpecialization(),
+            appointment.getAppointmentDate(),
+            appointment.getAppointmentTime(),
+            appointment.getStatus(),
+            appointment.getNotesPreview()
+        };
+    }
+    
+    private void searchAppointments() {
+        searchTerm = searchField.getText().trim();
+        reloadAppointments();
         
-        SwingUtilities.invokeLater(() -> {
-            try {
-                tableModel.setRowCount(0);
-                List<Appointment> allAppointments = appointmentDAO.getAllAppointments();
-                
-                for (Appointment appointment : allAppointments) {
-                    if (appointment.getPatientName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        appointment.getDoctorName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        appointment.getDoctorSpecialization().toLowerCase().contains(searchTerm.toLowerCase())) {
-                        
-                        Object[] row = {
-                            appointment.getAppointmentId(),
-                            appointment.getPatientName(),
-                            appointment.getDoctorName(),
-                            appointment.getDoctorSpecialization(),
-                            appointment.getAppointmentDate(),
-                            appointment.getAppointmentTime(),
-                            appointment.getStatus(),
-                            appointment.getNotes()
-                        };
-                        tableModel.addRow(row);
-                    }
-                }
-                
+        if (!searchTerm.isEmpty()) {
+            // Queued after the reload above, so the table is already filled
+            SwingUtilities.invokeLater(() -> {
                 if (tableModel.getRowCount() == 0) {
                     JOptionPane.showMessageDialog(this, 
                         "No appointments found matching: " + searchTerm, 
                         "Search Results", JOptionPane.INFORMATION_MESSAGE);
                 }
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Error searching appointments: " + e.getMessage(), 
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            }
-        });
+            });
+        }
     }
     
     private void filterAppointments() {
-        String selectedStatus = (String) statusFilter.getSelectedItem();
-        
-        if ("All".equals(selectedStatus)) {
-            loadAppointments();
-            return;
-        }
-        
-        SwingUtilities.invokeLater(() -> {
-            try {
-                tableModel.setRowCount(0);
-                List<Appointment> allAppointments = appointmentDAO.getAllAppointments();
-                
-                for (Appointment appointment : allAppointments) {
-                    if (appointment.getStatus().equals(selectedStatus)) {
-                        Object[] row = {
-                            appointment.getAppointmentId(),
-                            appointment.getPatientName(),
-                            appointment.getDoctorName(),
-                            appointment.getDoctorSpecialization(),
-                            appointment.getAppointmentDate(),
-                            appointment.getAppointmentTime(),
-                            appointment.getStatus(),
-                            appointment.getNotes()
-                        };
-                        tableModel.addRow(row);
-                    }
-                }
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Error filtering appointments: " + e.getMessage(), 
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            }
-        });
+        statusFilterValue = (String) statusFilter.getSelectedItem();
+        reloadAppointments();
     }
     
     private void openBookAppointmentDialog() {
         try {
-            List<Patient> patients = patientDAO.getAllPatients();
-            List<Doctor> doctors = doctorDAO.getAllDoctors();
+            List<PatientSummary> patients = patientDAO.findPatientSummaries(new Criteria<PatientDAO.Field>()
+                    .sortBy(PatientDAO.Field.NAME, Criteria.Direction.ASC));
+            List<DoctorSummary> doctors = doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>()
+                    .sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC));
             
             if (patients.isEmpty()) {
                 JOptionPane.showMessageDialog(this, 
@@ -300,19 +333,20 @@ public class AppointmentManagementFrame extends JFrame {
             AppointmentDialog dialog = new AppointmentDialog(this, "Book New Appointment", null, patients, doctors);
             dialog.setVisible(true);
             
-            if (dialog.isConfirmed()) {
+            if (dialog.isConfirmed() && dialog.getRecurrence() != null) {
+                bookSeries(dialog.getAppointment(), dialog.getRecurrence());
+            } else if (dialog.isConfirmed()) {
                 Appointment appointment = dialog.getAppointment();
                 try {
-                    if (appointmentDAO.bookAppointment(appointment)) {
-                        JOptionPane.showMessageDialog(this, 
-                            "Appointment booked successfully!", 
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
-                        loadAppointments();
-                    } else {
-                        JOptionPane.showMessageDialog(this, 
-                            "Failed to book appointment.", 
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                    }
+                    Appointment saved = appointmentService.book(appointment);
+                    JOptionPane.showMessageDialog(this, 
+                        "Appointment booked successfully!", 
+                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                    tableModel.putRow(toRow(AppointmentSummary.of(saved)));
+                } catch (ServiceException e) {
+                    JOptionPane.showMessageDialog(this, 
+                        e.getMessage(), 
+                        "Error", JOptionPane.ERROR_MESSAGE);
                 } catch (Exception e) {
                     JOptionPane.showMessageDialog(this, 
                         "Error booking appointment: " + e.getMessage(), 
@@ -328,6 +362,36 @@ public class AppointmentManagementFrame extends JFrame {
         }
     }
     
+    /**
+     * Book every occurrence of a recurring series and list the ones skipped
+     */
+    private void bookSeries(Appointment template, RecurrenceRule recurrence) {
+        SeriesResult result = new SeriesScheduler().book(template, recurrence);
+        if (result.isFailed()) {
+            JOptionPane.showMessageDialog(this, 
+                "Failed to book the appointment series.", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        for (Appointment appointment : result.getBooked()) {
+            tableModel.putRow(toRow(AppointmentSummary.of(appointment)));
+        }
+        StringBuilder message = new StringBuilder();
+        message.append("Booked ").append(result.getBooked().size()).append(" of ")
+               .append(recurrence.getOccurrences()).append(" appointments.");
+        if (!result.getSkipped().isEmpty()) {
+            message.append("\n\nSkipped:");
+            for (Map.Entry<LocalDate, String> entry : result.getSkipped().entrySet()) {
+                message.append("\n").append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+        }
+        JOptionPane.showMessageDialog(this, 
+            message.toString(), 
+            "Appointment Series", 
+            result.getSkipped().isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
+    
     private void openEditAppointmentDialog() {
         int selectedRow = appointmentTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -337,12 +401,16 @@ public class AppointmentManagementFrame extends JFrame {
             return;
         }
         
-        int appointmentId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        
+        editAppointment((Integer) tableModel.getValueAt(selectedRow, 0));
+    }
+    
+    private void editAppointment(int appointmentId) {
         try {
             Appointment appointment = appointmentDAO.getAppointmentById(appointmentId);
-            List<Patient> patients = patientDAO.getAllPatients();
-            List<Doctor> doctors = doctorDAO.getAllDoctors();
+            List<PatientSummary> patients = patientDAO.findPatientSummaries(new Criteria<PatientDAO.Field>()
+                    .sortBy(PatientDAO.Field.NAME, Criteria.Direction.ASC));
+            List<DoctorSummary> doctors = doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>()
+                    .sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC));
             
             if (appointment != null) {
                 AppointmentDialog dialog = new AppointmentDialog(this, "Edit Appointment", appointment, patients, doctors);
@@ -352,18 +420,35 @@ public class AppointmentManagementFrame extends JFrame {
                     Appointment updatedAppointment = dialog.getAppointment();
                     updatedAppointment.setAppointmentId(appointmentId);
                     
-                    if (appointmentDAO.updateAppointment(updatedAppointment)) {
+                    UpdateResult result = appointmentService.update(updatedAppointment);
+                    if (result == UpdateResult.UPDATED) {
                         JOptionPane.showMessageDialog(this, 
                             "Appointment updated successfully!", 
                             "Success", JOptionPane.INFORMATION_MESSAGE);
                         loadAppointments();
-                    } else {
+                    } else if (result == UpdateResult.UNCHANGED) {
                         JOptionPane.showMessageDialog(this, 
-                            "Failed to update appointment.", 
-                            "Error", JOptionPane.ERROR_MESSAGE);
+                            "No changes to save.", 
+                            "Nothing Changed", JOptionPane.INFORMATION_MESSAGE);
+                    } else if (result == UpdateResult.CONFLICT) {
+                        JOptionPane.showMessageDialog(this, 
+                            "This appointment was changed at another desk after you opened it.\n" +
+                            "Your changes were not saved. The form will reopen with the latest details.", 
+                            "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+                        loadAppointments();
+                        editAppointment(appointmentId);
+                    } else if (result == UpdateResult.NOT_FOUND) {
+                        JOptionPane.showMessageDialog(this, 
+                            "This appointment has been deleted at another desk.", 
+                            "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+                        loadAppointments();
                     }
                 }
             }
+        } catch (ServiceException e) {
+            JOptionPane.showMessageDialog(this, 
+                e.getMessage(), 
+                "Error", JOptionPane.ERROR_MESSAGE);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, 
                 "Error editing appointment: " + e.getMessage(), 
@@ -393,16 +478,15 @@ public class AppointmentManagementFrame extends JFrame {
         
         if (choice == JOptionPane.YES_OPTION) {
             try {
-                if (appointmentDAO.cancelAppointment(appointmentId)) {
-                    JOptionPane.showMessageDialog(this, 
-                        "Appointment cancelled successfully!", 
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadAppointments();
-                } else {
-                    JOptionPane.showMessageDialog(this, 
-                        "Failed to cancel appointment.", 
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                appointmentService.cancel(appointmentId);
+                JOptionPane.showMessageDialog(this, 
+                    "Appointment cancelled successfully!", 
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                loadAppointments();
+            } catch (ServiceException e) {
+                JOptionPane.showMessageDialog(this, 
+                    e.getMessage(), 
+                    "Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this, 
                     "Error cancelling appointment: " + e.getMessage(), 
@@ -412,6 +496,15 @@ public class AppointmentManagementFrame extends JFrame {
         }
     }
     
+    private void showBackfill(WaitlistEntry entry, AppointmentSummary slot) {
+        loadAppointments();
+        JOptionPane.showMessageDialog(this, 
+            "A freed slot with Dr. " + (slot.getDoctorName() != null ? slot.getDoctorName() : "#" + slot.getDoctorId()) +
+            " on " + slot.getAppointmentDate() + " was booked for " + entry.getPatientName() + 
+            " from the waitlist.", 
+            "Waitlist", JOptionPane.INFORMATION_MESSAGE);
+    }
+    
     private void deleteSelectedAppointment() {
         int selectedRow = appointmentTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -451,4 +544,49 @@ public class AppointmentManagementFrame extends JFrame {
             }
         }
     }
+    
+    /**
+     * Run the status transition job now instead of waiting for the nightly run
+     */
+    private void runEndOfDay() {
+        int choice = JOptionPane.showConfirmDialog(this, 
+            "Apply end-of-day status changes and archive old appointments now?", 
+            "End of Day", 
+            JOptionPane.YES_NO_OPTION, 
+            JOptionPane.QUESTION_MESSAGE);
+        
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
+        }
+        
+        endOfDayButton.setEnabled(false);
+        EndOfDayJob.getInstance().runNow().whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            endOfDayButton.setEnabled(true);
+            if (error != null || !report.getFailedRules().isEmpty() || report.isArchiveFailed()) {
+                JOptionPane.showMessageDialog(this, 
+                    "End-of-day processing did not finish. " + (report != null ? report : error.getMessage()), 
+                    "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            
+            StringBuilder message = new StringBuilder("End-of-day processing complete.\n");
+            for (Map.Entry<EndOfDayJob.Rule, Integer> entry : report.getCounts().entrySet()) {
+                message.append("\n").append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+            message.append("\nArchived: ").append(report.getArchived());
+            JOptionPane.showMessageDialog(this, 
+                message.toString(), 
+                "End of Day", JOptionPane.INFORMATION_MESSAGE);
+            loadAppointments();
+        }));
+    }
+    
+    @Override
+    public void dispose() {
+        ChangeFeed.getInstance().removeListener("appointments", changeListener);
+        ChangeFeed.getInstance().removeListener("patients", changeListener);
+        ChangeFeed.getInstance().removeListener("doctors", changeListener);
+        WaitlistBackfill.getInstance().removeListener(backfillListener);
+        super.dispose();
+    }
 }
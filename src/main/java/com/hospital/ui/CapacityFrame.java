@@ -0,0 +1,170 @@
+package com.hospital.ui;
+
+import com.hospital.model.User;
+import com.hospital.scheduling.CapacityEngine;
+import com.hospital.scheduling.CapacityMatrix;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Free slots per doctor per day for the next one or two weeks.
+ * Backed by a CapacityEngine, so the grid updates as bookings change.
+ */
+public class CapacityFrame extends JFrame {
+    private static final int MAX_DAYS = 14;
+    private static final DateTimeFormatter DAY_HEADER = DateTimeFormatter.ofPattern("EEE dd");
+    
+    private User currentUser;
+    private CapacityEngine engine;
+    private JTable capacityTable;
+    private DefaultTableModel tableModel;
+    private JComboBox<String> rangeCombo;
+    private JLabel statusLabel;
+    private final CapacityEngine.Listener capacityListener = this::showMatrix;
+    
+    public CapacityFrame(User user) {
+        this.currentUser = user;
+        this.engine = new CapacityEngine(MAX_DAYS);
+        
+        initializeComponents();
+        setupLayout();
+        engine.addListener(capacityListener);
+        engine.start();
+        
+        setTitle("Doctor Capacity");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(1200, 600);
+        setLocationRelativeTo(null);
+    }
+    
+    private void initializeComponents() {
+        tableModel = new DefaultTableModel() {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        
+        capacityTable = new JTable(tableModel);
+        capacityTable.setRowHeight(25);
+        capacityTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
+        capacityTable.setFont(new Font("Arial", Font.PLAIN, 12));
+        capacityTable.setDefaultRenderer(Object.class, new CapacityCellRenderer());
+        
+        rangeCombo = new JComboBox<>(new String[] {"Next 7 days", "Next 14 days"});
+        rangeCombo.setFont(new Font("Arial", Font.PLAIN, 12));
+        rangeCombo.addActionListener(e -> showMatrix(engine.getMatrix()));
+        
+        statusLabel = new JLabel("Loading...");
+        statusLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout());
+        
+        // Header Panel
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setBackground(new Color(0, 123, 255));
+        headerPanel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
+        
+        JLabel titleLabel = new JLabel("Doctor Capacity (free / total slots)");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(Color.WHITE);
+        
+        headerPanel.add(titleLabel, BorderLayout.WEST);
+        
+        // Filter Panel
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.setBackground(Color.WHITE);
+        filterPanel.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        
+        JLabel rangeLabel = new JLabel("Show:");
+        rangeLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        
+        filterPanel.add(rangeLabel);
+        filterPanel.add(rangeCombo);
+        filterPanel.add(Box.createHorizontalStrut(20));
+        filterPanel.add(statusLabel);
+        
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(headerPanel, BorderLayout.NORTH);
+        topPanel.add(filterPanel, BorderLayout.SOUTH);
+        
+        // Table Panel
+        JScrollPane scrollPane = new JScrollPane(capacityTable);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(0, 20, 20, 20));
+        
+        add(topPanel, BorderLayout.NORTH);
+        add(scrollPane, BorderLayout.CENTER);
+    }
+    
+    private void showMatrix(CapacityMatrix matrix) {
+        if (matrix == null) {
+            return;
+        }
+        int days = Math.min(matrix.getDayCount(), rangeCombo.getSelectedIndex() == 0 ? 7 : MAX_DAYS);
+        
+        String[] columnNames = new String[days + 2];
+        columnNames[0] = "Doctor";
+        columnNames[1] = "Specialization";
+        for (int day = 0; day < days; day++) {
+            columnNames[day + 2] = matrix.getDate(day).format(DAY_HEADER);
+        }
+        
+        Object[][] rows = new Object[matrix.getDoctorCount()][];
+        for (int row = 0; row < matrix.getDoctorCount(); row++) {
+            Object[] cells = new Object[days + 2];
+            cells[0] = matrix.getDoctor(row).getName();
+            cells[1] = matrix.getDoctor(row).getSpecialization();
+            for (int day = 0; day < days; day++) {
+                int total = matrix.getTotalSlots(row, day);
+                cells[day + 2] = total == 0 ? "off" : matrix.getFreeSlots(row, day) + " / " + total;
+            }
+            rows[row] = cells;
+        }
+        
+        tableModel.setDataVector(rows, columnNames);
+        statusLabel.setText(matrix.getDoctorCount() + " doctors, updated " +
+                            LocalTime.now().withNano(0));
+    }
+    
+    @Override
+    public void dispose() {
+        engine.removeListener(capacityListener);
+        engine.stop();
+        super.dispose();
+    }
+    
+    /**
+     * Colours a "free / total" cell by how full the day is
+     */
+    private static class CapacityCellRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            setHorizontalAlignment(column < 2 ? SwingConstants.LEFT : SwingConstants.CENTER);
+            if (isSelected || column < 2 || !(value instanceof String) || "off".equals(value)) {
+                setBackground(isSelected ? table.getSelectionBackground() : Color.WHITE);
+                return this;
+            }
+            
+            String[] parts = ((String) value).split(" / ");
+            int free = Integer.parseInt(parts[0]);
+            int total = Integer.parseInt(parts[1]);
+            if (free == 0) {
+                setBackground(new Color(248, 215, 218));
+            } else if (free * 4 < total) {
+                setBackground(new Color(255, 243, 205));
+            } else {
+                setBackground(new Color(212, 237, 218));
+            }
+            return this;
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.hospital.ui;
 
 import com.hospital.model.User;
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.EndOfDayJob;
 import com.hospital.dao.PatientDAO;
 import com.hospital.dao.DoctorDAO;
 import com.hospital.dao.AppointmentDAO;
+import com.hospital.scheduling.DoctorRecommender;
+import com.hospital.scheduling.ReminderScheduler;
+import com.hospital.scheduling.TokenQueue;
+import com.hospital.scheduling.WaitlistBackfill;
+import com.hospital.service.AuthService;
+import com.hospital.service.Session;
 
 import javax.swing.*;
 import java.awt.*;
@@ -17,6 +25,7 @@ import java.time.format.DateTimeFormatter;
  */
 public class DashboardFrame extends JFrame {
     private User currentUser;
+    private Session session;
     private JLabel welcomeLabel;
     private JLabel timeLabel;
     private Timer timeTimer;
@@ -31,8 +40,15 @@ public class DashboardFrame extends JFrame {
     private DoctorDAO doctorDAO;
     private AppointmentDAO appointmentDAO;
     
-    public DashboardFrame(User user) {
-        this.currentUser = user;
+    // Keeps the statistics current when any desk changes data
+    private final ChangeFeed.Listener changeListener = events -> updateStatistics();
+    // Shows the outcome of the nightly end-of-day run in the footer
+    private final EndOfDayJob.Listener endOfDayListener = report -> SwingUtilities.invokeLater(() -> showEndOfDay(report));
+    private JLabel footerLabel;
+    
+    public DashboardFrame(Session session) {
+        this.session = session;
+        this.currentUser = session.getUser();
         this.patientDAO = new PatientDAO();
         this.doctorDAO = new DoctorDAO();
         this.appointmentDAO = new AppointmentDAO();
@@ -42,6 +58,7 @@ public class DashboardFrame extends JFrame {
         setupEventHandlers();
         updateStatistics();
         startTimeUpdater();
+        startChangeFeed();
         
         setTitle("Hospital Management System - Dashboard");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -133,7 +150,7 @@ public class DashboardFrame extends JFrame {
         footerPanel.setBackground(new Color(52, 58, 64));
         footerPanel.setPreferredSize(new Dimension(0, 40));
         
-        JLabel footerLabel = new JLabel("Hospital Management System © 2024");
+        footerLabel = new JLabel("Hospital Management System © 2024");
         footerLabel.setFont(new Font("Arial", Font.PLAIN, 12));
         footerLabel.setForeground(Color.WHITE);
         footerLabel.setHorizontalAlignment(SwingConstants.CENTER);
@@ -285,14 +302,43 @@ public class DashboardFrame extends JFrame {
         JButton settingsBtn = (JButton) menuPanel.getComponent(4);
         JButton logoutBtn = (JButton) menuPanel.getComponent(5);
         
-        patientsBtn.addActionListener(e -> openPatientManagement());
-        doctorsBtn.addActionListener(e -> openDoctorManagement());
-        appointmentsBtn.addActionListener(e -> openAppointmentManagement());
+        patientsBtn.addActionListener(e -> {
+            if (checkSession()) {
+                openPatientManagement();
+            }
+        });
+        doctorsBtn.addActionListener(e -> {
+            if (checkSession()) {
+                openDoctorManagement();
+            }
+        });
+        appointmentsBtn.addActionListener(e -> {
+            if (checkSession()) {
+                openAppointmentManagement();
+            }
+        });
         reportsBtn.addActionListener(e -> openReports());
         settingsBtn.addActionListener(e -> openSettings());
         logoutBtn.addActionListener(e -> logout());
     }
     
+    /**
+     * Keep the session alive, or send the user back to the login screen if
+     * it has been idle too long
+     */
+    private boolean checkSession() {
+        if (AuthService.getInstance().getSession(session.getToken()) != null) {
+            return true;
+        }
+        JOptionPane.showMessageDialog(this, 
+            "Your session ended after " + AuthService.IDLE_TIMEOUT.toMinutes() + 
+            " minutes without activity. Please log in again.", 
+            "Session Expired", JOptionPane.WARNING_MESSAGE);
+        dispose();
+        new LoginFrame().setVisible(true);
+        return false;
+    }
+    
     private void openPatientManagement() {
         new PatientManagementFrame(currentUser).setVisible(true);
     }
@@ -320,6 +366,7 @@ public class DashboardFrame extends JFrame {
             JOptionPane.YES_NO_OPTION);
         
         if (choice == JOptionPane.YES_OPTION) {
+            AuthService.getInstance().logout(session.getToken());
             dispose();
             new LoginFrame().setVisible(true);
         }
@@ -328,9 +375,9 @@ public class DashboardFrame extends JFrame {
     private void updateStatistics() {
         SwingUtilities.invokeLater(() -> {
             try {
-                int totalPatients = patientDAO.getAllPatients().size();
-                int totalDoctors = doctorDAO.getAllDoctors().size();
-                int todayAppointments = appointmentDAO.getAppointmentsByDate(java.time.LocalDate.now()).size();
+                int totalPatients = patientDAO.countPatients();
+                int totalDoctors = doctorDAO.countDoctors();
+                int todayAppointments = appointmentDAO.countAppointmentsByDate(java.time.LocalDate.now());
                 
                 totalPatientsLabel.setText(String.valueOf(totalPatients));
                 totalDoctorsLabel.setText(String.valueOf(totalDoctors));
@@ -358,11 +405,42 @@ public class DashboardFrame extends JFrame {
         timeLabel.setText(now.format(formatter));
     }
     
+    private void showEndOfDay(EndOfDayJob.Report report) {
+        boolean failed = !report.getFailedRules().isEmpty() || report.isArchiveFailed();
+        footerLabel.setText("End of day " + (failed ? "did not finish: " : "done: ") + report);
+        footerLabel.setForeground(failed ? new Color(255, 193, 7) : Color.WHITE);
+    }
+    
+    private void startChangeFeed() {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.addListener("patients", changeListener);
+        feed.addListener("doctors", changeListener);
+        feed.addListener("appointments", changeListener);
+        feed.start();
+        EndOfDayJob.getInstance().addListener(endOfDayListener);
+        EndOfDayJob.getInstance().start();
+        DoctorRecommender.getInstance().start();
+        WaitlistBackfill.getInstance().start();
+        TokenQueue.getInstance().start();
+        ReminderScheduler.getInstance().start();
+    }
+    
     @Override
     public void dispose() {
         if (timeTimer != null) {
             timeTimer.stop();
         }
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.removeListener("patients", changeListener);
+        feed.removeListener("doctors", changeListener);
+        feed.removeListener("appointments", changeListener);
+        feed.stop();
+        EndOfDayJob.getInstance().removeListener(endOfDayListener);
+        EndOfDayJob.getInstance().stop();
+        DoctorRecommender.getInstance().stop();
+        WaitlistBackfill.getInstance().stop();
+        TokenQueue.getInstance().stop();
+        ReminderScheduler.getInstance().stop();
         super.dispose();
     }
 }
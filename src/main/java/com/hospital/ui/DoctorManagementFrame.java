@@ -1,14 +1,27 @@
 package com.hospital.ui;
 
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.ChangeSet;
+import com.hospital.dao.Criteria;
 import com.hospital.dao.DoctorDAO;
+import com.hospital.dao.UpdateResult;
+import com.hospital.model.Appointment;
 import com.hospital.model.Doctor;
+import com.hospital.model.DoctorSummary;
 import com.hospital.model.User;
+import com.hospital.scheduling.BlackoutPlan;
+import com.hospital.scheduling.BlackoutPlanner;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -18,9 +31,20 @@ public class DoctorManagementFrame extends JFrame {
     private User currentUser;
     private DoctorDAO doctorDAO;
     private JTable doctorTable;
-    private DefaultTableModel tableModel;
+    private KeyedTableModel tableModel;
     private JTextField searchField;
-    private JButton addButton, editButton, deleteButton, refreshButton;
+    private JButton addButton, editButton, deleteButton, scheduleButton, leaveButton, refreshButton;
+    private ServerSortHeader<DoctorDAO.Field> sortHeader;
+    // Current search term, applied by the database together with the sort order
+    private String searchTerm = "";
+    // High-water mark of the last refresh; null when the table must be fully reloaded
+    private Timestamp lastRefresh;
+    // Refresh from other desks' writes; skipped while a full reload is pending
+    private final ChangeFeed.Listener changeListener = events -> {
+        if (lastRefresh != null) {
+            loadDoctors();
+        }
+    };
     
     public DoctorManagementFrame(User user) {
         this.currentUser = user;
@@ -30,6 +54,7 @@ public class DoctorManagementFrame extends JFrame {
         setupLayout();
         setupEventHandlers();
         loadDoctors();
+        ChangeFeed.getInstance().addListener("doctors", changeListener);
         
         setTitle("Doctor Management");
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -40,12 +65,9 @@ public class DoctorManagementFrame extends JFrame {
     private void initializeComponents() {
         // Table setup
         String[] columnNames = {"ID", "Name", "Specialization", "Phone", "Email", "Experience", "Qualification", "Fee", "Available Days", "Available Time"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new KeyedTableModel(columnNames);
+        // Same order as the default ORDER BY in buildCriteria, for rows a delta inserts
+        tableModel.setRowOrder(Comparator.comparing((Object[] row) -> (String) row[1], String.CASE_INSENSITIVE_ORDER));
         
         doctorTable = new JTable(tableModel);
         doctorTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -53,6 +75,14 @@ public class DoctorManagementFrame extends JFrame {
         doctorTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
         doctorTable.setFont(new Font("Arial", Font.PLAIN, 12));
         
+        // Header clicks sort in the database
+        DoctorDAO.Field[] columnFields = {
+            DoctorDAO.Field.ID, DoctorDAO.Field.NAME, DoctorDAO.Field.SPECIALIZATION, DoctorDAO.Field.PHONE,
+            DoctorDAO.Field.EMAIL, DoctorDAO.Field.EXPERIENCE_YEARS, DoctorDAO.Field.QUALIFICATION,
+            DoctorDAO.Field.CONSULTATION_FEE, DoctorDAO.Field.AVAILABLE_DAYS, DoctorDAO.Field.AVAILABLE_TIME
+        };
+        sortHeader = new ServerSortHeader<>(doctorTable, columnNames, columnFields, this::reloadDoctors);
+        
         // Search field
         searchField = new JTextField(20);
         searchField.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -61,6 +91,8 @@ public class DoctorManagementFrame extends JFrame {
         addButton = createStyledButton("Add Doctor", new Color(40, 167, 69));
         editButton = createStyledButton("Edit Doctor", new Color(0, 123, 255));
         deleteButton = createStyledButton("Delete Doctor", new Color(220, 53, 69));
+        scheduleButton = createStyledButton("View Schedule", new Color(23, 162, 184));
+        leaveButton = createStyledButton("Doctor Leave", new Color(255, 193, 7));
         refreshButton = createStyledButton("Refresh", new Color(108, 117, 125));
     }
     
@@ -113,6 +145,8 @@ public class DoctorManagementFrame extends JFrame {
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
+        buttonPanel.add(scheduleButton);
+        buttonPanel.add(leaveButton);
         buttonPanel.add(refreshButton);
         
         // Top Panel combining search and buttons
@@ -139,30 +173,31 @@ public class DoctorManagementFrame extends JFrame {
         addButton.addActionListener(e -> openAddDoctorDialog());
         editButton.addActionListener(e -> openEditDoctorDialog());
         deleteButton.addActionListener(e -> deleteSelectedDoctor());
+        scheduleButton.addActionListener(e -> openSchedule());
+        leaveButton.addActionListener(e -> planLeave());
         refreshButton.addActionListener(e -> loadDoctors());
     }
     
     private void loadDoctors() {
         SwingUtilities.invokeLater(() -> {
             try {
-                tableModel.setRowCount(0);
-                List<Doctor> doctors = doctorDAO.getAllDoctors();
+                if (sortHeader.isActive()) {
+                    // Only the database can place changed rows in a column sort's order
+                    lastRefresh = null;
+                }
+                ChangeSet<DoctorSummary> changes = doctorDAO.getDoctorChangesSince(lastRefresh, buildCriteria());
                 
-                for (Doctor doctor : doctors) {
-                    Object[] row = {
-                        doctor.getDoctorId(),
-                        doctor.getName(),
-                        doctor.getSpecialization(),
-                        doctor.getPhone(),
-                        doctor.getEmail(),
-                        doctor.getExperienceYears() + " years",
-                        doctor.getQualification(),
-                        "$" + doctor.getConsultationFee(),
-                        doctor.getAvailableDays(),
-                        doctor.getAvailableTime()
-                    };
-                    tableModel.addRow(row);
+                List<Object[]> rows = new ArrayList<>();
+                for (DoctorSummary doctor : changes.getChangedRows()) {
+                    rows.add(toRow(doctor));
                 }
+                
+                if (changes.isFullLoad()) {
+                    tableModel.setRows(rows);
+                } else {
+                    tableModel.applyChanges(rows, changes.getDeletedIds());
+                }
+                lastRefresh = changes.getHighWaterMark();
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this, 
                     "Error loading doctors: " + e.getMessage(), 
@@ -172,47 +207,54 @@ public class DoctorManagementFrame extends JFrame {
         });
     }
     
-    private void searchDoctors() {
-        String searchTerm = searchField.getText().trim();
-        
-        if (searchTerm.isEmpty()) {
-            loadDoctors();
-            return;
+    /**
+     * Discard the delta state and reload with the current search and sort
+     */
+    private void reloadDoctors() {
+        lastRefresh = null;
+        loadDoctors();
+    }
+    
+    private Criteria<DoctorDAO.Field> buildCriteria() {
+        Criteria<DoctorDAO.Field> criteria = new Criteria<>();
+        if (!searchTerm.isEmpty()) {
+            criteria.anyContains(searchTerm, DoctorDAO.Field.NAME, DoctorDAO.Field.SPECIALIZATION);
+        }
+        if (!sortHeader.applyTo(criteria)) {
+            criteria.sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC);
         }
+        return criteria;
+    }
+    
+    private Object[] toRow(DoctorSummary doctor) {
+        return new Object[] {
+            doctor.getDoctorId(),
+            doctor.getName(),
+            doctor.getSpecialization(),
+            doctor.getPhone(),
+            doctor.getEmail(),
+            doctor.getExperienceYears() + " years",
+            doctor.getQualification(),
+            "$" + doctor.getConsultationFee(),
+            doctor.getAvailableDays(),
+            doctor.getAvailableTime()
+        };
+    }
+    
+    private void searchDoctors() {
+        searchTerm = searchField.getText().trim();
+        reloadDoctors();
         
-        SwingUtilities.invokeLater(() -> {
-            try {
-                tableModel.setRowCount(0);
-                List<Doctor> doctors = doctorDAO.searchDoctors(searchTerm);
-                
-                for (Doctor doctor : doctors) {
-                    Object[] row = {
-                        doctor.getDoctorId(),
-                        doctor.getName(),
-                        doctor.getSpecialization(),
-                        doctor.getPhone(),
-                        doctor.getEmail(),
-                        doctor.getExperienceYears() + " years",
-                        doctor.getQualification(),
-                        "$" + doctor.getConsultationFee(),
-                        doctor.getAvailableDays(),
-                        doctor.getAvailableTime()
-                    };
-                    tableModel.addRow(row);
-                }
-                
-                if (doctors.isEmpty()) {
+        if (!searchTerm.isEmpty()) {
+            // Queued after the reload above, so the table is already filled
+            SwingUtilities.invokeLater(() -> {
+                if (tableModel.getRowCount() == 0) {
                     JOptionPane.showMessageDialog(this, 
                         "No doctors found matching: " + searchTerm, 
                         "Search Results", JOptionPane.INFORMATION_MESSAGE);
                 }
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Error searching doctors: " + e.getMessage(), 
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            }
-        });
+            });
+        }
     }
     
     private void openAddDoctorDialog() {
@@ -222,11 +264,12 @@ public class DoctorManagementFrame extends JFrame {
         if (dialog.isConfirmed()) {
             Doctor doctor = dialog.getDoctor();
             try {
-                if (doctorDAO.addDoctor(doctor)) {
+                Doctor saved = doctorDAO.addDoctor(doctor);
+                if (saved != null) {
                     JOptionPane.showMessageDialog(this, 
                         "Doctor added successfully!", 
                         "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadDoctors();
+                    tableModel.putRow(toRow(DoctorSummary.of(saved)));
                 } else {
                     JOptionPane.showMessageDialog(this, 
                         "Failed to add doctor.", 
@@ -250,8 +293,10 @@ public class DoctorManagementFrame extends JFrame {
             return;
         }
         
-        int doctorId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        
+        editDoctor((Integer) tableModel.getValueAt(selectedRow, 0));
+    }
+    
+    private void editDoctor(int doctorId) {
         try {
             Doctor doctor = doctorDAO.getDoctorById(doctorId);
             if (doctor != null) {
@@ -262,11 +307,28 @@ public class DoctorManagementFrame extends JFrame {
                     Doctor updatedDoctor = dialog.getDoctor();
                     updatedDoctor.setDoctorId(doctorId);
                     
-                    if (doctorDAO.updateDoctor(updatedDoctor)) {
+                    UpdateResult result = doctorDAO.updateDoctor(updatedDoctor);
+                    if (result == UpdateResult.UPDATED) {
                         JOptionPane.showMessageDialog(this, 
                             "Doctor updated successfully!", 
                             "Success", JOptionPane.INFORMATION_MESSAGE);
                         loadDoctors();
+                    } else if (result == UpdateResult.UNCHANGED) {
+                        JOptionPane.showMessageDialog(this, 
+                            "No changes to save.", 
+                            "Nothing Changed", JOptionPane.INFORMATION_MESSAGE);
+                    } else if (result == UpdateResult.CONFLICT) {
+                        JOptionPane.showMessageDialog(this, 
+                            "This doctor was changed at another desk after you opened it.\n" +
+                            "Your changes were not saved. The form will reopen with the latest details.", 
+                            "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+                        loadDoctors();
+                        editDoctor(doctorId);
+                    } else if (result == UpdateResult.NOT_FOUND) {
+                        JOptionPane.showMessageDialog(this, 
+                            "This doctor has been deleted at another desk.", 
+                            "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+                        loadDoctors();
                     } else {
                         JOptionPane.showMessageDialog(this, 
                             "Failed to update doctor.", 
@@ -282,6 +344,130 @@ public class DoctorManagementFrame extends JFrame {
         }
     }
     
+    private void openSchedule() {
+        int selectedRow = doctorTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, 
+                "Please select a doctor to view their schedule.", 
+                "No Selection", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        int doctorId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        new DoctorScheduleFrame(currentUser, doctorId).setVisible(true);
+    }
+    
+    /**
+     * Ask for a leave period, show where the doctor's appointments would
+     * move, and apply the moves once confirmed
+     */
+    private void planLeave() {
+        int selectedRow = doctorTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, 
+                "Please select the doctor going on leave.", 
+                "No Selection", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        int doctorId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        String doctorName = (String) tableModel.getValueAt(selectedRow, 1);
+        JTextField fromField = new JTextField(LocalDate.now().toString(), 10);
+        JTextField toField = new JTextField(LocalDate.now().plusDays(6).toString(), 10);
+        JPanel rangePanel = new JPanel(new GridLayout(2, 2, 5, 5));
+        rangePanel.add(new JLabel("From (YYYY-MM-DD):"));
+        rangePanel.add(fromField);
+        rangePanel.add(new JLabel("To (YYYY-MM-DD):"));
+        rangePanel.add(toField);
+        
+        int choice = JOptionPane.showConfirmDialog(this, rangePanel, 
+            "Leave for Dr. " + doctorName, JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+        
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(fromField.getText().trim());
+            to = LocalDate.parse(toField.getText().trim());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, 
+                "Please enter valid dates in YYYY-MM-DD format.", 
+                "Invalid Format", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (to.isBefore(from)) {
+            JOptionPane.showMessageDialog(this, 
+                "The leave must end on or after its first day.", 
+                "Invalid Range", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        BlackoutPlanner planner = new BlackoutPlanner();
+        BlackoutPlan plan = planner.plan(doctorId, from, to);
+        if (plan == null) {
+            JOptionPane.showMessageDialog(this, 
+                "Doctor not found. It may have been deleted.", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (plan.getMoves().isEmpty() && plan.getUnplaced().isEmpty()) {
+            JOptionPane.showMessageDialog(this, 
+                "Dr. " + doctorName + " has no scheduled appointments from " + from + " to " + to + ".", 
+                "Doctor Leave", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        DefaultTableModel preview = new DefaultTableModel(
+            new String[] {"Patient", "Was", "New Doctor", "New Date", "New Time"}, 0);
+        for (BlackoutPlan.Move move : plan.getMoves()) {
+            preview.addRow(new Object[] {
+                move.getAppointment().getPatientName(),
+                move.getAppointment().getAppointmentDate() + " " + move.getAppointment().getAppointmentTime(),
+                move.getDoctor().getName(),
+                move.getDate(),
+                move.getTime()
+            });
+        }
+        for (Appointment appointment : plan.getUnplaced()) {
+            preview.addRow(new Object[] {
+                appointment.getPatientName(),
+                appointment.getAppointmentDate() + " " + appointment.getAppointmentTime(),
+                "— no free slot —", "", ""
+            });
+        }
+        JScrollPane previewPane = new JScrollPane(new JTable(preview));
+        previewPane.setPreferredSize(new Dimension(700, 300));
+        
+        JPanel previewPanel = new JPanel(new BorderLayout(0, 10));
+        previewPanel.add(new JLabel(plan.getMoves().size() + " appointment(s) can be moved, " + 
+                                    plan.getUnplaced().size() + " need manual rebooking. Apply the moves?"), 
+                         BorderLayout.NORTH);
+        previewPanel.add(previewPane, BorderLayout.CENTER);
+        
+        choice = JOptionPane.showConfirmDialog(this, previewPanel, 
+            "Reschedule for Dr. " + doctorName, JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (choice != JOptionPane.YES_OPTION || plan.getMoves().isEmpty()) {
+            return;
+        }
+        
+        UpdateResult result = planner.apply(plan);
+        if (result == UpdateResult.UPDATED) {
+            JOptionPane.showMessageDialog(this, 
+                plan.getMoves().size() + " appointment(s) rescheduled.", 
+                "Success", JOptionPane.INFORMATION_MESSAGE);
+        } else if (result == UpdateResult.CONFLICT) {
+            JOptionPane.showMessageDialog(this, 
+                "Schedules changed while the moves were being reviewed. Nothing was saved; please try again.", 
+                "Conflict", JOptionPane.WARNING_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(this, 
+                "Failed to reschedule the appointments.", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
     private void deleteSelectedDoctor() {
         int selectedRow = doctorTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -320,4 +506,10 @@ public class DoctorManagementFrame extends JFrame {
             }
         }
     }
+    
+    @Override
+    public void dispose() {
+        ChangeFeed.getInstance().removeListener("doctors", changeListener);
+        super.dispose();
+    }
 }
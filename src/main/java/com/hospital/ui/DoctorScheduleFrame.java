@@ -0,0 +1,339 @@
+package com.hospital.ui;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.model.AppointmentSummary;
+import com.hospital.model.DoctorSchedule;
+import com.hospital.model.DoctorSummary;
+import com.hospital.model.User;
+import com.hospital.util.UnitOfWork;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * One doctor's day as a slot grid built from their working hours.
+ * Days are loaded a few at a time with one range query and kept in memory,
+ * and the days around the one shown are prefetched in the background, so
+ * paging with Previous/Next normally needs no database round trip.
+ */
+public class DoctorScheduleFrame extends JFrame {
+    // Days loaded on each side of the shown day when it is not cached
+    private static final int LOAD_RADIUS = 1;
+    // Days prefetched on each side after a page turn
+    private static final int PREFETCH_RADIUS = 3;
+    
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEEE, MMM dd, yyyy");
+    
+    private User currentUser;
+    private AppointmentDAO appointmentDAO;
+    private DoctorDAO doctorDAO;
+    private JComboBox<DoctorSummary> doctorCombo;
+    private JLabel dayLabel;
+    private JTable slotTable;
+    private DefaultTableModel tableModel;
+    private JButton previousButton, todayButton, nextButton;
+    
+    private LocalDate shownDate = LocalDate.now();
+    private DoctorSchedule schedule;
+    // Appointments per day for the selected doctor; only touched on the EDT
+    private final Map<LocalDate, List<AppointmentSummary>> days = new HashMap<>();
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "schedule-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Bumped whenever the cache is dropped so late prefetch results are ignored
+    private int generation;
+    private final ChangeFeed.Listener changeListener = events -> {
+        days.clear();
+        generation++;
+        showDay(shownDate);
+    };
+    
+    public DoctorScheduleFrame(User user, int doctorId) {
+        this.currentUser = user;
+        this.appointmentDAO = new AppointmentDAO();
+        this.doctorDAO = new DoctorDAO();
+        
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+        selectDoctor(doctorId);
+        ChangeFeed.getInstance().addListener("appointments", changeListener);
+        
+        setTitle("Doctor Schedule");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(900, 700);
+        setLocationRelativeTo(null);
+    }
+    
+    private void initializeComponents() {
+        String[] columnNames = {"Time", "Patient", "Status", "Notes"};
+        tableModel = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        
+        slotTable = new JTable(tableModel);
+        slotTable.setRowHeight(25);
+        slotTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
+        slotTable.setFont(new Font("Arial", Font.PLAIN, 12));
+        
+        List<DoctorSummary> doctors = doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>()
+                .sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC));
+        doctorCombo = new JComboBox<>(doctors.toArray(new DoctorSummary[0]));
+        doctorCombo.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof DoctorSummary) {
+                    DoctorSummary doctor = (DoctorSummary) value;
+                    setText(doctor.getName() + " - " + doctor.getSpecialization());
+                }
+                return this;
+            }
+        });
+        doctorCombo.setFont(new Font("Arial", Font.PLAIN, 12));
+        
+        dayLabel = new JLabel();
+        dayLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        
+        previousButton = createStyledButton("◀ Previous", new Color(108, 117, 125));
+        todayButton = createStyledButton("Today", new Color(0, 123, 255));
+        nextButton = createStyledButton("Next ▶", new Color(108, 117, 125));
+    }
+    
+    private JButton createStyledButton(String text, Color color) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setBackground(color);
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        button.setOpaque(true);
+        button.setBorderPainted(false);
+        return button;
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout());
+        
+        // Header Panel
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setBackground(new Color(0, 123, 255));
+        headerPanel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
+        
+        JLabel titleLabel = new JLabel("Doctor Schedule");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(Color.WHITE);
+        
+        headerPanel.add(titleLabel, BorderLayout.WEST);
+        
+        // Navigation Panel
+        JPanel navigationPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        navigationPanel.setBackground(Color.WHITE);
+        navigationPanel.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        
+        JLabel doctorLabel = new JLabel("Doctor:");
+        doctorLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        
+        navigationPanel.add(doctorLabel);
+        navigationPanel.add(doctorCombo);
+        navigationPanel.add(Box.createHorizontalStrut(20));
+        navigationPanel.add(previousButton);
+        navigationPanel.add(todayButton);
+        navigationPanel.add(nextButton);
+        navigationPanel.add(Box.createHorizontalStrut(20));
+        navigationPanel.add(dayLabel);
+        
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(headerPanel, BorderLayout.NORTH);
+        topPanel.add(navigationPanel, BorderLayout.SOUTH);
+        
+        // Table Panel
+        JScrollPane scrollPane = new JScrollPane(slotTable);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(0, 20, 20, 20));
+        
+        add(topPanel, BorderLayout.NORTH);
+        add(scrollPane, BorderLayout.CENTER);
+    }
+    
+    private void setupEventHandlers() {
+        doctorCombo.addActionListener(e -> {
+            DoctorSummary doctor = (DoctorSummary) doctorCombo.getSelectedItem();
+            if (doctor != null) {
+                schedule = DoctorSchedule.of(doctor);
+                days.clear();
+                generation++;
+                showDay(shownDate);
+            }
+        });
+        previousButton.addActionListener(e -> showDay(shownDate.minusDays(1)));
+        todayButton.addActionListener(e -> showDay(LocalDate.now()));
+        nextButton.addActionListener(e -> showDay(shownDate.plusDays(1)));
+    }
+    
+    private void selectDoctor(int doctorId) {
+        for (int i = 0; i < doctorCombo.getItemCount(); i++) {
+            if (doctorCombo.getItemAt(i).getDoctorId() == doctorId) {
+                doctorCombo.setSelectedIndex(i);
+                return;
+            }
+        }
+        if (doctorCombo.getItemCount() > 0) {
+            doctorCombo.setSelectedIndex(0);
+        }
+    }
+    
+    private void showDay(LocalDate date) {
+        shownDate = date;
+        DoctorSummary doctor = (DoctorSummary) doctorCombo.getSelectedItem();
+        if (doctor == null) {
+            return;
+        }
+        
+        List<AppointmentSummary> appointments = days.get(date);
+        if (appointments == null) {
+            try {
+                loadRange(doctor.getDoctorId(), date.minusDays(LOAD_RADIUS), date.plusDays(LOAD_RADIUS));
+                appointments = days.get(date);
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(this,
+                    "Error loading schedule: " + e.getMessage(),
+                    "Database Error", JOptionPane.ERROR_MESSAGE);
+                e.printStackTrace();
+                return;
+            }
+        }
+        
+        dayLabel.setText(date.format(DAY_FORMAT) + (schedule.worksOn(date) ? "" : " (day off)"));
+        tableModel.setRowCount(0);
+        for (Object[] row : buildRows(appointments)) {
+            tableModel.addRow(row);
+        }
+        prefetchAround(doctor.getDoctorId(), date);
+    }
+    
+    /**
+     * One row per slot; booked slots show the appointment, slots still covered
+     * by an earlier, longer appointment are marked as such, and appointments
+     * outside the working window get rows of their own
+     */
+    private List<Object[]> buildRows(List<AppointmentSummary> appointments) {
+        List<Object[]> rows = new ArrayList<>();
+        int next = 0;
+        // End of the latest active appointment seen so far, in seconds of the day
+        int busyUntil = 0;
+        for (LocalTime slot : schedule.slotsOn(shownDate)) {
+            LocalTime slotEnd = slot.plusMinutes(DoctorSchedule.SLOT_MINUTES);
+            boolean booked = false;
+            // Appointments are in time order, so everything before slotEnd belongs here or earlier
+            while (next < appointments.size() && appointments.get(next).getAppointmentTime().isBefore(slotEnd)) {
+                AppointmentSummary appointment = appointments.get(next++);
+                rows.add(toRow(appointment));
+                if (!"Cancelled".equals(appointment.getStatus())) {
+                    busyUntil = Math.max(busyUntil, appointment.getAppointmentTime().toSecondOfDay() +
+                                                    appointment.getDurationMinutes() * 60);
+                }
+                booked = true;
+            }
+            if (!booked) {
+                rows.add(new Object[] {slot, slot.toSecondOfDay() < busyUntil ? "— continued —" : "— free —", "", ""});
+            }
+        }
+        while (next < appointments.size()) {
+            rows.add(toRow(appointments.get(next++)));
+        }
+        return rows;
+    }
+    
+    private Object[] toRow(AppointmentSummary appointment) {
+        return new Object[] {
+            appointment.getAppointmentTime() + " - " + appointment.getEndTime(),
+            appointment.getPatientName(),
+            appointment.getStatus(),
+            appointment.getNotesPreview()
+        };
+    }
+    
+    /**
+     * Load a date range with one query and cache every day in it, empty days included
+     */
+    private void loadRange(int doctorId, LocalDate from, LocalDate to) throws SQLException {
+        cacheRange(from, to, appointmentDAO.getDoctorAgenda(doctorId, from, to));
+    }
+    
+    private void cacheRange(LocalDate from, LocalDate to, List<AppointmentSummary> appointments) {
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.put(day, new ArrayList<>());
+        }
+        for (AppointmentSummary appointment : appointments) {
+            days.get(appointment.getAppointmentDate()).add(appointment);
+        }
+    }
+    
+    /**
+     * Fetch the uncached days within PREFETCH_RADIUS of the shown day in the background
+     */
+    private void prefetchAround(int doctorId, LocalDate date) {
+        LocalDate from = null;
+        LocalDate to = null;
+        for (LocalDate day = date.minusDays(PREFETCH_RADIUS); !day.isAfter(date.plusDays(PREFETCH_RADIUS)); day = day.plusDays(1)) {
+            if (!days.containsKey(day)) {
+                if (from == null) {
+                    from = day;
+                }
+                to = day;
+            }
+        }
+        if (from == null) {
+            return;
+        }
+        
+        LocalDate rangeFrom = from;
+        LocalDate rangeTo = to;
+        int requestGeneration = generation;
+        prefetcher.execute(() -> {
+            List<AppointmentSummary> appointments;
+            // A pooled connection of its own; the shared one belongs to the EDT
+            try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+                appointments = appointmentDAO.getDoctorAgenda(doctorId, rangeFrom, rangeTo);
+                unitOfWork.commit();
+            } catch (SQLException e) {
+                // Leave the days uncached; showDay loads them when they are needed
+                e.printStackTrace();
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (requestGeneration == generation) {
+                    cacheRange(rangeFrom, rangeTo, appointments);
+                }
+            });
+        });
+    }
+    
+    @Override
+    public void dispose() {
+        ChangeFeed.getInstance().removeListener("appointments", changeListener);
+        prefetcher.shutdownNow();
+        super.dispose();
+    }
+}
@@ -0,0 +1,159 @@
+package com.hospital.ui;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Read-only table model whose rows are keyed by the value in the first column (the ID).
+ * Incremental refreshes patch rows in place and fire row-level events instead of
+ * clearing and rebuilding the whole table.
+ */
+public class KeyedTableModel extends DefaultTableModel {
+    private final Map<Object, Integer> rowIndex = new HashMap<>();
+    private Comparator<Object[]> rowOrder;
+
+    public KeyedTableModel(String[] columnNames) {
+        super(columnNames, 0);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Order that rows inserted or changed by a delta are placed in; it should match
+     * the ORDER BY of the query that loaded the table. Null puts new rows at the top.
+     */
+    public void setRowOrder(Comparator<Object[]> rowOrder) {
+        this.rowOrder = rowOrder;
+    }
+
+    /**
+     * Replace every row with a single table-changed event
+     */
+    @SuppressWarnings("unchecked")
+    public void setRows(List<Object[]> rows) {
+        dataVector.clear();
+        for (Object[] row : rows) {
+            dataVector.add(new Vector<>(Arrays.asList(row)));
+        }
+        rebuildIndex();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Apply a delta: update rows that already exist, remove deleted keys and insert
+     * new rows where the row order puts them (at the top if there is none). A row
+     * whose sort key changed is moved to its new position.
+     */
+    @SuppressWarnings("unchecked")
+    public void applyChanges(List<Object[]> changedRows, List<?> deletedKeys) {
+        List<Object> removedKeys = new ArrayList<>(deletedKeys);
+        List<Object[]> insertedRows = new ArrayList<>();
+
+        for (Object[] row : changedRows) {
+            Integer index = rowIndex.get(row[0]);
+            if (index == null) {
+                insertedRows.add(row);
+                continue;
+            }
+            Vector<Object> existing = (Vector<Object>) dataVector.get(index);
+            if (existing.equals(Arrays.asList(row))) {
+                continue;
+            }
+            if (rowOrder != null && rowOrder.compare(existing.toArray(), row) != 0) {
+                removedKeys.add(row[0]);
+                insertedRows.add(row);
+                continue;
+            }
+            for (int column = 0; column < row.length; column++) {
+                existing.set(column, row[column]);
+            }
+            fireTableRowsUpdated(index, index);
+        }
+
+        // Delete from the bottom up so earlier indexes stay valid
+        List<Integer> deletedRows = new ArrayList<>();
+        for (Object key : removedKeys) {
+            Integer index = rowIndex.remove(key);
+            if (index != null) {
+                deletedRows.add(index);
+            }
+        }
+        deletedRows.sort((a, b) -> b - a);
+        for (int index : deletedRows) {
+            removeRow(index);
+        }
+
+        // The remaining rows are still in order, so each insert can binary search them
+        for (Object[] row : insertedRows) {
+            if (!rowIndex.containsKey(row[0])) {
+                insertRow(rowOrder != null ? insertionPoint(row) : 0, row);
+                rowIndex.put(row[0], -1);
+            }
+        }
+
+        if (!deletedRows.isEmpty() || !insertedRows.isEmpty()) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Insert a single row in row order, or update it in place if its key is already shown
+     */
+    public void putRow(Object[] row) {
+        applyChanges(Collections.singletonList(row), Collections.emptyList());
+    }
+
+    /**
+     * Get the row index for a key, or -1 if the key is not in the table
+     */
+    public int indexOf(Object key) {
+        Integer index = rowIndex.get(key);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public void setRowCount(int rowCount) {
+        super.setRowCount(rowCount);
+        rebuildIndex();
+    }
+
+    @Override
+    public void addRow(Object[] rowData) {
+        super.addRow(rowData);
+        rowIndex.put(rowData[0], getRowCount() - 1);
+    }
+
+    /**
+     * Index after the last row that sorts at or before the given row
+     */
+    private int insertionPoint(Object[] row) {
+        int low = 0;
+        int high = dataVector.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (rowOrder.compare(((Vector<?>) dataVector.get(middle)).toArray(), row) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void rebuildIndex() {
+        rowIndex.clear();
+        for (int i = 0; i < dataVector.size(); i++) {
+            rowIndex.put(((Vector<?>) dataVector.get(i)).get(0), i);
+        }
+    }
+}
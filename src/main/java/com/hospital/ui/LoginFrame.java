@@ -1,7 +1,7 @@
 package com.hospital.ui;
 
-import com.hospital.dao.UserDAO;
-import com.hospital.model.User;
+import com.hospital.service.AuthService;
+import com.hospital.service.Session;
 import com.hospital.util.DatabaseConnection;
 import javax.swing.*;
 import java.awt.*;
@@ -16,10 +16,8 @@ public class LoginFrame extends JFrame {
     private JPasswordField passwordField;
     private JButton loginButton;
     private JButton exitButton;
-    private UserDAO userDAO;
     
     public LoginFrame() {
-        userDAO = new UserDAO();
         initializeComponents();
         setupLayout();
         setupEventHandlers();
@@ -221,6 +219,10 @@ public class LoginFrame extends JFrame {
     }
     
     private void performLogin() {
+        if (!loginButton.isEnabled()) {
+            // A login is already being checked
+            return;
+        }
         String username = usernameField.getText().trim();
         String password = new String(passwordField.getPassword());
         
@@ -235,34 +237,35 @@ public class LoginFrame extends JFrame {
         setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
         loginButton.setEnabled(false);
         
-        try {
-            User user = userDAO.authenticateUser(username, password);
-            
-            if (user != null) {
-                JOptionPane.showMessageDialog(this, 
-                    "Welcome, " + user.getFullName() + "!", 
-                    "Login Successful", JOptionPane.INFORMATION_MESSAGE);
-                
-                // Open main dashboard
-                SwingUtilities.invokeLater(() -> {
-                    new DashboardFrame(user).setVisible(true);
-                    dispose();
-                });
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "Invalid username or password.", 
-                    "Login Failed", JOptionPane.ERROR_MESSAGE);
-                passwordField.setText("");
-                usernameField.requestFocus();
-            }
-        } catch (Exception ex) {
+        // Password hashing is deliberately slow, so check it off the EDT
+        AuthService.getInstance().login(username, password).whenComplete((session, error) ->
+            SwingUtilities.invokeLater(() -> finishLogin(session, error)));
+    }
+    
+    private void finishLogin(Session session, Throwable error) {
+        setCursor(Cursor.getDefaultCursor());
+        loginButton.setEnabled(true);
+        
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
             JOptionPane.showMessageDialog(this, 
-                "Login failed due to database error: " + ex.getMessage(), 
+                "Login failed due to database error: " + cause.getMessage(), 
                 "Database Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        } finally {
-            setCursor(Cursor.getDefaultCursor());
-            loginButton.setEnabled(true);
+            error.printStackTrace();
+        } else if (session != null) {
+            JOptionPane.showMessageDialog(this, 
+                "Welcome, " + session.getUser().getFullName() + "!", 
+                "Login Successful", JOptionPane.INFORMATION_MESSAGE);
+            
+            // Open main dashboard
+            new DashboardFrame(session).setVisible(true);
+            dispose();
+        } else {
+            JOptionPane.showMessageDialog(this, 
+                "Invalid username or password.", 
+                "Login Failed", JOptionPane.ERROR_MESSAGE);
+            passwordField.setText("");
+            usernameField.requestFocus();
         }
     }
 }
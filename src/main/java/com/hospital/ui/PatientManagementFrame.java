@@ -1,15 +1,24 @@
 package com.hospital.ui;
 
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.ChangeSet;
+import com.hospital.dao.Criteria;
 import com.hospital.dao.PatientDAO;
+import com.hospital.dao.UpdateResult;
+import com.hospital.model.Appointment;
 import com.hospital.model.Patient;
+import com.hospital.model.PatientSummary;
 import com.hospital.model.User;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -18,19 +27,33 @@ import java.util.List;
 public class PatientManagementFrame extends JFrame {
     private User currentUser;
     private PatientDAO patientDAO;
+    private AppointmentDAO appointmentDAO;
     private JTable patientTable;
-    private DefaultTableModel tableModel;
+    private KeyedTableModel tableModel;
     private JTextField searchField;
-    private JButton addButton, editButton, deleteButton, refreshButton;
+    private JButton addButton, editButton, deleteButton, historyButton, refreshButton;
+    private ServerSortHeader<PatientDAO.Field> sortHeader;
+    // Current search term, applied by the database together with the sort order
+    private String searchTerm = "";
+    // High-water mark of the last refresh; null when the table must be fully reloaded
+    private Timestamp lastRefresh;
+    // Refresh from other desks' writes; skipped while a full reload is pending
+    private final ChangeFeed.Listener changeListener = events -> {
+        if (lastRefresh != null) {
+            loadPatients();
+        }
+    };
     
     public PatientManagementFrame(User user) {
         this.currentUser = user;
         this.patientDAO = new PatientDAO();
+        this.appointmentDAO = new AppointmentDAO();
         
         initializeComponents();
         setupLayout();
         setupEventHandlers();
         loadPatients();
+        ChangeFeed.getInstance().addListener("patients", changeListener);
         
         setTitle("Patient Management");
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -41,12 +64,9 @@ public class PatientManagementFrame extends JFrame {
     private void initializeComponents() {
         // Table setup
         String[] columnNames = {"ID", "Name", "Age", "Gender", "Phone", "Email", "Disease", "Blood Group", "Admission Date"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new KeyedTableModel(columnNames);
+        // Same order as the default ORDER BY in buildCriteria, for rows a delta inserts
+        tableModel.setRowOrder(Comparator.comparing((Object[] row) -> (Integer) row[0]).reversed());
         
         patientTable = new JTable(tableModel);
         patientTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -54,6 +74,14 @@ public class PatientManagementFrame extends JFrame {
         patientTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
         patientTable.setFont(new Font("Arial", Font.PLAIN, 12));
         
+        // Header clicks sort in the database
+        PatientDAO.Field[] columnFields = {
+            PatientDAO.Field.ID, PatientDAO.Field.NAME, PatientDAO.Field.AGE, PatientDAO.Field.GENDER,
+            PatientDAO.Field.PHONE, PatientDAO.Field.EMAIL, PatientDAO.Field.DISEASE,
+            PatientDAO.Field.BLOOD_GROUP, PatientDAO.Field.ADMISSION_DATE
+        };
+        sortHeader = new ServerSortHeader<>(patientTable, columnNames, columnFields, this::reloadPatients);
+        
         // Search field
         searchField = new JTextField(20);
         searchField.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -62,6 +90,7 @@ public class PatientManagementFrame extends JFrame {
         addButton = createStyledButton("Add Patient", new Color(40, 167, 69));
         editButton = createStyledButton("Edit Patient", new Color(0, 123, 255));
         deleteButton = createStyledButton("Delete Patient", new Color(220, 53, 69));
+        historyButton = createStyledButton("Appointment History", new Color(23, 162, 184));
         refreshButton = createStyledButton("Refresh", new Color(108, 117, 125));
     }
     
@@ -114,6 +143,7 @@ public class PatientManagementFrame extends JFrame {
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
+        buttonPanel.add(historyButton);
         buttonPanel.add(refreshButton);
         
         // Top Panel combining search and buttons
@@ -140,29 +170,30 @@ public class PatientManagementFrame extends JFrame {
         addButton.addActionListener(e -> openAddPatientDialog());
         editButton.addActionListener(e -> openEditPatientDialog());
         deleteButton.addActionListener(e -> deleteSelectedPatient());
+        historyButton.addActionListener(e -> showAppointmentHistory());
         refreshButton.addActionListener(e -> loadPatients());
     }
     
     private void loadPatients() {
         SwingUtilities.invokeLater(() -> {
             try {
-                tableModel.setRowCount(0);
-                List<Patient> patients = patientDAO.getAllPatients();
+                if (sortHeader.isActive()) {
+                    // Only the database can place changed rows in a column sort's order
+                    lastRefresh = null;
+                }
+                ChangeSet<PatientSummary> changes = patientDAO.getPatientChangesSince(lastRefresh, buildCriteria());
                 
-                for (Patient patient : patients) {
-                    Object[] row = {
-                        patient.getPatientId(),
-                        patient.getName(),
-                        patient.getAge(),
-                        patient.getGender(),
-                        patient.getPhone(),
-                        patient.getEmail(),
-                        patient.getDisease(),
-                        patient.getBloodGroup(),
-                        patient.getAdmissionDate()
-                    };
-                    tableModel.addRow(row);
+                List<Object[]> rows = new ArrayList<>();
+                for (PatientSummary patient : changes.getChangedRows()) {
+                    rows.add(toRow(patient));
                 }
+                
+                if (changes.isFullLoad()) {
+                    tableModel.setRows(rows);
+                } else {
+                    tableModel.applyChanges(rows, changes.getDeletedIds());
+                }
+                lastRefresh = changes.getHighWaterMark();
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this, 
                     "Error loading patients: " + e.getMessage(), 
@@ -172,46 +203,53 @@ public class PatientManagementFrame extends JFrame {
         });
     }
     
-    private void searchPatients() {
-        String searchTerm = searchField.getText().trim();
-        
-        if (searchTerm.isEmpty()) {
-            loadPatients();
-            return;
+    /**
+     * Discard the delta state and reload with the current search and sort
+     */
+    private void reloadPatients() {
+        lastRefresh = null;
+        loadPatients();
+    }
+    
+    private Criteria<PatientDAO.Field> buildCriteria() {
+        Criteria<PatientDAO.Field> criteria = new Criteria<>();
+        if (!searchTerm.isEmpty()) {
+            criteria.anyContains(searchTerm, PatientDAO.Field.NAME, PatientDAO.Field.PHONE);
         }
+        if (!sortHeader.applyTo(criteria)) {
+            criteria.sortBy(PatientDAO.Field.ID, Criteria.Direction.DESC);
+        }
+        return criteria;
+    }
+    
+    private Object[] toRow(PatientSummary patient) {
+        return new Object[] {
+            patient.getPatientId(),
+            patient.getName(),
+            patient.getAge(),
+            patient.getGender(),
+            patient.getPhone(),
+            patient.getEmail(),
+            patient.getDisease(),
+            patient.getBloodGroup(),
+            patient.getAdmissionDate()
+        };
+    }
+    
+    private void searchPatients() {
+        searchTerm = searchField.getText().trim();
+        reloadPatients();
         
-        SwingUtilities.invokeLater(() -> {
-            try {
-                tableModel.setRowCount(0);
-                List<Patient> patients = patientDAO.searchPatients(searchTerm);
-                
-                for (Patient patient : patients) {
-                    Object[] row = {
-                        patient.getPatientId(),
-                        patient.getName(),
-                        patient.getAge(),
-                        patient.getGender(),
-                        patient.getPhone(),
-                        patient.getEmail(),
-                        patient.getDisease(),
-                        patient.getBloodGroup(),
-                        patient.getAdmissionDate()
-                    };
-                    tableModel.addRow(row);
-                }
-                
-                if (patients.isEmpty()) {
+        if (!searchTerm.isEmpty()) {
+            // Queued after the reload above, so the table is already filled
+            SwingUtilities.invokeLater(() -> {
+                if (tableModel.getRowCount() == 0) {
                     JOptionPane.showMessageDialog(this, 
                         "No patients found matching: " + searchTerm, 
                         "Search Results", JOptionPane.INFORMATION_MESSAGE);
                 }
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Error searching patients: " + e.getMessage(), 
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            }
-        });
+            });
+        }
     }
     
     private void openAddPatientDialog() {
@@ -221,11 +259,12 @@ public class PatientManagementFrame extends JFrame {
         if (dialog.isConfirmed()) {
             Patient patient = dialog.getPatient();
             try {
-                if (patientDAO.addPatient(patient)) {
+                Patient saved = patientDAO.addPatient(patient);
+                if (saved != null) {
                     JOptionPane.showMessageDialog(this, 
                         "Patient added successfully!", 
                         "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadPatients();
+                    tableModel.putRow(toRow(PatientSummary.of(saved)));
                 } else {
                     JOptionPane.showMessageDialog(this, 
                         "Failed to add patient.", 
@@ -249,8 +288,10 @@ public class PatientManagementFrame extends JFrame {
             return;
         }
         
-        int patientId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        
+        editPatient((Integer) tableModel.getValueAt(selectedRow, 0));
+    }
+    
+    private void editPatient(int patientId) {
         try {
             Patient patient = patientDAO.getPatientById(patientId);
             if (patient != null) {
@@ -261,11 +302,28 @@ public class PatientManagementFrame extends JFrame {
                     Patient updatedPatient = dialog.getPatient();
                     updatedPatient.setPatientId(patientId);
                     
-                    if (patientDAO.updatePatient(updatedPatient)) {
+                    UpdateResult result = patientDAO.updatePatient(updatedPatient);
+                    if (result == UpdateResult.UPDATED) {
                         JOptionPane.showMessageDialog(this, 
                             "Patient updated successfully!", 
                             "Success", JOptionPane.INFORMATION_MESSAGE);
                         loadPatients();
+                    } else if (result == UpdateResult.UNCHANGED) {
+                        JOptionPane.showMessageDialog(this, 
+                            "No changes to save.", 
+                            "Nothing Changed", JOptionPane.INFORMATION_MESSAGE);
+                    } else if (result == UpdateResult.CONFLICT) {
+                        JOptionPane.showMessageDialog(this, 
+                            "This patient was changed at another desk after you opened it.\n" +
+                            "Your changes were not saved. The form will reopen with the latest details.", 
+                            "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+                        loadPatients();
+                        editPatient(patientId);
+                    } else if (result == UpdateResult.NOT_FOUND) {
+                        JOptionPane.showMessageDialog(this, 
+                            "This patient has been deleted at another desk.", 
+                            "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+                        loadPatients();
                     } else {
                         JOptionPane.showMessageDialog(this, 
                             "Failed to update patient.", 
@@ -319,4 +377,61 @@ public class PatientManagementFrame extends JFrame {
             }
         }
     }
+    
+    /**
+     * Show every appointment of the selected patient, archived ones included
+     */
+    private void showAppointmentHistory() {
+        int selectedRow = patientTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, 
+                "Please select a patient to view their history.", 
+                "No Selection", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        String patientName = (String) tableModel.getValueAt(selectedRow, 1);
+        int patientId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        
+        try {
+            List<Object[]> rows = new ArrayList<>();
+            for (Appointment appointment : appointmentDAO.getAppointmentsByPatient(patientId, true)) {
+                rows.add(new Object[] {
+                    appointment.getAppointmentId(),
+                    appointment.getAppointmentDate(),
+                    appointment.getAppointmentTime(),
+                    appointment.getDoctorName(),
+                    appointment.getDoctorSpecialization(),
+                    appointment.getStatus(),
+                    appointment.isArchived() ? "Yes" : "",
+                    appointment.getNotes()
+                });
+            }
+            
+            KeyedTableModel historyModel = new KeyedTableModel(new String[] {
+                "ID", "Date", "Time", "Doctor", "Specialization", "Status", "Archived", "Notes"
+            });
+            historyModel.setRows(rows);
+            JTable historyTable = new JTable(historyModel);
+            historyTable.setRowHeight(25);
+            historyTable.setFont(new Font("Arial", Font.PLAIN, 12));
+            
+            JDialog dialog = new JDialog(this, "Appointment History - " + patientName, true);
+            dialog.add(new JScrollPane(historyTable));
+            dialog.setSize(900, 400);
+            dialog.setLocationRelativeTo(this);
+            dialog.setVisible(true);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, 
+                "Error loading appointment history: " + e.getMessage(), 
+                "Database Error", JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        ChangeFeed.getInstance().removeListener("patients", changeListener);
+        super.dispose();
+    }
 }
@@ -0,0 +1,88 @@
+package com.hospital.ui;
+
+import com.hospital.dao.Criteria;
+import com.hospital.dao.QueryField;
+
+import javax.swing.JTable;
+import javax.swing.table.TableColumn;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * Sorts a JTable in the database: clicking a column header re-runs the DAO
+ * query with that column as the sort key instead of sorting rows in Java.
+ * Clicking the same header again flips the direction.
+ */
+public class ServerSortHeader<F extends Enum<F> & QueryField> {
+    private final JTable table;
+    private final String[] columnNames;
+    private final F[] columnFields;
+    private F sortField;
+    private Criteria.Direction direction = Criteria.Direction.ASC;
+
+    /**
+     * @param columnFields the query field behind each model column, or null for unsortable columns
+     * @param onSortChanged called after the user picks a new sort order
+     */
+    public ServerSortHeader(JTable table, String[] columnNames, F[] columnFields, Runnable onSortChanged) {
+        this.table = table;
+        this.columnNames = columnNames;
+        this.columnFields = columnFields;
+
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = table.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) {
+                    return;
+                }
+                F field = columnFields[table.convertColumnIndexToModel(viewColumn)];
+                if (field == null) {
+                    return;
+                }
+
+                if (field == sortField) {
+                    direction = direction == Criteria.Direction.ASC ? Criteria.Direction.DESC : Criteria.Direction.ASC;
+                } else {
+                    sortField = field;
+                    direction = Criteria.Direction.ASC;
+                }
+                updateHeaders();
+                onSortChanged.run();
+            }
+        });
+    }
+
+    /**
+     * Add the chosen sort key to the criteria
+     * @return false if the user has not picked a column, so the caller should apply its default order
+     */
+    public boolean applyTo(Criteria<F> criteria) {
+        if (sortField == null) {
+            return false;
+        }
+        criteria.sortBy(sortField, direction);
+        return true;
+    }
+
+    /**
+     * Whether the user has picked a column. Rows a delta inserts or changes can only
+     * be placed by the database's ordering then, so callers reload instead.
+     */
+    public boolean isActive() {
+        return sortField != null;
+    }
+
+    private void updateHeaders() {
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            TableColumn column = table.getColumnModel().getColumn(i);
+            int modelIndex = column.getModelIndex();
+            String name = columnNames[modelIndex];
+            if (columnFields[modelIndex] == sortField) {
+                name += direction == Criteria.Direction.ASC ? " ▲" : " ▼";
+            }
+            column.setHeaderValue(name);
+        }
+        table.getTableHeader().repaint();
+    }
+}
@@ -0,0 +1,142 @@
+package com.hospital.ui;
+
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.model.DoctorSummary;
+import com.hospital.scheduling.TokenBoard;
+import com.hospital.scheduling.TokenQueue;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Full-screen waiting-room display of the walk-in token queues. Repaints
+ * only when TokenQueue pushes a new board; press Escape to close.
+ */
+public class TokenBoardFrame extends JFrame {
+    private static final Color BACKGROUND = new Color(33, 37, 41);
+    private static final Color HIGHLIGHT = new Color(255, 193, 7);
+    
+    private DoctorDAO doctorDAO;
+    private Map<Integer, String> doctorNames = new HashMap<>();
+    private JTable boardTable;
+    private DefaultTableModel tableModel;
+    private JLabel emptyLabel;
+    private final TokenQueue.Listener boardListener = this::showBoard;
+    private final ChangeFeed.Listener doctorListener = events -> {
+        loadDoctorNames();
+        showBoard(TokenQueue.getInstance().getBoard());
+    };
+    
+    public TokenBoardFrame() {
+        this.doctorDAO = new DoctorDAO();
+        
+        initializeComponents();
+        setupLayout();
+        loadDoctorNames();
+        showBoard(TokenQueue.getInstance().getBoard());
+        TokenQueue.getInstance().addListener(boardListener);
+        ChangeFeed.getInstance().addListener("doctors", doctorListener);
+        
+        setTitle("Token Display Board");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setUndecorated(true);
+        setExtendedState(JFrame.MAXIMIZED_BOTH);
+        getRootPane().registerKeyboardAction(e -> dispose(),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+    }
+    
+    private void initializeComponents() {
+        String[] columnNames = {"Doctor", "Now Serving", "Next", "Waiting"};
+        tableModel = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        
+        boardTable = new JTable(tableModel);
+        boardTable.setRowHeight(70);
+        boardTable.setFont(new Font("Arial", Font.BOLD, 32));
+        boardTable.setBackground(BACKGROUND);
+        boardTable.setForeground(Color.WHITE);
+        boardTable.setGridColor(new Color(73, 80, 87));
+        boardTable.setFocusable(false);
+        boardTable.setRowSelectionAllowed(false);
+        boardTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 24));
+        boardTable.getTableHeader().setBackground(new Color(0, 123, 255));
+        boardTable.getTableHeader().setForeground(Color.WHITE);
+        boardTable.getTableHeader().setReorderingAllowed(false);
+        
+        DefaultTableCellRenderer servingRenderer = new DefaultTableCellRenderer();
+        servingRenderer.setHorizontalAlignment(SwingConstants.CENTER);
+        servingRenderer.setForeground(HIGHLIGHT);
+        servingRenderer.setBackground(BACKGROUND);
+        boardTable.getColumnModel().getColumn(1).setCellRenderer(servingRenderer);
+        DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
+        centerRenderer.setHorizontalAlignment(SwingConstants.CENTER);
+        boardTable.getColumnModel().getColumn(3).setCellRenderer(centerRenderer);
+        
+        emptyLabel = new JLabel("Loading...", SwingConstants.CENTER);
+        emptyLabel.setFont(new Font("Arial", Font.PLAIN, 18));
+        emptyLabel.setForeground(Color.LIGHT_GRAY);
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout());
+        getContentPane().setBackground(BACKGROUND);
+        
+        JLabel titleLabel = new JLabel("OPD Tokens", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 40));
+        titleLabel.setForeground(Color.WHITE);
+        titleLabel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        
+        JScrollPane scrollPane = new JScrollPane(boardTable);
+        scrollPane.getViewport().setBackground(BACKGROUND);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(0, 40, 20, 40));
+        
+        emptyLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        add(titleLabel, BorderLayout.NORTH);
+        add(scrollPane, BorderLayout.CENTER);
+        add(emptyLabel, BorderLayout.SOUTH);
+    }
+    
+    private void loadDoctorNames() {
+        Map<Integer, String> names = new HashMap<>();
+        for (DoctorSummary doctor : doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>())) {
+            names.put(doctor.getDoctorId(), "Dr. " + doctor.getName());
+        }
+        doctorNames = names;
+    }
+    
+    private void showBoard(TokenBoard board) {
+        if (board == null) {
+            return;
+        }
+        tableModel.setRowCount(0);
+        for (TokenBoard.Line line : board.getLines()) {
+            tableModel.addRow(new Object[] {
+                doctorNames.getOrDefault(line.getDoctorId(), "Doctor #" + line.getDoctorId()),
+                line.getServing() > 0 ? String.valueOf(line.getServing()) : "-",
+                line.getUpNext().stream().map(String::valueOf).collect(Collectors.joining("  ")),
+                line.getWaiting()
+            });
+        }
+        emptyLabel.setText(board.getLines().isEmpty() ? "No tokens issued yet today" : "Press Esc to close");
+    }
+    
+    @Override
+    public void dispose() {
+        TokenQueue.getInstance().removeListener(boardListener);
+        ChangeFeed.getInstance().removeListener("doctors", doctorListener);
+        super.dispose();
+    }
+}
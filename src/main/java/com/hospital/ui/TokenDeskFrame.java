@@ -0,0 +1,194 @@
+package com.hospital.ui;
+
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.model.DoctorSummary;
+import com.hospital.model.TokenEvent;
+import com.hospital.model.User;
+import com.hospital.scheduling.TokenBoard;
+import com.hospital.scheduling.TokenQueue;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Walk-in desk: issues OPD tokens and calls the next patient for a doctor
+ */
+public class TokenDeskFrame extends JFrame {
+    private User currentUser;
+    private DoctorDAO doctorDAO;
+    private JComboBox<DoctorSummary> doctorCombo;
+    private JTextField patientNameField;
+    private JButton issueButton, callNextButton, doneButton, boardButton;
+    private JLabel servingLabel, waitingLabel;
+    private final TokenQueue.Listener boardListener = board -> showLine();
+    
+    public TokenDeskFrame(User user) {
+        this.currentUser = user;
+        this.doctorDAO = new DoctorDAO();
+        
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+        showLine();
+        TokenQueue.getInstance().addListener(boardListener);
+        
+        setTitle("Walk-in Tokens");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        pack();
+        setLocationRelativeTo(null);
+    }
+    
+    private void initializeComponents() {
+        List<DoctorSummary> doctors = doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>()
+                .sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC));
+        doctorCombo = new JComboBox<>(doctors.toArray(new DoctorSummary[0]));
+        doctorCombo.setFont(new Font("Arial", Font.PLAIN, 14));
+        
+        patientNameField = new JTextField(20);
+        patientNameField.setFont(new Font("Arial", Font.PLAIN, 14));
+        
+        issueButton = createStyledButton("Issue Token", new Color(40, 167, 69));
+        callNextButton = createStyledButton("Call Next", new Color(0, 123, 255));
+        doneButton = createStyledButton("Done", new Color(108, 117, 125));
+        boardButton = createStyledButton("Open Display Board", new Color(111, 66, 193));
+        
+        servingLabel = new JLabel();
+        servingLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        waitingLabel = new JLabel();
+        waitingLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+    }
+    
+    private JButton createStyledButton(String text, Color color) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setBackground(color);
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        button.setOpaque(true);
+        button.setBorderPainted(false);
+        return button;
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout());
+        
+        // Header
+        JPanel headerPanel = new JPanel();
+        headerPanel.setBackground(new Color(0, 123, 255));
+        headerPanel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
+        JLabel titleLabel = new JLabel("Walk-in Tokens");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(Color.WHITE);
+        headerPanel.add(titleLabel);
+        
+        // Form
+        JPanel formPanel = new JPanel(new GridBagLayout());
+        formPanel.setBackground(Color.WHITE);
+        formPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 10, 20));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.anchor = GridBagConstraints.WEST;
+        
+        gbc.gridx = 0; gbc.gridy = 0;
+        formPanel.add(new JLabel("Doctor:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL;
+        formPanel.add(doctorCombo, gbc);
+        
+        gbc.gridx = 0; gbc.gridy = 1; gbc.fill = GridBagConstraints.NONE;
+        formPanel.add(new JLabel("Patient name:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL;
+        formPanel.add(patientNameField, gbc);
+        
+        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2;
+        formPanel.add(servingLabel, gbc);
+        gbc.gridy = 3;
+        formPanel.add(waitingLabel, gbc);
+        
+        // Buttons
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        buttonPanel.setBackground(Color.WHITE);
+        buttonPanel.add(issueButton);
+        buttonPanel.add(callNextButton);
+        buttonPanel.add(doneButton);
+        buttonPanel.add(boardButton);
+        
+        add(headerPanel, BorderLayout.NORTH);
+        add(formPanel, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+    
+    private void setupEventHandlers() {
+        doctorCombo.addActionListener(e -> showLine());
+        issueButton.addActionListener(e -> issueToken());
+        callNextButton.addActionListener(e -> callNext());
+        doneButton.addActionListener(e -> {
+            if (selectedDoctor() != null) {
+                TokenQueue.getInstance().complete(selectedDoctor().getDoctorId());
+            }
+        });
+        boardButton.addActionListener(e -> new TokenBoardFrame().setVisible(true));
+    }
+    
+    private DoctorSummary selectedDoctor() {
+        return (DoctorSummary) doctorCombo.getSelectedItem();
+    }
+    
+    private void issueToken() {
+        DoctorSummary doctor = selectedDoctor();
+        String patientName = patientNameField.getText().trim();
+        if (doctor == null || patientName.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "Please choose a doctor and enter the patient's name.",
+                "Validation Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        TokenEvent token = TokenQueue.getInstance().issue(doctor.getDoctorId(), patientName);
+        if (token == null) {
+            JOptionPane.showMessageDialog(this,
+                "The token queue is still loading. Please try again in a moment.",
+                "Walk-in Tokens", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        patientNameField.setText("");
+        JOptionPane.showMessageDialog(this,
+            "Token " + token.getTokenNumber() + " for " + patientName + " with Dr. " + doctor.getName(),
+            "Token Issued", JOptionPane.INFORMATION_MESSAGE);
+    }
+    
+    private void callNext() {
+        DoctorSummary doctor = selectedDoctor();
+        if (doctor != null && TokenQueue.getInstance().callNext(doctor.getDoctorId()) == null
+                && TokenQueue.getInstance().isReady()) {
+            JOptionPane.showMessageDialog(this,
+                "Nobody is waiting for Dr. " + doctor.getName() + ".",
+                "Walk-in Tokens", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    private void showLine() {
+        DoctorSummary doctor = selectedDoctor();
+        TokenBoard board = TokenQueue.getInstance().getBoard();
+        TokenBoard.Line line = doctor != null && board != null ? board.getLine(doctor.getDoctorId()) : null;
+        if (line == null) {
+            servingLabel.setText("Now serving: -");
+            waitingLabel.setText(board == null ? "Loading..." : "No tokens issued today");
+        } else {
+            servingLabel.setText("Now serving: " + (line.getServing() > 0
+                    ? line.getServing() + " (" + line.getServingPatient() + ")" : "-"));
+            waitingLabel.setText("Waiting: " + line.getWaiting() + (line.getUpNext().isEmpty() ? "" : "  Next: " +
+                    line.getUpNext().stream().map(String::valueOf).collect(Collectors.joining(", "))));
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        TokenQueue.getInstance().removeListener(boardListener);
+        super.dispose();
+    }
+}
@@ -0,0 +1,296 @@
+package com.hospital.ui;
+
+import com.hospital.dao.ChangeFeed;
+import com.hospital.dao.Criteria;
+import com.hospital.dao.DoctorDAO;
+import com.hospital.dao.PatientDAO;
+import com.hospital.dao.WaitlistDAO;
+import com.hospital.model.Appointment;
+import com.hospital.model.DoctorSummary;
+import com.hospital.model.PatientSummary;
+import com.hospital.model.User;
+import com.hospital.model.WaitlistEntry;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Patients waiting for a cancellation, in the order they will be offered
+ * a freed slot. Follows the waitlist table on ChangeFeed, so entries booked
+ * by WaitlistBackfill or changed at other desks drop off by themselves.
+ */
+public class WaitlistFrame extends JFrame {
+    private static final Integer[] DURATIONS = {15, 30, 45, 60, 90};
+    private static final DateTimeFormatter WAITING_SINCE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    private User currentUser;
+    private WaitlistDAO waitlistDAO;
+    private PatientDAO patientDAO;
+    private DoctorDAO doctorDAO;
+    private JTable waitlistTable;
+    private DefaultTableModel tableModel;
+    private JButton addButton, removeButton, refreshButton;
+    private final ChangeFeed.Listener changeListener = events -> loadEntries();
+    
+    public WaitlistFrame(User user) {
+        this.currentUser = user;
+        this.waitlistDAO = new WaitlistDAO();
+        this.patientDAO = new PatientDAO();
+        this.doctorDAO = new DoctorDAO();
+        
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+        loadEntries();
+        ChangeFeed.getInstance().addListener("waitlist", changeListener);
+        
+        setTitle("Waitlist");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(1100, 600);
+        setLocationRelativeTo(null);
+    }
+    
+    private void initializeComponents() {
+        String[] columnNames = {"ID", "Patient", "Doctor", "Specialization", "Urgency", "Minutes",
+                                "Dates", "Waiting Since", "Notes"};
+        tableModel = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        
+        waitlistTable = new JTable(tableModel);
+        waitlistTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        waitlistTable.setRowHeight(25);
+        waitlistTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
+        waitlistTable.setFont(new Font("Arial", Font.PLAIN, 12));
+        
+        addButton = createStyledButton("Add to Waitlist", new Color(40, 167, 69));
+        removeButton = createStyledButton("Remove", new Color(220, 53, 69));
+        refreshButton = createStyledButton("Refresh", new Color(108, 117, 125));
+    }
+    
+    private JButton createStyledButton(String text, Color color) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setBackground(color);
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        button.setOpaque(true);
+        button.setBorderPainted(false);
+        return button;
+    }
+    
+    private void setupLayout() {
+        setLayout(new BorderLayout());
+        
+        // Header Panel
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setBackground(new Color(0, 123, 255));
+        headerPanel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
+        
+        JLabel titleLabel = new JLabel("Waitlist (most urgent first, then longest waiting)");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        titleLabel.setForeground(Color.WHITE);
+        
+        headerPanel.add(titleLabel, BorderLayout.WEST);
+        
+        // Table Panel
+        JScrollPane scrollPane = new JScrollPane(waitlistTable);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        
+        // Button Panel
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        buttonPanel.setBackground(Color.WHITE);
+        buttonPanel.add(addButton);
+        buttonPanel.add(removeButton);
+        buttonPanel.add(refreshButton);
+        
+        add(headerPanel, BorderLayout.NORTH);
+        add(scrollPane, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+    
+    private void setupEventHandlers() {
+        addButton.addActionListener(e -> addEntry());
+        removeButton.addActionListener(e -> removeSelectedEntry());
+        refreshButton.addActionListener(e -> loadEntries());
+    }
+    
+    private void loadEntries() {
+        tableModel.setRowCount(0);
+        try {
+            for (WaitlistEntry entry : waitlistDAO.getWaitingEntries()) {
+                tableModel.addRow(new Object[] {
+                    entry.getWaitlistId(),
+                    entry.getPatientName(),
+                    entry.getDoctorName() != null ? "Dr. " + entry.getDoctorName() : "Any",
+                    entry.getSpecialization(),
+                    entry.getUrgency(),
+                    entry.getDurationMinutes(),
+                    formatWindow(entry),
+                    entry.getCreatedAt() != null ? entry.getCreatedAt().format(WAITING_SINCE) : "",
+                    entry.getNotes()
+                });
+            }
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this,
+                "Error loading waitlist: " + e.getMessage(),
+                "Database Error", JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        }
+    }
+    
+    private static String formatWindow(WaitlistEntry entry) {
+        if (entry.getEarliestDate() == null && entry.getLatestDate() == null) {
+            return "Any";
+        }
+        return (entry.getEarliestDate() != null ? entry.getEarliestDate().toString() : "...") + " - " +
+               (entry.getLatestDate() != null ? entry.getLatestDate().toString() : "...");
+    }
+    
+    private void addEntry() {
+        List<PatientSummary> patients = patientDAO.findPatientSummaries(new Criteria<PatientDAO.Field>()
+                .sortBy(PatientDAO.Field.NAME, Criteria.Direction.ASC));
+        List<DoctorSummary> doctors = doctorDAO.findDoctorSummaries(new Criteria<DoctorDAO.Field>()
+                .sortBy(DoctorDAO.Field.NAME, Criteria.Direction.ASC));
+        if (patients.isEmpty() || doctors.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "Add patients and doctors before using the waitlist.",
+                "Waitlist", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        JComboBox<PatientSummary> patientCombo = new JComboBox<>(patients.toArray(new PatientSummary[0]));
+        JComboBox<Object> doctorCombo = new JComboBox<>();
+        doctorCombo.addItem("Any doctor");
+        Set<String> specializations = new TreeSet<>();
+        for (DoctorSummary doctor : doctors) {
+            doctorCombo.addItem(doctor);
+            if (doctor.getSpecialization() != null) {
+                specializations.add(doctor.getSpecialization());
+            }
+        }
+        JComboBox<String> specializationCombo = new JComboBox<>(specializations.toArray(new String[0]));
+        doctorCombo.addActionListener(e -> {
+            boolean anyDoctor = !(doctorCombo.getSelectedItem() instanceof DoctorSummary);
+            if (!anyDoctor) {
+                specializationCombo.setSelectedItem(((DoctorSummary) doctorCombo.getSelectedItem()).getSpecialization());
+            }
+            specializationCombo.setEnabled(anyDoctor);
+        });
+        JSpinner urgencySpinner = new JSpinner(new SpinnerNumberModel(3, WaitlistEntry.MIN_URGENCY,
+                                                                      WaitlistEntry.MAX_URGENCY, 1));
+        JComboBox<Integer> durationCombo = new JComboBox<>(DURATIONS);
+        durationCombo.setSelectedItem(Appointment.DEFAULT_DURATION_MINUTES);
+        JTextField earliestField = new JTextField(LocalDate.now().toString(), 10);
+        JTextField latestField = new JTextField(10);
+        JTextField notesField = new JTextField(20);
+        
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Patient:"));
+        form.add(patientCombo);
+        form.add(new JLabel("Doctor:"));
+        form.add(doctorCombo);
+        form.add(new JLabel("Specialization:"));
+        form.add(specializationCombo);
+        form.add(new JLabel("Urgency (" + WaitlistEntry.MIN_URGENCY + "-" + WaitlistEntry.MAX_URGENCY + "):"));
+        form.add(urgencySpinner);
+        form.add(new JLabel("Duration (min):"));
+        form.add(durationCombo);
+        form.add(new JLabel("Earliest date (YYYY-MM-DD):"));
+        form.add(earliestField);
+        form.add(new JLabel("Latest date (optional):"));
+        form.add(latestField);
+        form.add(new JLabel("Notes:"));
+        form.add(notesField);
+        
+        int choice = JOptionPane.showConfirmDialog(this, form, "Add to Waitlist",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+        
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatientId(((PatientSummary) patientCombo.getSelectedItem()).getPatientId());
+        if (doctorCombo.getSelectedItem() instanceof DoctorSummary) {
+            DoctorSummary doctor = (DoctorSummary) doctorCombo.getSelectedItem();
+            entry.setDoctorId(doctor.getDoctorId());
+            entry.setSpecialization(doctor.getSpecialization());
+        } else {
+            entry.setSpecialization((String) specializationCombo.getSelectedItem());
+        }
+        entry.setUrgency((Integer) urgencySpinner.getValue());
+        entry.setDurationMinutes((Integer) durationCombo.getSelectedItem());
+        entry.setNotes(notesField.getText().trim().isEmpty() ? null : notesField.getText().trim());
+        try {
+            String earliest = earliestField.getText().trim();
+            String latest = latestField.getText().trim();
+            entry.setEarliestDate(earliest.isEmpty() ? null : LocalDate.parse(earliest));
+            entry.setLatestDate(latest.isEmpty() ? null : LocalDate.parse(latest));
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this,
+                "Please enter dates in YYYY-MM-DD format.",
+                "Validation Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (entry.getEarliestDate() != null && entry.getLatestDate() != null
+                && entry.getLatestDate().isBefore(entry.getEarliestDate())) {
+            JOptionPane.showMessageDialog(this,
+                "The latest date must not be before the earliest date.",
+                "Validation Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        if (waitlistDAO.addEntry(entry) != null) {
+            loadEntries();
+        } else {
+            JOptionPane.showMessageDialog(this,
+                "Failed to add the patient to the waitlist.",
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    private void removeSelectedEntry() {
+        int selectedRow = waitlistTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this,
+                "Please select an entry to remove.",
+                "No Selection", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        int waitlistId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        String patientName = (String) tableModel.getValueAt(selectedRow, 1);
+        int choice = JOptionPane.showConfirmDialog(this,
+            "Remove " + patientName + " from the waitlist?",
+            "Remove Confirmation",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.WARNING_MESSAGE);
+        
+        if (choice == JOptionPane.YES_OPTION) {
+            if (!waitlistDAO.removeEntry(waitlistId)) {
+                JOptionPane.showMessageDialog(this,
+                    "This entry is no longer waiting; it may have just been booked.",
+                    "Waitlist", JOptionPane.WARNING_MESSAGE);
+            }
+            loadEntries();
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        ChangeFeed.getInstance().removeListener("waitlist", changeListener);
+        super.dispose();
+    }
+}
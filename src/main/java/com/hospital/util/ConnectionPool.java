@@ -0,0 +1,91 @@
+package com.hospital.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small bounded JDBC connection pool.
+ * At most maxSize connections are handed out at once; borrowers wait up to
+ * the timeout for one to come back. Idle connections are checked before reuse.
+ */
+public class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private final Semaphore permits;
+    private final long borrowTimeoutMs;
+    
+    public ConnectionPool(int maxSize, long borrowTimeoutMs) {
+        this.permits = new Semaphore(maxSize, true);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+    }
+    
+    /**
+     * Take a connection, opening one if none is idle. Give it back with release().
+     */
+    public Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        
+        try {
+            Connection connection;
+            while ((connection = idle.poll()) != null) {
+                if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return connection;
+                }
+                closeQuietly(connection);
+            }
+            return DatabaseConnection.openConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Return a borrowed connection. Broken connections are dropped.
+     */
+    public void release(Connection connection) {
+        try {
+            if (!connection.isClosed()) {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                idle.offer(connection);
+                return;
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * Close every idle connection
+     */
+    public void closeIdle() {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+    
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -9,12 +9,19 @@ import java.sql.SQLException;
  * Handles MySQL database connections using JDBC
  */
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/hospital_management";
-    private static final String USERNAME = "root";
-    private static final String PASSWORD = ""; // Change this to your MySQL password
+    // rewriteBatchedStatements lets Connector/J send a JDBC batch as one multi-row statement.
+    // The hospital.db.* system properties point a tool or test run at another database.
+    private static final String URL = System.getProperty("hospital.db.url",
+            "jdbc:mysql://localhost:3306/hospital_management?rewriteBatchedStatements=true");
+    private static final String USERNAME = System.getProperty("hospital.db.user", "root");
+    private static final String PASSWORD = System.getProperty("hospital.db.password", ""); // Change this to your MySQL password
     private static final String DRIVER = "com.mysql.cj.jdbc.Driver";
     
+    private static final int POOL_SIZE = Integer.getInteger("hospital.db.poolSize", 8);
+    private static final long POOL_TIMEOUT_MS = 10_000;
+    
     private static Connection connection = null;
+    private static final ConnectionPool pool = new ConnectionPool(POOL_SIZE, POOL_TIMEOUT_MS);
     
     static {
         try {
@@ -26,10 +33,17 @@ public class DatabaseConnection {
     }
     
     /**
-     * Get database connection
+     * Get database connection.
+     * Inside a UnitOfWork this is the unit's transactional connection, and
+     * closing it is a no-op until the unit ends.
      * @return Connection object
      */
     public static Connection getConnection() {
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            return unitOfWork.getConnection();
+        }
+        
         try {
             if (connection == null || connection.isClosed()) {
                 connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
@@ -42,6 +56,23 @@ public class DatabaseConnection {
         return connection;
     }
     
+    /**
+     * Open a new connection that is not shared with the DAOs.
+     * Used by background threads that hold a connection for a long time;
+     * the caller is responsible for closing it.
+     * @return Connection object
+     */
+    public static Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(URL, USERNAME, PASSWORD);
+    }
+    
+    /**
+     * Pool used by UnitOfWork and other short-lived background work
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+    
     /**
      * Close database connection
      */
@@ -51,6 +82,7 @@ public class DatabaseConnection {
                 connection.close();
                 System.out.println("Database connection closed.");
             }
+            pool.closeIdle();
         } catch (SQLException e) {
             System.err.println("Error closing database connection!");
             e.printStackTrace();
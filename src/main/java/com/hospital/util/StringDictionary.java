@@ -0,0 +1,51 @@
+package com.hospital.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps repeated strings to small int codes so bulk stores keep one copy
+ * of each distinct value. Code -1 stands for null.
+ */
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    
+    /**
+     * Get the code for a value, adding it on first sight
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+    
+    /**
+     * Get the code for a value without adding it
+     * @return the code, or -1 if the value has never been encoded
+     */
+    public int lookup(String value) {
+        Integer code = value != null ? codes.get(value) : null;
+        return code != null ? code : -1;
+    }
+    
+    public String decode(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+    
+    /**
+     * Number of distinct values
+     */
+    public int size() {
+        return values.size();
+    }
+}
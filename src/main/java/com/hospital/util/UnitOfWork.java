@@ -0,0 +1,333 @@
+package com.hospital.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several DAO calls on one pooled connection as a single transaction.
+ * While a unit is open, DatabaseConnection.getConnection() on the same thread
+ * returns the unit's connection, so existing DAO methods join it unchanged.
+ * If any statement fails the unit becomes rollback-only and commit() throws.
+ *
+ * Example:
+ *   try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+ *       appointmentDAO.updateAppointment(appointment);
+ *       patientDAO.updatePatient(patient);
+ *       unitOfWork.commit();
+ *   }
+ *
+ * Opening a unit while one is already open on the thread joins the outer one;
+ * only the outermost commit() writes. In-memory state that should only change
+ * once the rows are written, such as an entity's version, goes in afterCommit().
+ */
+public class UnitOfWork implements AutoCloseable {
+    
+    /**
+     * Work to run inside UnitOfWork.run(); return false to roll back
+     */
+    public interface Work {
+        boolean run(UnitOfWork unitOfWork) throws SQLException;
+    }
+    
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+    private static final int BATCH_SIZE = 500;
+    
+    private final UnitOfWork outer;
+    private final Connection connection;
+    private final Connection guarded;
+    private final List<Batch> batches = new ArrayList<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private boolean rollbackOnly;
+    private boolean committed;
+    
+    private UnitOfWork(Connection connection) {
+        this.outer = null;
+        this.connection = connection;
+        this.guarded = guard(connection);
+    }
+    
+    private UnitOfWork(UnitOfWork outer) {
+        this.outer = outer;
+        this.connection = outer.connection;
+        this.guarded = outer.guarded;
+    }
+    
+    /**
+     * Start a unit on this thread, or join the one already open
+     */
+    public static UnitOfWork begin() throws SQLException {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            return new UnitOfWork(current);
+        }
+        
+        ConnectionPool pool = DatabaseConnection.getPool();
+        Connection connection = pool.borrow();
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            pool.release(connection);
+            throw e;
+        }
+        UnitOfWork unitOfWork = new UnitOfWork(connection);
+        CURRENT.set(unitOfWork);
+        return unitOfWork;
+    }
+    
+    /**
+     * Run work in its own unit, committing if it returns true
+     * @return true if the work succeeded and was committed
+     */
+    public static boolean run(Work work) {
+        try (UnitOfWork unitOfWork = begin()) {
+            if (!work.run(unitOfWork)) {
+                return false;
+            }
+            unitOfWork.commit();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * The unit open on this thread, or null
+     */
+    public static UnitOfWork current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * The transactional connection; close() on it is ignored
+     */
+    public Connection getConnection() {
+        return guarded;
+    }
+    
+    /**
+     * Prepare a statement to run many times with different parameters.
+     * Rows are sent in batches of 500 and the rest on flush() or commit().
+     */
+    public Batch batch(String sql) throws SQLException {
+        Batch batch = new Batch(connection.prepareStatement(sql));
+        root().batches.add(batch);
+        return batch;
+    }
+    
+    /**
+     * Make sure the outermost commit() rolls back instead
+     */
+    public void setRollbackOnly() {
+        root().rollbackOnly = true;
+    }
+    
+    public boolean isRollbackOnly() {
+        return root().rollbackOnly;
+    }
+    
+    /**
+     * Run the action once the outermost commit() succeeds; it is dropped if the
+     * unit rolls back instead
+     */
+    public void afterCommit(Runnable action) {
+        root().afterCommit.add(action);
+    }
+    
+    /**
+     * Flush pending batches and commit. A joined unit only marks itself done.
+     * @throws SQLException if a statement in the unit failed; everything is rolled back
+     */
+    public void commit() throws SQLException {
+        if (outer != null) {
+            committed = true;
+            return;
+        }
+        
+        try {
+            for (Batch batch : batches) {
+                batch.flush();
+            }
+        } catch (SQLException e) {
+            rollbackOnly = true;
+            throw e;
+        }
+        if (rollbackOnly) {
+            connection.rollback();
+            committed = true;
+            throw new SQLException("Transaction rolled back because a statement failed");
+        }
+        connection.commit();
+        committed = true;
+        for (Runnable action : afterCommit) {
+            action.run();
+        }
+    }
+    
+    /**
+     * Roll back unless committed and give the connection back to the pool
+     */
+    @Override
+    public void close() {
+        if (outer != null) {
+            if (!committed) {
+                outer.rollbackOnly = true;
+            }
+            return;
+        }
+        
+        CURRENT.remove();
+        for (Batch batch : batches) {
+            batch.close();
+        }
+        try {
+            if (!committed) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            DatabaseConnection.getPool().release(connection);
+        }
+    }
+    
+    private UnitOfWork root() {
+        return outer != null ? outer.root() : this;
+    }
+    
+    /**
+     * Wrap the connection so DAO try-with-resources blocks do not close it,
+     * and so any statement that throws marks the unit rollback-only
+     */
+    private Connection guard(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+            try {
+                switch (method.getName()) {
+                    case "close":
+                        return null;
+                    case "prepareStatement":
+                        return guardFailures((PreparedStatement) invoke(target, method, args), PreparedStatement.class);
+                    case "createStatement":
+                        return guardFailures((Statement) invoke(target, method, args), Statement.class);
+                    default:
+                        return invoke(target, method, args);
+                }
+            } catch (SQLException e) {
+                // e.g. a pooled connection the server has dropped
+                rollbackOnly = true;
+                throw e;
+            }
+        });
+    }
+    
+    // Result sets are guarded too, so a streamed read that breaks off part way
+    // fails the unit instead of looking like a short result
+    private <T> T guardFailures(T target, Class<T> type) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                Object result = invoke(target, method, args);
+                if (result instanceof ResultSet && method.getReturnType() == ResultSet.class) {
+                    return guardFailures((ResultSet) result, ResultSet.class);
+                }
+                return result;
+            } catch (SQLException e) {
+                rollbackOnly = true;
+                throw e;
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+    
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * A prepared statement executed as JDBC batches inside the unit
+     */
+    public class Batch {
+        private final PreparedStatement statement;
+        private int pending;
+        private int updateCount;
+        
+        private Batch(PreparedStatement statement) {
+            this.statement = statement;
+        }
+        
+        /**
+         * Queue one execution with the given parameters
+         */
+        public Batch add(Object... parameters) throws SQLException {
+            for (int i = 0; i < parameters.length; i++) {
+                Object value = parameters[i];
+                if (value instanceof LocalDate) {
+                    statement.setDate(i + 1, Date.valueOf((LocalDate) value));
+                } else if (value instanceof LocalTime) {
+                    statement.setTime(i + 1, Time.valueOf((LocalTime) value));
+                } else {
+                    statement.setObject(i + 1, value);
+                }
+            }
+            statement.addBatch();
+            if (++pending >= BATCH_SIZE) {
+                flush();
+            }
+            return this;
+        }
+        
+        /**
+         * Send queued executions now
+         */
+        public void flush() throws SQLException {
+            if (pending == 0) {
+                return;
+            }
+            try {
+                for (int count : statement.executeBatch()) {
+                    // Rewritten batches can report SUCCESS_NO_INFO, counted here as one row
+                    updateCount += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+                }
+            } catch (SQLException e) {
+                setRollbackOnly();
+                throw e;
+            } finally {
+                pending = 0;
+            }
+        }
+        
+        /**
+         * Rows affected by the executions sent so far. An execution the driver
+         * reports as SUCCESS_NO_INFO counts as one row whether or not it matched,
+         * so this cannot tell that an UPDATE missed; check the rows beforehand.
+         */
+        public int getUpdateCount() {
+            return updateCount;
+        }
+        
+        private void close() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.hospital.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoctorScheduleTest {
+    // A Monday
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+    
+    @Test
+    void compilesDayRangeAndWorkingWindow() {
+        DoctorSchedule schedule = DoctorSchedule.compile("Mon-Fri", "09:00-17:00");
+        
+        assertTrue(schedule.worksOn(DayOfWeek.MONDAY));
+        assertTrue(schedule.worksOn(DayOfWeek.FRIDAY));
+        assertFalse(schedule.worksOn(DayOfWeek.SATURDAY));
+        assertEquals(LocalTime.of(9, 0), schedule.getStart());
+        assertEquals(LocalTime.of(17, 0), schedule.getEnd());
+        assertEquals(16, schedule.slotCount(MONDAY));
+        assertEquals(0, schedule.slotCount(MONDAY.plusDays(5)));
+    }
+    
+    @Test
+    void acceptsListsFullNamesAndRangesThatWrapTheWeek() {
+        DoctorSchedule list = DoctorSchedule.compile("Monday, wed,FRI", "09:00-10:00");
+        assertTrue(list.worksOn(DayOfWeek.MONDAY));
+        assertFalse(list.worksOn(DayOfWeek.TUESDAY));
+        assertTrue(list.worksOn(DayOfWeek.WEDNESDAY));
+        assertTrue(list.worksOn(DayOfWeek.FRIDAY));
+        
+        DoctorSchedule wrapping = DoctorSchedule.compile("Fri-Mon", "09:00-10:00");
+        for (DayOfWeek day : DayOfWeek.values()) {
+            boolean expected = day == DayOfWeek.FRIDAY || day == DayOfWeek.SATURDAY
+                    || day == DayOfWeek.SUNDAY || day == DayOfWeek.MONDAY;
+            assertEquals(expected, wrapping.worksOn(day), day.toString());
+        }
+    }
+    
+    @Test
+    void blankDaysMeanEveryDayAndUnknownDaysAreSkipped() {
+        DoctorSchedule blank = DoctorSchedule.compile("  ", "09:00-10:00");
+        for (DayOfWeek day : DayOfWeek.values()) {
+            assertTrue(blank.worksOn(day), day.toString());
+        }
+        
+        DoctorSchedule partlyUnknown = DoctorSchedule.compile("Tue,Someday,Mo", "09:00-10:00");
+        assertTrue(partlyUnknown.worksOn(DayOfWeek.TUESDAY));
+        assertFalse(partlyUnknown.worksOn(DayOfWeek.MONDAY));
+        assertFalse(partlyUnknown.worksOn(DayOfWeek.SUNDAY));
+    }
+    
+    @Test
+    void unreadableOrEmptyWindowGivesNoSlots() {
+        for (String time : new String[] {null, "", "9am-5pm", "09:00", "17:00-09:00", "09:00-09:00"}) {
+            DoctorSchedule schedule = DoctorSchedule.compile("Mon-Sun", time);
+            assertNull(schedule.getStart());
+            assertFalse(schedule.worksOn(MONDAY), String.valueOf(time));
+            assertEquals(0, schedule.slotCount(MONDAY));
+            assertTrue(schedule.slotsOn(MONDAY).isEmpty());
+            assertEquals(-1, schedule.slotIndex(LocalTime.NOON));
+        }
+    }
+    
+    @Test
+    void slotsAndSlotIndexFollowTheWindow() {
+        DoctorSchedule schedule = DoctorSchedule.compile("Mon", " 09:00 - 11:15 ");
+        
+        // The part-slot at the end of the window is dropped
+        assertEquals(Arrays.asList(LocalTime.of(9, 0), LocalTime.of(9, 30), LocalTime.of(10, 0), LocalTime.of(10, 30)),
+                     schedule.slotsOn(MONDAY));
+        assertEquals(0, schedule.slotIndex(LocalTime.of(9, 0)));
+        assertEquals(1, schedule.slotIndex(LocalTime.of(9, 45)));
+        assertEquals(-1, schedule.slotIndex(LocalTime.of(8, 59)));
+        assertEquals(-1, schedule.slotIndex(LocalTime.of(11, 15)));
+    }
+}
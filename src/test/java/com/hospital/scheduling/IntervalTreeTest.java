@@ -0,0 +1,179 @@
+package com.hospital.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the tree's overlap and gap queries against a brute-force scan of
+ * the same intervals, on small days where every answer can be enumerated.
+ */
+class IntervalTreeTest {
+    private static final int DAY = 200;
+    private static final int ROUNDS = 300;
+    
+    @Test
+    void findOverlapsMatchesBruteForceOnDisjointIntervals() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<int[]> intervals = disjointIntervals(random);
+            IntervalTree tree = build(intervals);
+            for (int query = 0; query < 50; query++) {
+                int start = random.nextInt(DAY);
+                int end = start + 1 + random.nextInt(40);
+                assertEquals(overlaps(intervals, start, end), tree.findOverlaps(start, end));
+            }
+        }
+    }
+    
+    @Test
+    void findOverlapsMatchesBruteForceOnOverlappingIntervals() {
+        Random random = new Random(2);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<int[]> intervals = randomIntervals(random);
+            IntervalTree tree = build(intervals);
+            for (int query = 0; query < 50; query++) {
+                int start = random.nextInt(DAY);
+                int end = start + 1 + random.nextInt(40);
+                assertEquals(overlaps(intervals, start, end), tree.findOverlaps(start, end));
+            }
+        }
+    }
+    
+    @Test
+    void overlapsIgnoresTheExcludedId() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(1, 10, 20);
+        tree.insert(2, 30, 40);
+        
+        assertTrue(tree.overlaps(15, 35, 1));
+        assertFalse(tree.overlaps(15, 25, 1));
+        assertFalse(tree.overlaps(20, 30, 0));
+    }
+    
+    @Test
+    void findGapMatchesBruteForceOnDisjointIntervals() {
+        Random random = new Random(3);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<int[]> intervals = disjointIntervals(random);
+            IntervalTree tree = build(intervals);
+            for (int query = 0; query < 50; query++) {
+                int from = random.nextInt(DAY);
+                int to = from + random.nextInt(DAY - from + 1);
+                int length = 1 + random.nextInt(30);
+                assertEquals(gap(intervals, from, to, length), tree.findGap(from, to, length),
+                        "from " + from + " to " + to + " length " + length);
+            }
+        }
+    }
+    
+    @Test
+    void findGapMatchesBruteForceOnOverlappingIntervals() {
+        Random random = new Random(4);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<int[]> intervals = randomIntervals(random);
+            IntervalTree tree = build(intervals);
+            for (int query = 0; query < 50; query++) {
+                int from = random.nextInt(DAY);
+                int to = from + random.nextInt(DAY - from + 1);
+                int length = 1 + random.nextInt(30);
+                assertEquals(gap(intervals, from, to, length), tree.findGap(from, to, length),
+                        "from " + from + " to " + to + " length " + length);
+            }
+        }
+    }
+    
+    @Test
+    void queriesStayCorrectAfterRemovals() {
+        Random random = new Random(5);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<int[]> intervals = randomIntervals(random);
+            IntervalTree tree = build(intervals);
+            for (int i = intervals.size() - 1; i >= 0; i--) {
+                if (random.nextBoolean()) {
+                    int[] removed = intervals.remove(i);
+                    assertTrue(tree.remove(removed[0], removed[1]));
+                }
+            }
+            assertEquals(intervals.size(), tree.size());
+            assertFalse(tree.remove(-1, 0));
+            
+            int start = random.nextInt(DAY);
+            int end = start + 1 + random.nextInt(40);
+            assertEquals(overlaps(intervals, start, end), tree.findOverlaps(start, end));
+            int length = 1 + random.nextInt(30);
+            assertEquals(gap(intervals, 0, DAY, length), tree.findGap(0, DAY, length));
+        }
+    }
+    
+    @Test
+    void findGapOnEmptyTreeOnlyChecksTheRange() {
+        IntervalTree tree = new IntervalTree();
+        
+        assertEquals(5, tree.findGap(5, 20, 15));
+        assertEquals(-1, tree.findGap(5, 19, 15));
+    }
+    
+    /**
+     * Back-to-back bookings with random holes, as on a real day
+     */
+    private static List<int[]> disjointIntervals(Random random) {
+        List<int[]> intervals = new ArrayList<>();
+        int time = random.nextInt(20);
+        for (int id = 1; time < DAY; id++) {
+            int end = time + 1 + random.nextInt(20);
+            intervals.add(new int[] {id, time, end});
+            time = end + (random.nextBoolean() ? 0 : random.nextInt(25));
+        }
+        return intervals;
+    }
+    
+    private static List<int[]> randomIntervals(Random random) {
+        List<int[]> intervals = new ArrayList<>();
+        int count = random.nextInt(25);
+        for (int id = 1; id <= count; id++) {
+            int start = random.nextInt(DAY);
+            intervals.add(new int[] {id, start, start + 1 + random.nextInt(30)});
+        }
+        return intervals;
+    }
+    
+    private static IntervalTree build(List<int[]> intervals) {
+        IntervalTree tree = new IntervalTree();
+        for (int[] interval : intervals) {
+            tree.insert(interval[0], interval[1], interval[2]);
+        }
+        return tree;
+    }
+    
+    private static List<Integer> overlaps(List<int[]> intervals, int start, int end) {
+        List<int[]> matching = new ArrayList<>();
+        for (int[] interval : intervals) {
+            if (interval[1] < end && interval[2] > start) {
+                matching.add(interval);
+            }
+        }
+        matching.sort(Comparator.<int[]>comparingInt(interval -> interval[1]).thenComparingInt(interval -> interval[0]));
+        List<Integer> ids = new ArrayList<>();
+        for (int[] interval : matching) {
+            ids.add(interval[0]);
+        }
+        return ids;
+    }
+    
+    private static int gap(List<int[]> intervals, int from, int to, int length) {
+        for (int start = from; start + length <= to; start++) {
+            if (overlaps(intervals, start, start + length).isEmpty()) {
+                return start;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hospital.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+    
+    @Test
+    void verifiesTheHashedPasswordOnly() {
+        String stored = PasswordHasher.hash("s3cret!");
+        
+        assertTrue(stored.startsWith("pbkdf2-sha512$" + PasswordHasher.ITERATIONS + "$"));
+        assertTrue(PasswordHasher.verify("s3cret!", stored));
+        assertFalse(PasswordHasher.verify("s3cret", stored));
+        assertFalse(PasswordHasher.verify("", stored));
+    }
+    
+    @Test
+    void saltsEveryHash() {
+        String first = PasswordHasher.hash("password");
+        String second = PasswordHasher.hash("password");
+        
+        assertNotEquals(first, second);
+        assertTrue(PasswordHasher.verify("password", first));
+        assertTrue(PasswordHasher.verify("password", second));
+    }
+    
+    @Test
+    void verifiesLegacyPlaintext() {
+        assertTrue(PasswordHasher.verify("admin123", "admin123"));
+        assertFalse(PasswordHasher.verify("admin12", "admin123"));
+        assertFalse(PasswordHasher.verify("admin123", null));
+    }
+    
+    @Test
+    void rejectsMalformedHashes() {
+        assertFalse(PasswordHasher.verify("x", "pbkdf2-sha512$"));
+        assertFalse(PasswordHasher.verify("x", "pbkdf2-sha512$abc$c2FsdA$aGFzaA"));
+        assertFalse(PasswordHasher.verify("x", "pbkdf2-sha512$1000$not base64!$aGFzaA"));
+    }
+    
+    @Test
+    void flagsPlaintextAndWeakerHashesForRehash() {
+        String current = PasswordHasher.hash("password");
+        String[] parts = current.split("\\$");
+        String weaker = parts[0] + "$1000$" + parts[2] + "$" + parts[3];
+        
+        assertFalse(PasswordHasher.needsRehash(current));
+        assertTrue(PasswordHasher.needsRehash(weaker));
+        assertTrue(PasswordHasher.needsRehash("admin123"));
+        assertTrue(PasswordHasher.needsRehash(null));
+        assertTrue(PasswordHasher.needsRehash("pbkdf2-sha512$abc$c2FsdA$aGFzaA"));
+    }
+}